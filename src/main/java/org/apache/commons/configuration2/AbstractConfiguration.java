@@ -38,6 +38,7 @@ import org.apache.commons.configuration2.event.BaseEventSource;
 import org.apache.commons.configuration2.event.ConfigurationErrorEvent;
 import org.apache.commons.configuration2.event.ConfigurationEvent;
 import org.apache.commons.configuration2.event.EventListener;
+import org.apache.commons.configuration2.event.EventType;
 import org.apache.commons.configuration2.ex.ConversionException;
 import org.apache.commons.configuration2.interpol.ConfigurationInterpolator;
 import org.apache.commons.configuration2.interpol.InterpolatorSpecification;
@@ -45,6 +46,7 @@ import org.apache.commons.configuration2.interpol.Lookup;
 import org.apache.commons.configuration2.io.ConfigurationLogger;
 import org.apache.commons.configuration2.sync.LockMode;
 import org.apache.commons.configuration2.sync.NoOpSynchronizer;
+import org.apache.commons.configuration2.sync.OptimisticReadSynchronizer;
 import org.apache.commons.configuration2.sync.Synchronizer;
 import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.ObjectUtils;
@@ -101,6 +103,9 @@ import org.apache.commons.lang3.ObjectUtils;
  */
 public abstract class AbstractConfiguration extends BaseEventSource implements Configuration
 {
+    /** Constant for the start marker of a variable. */
+    private static final String VAR_START = "${";
+
     /** The list delimiter handler. */
     private ListDelimiterHandler listDelimiterHandler;
 
@@ -125,6 +130,9 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
     /** Stores the logger.*/
     private ConfigurationLogger log;
 
+    /** The cache for converted property values; null if disabled. */
+    private volatile ConversionCache conversionCache;
+
     /**
      * Creates a new instance of {@code AbstractConfiguration}.
      */
@@ -218,6 +226,67 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
                     "ConversionHandler must not be null!");
         }
         this.conversionHandler = conversionHandler;
+        clearConversionCache();
+    }
+
+    /**
+     * Returns a flag whether the cache for converted property values is
+     * enabled.
+     *
+     * @return a flag whether converted values are cached
+     * @since 2.5
+     */
+    public boolean isConversionCacheEnabled()
+    {
+        return conversionCache != null;
+    }
+
+    /**
+     * <p>
+     * Enables or disables caching of converted property values. If enabled,
+     * the results of all getter methods performing a data type conversion
+     * (e.g. {@code getInt()}, {@code getLong()}, or
+     * {@code get(Class, String)}) are cached per key and target class. So
+     * repeated queries for the same key do not have to access the
+     * configuration's data and to convert the value again. Only values which
+     * are not subject to interpolation are cached.
+     * </p>
+     * <p>
+     * The cache is invalidated by the change events fired by this
+     * configuration (independent of registered event listeners). Therefore, it
+     * should only be enabled if all changes on the configuration's data are
+     * done via its update methods. Configurations whose data can change
+     * without corresponding events (for instance, a {@link SystemConfiguration}
+     * or a {@link DatabaseConfiguration}) must not use this cache. Per
+     * default, caching is disabled.
+     * </p>
+     *
+     * @param enabled the flag whether converted values should be cached
+     * @since 2.5
+     */
+    public void setConversionCacheEnabled(final boolean enabled)
+    {
+        if (enabled != isConversionCacheEnabled())
+        {
+            conversionCache = enabled ? new ConversionCache() : null;
+        }
+    }
+
+    /**
+     * Removes all values from the cache for converted property values. This
+     * method can be called if the data of this configuration has been changed
+     * in a way not reported by a change event. If caching is disabled, it has
+     * no effect.
+     *
+     * @since 2.5
+     */
+    public void clearConversionCache()
+    {
+        final ConversionCache cache = conversionCache;
+        if (cache != null)
+        {
+            cache.clear();
+        }
     }
 
     /**
@@ -271,6 +340,7 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
     public final void setInterpolator(final ConfigurationInterpolator ci)
     {
         interpolator.set(ci);
+        clearConversionCache();
     }
 
     /**
@@ -651,6 +721,49 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
         getSynchronizer().beginRead();
     }
 
+    /**
+     * Returns a flag whether this configuration allows optimistic reads. This
+     * method is evaluated if the {@link Synchronizer} is an
+     * {@link OptimisticReadSynchronizer}. If it returns <b>true</b>, the
+     * methods {@code getProperty()} and {@code containsKey()} first call
+     * {@code getPropertyInternal()} or {@code containsKeyInternal()}
+     * respectively without a lock; {@code beginRead()} is then not invoked.
+     * The lock is only acquired if a concurrent write operation was detected.
+     * So subclasses may only return <b>true</b> if these methods do not have
+     * side effects and if they do not require the preparations done by an
+     * overridden {@code beginRead()} method. In addition, the data accessed
+     * by these methods must be immutable or safely published, so that a
+     * reader running concurrently to an update never observes an
+     * inconsistent state; this is not the case for mutable maps like a
+     * {@code HashMap}, for instance. Exceptions thrown during an
+     * optimistic read are ignored; the read is then repeated with a lock. This
+     * base implementation returns <b>false</b>.
+     *
+     * @return a flag whether optimistic reads are supported
+     * @since 2.5
+     */
+    protected boolean isOptimisticReadSupported()
+    {
+        return false;
+    }
+
+    /**
+     * Prepares this configuration for a query of the specified key. This
+     * method is called by {@code getProperty()}, {@code containsKey()}, and
+     * the {@code getKeys()} methods before the read lock is acquired. So it
+     * can be used by subclasses to bring data into this configuration which
+     * is needed to answer the query, e.g. by loading it on first access. A key
+     * of <b>null</b> means that all keys may be accessed. An implementation
+     * must be thread-safe and has to do its own synchronization. This base
+     * implementation is empty.
+     *
+     * @param key the key to be queried (may be <b>null</b>)
+     * @since 2.5
+     */
+    protected void prepareQuery(final String key)
+    {
+    }
+
     /**
      * Notifies this configuration's {@link Synchronizer} that a read operation
      * has finished. This method is called by all methods which access this
@@ -699,6 +812,104 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
         getSynchronizer().endWrite();
     }
 
+    /**
+     * {@inheritDoc} This implementation also invalidates the values in the
+     * cache for converted property values and the interpolation results cached
+     * by the {@code ConfigurationInterpolator} affected by the change before
+     * the event is passed to the registered listeners. If
+     * {@link #isKeyBasedCacheInvalidationSupported()} returns <b>false</b>,
+     * these caches are cleared completely. Before a single property is changed
+     * or removed, the interpolation result cached for its old value is
+     * discarded because this value is no longer used.
+     */
+    @Override
+    protected <T extends ConfigurationEvent> void fireEvent(final EventType<T> type,
+            final String propName, final Object propValue, final boolean before)
+    {
+        if (before)
+        {
+            evictReplacedValue(type, propName);
+        }
+        else
+        {
+            final String changedKey =
+                    isKeyBasedCacheInvalidationSupported() ? propName : null;
+            final ConversionCache cache = conversionCache;
+            if (cache != null)
+            {
+                cache.changed(type, changedKey);
+            }
+            invalidateInterpolationCache(type, changedKey);
+        }
+        super.fireEvent(type, propName, propValue, before);
+    }
+
+    /**
+     * Returns a flag whether the key of a change event for a single property
+     * can be used to determine the cached values affected by this change.
+     * This is the case if every key identifies a property in a unique way, so
+     * that only cached keys starting with the changed key (or vice versa)
+     * have to be invalidated. If this method returns <b>false</b>, the caches
+     * for converted and interpolated values are cleared completely on each
+     * change. This base implementation returns <b>true</b>.
+     *
+     * @return a flag whether caches can be invalidated based on property keys
+     * @since 2.5
+     */
+    protected boolean isKeyBasedCacheInvalidationSupported()
+    {
+        return true;
+    }
+
+    /**
+     * Removes the interpolation result cached for the current value of a
+     * property which is about to be changed or removed. This method is called
+     * while the write lock is held, so the value can be accessed directly.
+     *
+     * @param type the type of the change event
+     * @param propName the name of the affected property (can be <b>null</b>)
+     */
+    private void evictReplacedValue(final EventType<?> type,
+            final String propName)
+    {
+        final ConfigurationInterpolator ci = getInterpolator();
+        if (propName != null
+                && ci != null
+                && ci.isEnableCaching()
+                && isKeyBasedCacheInvalidationSupported()
+                && (ConfigurationEvent.SET_PROPERTY.equals(type)
+                        || ConfigurationEvent.CLEAR_PROPERTY.equals(type)))
+        {
+            ci.invalidateCachedValue(getPropertyInternal(propName));
+        }
+    }
+
+    /**
+     * Invalidates the results cached by the {@code ConfigurationInterpolator}
+     * of this configuration after a change. If the change affects a single
+     * property, only results referencing this property are removed;
+     * otherwise, the whole cache is cleared.
+     *
+     * @param type the type of the change event
+     * @param propName the name of the affected property (can be <b>null</b>)
+     */
+    private void invalidateInterpolationCache(final EventType<?> type,
+            final String propName)
+    {
+        final ConfigurationInterpolator ci = getInterpolator();
+        if (ci != null && ci.isEnableCaching())
+        {
+            if (propName != null && ConversionCache.isPropertyEvent(type))
+            {
+                ci.invalidateCache(propName);
+            }
+            else
+            {
+                ci.clearCache();
+            }
+        }
+    }
+
     @Override
     public final void addProperty(final String key, final Object value)
     {
@@ -929,6 +1140,7 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
     @Override
     public final Iterator<String> getKeys()
     {
+        prepareQuery(null);
         beginRead(false);
         try
         {
@@ -950,6 +1162,7 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
     @Override
     public final Iterator<String> getKeys(final String prefix)
     {
+        prepareQuery(prefix);
         beginRead(false);
         try
         {
@@ -991,11 +1204,36 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
     /**
      * {@inheritDoc} This implementation ensures proper synchronization.
      * Subclasses have to define the abstract {@code getPropertyInternal()}
-     * method which is called from here.
+     * method which is called from here. If the {@code Synchronizer} supports
+     * optimistic reads and this configuration allows them (see
+     * {@link #isOptimisticReadSupported()}), the property is read without a
+     * lock first.
      */
     @Override
     public final Object getProperty(final String key)
     {
+        prepareQuery(key);
+        final OptimisticReadSynchronizer sync = fetchOptimisticReadSynchronizer();
+        if (sync != null)
+        {
+            final long stamp = sync.tryOptimisticRead();
+            if (stamp != 0)
+            {
+                try
+                {
+                    final Object value = getPropertyInternal(key);
+                    if (sync.validate(stamp))
+                    {
+                        return value;
+                    }
+                }
+                catch (final RuntimeException rex)
+                {
+                    // caused by a concurrent update; fall back to a locked read
+                }
+            }
+        }
+
         beginRead(false);
         try
         {
@@ -1090,6 +1328,28 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
     @Override
     public final boolean containsKey(final String key)
     {
+        prepareQuery(key);
+        final OptimisticReadSynchronizer sync = fetchOptimisticReadSynchronizer();
+        if (sync != null)
+        {
+            final long stamp = sync.tryOptimisticRead();
+            if (stamp != 0)
+            {
+                try
+                {
+                    final boolean result = containsKeyInternal(key);
+                    if (sync.validate(stamp))
+                    {
+                        return result;
+                    }
+                }
+                catch (final RuntimeException rex)
+                {
+                    // caused by a concurrent update; fall back to a locked read
+                }
+            }
+        }
+
         beginRead(false);
         try
         {
@@ -1588,6 +1848,22 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
         return ClassUtils.wrapperToPrimitive(value.getClass()) != null;
     }
 
+    /**
+     * {@inheritDoc} This implementation ensures that the clone does not share
+     * the cache for converted property values with this object. If caching is
+     * enabled, the clone gets its own, empty cache.
+     */
+    @Override
+    protected Object clone() throws CloneNotSupportedException
+    {
+        final AbstractConfiguration copy = (AbstractConfiguration) super.clone();
+        if (isConversionCacheEnabled())
+        {
+            copy.conversionCache = new ConversionCache();
+        }
+        return copy;
+    }
+
     /**
      * Copies the content of the specified configuration into this
      * configuration. If the specified configuration contains a key that is also
@@ -1757,12 +2033,27 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
      */
     private <T> T getAndConvertProperty(final Class<T> cls, final String key, final T defaultValue)
     {
+        final ConversionCache cache = conversionCache;
+        final Object cachedValue = (cache != null) ? cache.get(cls, key) : null;
+        if (cachedValue != null)
+        {
+            @SuppressWarnings("unchecked")
+            final T result = (cachedValue == ConversionCache.NULL) ? defaultValue
+                    : (T) cachedValue;
+            return result;
+        }
+
+        final long modCount = (cache != null) ? cache.getModificationCount() : 0;
         final Object value = getProperty(key);
         try
         {
-            return ObjectUtils.defaultIfNull(
-                    getConversionHandler().to(value, cls, getInterpolator()),
-                    defaultValue);
+            final T result =
+                    getConversionHandler().to(value, cls, getInterpolator());
+            if (cache != null && isCacheable(value))
+            {
+                cache.put(cls, key, result, modCount);
+            }
+            return ObjectUtils.defaultIfNull(result, defaultValue);
         }
         catch (final ConversionException cex)
         {
@@ -1774,6 +2065,47 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
         }
     }
 
+    /**
+     * Returns the {@code Synchronizer} of this configuration if it can be used
+     * for optimistic reads. Result is <b>null</b> if the synchronizer does not
+     * support this mode or if this configuration does not allow it.
+     *
+     * @return the {@code OptimisticReadSynchronizer} or <b>null</b>
+     */
+    private OptimisticReadSynchronizer fetchOptimisticReadSynchronizer()
+    {
+        final Synchronizer sync = getSynchronizer();
+        return (sync instanceof OptimisticReadSynchronizer
+                && isOptimisticReadSupported()) ? (OptimisticReadSynchronizer) sync
+                : null;
+    }
+
+    /**
+     * Checks whether the converted value of the given raw property value can
+     * be stored in the conversion cache. This is the case for undefined
+     * properties and scalar values which are not affected by interpolation.
+     * Strings containing the start marker of a variable are never cached,
+     * even if the variable cannot be resolved currently: it may be defined
+     * later, and the change event for this variable does not affect the
+     * cached key.
+     *
+     * @param value the raw property value
+     * @return a flag whether the converted value can be cached
+     */
+    private boolean isCacheable(final Object value)
+    {
+        if (value == null)
+        {
+            return true;
+        }
+        if (value instanceof String)
+        {
+            return getInterpolator() == null
+                    || !((String) value).contains(VAR_START);
+        }
+        return !(value instanceof Iterable) && !value.getClass().isArray();
+    }
+
     /**
      * Helper method for obtaining a property value with a type conversion.
      *
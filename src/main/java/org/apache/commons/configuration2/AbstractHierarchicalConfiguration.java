@@ -307,6 +307,33 @@ public abstract class AbstractHierarchicalConfiguration<T> extends AbstractConfi
         return (list.size() == 1) ? list.get(0) : list;
     }
 
+    /**
+     * {@inheritDoc} Queries on the node model operate on immutable node
+     * structures and do not have any side effects; so this implementation
+     * returns <b>true</b>.
+     *
+     * @since 2.5
+     */
+    @Override
+    protected boolean isOptimisticReadSupported()
+    {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc} The same property can be addressed by different keys, for
+     * instance with or without indices or via other features of the
+     * expression engine; so a changed key cannot be mapped reliably to the
+     * keys in the caches. Therefore, this implementation returns <b>false</b>.
+     *
+     * @since 2.5
+     */
+    @Override
+    protected boolean isKeyBasedCacheInvalidationSupported()
+    {
+        return false;
+    }
+
     /**
      * Adds the property with the specified key. This task will be delegated to
      * the associated {@code ExpressionEngine}, so the passed in key
@@ -488,7 +515,7 @@ public abstract class AbstractHierarchicalConfiguration<T> extends AbstractConfi
     public NodeUpdateData<T> resolveUpdateKey(final T root, final String key,
             final Object newValue, final NodeHandler<T> handler)
     {
-        final Iterator<QueryResult<T>> itNodes = fetchNodeList(key).iterator();
+        final Iterator<QueryResult<T>> itNodes = resolveKey(root, key, handler).iterator();
         final Iterator<?> itValues = getListDelimiterHandler().parse(newValue).iterator();
         final Map<QueryResult<T>, Object> changedValues =
                 new HashMap<>();
@@ -709,6 +736,7 @@ public abstract class AbstractHierarchicalConfiguration<T> extends AbstractConfi
     @Override
     public final int getMaxIndex(final String key)
     {
+        prepareQuery(key);
         beginRead(false);
         try
         {
@@ -30,7 +30,9 @@ import org.apache.commons.configuration2.event.ConfigurationEvent;
 import org.apache.commons.configuration2.event.EventListener;
 import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
 import org.apache.commons.configuration2.interpol.ConfigurationInterpolator;
+import org.apache.commons.configuration2.tree.BatchUpdate;
 import org.apache.commons.configuration2.tree.ConfigurationNodeVisitorAdapter;
+import org.apache.commons.configuration2.tree.ExpressionEngine;
 import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.apache.commons.configuration2.tree.InMemoryNodeModel;
 import org.apache.commons.configuration2.tree.InMemoryNodeModelSupport;
@@ -57,6 +59,12 @@ public class BaseHierarchicalConfiguration extends AbstractHierarchicalConfigura
     /** A listener for reacting on changes caused by sub configurations. */
     private final EventListener<ConfigurationEvent> changeListener;
 
+    /** A flag whether the index for resolved keys is enabled. */
+    private volatile boolean keyIndexEnabled;
+
+    /** The index for resolved keys for the current root node. */
+    private volatile NodeKeyIndex keyIndex;
+
     /**
      * Creates a new instance of {@code BaseHierarchicalConfiguration}.
      */
@@ -101,6 +109,146 @@ public class BaseHierarchicalConfiguration extends AbstractHierarchicalConfigura
         return (InMemoryNodeModel) super.getNodeModel();
     }
 
+    /**
+     * Returns a flag whether the index for resolved keys is enabled.
+     *
+     * @return a flag whether keys are resolved using an index
+     * @since 2.5
+     */
+    public boolean isKeyIndexEnabled()
+    {
+        return keyIndexEnabled;
+    }
+
+    /**
+     * <p>
+     * Enables or disables the index for resolved keys. Per default, each
+     * access to a property evaluates the key using the current
+     * {@code ExpressionEngine}, which means navigating through the node
+     * structure. If the index is enabled, the results of these evaluations
+     * are stored per key, so that the next access to the same key requires
+     * only a single lookup in a hash map.
+     * </p>
+     * <p>
+     * The index is bound to the current root node of this configuration.
+     * Because nodes are immutable, every change of the configuration produces
+     * a new root node; the index is then discarded and populated again when
+     * keys are accessed. Therefore, the index is most useful for
+     * configurations which are read frequently, but changed rarely, e.g.
+     * configurations loaded from a file. Changing the expression engine also
+     * discards the index. The number of keys stored in the index is limited.
+     * </p>
+     *
+     * @param enabled the flag whether an index for resolved keys is to be
+     *        used
+     * @since 2.5
+     */
+    public void setKeyIndexEnabled(final boolean enabled)
+    {
+        keyIndexEnabled = enabled;
+        keyIndex = null;
+    }
+
+    /**
+     * {@inheritDoc} If the index for resolved keys is enabled, this
+     * implementation first checks whether the results of this key are
+     * already available. Otherwise, the key is evaluated by the expression
+     * engine, and the results are added to the index. Note that in this case
+     * the returned list must not be modified. The index is only used for
+     * keys resolved on the current root node of this configuration's node
+     * model; keys resolved on other trees (e.g. by sub configurations tracking
+     * a node or by a batch update in progress) are evaluated directly, so
+     * that they do not replace the index.
+     */
+    @Override
+    public List<QueryResult<ImmutableNode>> resolveKey(final ImmutableNode root,
+            final String key, final NodeHandler<ImmutableNode> handler)
+    {
+        if (!isKeyIndexEnabled() || key == null
+                || root != getModel().getNodeHandler().getRootNode())
+        {
+            return super.resolveKey(root, key, handler);
+        }
+
+        final NodeKeyIndex index = fetchKeyIndex(root, handler);
+        final List<QueryResult<ImmutableNode>> results = index.get(key);
+        if (results != null)
+        {
+            return results;
+        }
+        return index.put(key, super.resolveKey(root, key, handler));
+    }
+
+    /**
+     * Creates a new {@code Batch} object for this configuration. The batch
+     * can be used to record an arbitrary number of update operations which
+     * are then applied to this configuration in a single step.
+     *
+     * @return the new {@code Batch}
+     * @since 2.5
+     */
+    public Batch createBatch()
+    {
+        return new Batch();
+    }
+
+    /**
+     * Executes all operations of the given {@code BatchUpdate} on this
+     * configuration. Before and after the update, a single event of type
+     * {@link ConfigurationEvent#BATCH_UPDATE} is fired. Most clients will
+     * use a {@link Batch} object obtained from {@link #createBatch()}
+     * instead of calling this method directly. Note that the values of add
+     * operations are not split by the list delimiter handler.
+     *
+     * @param batch the {@code BatchUpdate} to be executed
+     * @since 2.5
+     */
+    public void updateBatch(final BatchUpdate batch)
+    {
+        if (batch.isEmpty())
+        {
+            return;
+        }
+
+        beginWrite(false);
+        try
+        {
+            fireEvent(ConfigurationEvent.BATCH_UPDATE, null, batch, true);
+            updateBatchInternal(batch);
+            fireEvent(ConfigurationEvent.BATCH_UPDATE, null, batch, false);
+        }
+        finally
+        {
+            endWrite();
+        }
+    }
+
+    /**
+     * Actually executes a batch of update operations. This method is called
+     * by {@code updateBatch()}. It delegates to the node model. If the model
+     * does not support batch updates, the operations are executed one by
+     * one.
+     *
+     * @param batch the {@code BatchUpdate} to be executed
+     * @since 2.5
+     */
+    protected void updateBatchInternal(final BatchUpdate batch)
+    {
+        final NodeModel<ImmutableNode> model = getModel();
+        if (model instanceof InMemoryNodeModel)
+        {
+            ((InMemoryNodeModel) model).updateBatch(batch, this);
+        }
+        else if (model instanceof TrackedNodeModel)
+        {
+            ((TrackedNodeModel) model).updateBatch(batch, this);
+        }
+        else
+        {
+            batch.applyTo(model, this);
+        }
+    }
+
     /**
      * Creates a new {@code Configuration} object containing all keys
      * that start with the specified prefix. This implementation will return a
@@ -123,6 +271,7 @@ public class BaseHierarchicalConfiguration extends AbstractHierarchicalConfigura
     @Override
     public Configuration subset(final String prefix)
     {
+        prepareQuery(prefix);
         beginRead(false);
         try
         {
@@ -227,6 +376,7 @@ public class BaseHierarchicalConfiguration extends AbstractHierarchicalConfigura
     public HierarchicalConfiguration<ImmutableNode> configurationAt(final String key,
             final boolean supportUpdates)
     {
+        prepareQuery(key);
         beginRead(false);
         try
         {
@@ -445,6 +595,7 @@ public class BaseHierarchicalConfiguration extends AbstractHierarchicalConfigura
     public List<HierarchicalConfiguration<ImmutableNode>> configurationsAt(
             final String key)
     {
+        prepareQuery(key);
         List<ImmutableNode> nodes;
         beginRead(false);
         try
@@ -482,6 +633,7 @@ public class BaseHierarchicalConfiguration extends AbstractHierarchicalConfigura
             return configurationsAt(key);
         }
 
+        prepareQuery(key);
         InMemoryNodeModel parentModel;
         beginRead(false);
         try
@@ -520,6 +672,7 @@ public class BaseHierarchicalConfiguration extends AbstractHierarchicalConfigura
     public List<HierarchicalConfiguration<ImmutableNode>> childConfigurationsAt(
             final String key)
     {
+        prepareQuery(key);
         List<ImmutableNode> nodes;
         beginRead(false);
         try
@@ -563,6 +716,7 @@ public class BaseHierarchicalConfiguration extends AbstractHierarchicalConfigura
             return childConfigurationsAt(key);
         }
 
+        prepareQuery(key);
         final InMemoryNodeModel parentModel = getSubConfigurationParentModel();
         return createConnectedSubConfigurations(this,
                 parentModel.trackChildNodes(key, this));
@@ -666,6 +820,30 @@ public class BaseHierarchicalConfiguration extends AbstractHierarchicalConfigura
         return new InMemoryNodeModel(getModel().getNodeHandler().getRootNode());
     }
 
+    /**
+     * Returns the index for resolved keys for the given tree, which is the
+     * current root node of the node model. If the current index is based on
+     * a different tree, a new one is created.
+     *
+     * @param root the root node
+     * @param handler the node handler
+     * @return the index to be used for resolving keys on this tree
+     */
+    private NodeKeyIndex fetchKeyIndex(final ImmutableNode root,
+            final NodeHandler<ImmutableNode> handler)
+    {
+        final ExpressionEngine engine = getExpressionEngine();
+        final NodeKeyIndex index = keyIndex;
+        if (index != null && index.isValidFor(root, handler, engine))
+        {
+            return index;
+        }
+
+        final NodeKeyIndex newIndex = new NodeKeyIndex(root, handler, engine);
+        keyIndex = newIndex;
+        return newIndex;
+    }
+
     /**
      * Creates a list with immutable configurations from the given input list.
      *
@@ -714,6 +892,124 @@ public class BaseHierarchicalConfiguration extends AbstractHierarchicalConfigura
         return c.getNodeModel().getNodeHandler().getRootNode();
     }
 
+    /**
+     * <p>
+     * A class for performing many updates on a
+     * {@code BaseHierarchicalConfiguration} in a single step.
+     * </p>
+     * <p>
+     * An instance is obtained via the {@link #createBatch()} method. It offers
+     * the typical update methods of a configuration, but these methods just
+     * record the corresponding operations. When the {@link #commit()} method
+     * is called, all operations are applied to the owning configuration in
+     * the order they have been recorded. This has the same effect as calling
+     * the update methods of the configuration directly; however, the node
+     * structure of the configuration is replaced only once, and only a single
+     * event of type {@link ConfigurationEvent#BATCH_UPDATE} is fired instead
+     * of events for each single operation. This makes bulk updates - for
+     * instance, importing a large number of properties - much more efficient.
+     * Concurrent readers see either the state before or after the batch.
+     * </p>
+     * <p>
+     * The values passed to {@code addProperty()} are split by the list
+     * delimiter handler of the configuration, as it is done by the
+     * configuration's {@code addProperty()} method. A batch is not
+     * thread-safe; it should be populated and committed by a single thread.
+     * </p>
+     *
+     * @since 2.5
+     */
+    public class Batch
+    {
+        /** The object recording the operations. */
+        private BatchUpdate update = new BatchUpdate();
+
+        /**
+         * Records an operation which adds a value to a property.
+         *
+         * @param key the key of the property
+         * @param value the value to be added
+         * @return a reference to this object for method chaining
+         */
+        public Batch addProperty(final String key, final Object value)
+        {
+            update.addProperty(key, getListDelimiterHandler().parse(value));
+            return this;
+        }
+
+        /**
+         * Records an operation which adds a collection of nodes.
+         *
+         * @param key the key where the nodes are to be added
+         * @param nodes the collection with the new nodes
+         * @return a reference to this object for method chaining
+         */
+        public Batch addNodes(final String key,
+                final Collection<? extends ImmutableNode> nodes)
+        {
+            update.addNodes(key, nodes);
+            return this;
+        }
+
+        /**
+         * Records an operation which sets the value of a property.
+         *
+         * @param key the key of the property
+         * @param value the new value
+         * @return a reference to this object for method chaining
+         */
+        public Batch setProperty(final String key, final Object value)
+        {
+            update.setProperty(key, value);
+            return this;
+        }
+
+        /**
+         * Records an operation which removes a property.
+         *
+         * @param key the key of the property
+         * @return a reference to this object for method chaining
+         */
+        public Batch clearProperty(final String key)
+        {
+            update.clearProperty(key);
+            return this;
+        }
+
+        /**
+         * Records an operation which removes a whole sub tree.
+         *
+         * @param key the key of the sub tree
+         * @return a reference to this object for method chaining
+         */
+        public Batch clearTree(final String key)
+        {
+            update.clearTree(key);
+            return this;
+        }
+
+        /**
+         * Returns the number of operations recorded by this batch.
+         *
+         * @return the number of pending operations
+         */
+        public int size()
+        {
+            return update.size();
+        }
+
+        /**
+         * Applies all recorded operations to the owning configuration. Then
+         * this batch is reset, so that it can be used to record new
+         * operations.
+         */
+        public void commit()
+        {
+            updateBatch(update);
+            update = new BatchUpdate();
+        }
+    }
+
     /**
      * A specialized visitor base class that can be used for storing the tree of
      * configuration nodes. The basic idea is that each node can be associated
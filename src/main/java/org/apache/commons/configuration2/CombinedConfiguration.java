@@ -26,22 +26,26 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import org.apache.commons.configuration2.event.ConfigurationEvent;
 import org.apache.commons.configuration2.event.EventListener;
 import org.apache.commons.configuration2.event.EventSource;
 import org.apache.commons.configuration2.event.EventType;
 import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
+import org.apache.commons.configuration2.interpol.ConfigurationInterpolator;
 import org.apache.commons.configuration2.sync.LockMode;
 import org.apache.commons.configuration2.tree.DefaultConfigurationKey;
 import org.apache.commons.configuration2.tree.DefaultExpressionEngine;
 import org.apache.commons.configuration2.tree.ExpressionEngine;
 import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.apache.commons.configuration2.tree.NodeCombiner;
+import org.apache.commons.configuration2.tree.NodeHandler;
 import org.apache.commons.configuration2.tree.NodeTreeWalker;
 import org.apache.commons.configuration2.tree.QueryResult;
 import org.apache.commons.configuration2.tree.TreeUtils;
 import org.apache.commons.configuration2.tree.UnionCombiner;
+import org.apache.commons.lang3.StringUtils;
 
 /**
  * <p>
@@ -73,6 +77,17 @@ import org.apache.commons.configuration2.tree.UnionCombiner;
  * {@code NodeCombiner}, this may be a complex operation.
  * </p>
  * <p>
+ * To reduce the costs of a re-construction, the combined node structure is
+ * built step by step: The root node of the first child configuration is
+ * combined with the one of the second, the result is combined with the third,
+ * and so on. The intermediate results of these steps are kept. If a single
+ * child configuration is changed, only the combination steps starting with
+ * this child have to be repeated. The same is true if a configuration is added
+ * or removed. A call of the {@code invalidate()} method, however, causes a
+ * full re-construction; the nodes structures of all child configurations are
+ * then obtained again.
+ * </p>
+ * <p>
  * Because of the way a {@code CombinedConfiguration} is working it has more or
  * less view character: it provides a logic view on the configurations it
  * contains. In this constellation not all methods defined for hierarchical
@@ -177,6 +192,28 @@ import org.apache.commons.configuration2.tree.UnionCombiner;
  * configurations could interfere with read operations on the combined
  * configuration.
  * </p>
+ * <p>
+ * Per default, a thread which accesses the configuration after it has been
+ * invalidated re-constructs the combined node structure while holding a write
+ * lock; so all other readers are blocked until this operation is complete. If
+ * the <em>stale read</em> mode is enabled (see
+ * {@link #setStaleReadEnabled(boolean)}), this is avoided: A single reader
+ * thread constructs the new node structure while holding only a read lock;
+ * concurrent readers are not blocked, but still see the old node structure.
+ * The new structure is then published atomically. So readers may for a short
+ * time see data which does not reflect the latest changes of the child
+ * configurations.
+ * </p>
+ * <p>
+ * Child configurations implementing the {@link LazyLoadingSupport} interface
+ * are loaded on demand: Before a key is queried, all children which have not
+ * yet been loaded and whose content may be selected by this key (based on
+ * their {@code at} path) are loaded. This happens before a lock on this
+ * configuration is acquired; the loaded child then fires change events which
+ * invalidate this configuration as usual. As the event after the update
+ * invalidates this configuration again, the loaded data becomes visible even
+ * if the node structure is re-constructed while the child is loaded.
+ * </p>
  *
  * @since 1.3
  * @version $Id$
@@ -200,10 +237,18 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
     /** Constant for the default node combiner. */
     private static final NodeCombiner DEFAULT_COMBINER = new UnionCombiner();
 
+    /** Constant for an empty array of child configurations. */
+    private static final ConfigData[] NO_CONFIGURATIONS = new ConfigData[0];
+
     /** Constant for a root node for an empty configuration. */
     private static final ImmutableNode EMPTY_ROOT = new ImmutableNode.Builder()
             .create();
 
+    /** The updater for the flag whether the node structure is rebuilt. */
+    private static final AtomicIntegerFieldUpdater<CombinedConfiguration> REBUILDING =
+            AtomicIntegerFieldUpdater.newUpdater(CombinedConfiguration.class,
+                    "rebuilding");
+
     /** Stores the combiner. */
     private NodeCombiner nodeCombiner;
 
@@ -213,15 +258,46 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
     /** Stores a map with the named configurations. */
     private Map<String, Configuration> namedConfigurations;
 
+    /**
+     * The child configurations which may have to be prepared for a query.
+     * These are children loaded lazily and nested combined configurations.
+     */
+    private volatile ConfigData[] lazyConfigurations = NO_CONFIGURATIONS;
+
     /**
      * An expression engine used for converting child configurations to
      * hierarchical ones.
      */
     private ExpressionEngine conversionExpressionEngine;
 
+    /**
+     * The number of child configurations (starting with the first one) whose
+     * intermediate combination results are valid.
+     */
+    private int validCombinations;
+
     /** A flag whether this configuration is up-to-date. */
     private boolean upToDate;
 
+    /**
+     * A counter for invalidations. It is used to find out whether a node
+     * structure constructed without a write lock is still valid.
+     */
+    private long invalidationCount;
+
+    /** A flag whether a combined node structure has been constructed. */
+    private volatile boolean rootConstructed;
+
+    /** A flag whether stale reads are enabled. */
+    private volatile boolean staleReadEnabled;
+
+    /**
+     * A flag whether a thread currently re-constructs the node structure. It
+     * is 1 during a reconstruction and 0 otherwise and is changed using
+     * {@link #REBUILDING}.
+     */
+    private volatile int rebuilding;
+
     /**
      * Creates a new instance of {@code CombinedConfiguration} and
      * initializes the combiner to be used.
@@ -286,7 +362,7 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
         try
         {
             this.nodeCombiner = nodeCombiner;
-            invalidateInternal();
+            invalidateInternal(0);
         }
         finally
         {
@@ -343,6 +419,34 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
         }
     }
 
+    /**
+     * Returns a flag whether stale reads are enabled.
+     *
+     * @return a flag whether readers may see an outdated node structure
+     * @since 2.5
+     */
+    public boolean isStaleReadEnabled()
+    {
+        return staleReadEnabled;
+    }
+
+    /**
+     * Enables or disables stale reads. If this mode is enabled, readers are
+     * not blocked while the combined node structure is re-constructed after a
+     * change of a child configuration; they rather continue to see the
+     * previous node structure until the new one is available. Only a single
+     * reader thread performs the construction. If no node structure has been
+     * constructed so far, readers have to wait in any case. Per default,
+     * stale reads are disabled.
+     *
+     * @param staleReadEnabled the flag whether stale reads are enabled
+     * @since 2.5
+     */
+    public void setStaleReadEnabled(final boolean staleReadEnabled)
+    {
+        this.staleReadEnabled = staleReadEnabled;
+    }
+
     /**
      * Adds a new configuration to this combined configuration. It is possible
      * (but not mandatory) to give the new configuration a name. This name must
@@ -391,8 +495,9 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
             {
                 namedConfigurations.put(name, config);
             }
+            updateLazyConfigurations();
 
-            invalidateInternal();
+            invalidateInternal(configurations.size() - 1);
         }
         finally
         {
@@ -570,7 +675,8 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
             namedConfigurations.remove(cd.getName());
         }
         unregisterListenerAt(cd.getConfiguration());
-        invalidateInternal();
+        updateLazyConfigurations();
+        invalidateInternal(index);
         return cd.getConfiguration();
     }
 
@@ -615,10 +721,12 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
     /**
      * Invalidates this combined configuration. This means that the next time a
      * property is accessed the combined node structure must be re-constructed.
-     * Invalidation of a combined configuration also means that an event of type
-     * {@code EVENT_COMBINED_INVALIDATE} is fired. Note that while other
-     * events most times appear twice (once before and once after an update),
-     * this event is only fired once (after update).
+     * All child configurations are taken into account; so this method can be
+     * used if child configurations have been changed in a way which could not
+     * be detected by this object. Invalidation of a combined configuration
+     * also means that an event of type {@code EVENT_COMBINED_INVALIDATE} is
+     * fired. Note that while other events most times appear twice (once before
+     * and once after an update), this event is only fired once (after update).
      */
     public void invalidate()
     {
@@ -636,16 +744,33 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
     /**
      * Event listener call back for configuration update events. This method is
      * called whenever one of the contained configurations was modified. It
-     * invalidates this combined configuration.
+     * invalidates this combined configuration. If the source of the event is
+     * one of the child configurations, only the parts of the combined node
+     * structure depending on this configuration are re-constructed. An
+     * invalidation event fired by a child which is a combined configuration
+     * itself is handled in the same way; this is the case for instance if a
+     * lazy child of this nested configuration has been loaded. The
+     * configuration is invalidated both before and after an update of a
+     * child. Otherwise, if the combined node structure was re-constructed
+     * between the two events, the cached nodes of the child would reflect
+     * its state before the update until it is changed again. On the event
+     * after the update, another invalidate event is only fired if the node
+     * structure has been re-constructed in the meantime.
      *
      * @param event the update event
      */
     @Override
     public void onEvent(final ConfigurationEvent event)
     {
-        if (event.isBeforeUpdate())
+        beginWrite(true);
+        try
         {
-            invalidate();
+            invalidateConfiguration(event.getSource(), event.isBeforeUpdate()
+                    || COMBINED_INVALIDATE.equals(event.getEventType()));
+        }
+        finally
+        {
+            endWrite();
         }
     }
 
@@ -676,6 +801,7 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
         try
         {
             final CombinedConfiguration copy = (CombinedConfiguration) super.clone();
+            REBUILDING.set(copy, 0);
             copy.initChildCollections();
             for (final ConfigData cd : configurations)
             {
@@ -785,9 +911,55 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
         }
     }
 
+    /**
+     * {@inheritDoc} Before data can be read, it has to be checked whether the
+     * combined node structure has to be constructed; this is done by
+     * {@code beginRead()}. Therefore, this implementation returns
+     * <b>false</b>.
+     *
+     * @since 2.5
+     */
+    @Override
+    protected boolean isOptimisticReadSupported()
+    {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc} This implementation loads child configurations
+     * implementing the {@link LazyLoadingSupport} interface which have not
+     * been loaded yet if the key may refer to their content. This is the case
+     * if the key and the key of the child's {@code at} path start with each
+     * other; selectors like indices or attribute conditions in the key are
+     * ignored for this comparison. So a child may be loaded earlier than
+     * necessary, but all data which can be selected by the key is available.
+     * The call is also passed to child configurations which are combined
+     * configurations themselves. Note that keys selecting nodes independent
+     * on their position in the node structure (e.g. XPath queries starting
+     * with <code>//</code>) cannot be matched against the {@code at} path;
+     * here all lazy children should be loaded explicitly.
+     *
+     * @since 2.5
+     */
+    @Override
+    protected void prepareQuery(final String key)
+    {
+        final ConfigData[] lazyData = lazyConfigurations;
+        if (lazyData.length > 0)
+        {
+            final String queryKey = (key != null) ? stripSelectors(key) : null;
+            for (final ConfigData cd : lazyData)
+            {
+                cd.prepareQuery(key, queryKey);
+            }
+        }
+    }
+
     /**
      * {@inheritDoc} This implementation checks whether a combined root node
-     * is available. If not, it is constructed by requesting a write lock.
+     * is available. If not, it is constructed by requesting a write lock. In
+     * stale read mode, the root node is constructed by a single thread
+     * without blocking other readers.
      */
     @Override
     protected void beginRead(final boolean optimize)
@@ -800,6 +972,7 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
         }
 
         boolean lockObtained = false;
+        boolean rebuildAttempted = false;
         do
         {
             super.beginRead(false);
@@ -807,6 +980,26 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
             {
                 lockObtained = true;
             }
+            else if (isStaleReadEnabled() && rootConstructed)
+            {
+                if (!rebuildAttempted && REBUILDING.compareAndSet(this, 0, 1))
+                {
+                    try
+                    {
+                        rebuildWithoutBlockingReaders();
+                    }
+                    finally
+                    {
+                        REBUILDING.set(this, 0);
+                    }
+                    rebuildAttempted = true;
+                }
+                else
+                {
+                    // use the current, outdated node structure
+                    lockObtained = true;
+                }
+            }
             else
             {
                 // release read lock and try to obtain a write lock
@@ -836,8 +1029,9 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
             if (!isUpToDate())
             {
                 getSubConfigurationParentModel().replaceRoot(
-                        constructCombinedNode(), this);
+                        publishCombination(combineNodes()), this);
                 upToDate = true;
+                rootConstructed = true;
             }
         }
         catch (final RuntimeException rex)
@@ -867,8 +1061,139 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
      */
     private void invalidateInternal()
     {
+        for (final ConfigData cd : configurations)
+        {
+            cd.resetRoot();
+        }
+        invalidateInternal(0);
+    }
+
+    /**
+     * Marks this configuration as invalid starting with the child
+     * configuration at the given index. The intermediate combination results
+     * of the configurations before this index remain valid, so the next access
+     * only has to combine the remaining configurations. An invalidate event is
+     * fired. Note: This implementation expects that an exclusive (write) lock
+     * is held on this instance.
+     *
+     * @param index the index of the first affected child configuration
+     */
+    private void invalidateInternal(final int index)
+    {
+        invalidateInternal(index, true);
+    }
+
+    /**
+     * Marks this configuration as invalid starting with the child
+     * configuration at the given index and optionally fires an invalidate
+     * event. Note: This implementation expects that an exclusive (write) lock
+     * is held on this instance.
+     *
+     * @param index the index of the first affected child configuration
+     * @param fire a flag whether an invalidate event is to be fired
+     */
+    private void invalidateInternal(final int index, final boolean fire)
+    {
+        validCombinations = Math.min(validCombinations, index);
         upToDate = false;
-        fireEvent(COMBINED_INVALIDATE, null, null, false);
+        invalidationCount++;
+        if (fire)
+        {
+            fireEvent(COMBINED_INVALIDATE, null, null, false);
+        }
+    }
+
+    /**
+     * Invalidates this configuration because the given child configuration is
+     * changed. If the configuration cannot be found, the whole configuration
+     * is invalidated. The cached nodes of the affected children are reset.
+     * An invalidate event is fired if the corresponding flag is set or if
+     * nodes of affected children had been cached, which means that the node
+     * structure has been re-constructed since the last invalidation. Note:
+     * This implementation expects that an exclusive (write) lock is held on
+     * this instance.
+     *
+     * @param source the child configuration which has been changed
+     * @param fireAlways a flag whether an invalidate event is to be fired in
+     *        any case
+     */
+    private void invalidateConfiguration(final Object source,
+            final boolean fireAlways)
+    {
+        int start = 0;
+        int end = configurations.size();
+        for (int index = 0; index < configurations.size(); index++)
+        {
+            if (configurations.get(index).getConfiguration() == source)
+            {
+                start = index;
+                end = index + 1;
+                break;
+            }
+        }
+
+        boolean rebuilt = false;
+        for (int index = start; index < end; index++)
+        {
+            final ConfigData cd = configurations.get(index);
+            rebuilt |= cd.getTransformedRoot() != null;
+            cd.resetRoot();
+        }
+        invalidateInternal(start, fireAlways || rebuilt);
+    }
+
+    /**
+     * Re-constructs the combined node structure in stale read mode. This
+     * method is called with a read lock held, which is released. The new
+     * node structure is constructed while holding the read lock; so other
+     * readers are not blocked, but updates are prevented. The construction
+     * does not modify any shared state; its results are only published after
+     * a write lock has been acquired. If an invalidation happened in the
+     * meantime, the new structure is discarded.
+     */
+    private void rebuildWithoutBlockingReaders()
+    {
+        final Combination combination;
+        try
+        {
+            combination = combineNodes();
+        }
+        finally
+        {
+            endRead();
+        }
+
+        beginWrite(true);
+        try
+        {
+            if (!isUpToDate() && combination.isValid())
+            {
+                getSubConfigurationParentModel().replaceRoot(
+                        publishCombination(combination), this);
+                upToDate = true;
+                clearCachedValues();
+            }
+        }
+        finally
+        {
+            endWrite();
+        }
+    }
+
+    /**
+     * Clears the caches for converted and interpolated values. This is
+     * necessary when a new node structure is published in stale read mode
+     * because readers may have populated the caches with outdated values
+     * after the invalidation.
+     */
+    private void clearCachedValues()
+    {
+        clearConversionCache();
+        final ConfigurationInterpolator ci = getInterpolator();
+        if (ci != null && ci.isEnableCaching())
+        {
+            ci.clearCache();
+        }
     }
 
     /**
@@ -879,30 +1204,74 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
     {
         configurations = new ArrayList<>();
         namedConfigurations = new HashMap<>();
+        lazyConfigurations = NO_CONFIGURATIONS;
+        validCombinations = 0;
     }
 
     /**
-     * Creates the root node of this combined configuration.
+     * Determines the child configurations which have to be prepared before a
+     * query. This method is called whenever the list of child configurations
+     * is changed.
+     */
+    private void updateLazyConfigurations()
+    {
+        final List<ConfigData> lazyData = new ArrayList<>();
+        for (final ConfigData cd : configurations)
+        {
+            if (cd.isLazy())
+            {
+                lazyData.add(cd);
+            }
+        }
+        lazyConfigurations = lazyData.toArray(new ConfigData[lazyData.size()]);
+    }
+
+    /**
+     * Combines the nodes of the child configurations. The root node of this
+     * combined configuration is the result of the last of a sequence of
+     * combination steps, one for each child configuration. Steps whose
+     * results are still valid are skipped. This method reads the state of
+     * this configuration, but does not change it; all results are stored in
+     * the returned {@code Combination} object, which has to be passed to
+     * {@link #publishCombination(Combination)} while holding the write lock.
+     * So it can be called while holding only a read lock.
      *
-     * @return the combined root node
+     * @return the object with the results of the combination
      */
-    private ImmutableNode constructCombinedNode()
+    private Combination combineNodes()
     {
-        if (getNumberOfConfigurationsInternal() < 1)
+        final int count = getNumberOfConfigurationsInternal();
+        final int start = Math.min(validCombinations, count);
+        final Combination combination =
+                new Combination(start, count, invalidationCount);
+        if (count < 1)
         {
             if (getLogger().isDebugEnabled())
             {
                 getLogger().debug("No configurations defined for " + this);
             }
-            return EMPTY_ROOT;
+            combination.root = EMPTY_ROOT;
+            return combination;
         }
-        final Iterator<ConfigData> it = configurations.iterator();
-        ImmutableNode node = it.next().getTransformedRoot();
-        while (it.hasNext())
+
+        ImmutableNode node =
+                (start > 0) ? configurations.get(start - 1).getCombinedRoot()
+                        : null;
+        for (int index = start; index < count; index++)
         {
-            node = nodeCombiner.combine(node,
-                    it.next().getTransformedRoot());
+            final ConfigData cd = configurations.get(index);
+            ImmutableNode root = cd.getTransformedRoot();
+            if (root == null)
+            {
+                final ImmutableNode configRoot = cd.getRootNodeOfConfiguration();
+                root = cd.transformRoot(configRoot);
+                combination.rootNodes[index - start] = configRoot;
+                combination.transformedRoots[index - start] = root;
+            }
+            node = (node == null) ? root : nodeCombiner.combine(node, root);
+            combination.combinedRoots[index - start] = node;
         }
+        combination.root = node;
         if (getLogger().isDebugEnabled())
         {
             final ByteArrayOutputStream os = new ByteArrayOutputStream();
@@ -910,7 +1279,38 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
             TreeUtils.printTree(stream, node);
             getLogger().debug(os.toString());
         }
-        return node;
+        return combination;
+    }
+
+    /**
+     * Publishes the results of a combination of child configurations and
+     * returns the new combined root node. The intermediate results are stored
+     * for the affected child configurations, so that they can be reused by
+     * later combinations. This is only done if no invalidation happened since
+     * the combination was started. Note: This implementation expects that an
+     * exclusive (write) lock is held on this instance.
+     *
+     * @param combination the results of the combination
+     * @return the combined root node
+     */
+    private ImmutableNode publishCombination(final Combination combination)
+    {
+        if (combination.isValid())
+        {
+            for (int index = combination.start; index < combination.count; index++)
+            {
+                final ConfigData cd = configurations.get(index);
+                final int pos = index - combination.start;
+                if (combination.rootNodes[pos] != null)
+                {
+                    cd.setRootNodes(combination.rootNodes[pos],
+                            combination.transformedRoots[pos]);
+                }
+                cd.setCombinedRoot(combination.combinedRoots[pos]);
+            }
+            validCombinations = combination.count;
+        }
+        return combination.root;
     }
 
     /**
@@ -940,6 +1340,54 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
         return result;
     }
 
+    /**
+     * Removes all parts enclosed in parentheses or brackets from the given
+     * key. This removes indices and attribute conditions so that the
+     * remaining key can be compared with the key of an {@code at} path.
+     *
+     * @param key the key
+     * @return the key without selectors
+     */
+    private static String stripSelectors(final String key)
+    {
+        if (key.indexOf('(') < 0 && key.indexOf('[') < 0)
+        {
+            return key;
+        }
+
+        final StringBuilder buf = new StringBuilder(key.length());
+        int depth = 0;
+        for (int i = 0; i < key.length(); i++)
+        {
+            final char c = key.charAt(i);
+            if (c == '(' || c == '[')
+            {
+                depth++;
+            }
+            else if ((c == ')' || c == ']') && depth > 0)
+            {
+                depth--;
+            }
+            else if (depth == 0)
+            {
+                buf.append(c);
+            }
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Removes this combined configuration as listener from all its child
+     * configurations without changing its content. This method is called by
+     * {@link DynamicCombinedConfiguration} when a cached instance is no longer
+     * used, so that it can be garbage collected although the child
+     * configurations are still alive.
+     */
+    void detachFromChildren()
+    {
+        unregisterListenerAtChildren();
+    }
+
     /**
      * Registers this combined configuration as listener at the given child
      * configuration.
@@ -1015,9 +1463,24 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
         /** Stores the at string.*/
         private final String at;
 
+        /**
+         * Stores the key of the at path for the expression engine last used.
+         * This is needed to prepare queries for lazy child configurations.
+         */
+        private volatile AtKey atKey;
+
         /** Stores the root node for this child configuration.*/
         private ImmutableNode rootNode;
 
+        /** Stores the transformed root node for this child configuration. */
+        private ImmutableNode transformedRoot;
+
+        /**
+         * Stores the result of combining the nodes of all child configurations
+         * up to and including this one.
+         */
+        private ImmutableNode combinedRoot;
+
         /**
          * Creates a new instance of {@code ConfigData} and initializes
          * it.
@@ -1064,6 +1527,132 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
             return at;
         }
 
+        /**
+         * Returns a flag whether the stored configuration has to be prepared
+         * before a query. This is the case for configurations loaded lazily
+         * and for nested combined configurations.
+         *
+         * @return a flag whether this child is relevant for query preparation
+         */
+        public boolean isLazy()
+        {
+            return configuration instanceof LazyLoadingSupport
+                    || configuration instanceof CombinedConfiguration;
+        }
+
+        /**
+         * Prepares the stored configuration for a query of the given key. A
+         * lazy configuration is loaded if the key may refer to its content. A
+         * nested combined configuration is passed the query; if it is located
+         * at a specific position, the part of the key below this position is
+         * passed, or <b>null</b> if the key refers to a parent node.
+         *
+         * @param key the original key (may be <b>null</b>)
+         * @param queryKey the key without selectors (may be <b>null</b>)
+         */
+        public void prepareQuery(final String key, final String queryKey)
+        {
+            if (configuration instanceof LazyLoadingSupport)
+            {
+                final LazyLoadingSupport lazy =
+                        (LazyLoadingSupport) configuration;
+                if (!lazy.isLoaded() && isAffectedBy(queryKey))
+                {
+                    lazy.load();
+                }
+            }
+            else if (isAffectedBy(queryKey))
+            {
+                ((CombinedConfiguration) configuration)
+                        .prepareQuery(relativeKey(key, queryKey));
+            }
+        }
+
+        /**
+         * Determines the key to be passed to a nested combined configuration.
+         * This is the part of the query key below the at path. If the key
+         * does not select a node below the at path, result is <b>null</b>.
+         *
+         * @param key the original key (may be <b>null</b>)
+         * @param queryKey the key without selectors (may be <b>null</b>)
+         * @return the key relative to the nested configuration
+         */
+        private String relativeKey(final String key, final String queryKey)
+        {
+            if (atPath == null || queryKey == null)
+            {
+                return key;
+            }
+            final String prefix = fetchAtKey().childPrefix;
+            return queryKey.startsWith(prefix) ? queryKey.substring(prefix
+                    .length()) : null;
+        }
+
+        /**
+         * Checks whether a query for the given key may select nodes of the
+         * stored configuration. This is the case if the key and the key of
+         * the at path start with each other.
+         *
+         * @param queryKey the key without selectors (may be <b>null</b>)
+         * @return a flag whether this configuration is affected by the query
+         */
+        private boolean isAffectedBy(final String queryKey)
+        {
+            if (queryKey == null || atPath == null)
+            {
+                return true;
+            }
+            final String pathKey = fetchAtKey().key;
+            return queryKey.startsWith(pathKey) || pathKey.startsWith(queryKey);
+        }
+
+        /**
+         * Returns the key of the at path for the current expression engine.
+         * The key is constructed once and cached until the expression engine
+         * changes.
+         *
+         * @return the object with the key of the at path
+         */
+        private AtKey fetchAtKey()
+        {
+            final ExpressionEngine engine = getExpressionEngine();
+            AtKey key = atKey;
+            if (key == null || key.engine != engine)
+            {
+                final NodeHandler<ImmutableNode> handler =
+                        getModel().getNodeHandler();
+                String path = StringUtils.EMPTY;
+                for (final String component : atPath)
+                {
+                    path = childKey(engine, handler, path, component);
+                }
+                // determine the delimiter by constructing a key for a child
+                final String child = childKey(engine, handler, path, "x");
+                key = new AtKey(engine, path,
+                        child.substring(0, child.length() - 1));
+                atKey = key;
+            }
+            return key;
+        }
+
+        /**
+         * Constructs the key of a child node using the given expression
+         * engine.
+         *
+         * @param engine the expression engine
+         * @param handler the node handler
+         * @param parentKey the key of the parent node
+         * @param name the name of the child node
+         * @return the key of the child node
+         */
+        private String childKey(final ExpressionEngine engine,
+                final NodeHandler<ImmutableNode> handler,
+                final String parentKey, final String name)
+        {
+            return engine.nodeKey(new ImmutableNode.Builder().name(name)
+                    .create(), parentKey, handler);
+        }
+
         /**
          * Returns the root node for this child configuration.
          *
@@ -1078,16 +1667,74 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
         /**
          * Returns the transformed root node of the stored configuration. The
          * term &quot;transformed&quot; means that an eventually defined at path
-         * has been applied.
+         * has been applied. Result is <b>null</b> if the node has not yet been
+         * obtained from the configuration or after {@link #resetRoot()}.
          *
-         * @return the transformed root node
+         * @return the transformed root node or <b>null</b>
          */
         public ImmutableNode getTransformedRoot()
         {
-            final ImmutableNode configRoot = getRootNodeOfConfiguration();
+            return transformedRoot;
+        }
+
+        /**
+         * Stores the root node obtained from the stored configuration and the
+         * corresponding transformed root node.
+         *
+         * @param root the root node of the configuration
+         * @param transformed the transformed root node
+         */
+        public void setRootNodes(final ImmutableNode root,
+                final ImmutableNode transformed)
+        {
+            rootNode = root;
+            transformedRoot = transformed;
+        }
+
+        /**
+         * Applies the at path of this child configuration to the given root
+         * node of the stored configuration.
+         *
+         * @param configRoot the root node of the configuration
+         * @return the transformed root node
+         */
+        public ImmutableNode transformRoot(final ImmutableNode configRoot)
+        {
             return (atPath == null) ? configRoot : prependAtPath(configRoot);
         }
 
+        /**
+         * Resets the transformed root node. This method is called when the
+         * stored configuration has been changed. The next access to the root
+         * node obtains it again from the configuration.
+         */
+        public void resetRoot()
+        {
+            transformedRoot = null;
+        }
+
+        /**
+         * Returns the result of combining the nodes of all child
+         * configurations up to and including this one.
+         *
+         * @return the combined root node
+         */
+        public ImmutableNode getCombinedRoot()
+        {
+            return combinedRoot;
+        }
+
+        /**
+         * Sets the result of combining the nodes of all child configurations
+         * up to and including this one.
+         *
+         * @param node the combined root node
+         */
+        public void setCombinedRoot(final ImmutableNode node)
+        {
+            combinedRoot = node;
+        }
+
         /**
          * Prepends the at path to the given node.
          *
@@ -1138,22 +1785,19 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
         /**
          * Obtains the root node of the wrapped configuration. If necessary, a
          * hierarchical representation of the configuration has to be created
-         * first.
+         * first. The node is not stored in this object.
          *
          * @return the root node of the associated configuration
          */
-        private ImmutableNode getRootNodeOfConfiguration()
+        public ImmutableNode getRootNodeOfConfiguration()
         {
             getConfiguration().lock(LockMode.READ);
             try
             {
-                final ImmutableNode root =
-                        ConfigurationUtils
-                                .convertToHierarchical(getConfiguration(),
-                                        conversionExpressionEngine).getNodeModel()
-                                .getInMemoryRepresentation();
-                rootNode = root;
-                return root;
+                return ConfigurationUtils
+                        .convertToHierarchical(getConfiguration(),
+                                conversionExpressionEngine).getNodeModel()
+                        .getInMemoryRepresentation();
             }
             finally
             {
@@ -1184,4 +1828,97 @@ public class CombinedConfiguration extends BaseHierarchicalConfiguration impleme
             return result;
         }
     }
+
+    /**
+     * A data class storing the results of combining the nodes of the child
+     * configurations. An instance is confined to the thread performing the
+     * combination until it is published.
+     */
+    private class Combination
+    {
+        /** The index of the first child configuration combined. */
+        final int start;
+
+        /** The number of child configurations. */
+        final int count;
+
+        /** The invalidation count when the combination was started. */
+        final long invalidations;
+
+        /**
+         * The root nodes obtained from the child configurations; an element
+         * is <b>null</b> if the node stored for the configuration is reused.
+         */
+        final ImmutableNode[] rootNodes;
+
+        /** The transformed root nodes of the child configurations. */
+        final ImmutableNode[] transformedRoots;
+
+        /** The intermediate results of the combination. */
+        final ImmutableNode[] combinedRoots;
+
+        /** The combined root node. */
+        ImmutableNode root;
+
+        /**
+         * Creates a new instance of {@code Combination}.
+         *
+         * @param start the index of the first child configuration
+         * @param count the number of child configurations
+         * @param invalidations the current invalidation count
+         */
+        Combination(final int start, final int count, final long invalidations)
+        {
+            this.start = start;
+            this.count = count;
+            this.invalidations = invalidations;
+            rootNodes = new ImmutableNode[count - start];
+            transformedRoots = new ImmutableNode[count - start];
+            combinedRoots = new ImmutableNode[count - start];
+        }
+
+        /**
+         * Returns a flag whether this combination is still valid. This is the
+         * case if the combined configuration has not been invalidated since
+         * the combination was started. This method must be called while
+         * holding the write lock.
+         *
+         * @return a flag whether the results of this combination are valid
+         */
+        boolean isValid()
+        {
+            return invalidations == invalidationCount;
+        }
+    }
+
+    /**
+     * A simple data class storing the key of an at path together with the
+     * expression engine which has been used to construct it.
+     */
+    private static class AtKey
+    {
+        /** The expression engine. */
+        final ExpressionEngine engine;
+
+        /** The key of the at path. */
+        final String key;
+
+        /** The prefix of the keys of nodes below the at path. */
+        final String childPrefix;
+
+        /**
+         * Creates a new instance of {@code AtKey}.
+         *
+         * @param engine the expression engine
+         * @param key the key
+         * @param childPrefix the prefix of child keys
+         */
+        AtKey(final ExpressionEngine engine, final String key,
+                final String childPrefix)
+        {
+            this.engine = engine;
+            this.key = key;
+            this.childPrefix = childPrefix;
+        }
+    }
 }
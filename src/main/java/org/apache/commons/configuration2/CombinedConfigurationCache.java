@@ -0,0 +1,454 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * A cache for the child configurations of a
+ * {@link DynamicCombinedConfiguration}, used internally by this class.
+ * </p>
+ * <p>
+ * The cache maps the keys produced by the key pattern to the
+ * {@code CombinedConfiguration} objects created for them. Per default, it is
+ * unbounded. It is possible to define a maximum size and a maximum idle time.
+ * If the maximum size is exceeded, the entries which have not been accessed
+ * for the longest time are evicted. Entries which have not been accessed
+ * within the maximum idle time are no longer returned and are removed the
+ * next time an entry is added. An evicted configuration is detached from its
+ * children; if its key is accessed again, the owning configuration simply
+ * creates a new instance.
+ * </p>
+ * <p>
+ * Read access to the cache is lock-free; it only updates the access time of
+ * the entry found. Modifications are expected to be done by the owning
+ * configuration while it holds its write lock. In order to keep the costs of
+ * eviction low, the cache removes a batch of entries when its maximum size is
+ * exceeded, so that the following insertions do not have to evict again. The
+ * cache also records statistics about hits, misses, and evictions.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+class CombinedConfigurationCache
+{
+    /**
+     * The divisor for determining the number of additional entries evicted
+     * when the maximum size is exceeded. It also determines how often expired
+     * entries are searched for in relation to the maximum idle time.
+     */
+    private static final int EVICTION_BATCH_DIVISOR = 8;
+
+    /** A comparator for ordering eviction candidates by their access time. */
+    private static final Comparator<EvictionCandidate> ACCESS_ORDER =
+            new Comparator<EvictionCandidate>()
+            {
+                @Override
+                public int compare(final EvictionCandidate c1,
+                        final EvictionCandidate c2)
+                {
+                    return Long.compare(c1.accessTime, c2.accessTime);
+                }
+            };
+
+    /** The map with the entries of this cache. */
+    private final ConcurrentMap<String, CacheEntry> entries;
+
+    /** The number of successful lookups. */
+    private final AtomicLong hitCount;
+
+    /** The number of failed lookups. */
+    private final AtomicLong missCount;
+
+    /** The number of evicted entries. */
+    private final AtomicLong evictionCount;
+
+    /** The maximum number of entries; 0 means unbounded. */
+    private volatile int maxSize;
+
+    /** The maximum idle time in nanoseconds; 0 means unlimited. */
+    private volatile long maxIdleNanos;
+
+    /** The time when expired entries have to be searched for again. */
+    private volatile long nextExpiryCheck;
+
+    /**
+     * Creates a new, unbounded instance of {@code CombinedConfigurationCache}.
+     */
+    public CombinedConfigurationCache()
+    {
+        entries = new ConcurrentHashMap<>();
+        hitCount = new AtomicLong();
+        missCount = new AtomicLong();
+        evictionCount = new AtomicLong();
+    }
+
+    /**
+     * Returns the maximum number of entries in this cache. A value of 0 means
+     * that the size is not limited.
+     *
+     * @return the maximum size
+     */
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximum number of entries in this cache. A value of 0 means
+     * that the size is not limited. The new limit takes effect the next time
+     * an entry is added.
+     *
+     * @param maxSize the maximum size
+     * @throws IllegalArgumentException if the size is negative
+     */
+    public void setMaxSize(final int maxSize)
+    {
+        if (maxSize < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Maximum size must not be negative: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the maximum idle time of entries in milliseconds. A value of 0
+     * means that entries do not expire.
+     *
+     * @return the maximum idle time
+     */
+    public long getMaxIdleTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(maxIdleNanos);
+    }
+
+    /**
+     * Sets the maximum idle time of entries in milliseconds. Entries which
+     * have not been accessed within this time are no longer returned by this
+     * cache. A value of 0 means that entries do not expire.
+     *
+     * @param maxIdleTime the maximum idle time
+     * @throws IllegalArgumentException if the time is negative
+     */
+    public void setMaxIdleTime(final long maxIdleTime)
+    {
+        if (maxIdleTime < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Maximum idle time must not be negative: " + maxIdleTime);
+        }
+        nextExpiryCheck = now();
+        maxIdleNanos = TimeUnit.MILLISECONDS.toNanos(maxIdleTime);
+    }
+
+    /**
+     * Returns the configuration stored for the given key. Result is
+     * <b>null</b> if there is no entry for this key or if the entry has
+     * expired. The access time of the entry is updated.
+     *
+     * @param key the key
+     * @return the configuration for this key or <b>null</b>
+     */
+    public CombinedConfiguration get(final String key)
+    {
+        final CacheEntry entry = entries.get(key);
+        final long now = now();
+        if (entry == null || isExpired(entry, now))
+        {
+            missCount.incrementAndGet();
+            return null;
+        }
+
+        entry.touch(now);
+        hitCount.incrementAndGet();
+        return entry.getConfiguration();
+    }
+
+    /**
+     * Adds a configuration to this cache. An entry already stored for this key
+     * is replaced. If necessary, expired entries and the least recently used
+     * entries are evicted. Replaced or evicted configurations are detached
+     * from their children.
+     *
+     * @param key the key
+     * @param config the configuration to be stored
+     */
+    public void put(final String key, final CombinedConfiguration config)
+    {
+        final long now = now();
+        final CacheEntry old = entries.put(key, new CacheEntry(config, now));
+        if (old != null && old.getConfiguration() != config)
+        {
+            old.getConfiguration().detachFromChildren();
+        }
+
+        evictExpired(now);
+        evictLeastRecentlyUsed();
+    }
+
+    /**
+     * Removes all entries from this cache. The configurations are detached
+     * from their children.
+     */
+    public void clear()
+    {
+        for (final String key : entries.keySet())
+        {
+            final CacheEntry entry = entries.remove(key);
+            if (entry != null)
+            {
+                entry.getConfiguration().detachFromChildren();
+            }
+        }
+    }
+
+    /**
+     * Returns a collection with the configurations currently stored in this
+     * cache. This is a snapshot which is not affected by later changes.
+     *
+     * @return a collection with all cached configurations
+     */
+    public Collection<CombinedConfiguration> configurations()
+    {
+        final List<CombinedConfiguration> result =
+                new ArrayList<>(entries.size());
+        for (final CacheEntry entry : entries.values())
+        {
+            result.add(entry.getConfiguration());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of entries in this cache.
+     *
+     * @return the size of this cache
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups which found a configuration.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of lookups which did not find a configuration.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of entries which have been evicted because the
+     * maximum size was exceeded or because they expired.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictionCount()
+    {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns the current time in nanoseconds. This is used to determine the
+     * access times of entries.
+     *
+     * @return the current time
+     */
+    long now()
+    {
+        return System.nanoTime();
+    }
+
+    /**
+     * Tests whether the given entry has expired.
+     *
+     * @param entry the entry
+     * @param now the current time
+     * @return a flag whether this entry has expired
+     */
+    private boolean isExpired(final CacheEntry entry, final long now)
+    {
+        final long idle = maxIdleNanos;
+        return idle > 0 && now - entry.getLastAccess() > idle;
+    }
+
+    /**
+     * Removes all entries which have expired. In order to avoid that every
+     * insertion iterates over all entries, this is done only in certain
+     * intervals.
+     *
+     * @param now the current time
+     */
+    private void evictExpired(final long now)
+    {
+        final long idle = maxIdleNanos;
+        if (idle > 0 && now - nextExpiryCheck >= 0)
+        {
+            nextExpiryCheck = now + idle / EVICTION_BATCH_DIVISOR;
+            for (final Map.Entry<String, CacheEntry> e : entries.entrySet())
+            {
+                if (isExpired(e.getValue(), now))
+                {
+                    evict(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the least recently used entries if the maximum size is
+     * exceeded. In this case, some more entries are removed, so that the
+     * following insertions do not trigger an eviction again.
+     */
+    private void evictLeastRecentlyUsed()
+    {
+        final int max = maxSize;
+        if (max > 0 && entries.size() > max)
+        {
+            // access times may change concurrently, so sort a snapshot
+            final List<EvictionCandidate> candidates =
+                    new ArrayList<>(entries.size());
+            for (final Map.Entry<String, CacheEntry> e : entries.entrySet())
+            {
+                candidates.add(new EvictionCandidate(e));
+            }
+            Collections.sort(candidates, ACCESS_ORDER);
+            final int target = max - max / EVICTION_BATCH_DIVISOR;
+            final int count = candidates.size() - target;
+            for (int i = 0; i < count; i++)
+            {
+                evict(candidates.get(i).entry);
+            }
+        }
+    }
+
+    /**
+     * Evicts the given entry from this cache.
+     *
+     * @param e the map entry to be removed
+     */
+    private void evict(final Map.Entry<String, CacheEntry> e)
+    {
+        if (entries.remove(e.getKey(), e.getValue()))
+        {
+            evictionCount.incrementAndGet();
+            e.getValue().getConfiguration().detachFromChildren();
+        }
+    }
+
+    /**
+     * An entry of the cache storing a configuration and its last access time.
+     */
+    private static class CacheEntry
+    {
+        /** The cached configuration. */
+        private final CombinedConfiguration configuration;
+
+        /** The time of the last access. */
+        private volatile long lastAccess;
+
+        /**
+         * Creates a new instance of {@code CacheEntry}.
+         *
+         * @param config the configuration
+         * @param time the creation time
+         */
+        public CacheEntry(final CombinedConfiguration config, final long time)
+        {
+            configuration = config;
+            lastAccess = time;
+        }
+
+        /**
+         * Returns the cached configuration.
+         *
+         * @return the configuration
+         */
+        public CombinedConfiguration getConfiguration()
+        {
+            return configuration;
+        }
+
+        /**
+         * Returns the time of the last access.
+         *
+         * @return the last access time
+         */
+        public long getLastAccess()
+        {
+            return lastAccess;
+        }
+
+        /**
+         * Updates the time of the last access.
+         *
+         * @param time the current time
+         */
+        public void touch(final long time)
+        {
+            lastAccess = time;
+        }
+    }
+
+    /**
+     * A helper class storing a cache entry together with the access time it
+     * had when an eviction started.
+     */
+    private static class EvictionCandidate
+    {
+        /** The map entry. */
+        final Map.Entry<String, CacheEntry> entry;
+
+        /** The access time of the entry. */
+        final long accessTime;
+
+        /**
+         * Creates a new instance of {@code EvictionCandidate}.
+         *
+         * @param e the map entry
+         */
+        EvictionCandidate(final Map.Entry<String, CacheEntry> e)
+        {
+            entry = e;
+            accessTime = e.getValue().getLastAccess();
+        }
+    }
+}
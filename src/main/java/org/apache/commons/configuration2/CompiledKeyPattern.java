@@ -0,0 +1,349 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.commons.configuration2.interpol.ConfigurationInterpolator;
+import org.apache.commons.configuration2.interpol.Lookup;
+
+/**
+ * <p>
+ * A pre-parsed representation of the key pattern of a
+ * {@link DynamicCombinedConfiguration}, used internally by this class.
+ * </p>
+ * <p>
+ * The key pattern is evaluated for each operation on a dynamic combined
+ * configuration. Rather than passing it through the whole interpolation
+ * machinery each time, this class splits the pattern once into literal text
+ * and variables of the form <code>${prefix:name}</code>. A key is then
+ * produced by querying the {@code Lookup} objects registered for the
+ * variables' prefixes directly. In addition, the values of the variables and
+ * the resulting key are remembered per thread; if the values have not changed
+ * since the last call on the current thread, the key is returned without
+ * constructing a new string.
+ * </p>
+ * <p>
+ * Only simple patterns are compiled. Patterns using features like nested
+ * variables, default values, or escaped variables are not supported, and
+ * neither are variable values which contain further variables. In these cases
+ * {@link #resolve(ConfigurationInterpolator)} returns <b>null</b>, and the
+ * caller has to fall back to standard interpolation.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+class CompiledKeyPattern
+{
+    /** Constant for the start of a variable. */
+    private static final String VAR_START = "${";
+
+    /** Constant for the end of a variable. */
+    private static final String VAR_END = "}";
+
+    /** Constant for the separator between prefix and variable name. */
+    private static final char PREFIX_SEPARATOR = ':';
+
+    /** Constant for the delimiter of a default value. */
+    private static final String DEFAULT_VALUE_DELIMITER = ":-";
+
+    /** Constant for an escaped variable start. */
+    private static final String ESCAPED_VAR_START = "$" + VAR_START;
+
+    /** The pattern this object was created for. */
+    private final String pattern;
+
+    /**
+     * The literal parts of the pattern. There is one more literal than
+     * variables; the literal with index i precedes the variable with index i.
+     */
+    private final String[] literals;
+
+    /** The variables referenced by the pattern. */
+    private final Variable[] variables;
+
+    /** Stores the last resolution for each thread. */
+    private final ThreadLocal<Resolution> lastResolution;
+
+    /**
+     * Creates a new instance of {@code CompiledKeyPattern}.
+     *
+     * @param pattern the key pattern
+     * @param literals the literal parts or <b>null</b> if the pattern is not
+     *        supported
+     * @param variables the variables
+     */
+    private CompiledKeyPattern(final String pattern, final String[] literals,
+            final Variable[] variables)
+    {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.variables = variables;
+        lastResolution = new ThreadLocal<>();
+    }
+
+    /**
+     * Compiles the given key pattern. The resulting object can always be
+     * used; if the pattern cannot be compiled, its {@code resolve()} method
+     * always returns <b>null</b>.
+     *
+     * @param pattern the key pattern (may be <b>null</b>)
+     * @return the compiled pattern
+     */
+    public static CompiledKeyPattern compile(final String pattern)
+    {
+        if (pattern == null || pattern.contains(ESCAPED_VAR_START))
+        {
+            return unsupported(pattern);
+        }
+
+        final List<String> literals = new ArrayList<>();
+        final List<Variable> variables = new ArrayList<>();
+        int pos = 0;
+        int varStart;
+        while ((varStart = pattern.indexOf(VAR_START, pos)) >= 0)
+        {
+            final int varEnd = pattern.indexOf(VAR_END, varStart);
+            if (varEnd < 0)
+            {
+                return unsupported(pattern);
+            }
+            final String var =
+                    pattern.substring(varStart + VAR_START.length(), varEnd);
+            final int prefixPos = var.indexOf(PREFIX_SEPARATOR);
+            if (prefixPos < 0 || var.contains(VAR_START)
+                    || var.contains(DEFAULT_VALUE_DELIMITER))
+            {
+                return unsupported(pattern);
+            }
+
+            literals.add(pattern.substring(pos, varStart));
+            variables.add(new Variable(var.substring(0, prefixPos),
+                    var.substring(prefixPos + 1),
+                    pattern.substring(varStart, varEnd + VAR_END.length())));
+            pos = varEnd + VAR_END.length();
+        }
+        literals.add(pattern.substring(pos));
+
+        return new CompiledKeyPattern(pattern,
+                literals.toArray(new String[literals.size()]),
+                variables.toArray(new Variable[variables.size()]));
+    }
+
+    /**
+     * Returns the key pattern this object was created for.
+     *
+     * @return the key pattern
+     */
+    public String getPattern()
+    {
+        return pattern;
+    }
+
+    /**
+     * Returns a flag whether the pattern could be compiled. If this method
+     * returns <b>false</b>, {@code resolve()} always returns <b>null</b>.
+     *
+     * @return a flag whether the pattern is supported
+     */
+    public boolean isSupported()
+    {
+        return literals != null;
+    }
+
+    /**
+     * Produces the key for the current values of the variables in the
+     * pattern. The variables are resolved using the {@code Lookup} objects
+     * registered for their prefixes at the passed in
+     * {@code ConfigurationInterpolator}. A variable which cannot be resolved
+     * remains in the key as is. Result is <b>null</b> if the key cannot be
+     * produced by this object; then standard interpolation has to be used.
+     *
+     * @param interpolator the {@code ConfigurationInterpolator} providing the
+     *        lookups
+     * @return the key or <b>null</b>
+     */
+    public String resolve(final ConfigurationInterpolator interpolator)
+    {
+        if (!isSupported())
+        {
+            return null;
+        }
+
+        final Resolution last = lastResolution.get();
+        Object[] values = null;
+        for (int i = 0; i < variables.length; i++)
+        {
+            final Object value = variables[i].lookup(interpolator);
+            if (value instanceof String
+                    && ((String) value).contains(VAR_START))
+            {
+                // recursive substitution is not supported
+                return null;
+            }
+
+            if (values == null)
+            {
+                if (last != null && Objects.equals(value, last.values[i]))
+                {
+                    continue;
+                }
+                values = new Object[variables.length];
+                if (last != null)
+                {
+                    System.arraycopy(last.values, 0, values, 0, i);
+                }
+            }
+            values[i] = value;
+        }
+
+        if (values == null)
+        {
+            if (last != null)
+            {
+                return last.key;
+            }
+            values = new Object[0];
+        }
+
+        final String key = buildKey(values);
+        lastResolution.set(new Resolution(values, key));
+        return key;
+    }
+
+    /**
+     * Creates an instance for a pattern which cannot be compiled.
+     *
+     * @param pattern the pattern
+     * @return the compiled pattern
+     */
+    private static CompiledKeyPattern unsupported(final String pattern)
+    {
+        return new CompiledKeyPattern(pattern, null, null);
+    }
+
+    /**
+     * Constructs a key from the literals of the pattern and the given values
+     * of the variables.
+     *
+     * @param values the values of the variables
+     * @return the key
+     */
+    private String buildKey(final Object[] values)
+    {
+        if (variables.length == 0)
+        {
+            return literals[0];
+        }
+
+        final StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < variables.length; i++)
+        {
+            buf.append(literals[i]);
+            if (values[i] != null)
+            {
+                buf.append(values[i]);
+            }
+            else
+            {
+                buf.append(variables[i].getText());
+            }
+        }
+        buf.append(literals[variables.length]);
+        return buf.toString();
+    }
+
+    /**
+     * A data class representing a variable in the pattern.
+     */
+    private static class Variable
+    {
+        /** The prefix of the variable. */
+        private final String prefix;
+
+        /** The name of the variable. */
+        private final String name;
+
+        /** The text of the variable as it appears in the pattern. */
+        private final String text;
+
+        /**
+         * Creates a new instance of {@code Variable}.
+         *
+         * @param prefix the prefix
+         * @param name the name
+         * @param text the text in the pattern
+         */
+        public Variable(final String prefix, final String name,
+                final String text)
+        {
+            this.prefix = prefix;
+            this.name = name;
+            this.text = text;
+        }
+
+        /**
+         * Returns the text of this variable in the pattern.
+         *
+         * @return the text
+         */
+        public String getText()
+        {
+            return text;
+        }
+
+        /**
+         * Obtains the current value of this variable.
+         *
+         * @param interpolator the interpolator providing the lookups
+         * @return the value of this variable (may be <b>null</b>)
+         */
+        public Object lookup(final ConfigurationInterpolator interpolator)
+        {
+            final Lookup lookup = interpolator.getLookup(prefix);
+            return (lookup != null) ? lookup.lookup(name) : null;
+        }
+    }
+
+    /**
+     * A data class storing the values of the variables and the resulting key
+     * of the last resolution on a thread.
+     */
+    private static class Resolution
+    {
+        /** The values of the variables. */
+        final Object[] values;
+
+        /** The resulting key. */
+        final String key;
+
+        /**
+         * Creates a new instance of {@code Resolution}.
+         *
+         * @param values the values of the variables
+         * @param key the key
+         */
+        Resolution(final Object[] values, final String key)
+        {
+            this.values = values;
+            this.key = key;
+        }
+    }
+}
@@ -27,6 +27,9 @@ import java.util.ListIterator;
 import java.util.Set;
 
 import org.apache.commons.configuration2.convert.ListDelimiterHandler;
+import org.apache.commons.configuration2.event.ConfigurationEvent;
+import org.apache.commons.configuration2.event.EventListener;
+import org.apache.commons.configuration2.event.EventSource;
 import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
 
 /**
@@ -62,6 +65,14 @@ import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
  * object also depends on the {@code Synchronizer} objects used by these
  * children.
  * </p>
+ * <p>
+ * Per default, each property access queries the child configurations one by
+ * one until one is found that contains the key. Optionally, an index can be
+ * enabled (see {@link #setKeyIndexEnabled(boolean)}) which stores for each
+ * key queried the child configuration defining it; keys which are not
+ * contained in any child are recorded, too. The index is kept up-to-date by
+ * the change events fired by the child configurations.
+ * </p>
  *
  * @author <a href="mailto:epugh@upstate.com">Eric Pugh</a>
  * @author <a href="mailto:hps@intermeta.de">Henning P. Schmiedehausen</a>
@@ -85,6 +96,12 @@ implements Cloneable
      */
     private boolean inMemoryConfigIsChild;
 
+    /** The index of keys and their sources; <b>null</b> if disabled. */
+    private volatile KeySourceIndex keyIndex;
+
+    /** The listener which keeps the key index up-to-date. */
+    private EventListener<ConfigurationEvent> indexListener;
+
     /**
      * Creates an empty CompositeConfiguration object which can then
      * be added some other Configuration files
@@ -199,6 +216,7 @@ implements Cloneable
                     // only the order in which child configurations are added is relevant
                     configList.add(config);
                 }
+                childAdded(config);
 
                 if (config instanceof AbstractConfiguration)
                 {
@@ -251,6 +269,7 @@ implements Cloneable
                     inMemoryConfigIsChild = true;
                 }
                 configList.add(0, config);
+                childAdded(config);
 
                 if (config instanceof AbstractConfiguration)
                 {
@@ -277,9 +296,10 @@ implements Cloneable
         {
             // Make sure that you can't remove the inMemoryConfiguration from
             // the CompositeConfiguration object
-            if (!config.equals(inMemoryConfiguration))
+            if (!config.equals(inMemoryConfiguration)
+                    && configList.remove(config))
             {
-                configList.remove(config);
+                childRemoved(config);
             }
         }
         finally
@@ -314,12 +334,17 @@ implements Cloneable
     @Override
     protected void clearInternal()
     {
+        for (final Configuration config : configList)
+        {
+            childRemoved(config);
+        }
         configList.clear();
         // recreate the in memory configuration
         inMemoryConfiguration = new BaseConfiguration();
         ((BaseConfiguration) inMemoryConfiguration).setThrowExceptionOnMissing(isThrowExceptionOnMissing());
         ((BaseConfiguration) inMemoryConfiguration).setListDelimiterHandler(getListDelimiterHandler());
         configList.add(inMemoryConfiguration);
+        childAdded(inMemoryConfiguration);
         inMemoryConfigIsChild = false;
     }
 
@@ -346,12 +371,20 @@ implements Cloneable
     protected Object getPropertyInternal(final String key)
     {
         Configuration firstMatchingConfiguration = null;
-        for (final Configuration config : configList)
+        final KeySourceIndex index = keyIndex;
+        if (index != null)
         {
-            if (config.containsKey(key))
+            firstMatchingConfiguration = fetchSources(index, key).getFirst();
+        }
+        else
+        {
+            for (final Configuration config : configList)
             {
-                firstMatchingConfiguration = config;
-                break;
+                if (config.containsKey(key))
+                {
+                    firstMatchingConfiguration = config;
+                    break;
+                }
             }
         }
 
@@ -418,6 +451,12 @@ implements Cloneable
     @Override
     protected boolean containsKeyInternal(final String key)
     {
+        final KeySourceIndex index = keyIndex;
+        if (index != null)
+        {
+            return fetchSources(index, key).getFirst() != null;
+        }
+
         for (final Configuration config : configList)
         {
             if (config.containsKey(key))
@@ -432,28 +471,39 @@ implements Cloneable
     public List<Object> getList(final String key, final List<?> defaultValue)
     {
         final List<Object> list = new ArrayList<>();
+        final KeySourceIndex index = keyIndex;
+        final KeySourceIndex.Entry sources =
+                (index != null) ? fetchSources(index, key) : null;
 
-        // add all elements from the first configuration containing the requested key
-        final Iterator<Configuration> it = configList.iterator();
-        while (it.hasNext() && list.isEmpty())
+        if (sources == null || sources.isMultiple()
+                && sources.getFirst() == inMemoryConfiguration)
         {
-            final Configuration config = it.next();
-            if (config != inMemoryConfiguration && config.containsKey(key))
+            // add all elements from the first configuration containing the requested key
+            final Iterator<Configuration> it = configList.iterator();
+            while (it.hasNext() && list.isEmpty())
             {
-                appendListProperty(list, config, key);
+                final Configuration config = it.next();
+                if (config != inMemoryConfiguration && config.containsKey(key))
+                {
+                    appendListProperty(list, config, key);
+                }
             }
         }
+        else if (sources.getFirst() == null)
+        {
+            return defaultList(defaultValue);
+        }
+        else if (sources.getFirst() != inMemoryConfiguration)
+        {
+            appendListProperty(list, sources.getFirst(), key);
+        }
 
         // add all elements from the in memory configuration
         appendListProperty(list, inMemoryConfiguration, key);
 
         if (list.isEmpty())
         {
-            // This is okay because we just return this list to the caller
-            @SuppressWarnings("unchecked")
-            final
-            List<Object> resultList = (List<Object>) defaultValue;
-            return resultList;
+            return defaultList(defaultValue);
         }
 
         final ListIterator<Object> lit = list.listIterator();
@@ -519,6 +569,74 @@ implements Cloneable
         }
     }
 
+    /**
+     * Returns a flag whether the index for keys and their source
+     * configurations is enabled.
+     *
+     * @return a flag whether the key index is enabled
+     * @since 2.5
+     */
+    public boolean isKeyIndexEnabled()
+    {
+        return keyIndex != null;
+    }
+
+    /**
+     * <p>
+     * Enables or disables the index for keys and their source configurations.
+     * If enabled, the child configuration containing a key is determined only
+     * once; later queries for this key (e.g. by {@code getProperty()},
+     * {@code containsKey()}, {@code getList()}, or {@code getSource()}) obtain
+     * it directly from the index. This is also the case for keys which are not
+     * contained in any child configuration.
+     * </p>
+     * <p>
+     * The index is kept up-to-date by registering an event listener at all
+     * child configurations. Changes of flat configurations only invalidate
+     * the affected key; all other changes clear the whole index. Therefore,
+     * the index should only be enabled if all changes on the child
+     * configurations are reported by change events. Child configurations
+     * whose data can change without corresponding events (for instance, a
+     * {@link SystemConfiguration} or a {@link DatabaseConfiguration}) must not
+     * be used together with the index. Per default, the index is disabled.
+     * </p>
+     *
+     * @param enabled the flag whether the key index should be enabled
+     * @since 2.5
+     */
+    public void setKeyIndexEnabled(final boolean enabled)
+    {
+        beginWrite(false);
+        try
+        {
+            if (enabled != isKeyIndexEnabled())
+            {
+                if (enabled)
+                {
+                    indexListener = new IndexListener();
+                    keyIndex = new KeySourceIndex();
+                    for (final Configuration config : configList)
+                    {
+                        registerIndexListener(config);
+                    }
+                }
+                else
+                {
+                    for (final Configuration config : configList)
+                    {
+                        unregisterIndexListener(config);
+                    }
+                    keyIndex = null;
+                    indexListener = null;
+                }
+            }
+        }
+        finally
+        {
+            endWrite();
+        }
+    }
+
     /**
      * Returns a copy of this object. This implementation will create a deep
      * clone, i.e. all configurations contained in this composite will also be
@@ -536,6 +654,9 @@ implements Cloneable
         {
             final CompositeConfiguration copy = (CompositeConfiguration) super
                     .clone();
+            final boolean indexEnabled = isKeyIndexEnabled();
+            copy.keyIndex = null;
+            copy.indexListener = null;
             copy.configList = new LinkedList<>();
             copy.inMemoryConfiguration = ConfigurationUtils
                     .cloneConfiguration(getInMemoryConfiguration());
@@ -551,6 +672,7 @@ implements Cloneable
             }
 
             copy.cloneInterpolator(this);
+            copy.setKeyIndexEnabled(indexEnabled);
             return copy;
         }
         catch (final CloneNotSupportedException cnex)
@@ -606,6 +728,18 @@ implements Cloneable
             throw new IllegalArgumentException("Key must not be null!");
         }
 
+        final KeySourceIndex index = keyIndex;
+        if (index != null)
+        {
+            final KeySourceIndex.Entry sources = fetchSources(index, key);
+            if (sources.isMultiple())
+            {
+                throw new IllegalArgumentException("The key " + key
+                        + " is defined by multiple sources!");
+            }
+            return sources.getFirst();
+        }
+
         Configuration source = null;
         for (final Configuration conf : configList)
         {
@@ -634,10 +768,128 @@ implements Cloneable
         {
             // remove current in-memory configuration
             configList.remove(inMemoryConfiguration);
+            childRemoved(inMemoryConfiguration);
         }
         inMemoryConfiguration = config;
     }
 
+    /**
+     * Determines the child configurations containing the given key using the
+     * specified index. If the key is not yet contained in the index, all child
+     * configurations are queried, and the result is added to the index.
+     *
+     * @param index the key index
+     * @param key the key
+     * @return the entry with the sources of this key
+     */
+    private KeySourceIndex.Entry fetchSources(final KeySourceIndex index,
+            final String key)
+    {
+        KeySourceIndex.Entry sources = index.get(key);
+        if (sources == null)
+        {
+            final long modCount = index.getModificationCount();
+            Configuration first = null;
+            boolean multiple = false;
+            for (final Configuration config : configList)
+            {
+                if (config.containsKey(key))
+                {
+                    if (first != null)
+                    {
+                        multiple = true;
+                        break;
+                    }
+                    first = config;
+                }
+            }
+
+            sources = (first != null) ? new KeySourceIndex.Entry(first,
+                    multiple) : KeySourceIndex.NONE;
+            index.put(key, sources, modCount);
+        }
+        return sources;
+    }
+
+    /**
+     * Performs required updates after a child configuration has been added.
+     * If the key index is enabled, it is cleared, and the index listener is
+     * registered at the new child.
+     *
+     * @param config the new child configuration
+     */
+    private void childAdded(final Configuration config)
+    {
+        final KeySourceIndex index = keyIndex;
+        if (index != null)
+        {
+            index.clear();
+            registerIndexListener(config);
+        }
+    }
+
+    /**
+     * Performs required updates after a child configuration has been removed.
+     * If the key index is enabled, it is cleared, and the index listener is
+     * removed from the child.
+     *
+     * @param config the removed child configuration
+     */
+    private void childRemoved(final Configuration config)
+    {
+        final KeySourceIndex index = keyIndex;
+        if (index != null)
+        {
+            index.clear();
+            unregisterIndexListener(config);
+        }
+    }
+
+    /**
+     * Registers the listener for updating the key index at the given child
+     * configuration.
+     *
+     * @param config the child configuration
+     */
+    private void registerIndexListener(final Configuration config)
+    {
+        if (config instanceof EventSource)
+        {
+            ((EventSource) config).addEventListener(ConfigurationEvent.ANY,
+                    indexListener);
+        }
+    }
+
+    /**
+     * Removes the listener for updating the key index from the given child
+     * configuration.
+     *
+     * @param config the child configuration
+     */
+    private void unregisterIndexListener(final Configuration config)
+    {
+        if (config instanceof EventSource)
+        {
+            ((EventSource) config).removeEventListener(ConfigurationEvent.ANY,
+                    indexListener);
+        }
+    }
+
+    /**
+     * Returns the default value passed to {@code getList()} as result.
+     *
+     * @param defaultValue the default value
+     * @return the default list
+     */
+    private static List<Object> defaultList(final List<?> defaultValue)
+    {
+        // This is okay because we just return this list to the caller
+        @SuppressWarnings("unchecked")
+        final
+        List<Object> resultList = (List<Object>) defaultValue;
+        return resultList;
+    }
+
     /**
      * Adds the value of a property to the given list. This method is used by
      * {@code getList()} for gathering property values from the child
@@ -664,4 +916,35 @@ implements Cloneable
             }
         }
     }
+
+    /**
+     * The event listener registered at child configurations if the key index
+     * is enabled. It invalidates the entries of the index affected by a
+     * change.
+     */
+    private class IndexListener implements EventListener<ConfigurationEvent>
+    {
+        @Override
+        public void onEvent(final ConfigurationEvent event)
+        {
+            final KeySourceIndex index = keyIndex;
+            if (index == null || event.isBeforeUpdate())
+            {
+                return;
+            }
+
+            // For flat configurations a change of a key only affects this
+            // key; in hierarchical ones other keys may be affected, too.
+            if (ConversionCache.isPropertyEvent(event.getEventType())
+                    && event.getPropertyName() != null
+                    && !(event.getSource() instanceof HierarchicalConfiguration))
+            {
+                index.invalidate(event.getPropertyName());
+            }
+            else
+            {
+                index.clear();
+            }
+        }
+    }
 }
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.configuration2.event.ConfigurationEvent;
+import org.apache.commons.configuration2.event.EventType;
+
+/**
+ * <p>
+ * A cache for property values which have already been converted to a specific
+ * target class, used internally by {@link AbstractConfiguration}.
+ * </p>
+ * <p>
+ * The cache stores converted values per target class and property key. The
+ * owning configuration notifies it about every change event it fires, so that
+ * affected entries can be invalidated: For events related to a single property
+ * all entries whose keys are a prefix of the changed key (or vice versa) are
+ * removed. All other change events clear the whole cache. Configurations in
+ * which a property can be addressed by different keys (e.g. hierarchical keys
+ * with indices) do not pass the changed key, so that their cache is always
+ * cleared.
+ * </p>
+ * <p>
+ * To avoid that a reader thread stores a value which was obtained before a
+ * concurrent update, the cache maintains a modification count. A reader
+ * queries this count before it accesses the configuration; the value it
+ * obtains is stored only if no invalidation happened in the meantime.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+class ConversionCache
+{
+    /** A placeholder object representing a <b>null</b> value in the cache. */
+    static final Object NULL = new Object();
+
+    /** The map with cached values, grouped by their target classes. */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, Object>> values;
+
+    /** The modification count. */
+    private final AtomicLong modCount;
+
+    /**
+     * Creates a new, empty instance of {@code ConversionCache}.
+     */
+    public ConversionCache()
+    {
+        values = new ConcurrentHashMap<>();
+        modCount = new AtomicLong();
+    }
+
+    /**
+     * Returns the current modification count. This value has to be obtained
+     * before a value to be cached is retrieved from the configuration. It is
+     * then passed to the {@code put()} method.
+     *
+     * @return the current modification count
+     */
+    public long getModificationCount()
+    {
+        return modCount.get();
+    }
+
+    /**
+     * Returns the cached value for the given target class and key. Result is
+     * <b>null</b> if no value is cached. A cached <b>null</b> value (i.e. an
+     * undefined property) is represented by the {@link #NULL} placeholder.
+     *
+     * @param cls the target class
+     * @param key the property key
+     * @return the cached value or <b>null</b>
+     */
+    public Object get(final Class<?> cls, final String key)
+    {
+        final Map<String, Object> map = values.get(cls);
+        return (map != null) ? map.get(key) : null;
+    }
+
+    /**
+     * Adds a converted value to this cache. The value is only stored if no
+     * modification happened since the passed in modification count was
+     * obtained.
+     *
+     * @param cls the target class
+     * @param key the property key
+     * @param value the converted value (may be <b>null</b>)
+     * @param expectedModCount the modification count obtained before the
+     *        value was retrieved
+     */
+    public void put(final Class<?> cls, final String key, final Object value,
+            final long expectedModCount)
+    {
+        if (expectedModCount != modCount.get())
+        {
+            return;
+        }
+
+        final ConcurrentMap<String, Object> map = fetchMap(cls);
+        final Object cacheValue = (value == null) ? NULL : value;
+        map.put(key, cacheValue);
+        if (expectedModCount != modCount.get())
+        {
+            // a concurrent update may have invalidated the cache before the
+            // value was added
+            map.remove(key, cacheValue);
+        }
+    }
+
+    /**
+     * Removes all values from this cache.
+     */
+    public void clear()
+    {
+        modCount.incrementAndGet();
+        values.clear();
+    }
+
+    /**
+     * Removes all values from this cache that may be affected by a change of
+     * the given key.
+     *
+     * @param key the key which has been changed
+     */
+    public void invalidate(final String key)
+    {
+        modCount.incrementAndGet();
+        for (final Map<String, Object> map : values.values())
+        {
+            final Iterator<String> it = map.keySet().iterator();
+            while (it.hasNext())
+            {
+                final String cachedKey = it.next();
+                if (cachedKey.startsWith(key) || key.startsWith(cachedKey))
+                {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Notifies this cache about a change of the owning configuration. The
+     * entries affected by this change are invalidated.
+     *
+     * @param type the type of the change event
+     * @param key the name of the affected property (can be <b>null</b>)
+     */
+    public void changed(final EventType<?> type, final String key)
+    {
+        if (isPropertyEvent(type) && key != null)
+        {
+            invalidate(key);
+        }
+        else
+        {
+            clear();
+        }
+    }
+
+    /**
+     * Returns the map for the given target class, creating it on demand.
+     *
+     * @param cls the target class
+     * @return the map with cached values of this class
+     */
+    private ConcurrentMap<String, Object> fetchMap(final Class<?> cls)
+    {
+        ConcurrentMap<String, Object> map = values.get(cls);
+        if (map == null)
+        {
+            final ConcurrentMap<String, Object> newMap =
+                    new ConcurrentHashMap<>();
+            map = values.putIfAbsent(cls, newMap);
+            if (map == null)
+            {
+                map = newMap;
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Checks whether the given event type refers to a change of a single
+     * property.
+     *
+     * @param type the event type
+     * @return a flag whether this is an event for a single property
+     */
+    static boolean isPropertyEvent(final EventType<?> type)
+    {
+        return ConfigurationEvent.ADD_PROPERTY.equals(type)
+                || ConfigurationEvent.SET_PROPERTY.equals(type)
+                || ConfigurationEvent.CLEAR_PROPERTY.equals(type);
+    }
+}
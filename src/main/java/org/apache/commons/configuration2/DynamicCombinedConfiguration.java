@@ -27,8 +27,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.configuration2.event.Event;
 import org.apache.commons.configuration2.event.EventListener;
@@ -58,6 +56,15 @@ import org.apache.commons.configuration2.tree.NodeCombiner;
  * consistency and to avoid exceptions. The {@code Synchronizer} assigned to an
  * instance is also passed to child configuration objects when they are created.
  * </p>
+ * <p>
+ * The {@code CombinedConfiguration} objects created for the different keys are
+ * cached. Per default, this cache is unbounded. If the key pattern produces a
+ * large number of distinct keys, the cache can be limited using the
+ * {@link #setMaxCachedConfigurations(int)} and {@link #setMaxIdleTime(long)}
+ * methods. Configurations evicted from the cache are created anew when their
+ * key is accessed again. Statistics about the cache can be queried using
+ * methods like {@link #getCacheHitCount()}.
+ * </p>
  *
  * @since 1.6
  * @version $Id$
@@ -72,8 +79,8 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
             new ThreadLocal<>();
 
     /** The CombinedConfigurations */
-    private final ConcurrentMap<String, CombinedConfiguration> configs =
-            new ConcurrentHashMap<>();
+    private final CombinedConfigurationCache configs =
+            new CombinedConfigurationCache();
 
     /** Stores a list with the contained configurations. */
     private final List<ConfigData> configurations = new ArrayList<>();
@@ -82,8 +89,9 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     private final Map<String, Configuration> namedConfigurations =
             new HashMap<>();
 
-    /** The key pattern for the CombinedConfiguration map */
-    private String keyPattern;
+    /** The compiled key pattern for the CombinedConfiguration map */
+    private volatile CompiledKeyPattern keyPattern =
+            CompiledKeyPattern.compile(null);
 
     /** Stores the combiner. */
     private NodeCombiner nodeCombiner;
@@ -122,14 +130,31 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
         localSubst = initLocalInterpolator();
     }
 
+    /**
+     * Sets the pattern for the keys of the child configurations. The pattern
+     * is interpolated at the beginning of each operation; the result selects
+     * the {@code CombinedConfiguration} to be used. Patterns consisting only
+     * of literal text and simple variables of the form
+     * <code>${prefix:name}</code> are evaluated efficiently by querying the
+     * affected {@code Lookup} objects directly; if their values do not change
+     * between operations on a thread, the key is not constructed again. Other
+     * patterns are processed using the full interpolation mechanism.
+     *
+     * @param pattern the key pattern
+     */
     public void setKeyPattern(final String pattern)
     {
-        this.keyPattern = pattern;
+        this.keyPattern = CompiledKeyPattern.compile(pattern);
     }
 
+    /**
+     * Returns the pattern for the keys of the child configurations.
+     *
+     * @return the key pattern
+     */
     public String getKeyPattern()
     {
-        return this.keyPattern;
+        return this.keyPattern.getPattern();
     }
 
     /**
@@ -141,6 +166,110 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
         this.loggerName = name;
     }
 
+    /**
+     * Returns the maximum number of child configurations kept in the cache. A
+     * value of 0 means that the cache is unbounded.
+     *
+     * @return the maximum number of cached configurations
+     * @since 2.5
+     */
+    public int getMaxCachedConfigurations()
+    {
+        return configs.getMaxSize();
+    }
+
+    /**
+     * Sets the maximum number of child configurations kept in the cache. For
+     * each distinct key produced by the key pattern a separate
+     * {@code CombinedConfiguration} is created. If the number of these
+     * configurations exceeds the limit, the ones which have not been accessed
+     * for the longest time are evicted. A value of 0 (which is the default)
+     * means that the cache is unbounded.
+     *
+     * @param maxCount the maximum number of cached configurations
+     * @throws IllegalArgumentException if the number is negative
+     * @since 2.5
+     */
+    public void setMaxCachedConfigurations(final int maxCount)
+    {
+        configs.setMaxSize(maxCount);
+    }
+
+    /**
+     * Returns the maximum time in milliseconds a cached child configuration
+     * may remain unused. A value of 0 means that there is no limit.
+     *
+     * @return the maximum idle time of cached configurations
+     * @since 2.5
+     */
+    public long getMaxIdleTime()
+    {
+        return configs.getMaxIdleTime();
+    }
+
+    /**
+     * Sets the maximum time in milliseconds a cached child configuration may
+     * remain unused. A configuration which has not been accessed within this
+     * time is evicted from the cache and created anew on next access. A value
+     * of 0 (which is the default) means that there is no limit.
+     *
+     * @param maxIdleTime the maximum idle time of cached configurations
+     * @throws IllegalArgumentException if the time is negative
+     * @since 2.5
+     */
+    public void setMaxIdleTime(final long maxIdleTime)
+    {
+        configs.setMaxIdleTime(maxIdleTime);
+    }
+
+    /**
+     * Returns the number of child configurations which are currently cached.
+     *
+     * @return the number of cached configurations
+     * @since 2.5
+     */
+    public int getCachedConfigurationCount()
+    {
+        return configs.size();
+    }
+
+    /**
+     * Returns the number of operations for which the child configuration for
+     * the current key was found in the cache.
+     *
+     * @return the number of cache hits
+     * @since 2.5
+     */
+    public long getCacheHitCount()
+    {
+        return configs.getHitCount();
+    }
+
+    /**
+     * Returns the number of operations for which no child configuration for
+     * the current key was found in the cache.
+     *
+     * @return the number of cache misses
+     * @since 2.5
+     */
+    public long getCacheMissCount()
+    {
+        return configs.getMissCount();
+    }
+
+    /**
+     * Returns the number of child configurations which have been evicted from
+     * the cache because its size limit was exceeded or because they were not
+     * used within the maximum idle time.
+     *
+     * @return the number of evicted configurations
+     * @since 2.5
+     */
+    public long getCacheEvictionCount()
+    {
+        return configs.getEvictionCount();
+    }
+
     /**
      * Returns the node combiner that is used for creating the combined node
      * structure.
@@ -718,7 +847,7 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     @Override
     public void clearEventListeners()
     {
-        for (final CombinedConfiguration cc : configs.values())
+        for (final CombinedConfiguration cc : configs.configurations())
         {
             cc.clearEventListeners();
         }
@@ -729,7 +858,7 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     public <T extends Event> void addEventListener(final EventType<T> eventType,
             final EventListener<? super T> listener)
     {
-        for (final CombinedConfiguration cc : configs.values())
+        for (final CombinedConfiguration cc : configs.configurations())
         {
             cc.addEventListener(eventType, listener);
         }
@@ -740,7 +869,7 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     public <T extends Event> boolean removeEventListener(
             final EventType<T> eventType, final EventListener<? super T> listener)
     {
-        for (final CombinedConfiguration cc : configs.values())
+        for (final CombinedConfiguration cc : configs.configurations())
         {
             cc.removeEventListener(eventType, listener);
         }
@@ -750,7 +879,7 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     @Override
     public void clearErrorListeners()
     {
-        for (final CombinedConfiguration cc : configs.values())
+        for (final CombinedConfiguration cc : configs.configurations())
         {
             cc.clearErrorListeners();
         }
@@ -788,7 +917,7 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
 
     public void invalidateAll()
     {
-        for (final CombinedConfiguration cc : configs.values())
+        for (final CombinedConfiguration cc : configs.configurations())
         {
             cc.invalidate();
         }
@@ -951,8 +1080,7 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
             protected Lookup fetchLookupForPrefix(final String prefix)
             {
                 return ConfigurationInterpolator
-                        .nullSafeLookup(getInterpolator().getLookups().get(
-                                prefix));
+                        .nullSafeLookup(getInterpolator().getLookup(prefix));
             }
         };
     }
@@ -971,7 +1099,7 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
         CurrentConfigHolder cch = CURRENT_CONFIG.get();
         if (cch == null)
         {
-            final String key = String.valueOf(localSubst.interpolate(keyPattern));
+            final String key = resolveKey();
             cch = new CurrentConfigHolder(key);
             cch.setCurrentConfiguration(configs.get(key));
             CURRENT_CONFIG.set(cch);
@@ -979,6 +1107,24 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
         return cch;
     }
 
+    /**
+     * Determines the key of the child configuration to be used for the
+     * current operation. If possible, the compiled key pattern is used;
+     * otherwise, the pattern is interpolated.
+     *
+     * @return the current key
+     */
+    private String resolveKey()
+    {
+        final CompiledKeyPattern pattern = keyPattern;
+        final String key = pattern.resolve(getInterpolator());
+        if (key != null)
+        {
+            return key;
+        }
+        return String.valueOf(localSubst.interpolate(pattern.getPattern()));
+    }
+
     /**
      * Internal class that identifies each Configuration.
      */
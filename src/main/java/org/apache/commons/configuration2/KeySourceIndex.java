@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * An index from property keys to the child configurations defining them,
+ * used internally by {@link CompositeConfiguration}.
+ * </p>
+ * <p>
+ * For each key, the index stores the first child configuration containing
+ * this key and a flag whether further children contain it, too. Keys not
+ * contained in any child are stored as well, so that misses can be answered
+ * without querying the children. The index is populated lazily. In order to
+ * limit the memory consumption, it stops accepting new entries when a maximum
+ * size is reached.
+ * </p>
+ * <p>
+ * The owning configuration invalidates entries when it receives change events
+ * from its children. As {@link ConversionCache} does, the index maintains a
+ * modification count, so that a reader thread does not store an entry which
+ * was determined before a concurrent update.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+class KeySourceIndex
+{
+    /** The maximum number of keys stored in an index. */
+    static final int MAX_SIZE = 65536;
+
+    /** The entry for keys not contained in any child configuration. */
+    static final Entry NONE = new Entry(null, false);
+
+    /** The map with the entries of this index. */
+    private final ConcurrentMap<String, Entry> entries;
+
+    /** The modification count. */
+    private final AtomicLong modCount;
+
+    /**
+     * Creates a new, empty instance of {@code KeySourceIndex}.
+     */
+    public KeySourceIndex()
+    {
+        entries = new ConcurrentHashMap<>();
+        modCount = new AtomicLong();
+    }
+
+    /**
+     * Returns the current modification count. This value has to be obtained
+     * before the child configurations are queried for a key. It is then
+     * passed to the {@code put()} method.
+     *
+     * @return the current modification count
+     */
+    public long getModificationCount()
+    {
+        return modCount.get();
+    }
+
+    /**
+     * Returns the entry for the given key or <b>null</b> if this key is not
+     * contained in the index.
+     *
+     * @param key the key
+     * @return the entry for this key or <b>null</b>
+     */
+    public Entry get(final String key)
+    {
+        return entries.get(key);
+    }
+
+    /**
+     * Adds an entry to this index. The entry is only stored if no
+     * modification happened since the passed in modification count was
+     * obtained.
+     *
+     * @param key the key
+     * @param entry the entry for this key
+     * @param expectedModCount the modification count obtained before the
+     *        entry was determined
+     */
+    public void put(final String key, final Entry entry,
+            final long expectedModCount)
+    {
+        if (expectedModCount != modCount.get() || entries.size() >= MAX_SIZE)
+        {
+            return;
+        }
+
+        entries.put(key, entry);
+        if (expectedModCount != modCount.get())
+        {
+            // a concurrent update may have invalidated the index before the
+            // entry was added
+            entries.remove(key, entry);
+        }
+    }
+
+    /**
+     * Removes the entry for the given key.
+     *
+     * @param key the key which has been changed
+     */
+    public void invalidate(final String key)
+    {
+        modCount.incrementAndGet();
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all entries from this index.
+     */
+    public void clear()
+    {
+        modCount.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of keys stored in this index.
+     *
+     * @return the size of this index
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * A simple data class storing the information about the sources of a
+     * key.
+     */
+    static final class Entry
+    {
+        /** The first child configuration containing the key. */
+        private final Configuration first;
+
+        /** A flag whether the key is contained in multiple children. */
+        private final boolean multiple;
+
+        /**
+         * Creates a new instance of {@code Entry}.
+         *
+         * @param first the first child configuration containing the key
+         * @param multiple the flag whether there are further sources
+         */
+        public Entry(final Configuration first, final boolean multiple)
+        {
+            this.first = first;
+            this.multiple = multiple;
+        }
+
+        /**
+         * Returns the first child configuration containing the key or
+         * <b>null</b> if the key is not contained in any child.
+         *
+         * @return the first source configuration
+         */
+        public Configuration getFirst()
+        {
+            return first;
+        }
+
+        /**
+         * Returns a flag whether the key is contained in multiple child
+         * configurations.
+         *
+         * @return a flag whether there are multiple sources
+         */
+        public boolean isMultiple()
+        {
+            return multiple;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2;
+
+/**
+ * <p>
+ * Definition of an interface for configurations whose content is loaded on
+ * first access.
+ * </p>
+ * <p>
+ * A configuration implementing this interface starts in an unloaded state
+ * in which it is typically empty. Its content is brought in by calling the
+ * {@code load()} method. A {@link CombinedConfiguration} takes this interface
+ * into account: If a child configuration implements it, its {@code load()}
+ * method is called the first time a key is queried on the combined
+ * configuration which may refer to the content of this child. So expensive
+ * child configurations can be added to a combined configuration without
+ * paying the costs for loading them if their data is never accessed.
+ * </p>
+ * <p>
+ * Implementations must be thread-safe. The {@code load()} method may be
+ * called concurrently by multiple threads; the content must be loaded only
+ * once. After loading, an implementation has to fire a change event, so that
+ * combined configurations containing it can update their node structures.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public interface LazyLoadingSupport
+{
+    /**
+     * Returns a flag whether the content of this object has already been
+     * loaded. If this method returns <b>true</b>, calls of {@code load()}
+     * have no effect.
+     *
+     * @return a flag whether this object has been loaded
+     */
+    boolean isLoaded();
+
+    /**
+     * Loads the content of this object if this has not been done before. This
+     * method blocks until the content is available. Errors during loading are
+     * reported as runtime exceptions.
+     */
+    void load();
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.configuration2.tree.ExpressionEngine;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.commons.configuration2.tree.NodeHandler;
+import org.apache.commons.configuration2.tree.QueryResult;
+
+/**
+ * <p>
+ * An index from keys to the results of queries on a tree of immutable nodes,
+ * used internally by {@link BaseHierarchicalConfiguration}.
+ * </p>
+ * <p>
+ * An instance is bound to a specific root node, the {@code NodeHandler} used
+ * to navigate the tree, and the {@code ExpressionEngine} which evaluates the
+ * keys. Because the nodes are immutable, the result of a query for a given key
+ * cannot change as long as all of these objects stay the same. Each update of
+ * an {@link org.apache.commons.configuration2.tree.InMemoryNodeModel
+ * InMemoryNodeModel} produces a new root node; so the index simply becomes
+ * invalid and is replaced by a new one instead of being updated.
+ * </p>
+ * <p>
+ * The index is populated lazily when keys are queried. In order to limit the
+ * memory consumption, it stops accepting new entries when a maximum size is
+ * reached.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+class NodeKeyIndex
+{
+    /** The maximum number of keys stored in an index. */
+    static final int MAX_SIZE = 65536;
+
+    /** The root node this index is based on. */
+    private final ImmutableNode root;
+
+    /** The node handler this index is based on. */
+    private final NodeHandler<ImmutableNode> handler;
+
+    /** The expression engine this index is based on. */
+    private final ExpressionEngine engine;
+
+    /** The map with the results of the queries. */
+    private final ConcurrentMap<String, List<QueryResult<ImmutableNode>>> results;
+
+    /**
+     * Creates a new, empty instance of {@code NodeKeyIndex} for the given
+     * tree.
+     *
+     * @param root the root node
+     * @param handler the node handler
+     * @param engine the expression engine
+     */
+    public NodeKeyIndex(final ImmutableNode root,
+            final NodeHandler<ImmutableNode> handler,
+            final ExpressionEngine engine)
+    {
+        this.root = root;
+        this.handler = handler;
+        this.engine = engine;
+        results = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Checks whether this index can be used to resolve keys on the specified
+     * tree.
+     *
+     * @param root the root node
+     * @param handler the node handler
+     * @param engine the expression engine
+     * @return a flag whether this index is valid for these objects
+     */
+    public boolean isValidFor(final ImmutableNode root,
+            final NodeHandler<ImmutableNode> handler,
+            final ExpressionEngine engine)
+    {
+        return this.root == root && this.handler == handler
+                && this.engine == engine;
+    }
+
+    /**
+     * Returns the query results stored for the given key or <b>null</b> if
+     * this key has not yet been resolved.
+     *
+     * @param key the key
+     * @return the results of this key or <b>null</b>
+     */
+    public List<QueryResult<ImmutableNode>> get(final String key)
+    {
+        return results.get(key);
+    }
+
+    /**
+     * Adds the results of a query to this index. The passed in list must not
+     * be modified afterwards. The list returned by this method is an
+     * unmodifiable view which can be shared between multiple callers.
+     *
+     * @param key the key
+     * @param queryResults the results of the query for this key
+     * @return the list with the results stored in this index
+     */
+    public List<QueryResult<ImmutableNode>> put(final String key,
+            final List<QueryResult<ImmutableNode>> queryResults)
+    {
+        final List<QueryResult<ImmutableNode>> value =
+                queryResults.isEmpty() ? Collections
+                        .<QueryResult<ImmutableNode>> emptyList()
+                        : Collections.unmodifiableList(queryResults);
+        if (results.size() < MAX_SIZE)
+        {
+            results.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the number of keys stored in this index.
+     *
+     * @return the size of this index
+     */
+    public int size()
+    {
+        return results.size();
+    }
+}
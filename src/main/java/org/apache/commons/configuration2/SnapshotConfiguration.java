@@ -0,0 +1,360 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
+
+/**
+ * <p>
+ * A flat in-memory configuration optimized for read-mostly scenarios with
+ * concurrent access.
+ * </p>
+ * <p>
+ * Like {@link BaseConfiguration}, this class stores its properties in a map.
+ * However, this map is never modified. Each update operation creates a new,
+ * immutable snapshot of the data which is then published atomically. Read
+ * operations just obtain the current snapshot and access it without any
+ * locking; they always see a consistent state, either before or after an
+ * update. Because of this, an instance can be shared between multiple threads
+ * without setting a {@link org.apache.commons.configuration2.sync.Synchronizer
+ * Synchronizer}. Concurrent updates are safe, too; they are applied one after
+ * the other.
+ * </p>
+ * <p>
+ * The price for wait-free reads is that every update has to copy the whole
+ * data of the configuration. So this class is a good fit for configurations
+ * which are populated once or are updated rarely, but it should not be used
+ * if properties are changed frequently. The {@code addProperty()} and
+ * {@code setProperty()} methods produce a single new snapshot, even if the
+ * passed in value is split into multiple values.
+ * </p>
+ * <p>
+ * An instance can be used wherever a {@code BaseConfiguration} is used as a
+ * simple in-memory store, for instance as the in-memory configuration of a
+ * {@link CompositeConfiguration}. Note that the values of properties with
+ * multiple values are returned as unmodifiable lists.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class SnapshotConfiguration extends AbstractConfiguration implements
+        Cloneable
+{
+    /** Stores the current snapshot of the configuration data. */
+    private AtomicReference<Map<String, Object>> store;
+
+    /**
+     * Creates a new, empty instance of {@code SnapshotConfiguration}.
+     */
+    public SnapshotConfiguration()
+    {
+        store = new AtomicReference<>(Collections.<String, Object> emptyMap());
+    }
+
+    /**
+     * Creates a new instance of {@code SnapshotConfiguration} and initializes
+     * it with the content of the given map. The map is copied; so later
+     * changes on it are not visible to this configuration. Collections and
+     * arrays are stored as properties with multiple values.
+     *
+     * @param map the map with initial properties (must not be <b>null</b>)
+     * @throws IllegalArgumentException if the map is <b>null</b>
+     */
+    public SnapshotConfiguration(final Map<String, ?> map)
+    {
+        if (map == null)
+        {
+            throw new IllegalArgumentException("Map must not be null!");
+        }
+
+        final Map<String, Object> data = new LinkedHashMap<>();
+        for (final Map.Entry<String, ?> e : map.entrySet())
+        {
+            final Object value =
+                    toStoredValue(null,
+                            getListDelimiterHandler().parse(e.getValue()));
+            if (value != null)
+            {
+                data.put(e.getKey(), value);
+            }
+        }
+        store = new AtomicReference<>(Collections.unmodifiableMap(data));
+    }
+
+    /**
+     * Returns a map with the current content of this configuration. The map
+     * is an immutable snapshot; it is not affected by later updates. Values
+     * of properties with multiple values are represented as lists.
+     *
+     * @return a snapshot of the data of this configuration
+     */
+    public Map<String, Object> getSnapshot()
+    {
+        return store.get();
+    }
+
+    /**
+     * {@inheritDoc} This implementation publishes a single new snapshot
+     * containing all the values the passed in object is split into.
+     */
+    @Override
+    protected void addPropertyInternal(final String key, final Object value)
+    {
+        addValues(key, getListDelimiterHandler().parse(value));
+    }
+
+    /**
+     * Adds a single value to the given property.
+     *
+     * @param key the key of the property
+     * @param value the value to be added
+     */
+    @Override
+    protected void addPropertyDirect(final String key, final Object value)
+    {
+        addValues(key, Collections.singleton(value));
+    }
+
+    /**
+     * {@inheritDoc} This implementation replaces the values of the property in
+     * a single step; so readers never see the property in an intermediate
+     * state in which it is undefined.
+     */
+    @Override
+    protected void setPropertyInternal(final String key, final Object value)
+    {
+        final Iterable<?> values = getListDelimiterHandler().parse(value);
+        Map<String, Object> current;
+        Map<String, Object> next;
+        do
+        {
+            current = store.get();
+            next = copy(current);
+            final Object newValue = toStoredValue(null, values);
+            if (newValue != null)
+            {
+                next.put(key, newValue);
+            }
+            else
+            {
+                next.remove(key);
+            }
+        } while (!publish(current, next));
+    }
+
+    /**
+     * Reads a property from the current snapshot.
+     *
+     * @param key the property key
+     * @return the value of this property or <b>null</b>
+     */
+    @Override
+    protected Object getPropertyInternal(final String key)
+    {
+        return store.get().get(key);
+    }
+
+    /**
+     * {@inheritDoc} Reading from a snapshot does not have any side effects;
+     * so this implementation returns <b>true</b>.
+     */
+    @Override
+    protected boolean isOptimisticReadSupported()
+    {
+        return true;
+    }
+
+    @Override
+    protected boolean isEmptyInternal()
+    {
+        return store.get().isEmpty();
+    }
+
+    @Override
+    protected boolean containsKeyInternal(final String key)
+    {
+        return store.get().containsKey(key);
+    }
+
+    @Override
+    protected void clearPropertyDirect(final String key)
+    {
+        Map<String, Object> current;
+        Map<String, Object> next;
+        do
+        {
+            current = store.get();
+            if (!current.containsKey(key))
+            {
+                return;
+            }
+            next = copy(current);
+            next.remove(key);
+        } while (!publish(current, next));
+    }
+
+    /**
+     * {@inheritDoc} This implementation just publishes an empty snapshot.
+     */
+    @Override
+    protected void clearInternal()
+    {
+        store.set(Collections.<String, Object> emptyMap());
+    }
+
+    /**
+     * {@inheritDoc} This implementation obtains the size directly from the
+     * current snapshot.
+     */
+    @Override
+    protected int sizeInternal()
+    {
+        return store.get().size();
+    }
+
+    /**
+     * {@inheritDoc} The iterator returned by this implementation operates on
+     * the current snapshot; it is not affected by concurrent updates. It does
+     * not support the {@code remove()} operation.
+     */
+    @Override
+    protected Iterator<String> getKeysInternal()
+    {
+        return store.get().keySet().iterator();
+    }
+
+    /**
+     * Creates a copy of this object. As the snapshots are immutable, the copy
+     * can start with the current snapshot of this configuration. Changes
+     * performed at the copy won't affect the original and vice versa.
+     *
+     * @return the copy
+     */
+    @Override
+    public Object clone()
+    {
+        try
+        {
+            final SnapshotConfiguration copy =
+                    (SnapshotConfiguration) super.clone();
+            copy.store = new AtomicReference<>(store.get());
+            copy.cloneInterpolator(this);
+            return copy;
+        }
+        catch (final CloneNotSupportedException cex)
+        {
+            // should not happen
+            throw new ConfigurationRuntimeException(cex);
+        }
+    }
+
+    /**
+     * Adds the given values to a property and publishes a new snapshot.
+     *
+     * @param key the key of the property
+     * @param values the values to be added
+     */
+    private void addValues(final String key, final Iterable<?> values)
+    {
+        if (!values.iterator().hasNext())
+        {
+            return;
+        }
+
+        Map<String, Object> current;
+        Map<String, Object> next;
+        do
+        {
+            current = store.get();
+            next = copy(current);
+            next.put(key, toStoredValue(current.get(key), values));
+        } while (!publish(current, next));
+    }
+
+    /**
+     * Tries to replace the current snapshot by a new one. This fails if
+     * another thread has published a snapshot in the meantime.
+     *
+     * @param current the snapshot the update is based on
+     * @param next the new data
+     * @return a flag whether the new snapshot could be published
+     */
+    private boolean publish(final Map<String, Object> current,
+            final Map<String, Object> next)
+    {
+        return store.compareAndSet(current, Collections.unmodifiableMap(next));
+    }
+
+    /**
+     * Creates a modifiable copy of the given snapshot.
+     *
+     * @param snapshot the snapshot
+     * @return the copy
+     */
+    private static Map<String, Object> copy(final Map<String, Object> snapshot)
+    {
+        return new LinkedHashMap<>(snapshot);
+    }
+
+    /**
+     * Determines the value to be stored for a property if new values are
+     * added to an existing value. A single value is stored directly, multiple
+     * values are stored as an unmodifiable list.
+     *
+     * @param previousValue the current value of the property (can be
+     *        <b>null</b>)
+     * @param values the values to be added
+     * @return the new value of the property or <b>null</b> if there are no
+     *         values
+     */
+    private static Object toStoredValue(final Object previousValue,
+            final Iterable<?> values)
+    {
+        final List<Object> list = new ArrayList<>();
+        if (previousValue instanceof List)
+        {
+            list.addAll((List<?>) previousValue);
+        }
+        else if (previousValue != null)
+        {
+            list.add(previousValue);
+        }
+        for (final Object value : values)
+        {
+            list.add(value);
+        }
+
+        switch (list.size())
+        {
+        case 0:
+            return null;
+        case 1:
+            return list.get(0);
+        default:
+            return Collections.unmodifiableList(list);
+        }
+    }
+}
@@ -21,6 +21,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.configuration2.ConfigurationUtils;
 import org.apache.commons.configuration2.ImmutableConfiguration;
@@ -100,6 +102,14 @@ import org.apache.commons.configuration2.reloading.ReloadingController;
  * that always the same {@code ImmutableConfiguration} instance is returned until the
  * builder is reset.
  * </p>
+ * <p>
+ * If a result object exists, {@code getConfiguration()} returns it without
+ * any locking. Otherwise, only a single thread creates the new result object.
+ * Other threads requesting the configuration at the same time wait for this
+ * creation to complete and then obtain the same result object - or the same
+ * exception if the creation fails; they do not create the result object
+ * again one after the other.
+ * </p>
  *
  * @version $Id$
  * @since 2.0
@@ -118,11 +128,14 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
     /** A flag whether exceptions on initializing configurations are allowed. */
     private final boolean allowFailOnInit;
 
+    /** Holds the creation of a result object which is currently in progress. */
+    private final AtomicReference<ResultCreation> pendingCreation;
+
     /** The map with current initialization parameters. */
-    private Map<String, Object> parameters;
+    private volatile Map<String, Object> parameters;
 
     /** The current bean declaration. */
-    private BeanDeclaration resultDeclaration;
+    private volatile BeanDeclaration resultDeclaration;
 
     /** The result object of this builder. */
     private volatile T result;
@@ -179,6 +192,7 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
         resultClass = resCls;
         this.allowFailOnInit = allowFailOnInit;
         eventListeners = new EventListenerList();
+        pendingCreation = new AtomicReference<>();
         updateParameters(params);
     }
 
@@ -264,8 +278,9 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
     /**
      * {@inheritDoc} This implementation creates the result configuration on
      * first access. Later invocations return the same object until this builder
-     * is reset. The double-check idiom for lazy initialization is used (Bloch,
-     * Effective Java, item 71).
+     * is reset. An existing result object is returned without locking. If
+     * there is none, the first requesting thread creates it; concurrent
+     * requests wait until this creation is complete.
      */
     @Override
     public T getConfiguration() throws ConfigurationException
@@ -273,28 +288,8 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
         fireBuilderEvent(new ConfigurationBuilderEvent(this,
                 ConfigurationBuilderEvent.CONFIGURATION_REQUEST));
 
-        T resObj = result;
-        boolean created = false;
-        if (resObj == null)
-        {
-            synchronized (this)
-            {
-                resObj = result;
-                if (resObj == null)
-                {
-                    result = resObj = createResult();
-                    created = true;
-                }
-            }
-        }
-
-        if (created)
-        {
-            fireBuilderEvent(new ConfigurationBuilderResultCreatedEvent(this,
-                    ConfigurationBuilderResultCreatedEvent.RESULT_CREATED,
-                    resObj));
-        }
-        return resObj;
+        final T resObj = result;
+        return (resObj != null) ? resObj : createOrAwaitResult();
     }
 
     /**
@@ -346,6 +341,61 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
                 ConfigurationBuilderEvent.RESET));
     }
 
+    /**
+     * Creates a new result object and replaces the current one. In contrast to
+     * {@link #resetResult()}, there is no point in time at which this builder
+     * does not have a result object: Until the new result object is complete,
+     * {@link #getConfiguration()} returns the previous one without blocking.
+     * Then both a reset event and an event about the newly created result are
+     * fired. If this builder does not have a result object, this method has
+     * no effect. The calling thread is blocked while the new result object is
+     * created; so this method is typically called by a background thread. If
+     * creating the new result object fails, the current one is kept.
+     *
+     * @return a flag whether the result object has been replaced
+     * @throws ConfigurationException if the new result object cannot be
+     *         created
+     * @since 2.5
+     */
+    protected boolean refreshResult() throws ConfigurationException
+    {
+        T oldResult;
+        T newResult;
+        synchronized (this)
+        {
+            oldResult = result;
+            if (oldResult == null)
+            {
+                return false;
+            }
+            resultDeclaration = null;
+            newResult = createResult();
+            result = newResult;
+        }
+
+        removeEventListeners(oldResult);
+        fireBuilderEvent(new ConfigurationBuilderEvent(this,
+                ConfigurationBuilderEvent.RESET));
+        fireBuilderEvent(new ConfigurationBuilderResultCreatedEvent(this,
+                ConfigurationBuilderResultCreatedEvent.RESULT_CREATED,
+                newResult));
+        return true;
+    }
+
+    /**
+     * Returns the current result object of this builder without creating it.
+     * Result is <b>null</b> if no result object has been created yet or if
+     * the result has been reset. In contrast to {@link #getConfiguration()},
+     * no events are fired.
+     *
+     * @return the current result object or <b>null</b>
+     * @since 2.5
+     */
+    protected T getCurrentResult()
+    {
+        return result;
+    }
+
     /**
      * Removes all initialization parameters of this builder. This method can be
      * called if this builder is to be reused for creating result objects with a
@@ -373,8 +423,8 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
      * builder with connect both objects:
      * <ul>
      * <li>When the reloading controller detects that a reload is required, the
-     * builder's {@link #resetResult()} method is called; so the managed result
-     * object is invalidated.</li>
+     * builder's {@link #reloadingRequired()} method is called; per default,
+     * the managed result object is invalidated.</li>
      * <li>When a new result object has been created the controller's reloading
      * state is reset, so that new changes can be detected again.</li>
      * </ul>
@@ -394,6 +444,20 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
         ReloadingBuilderSupportListener.connect(this, controller);
     }
 
+    /**
+     * Notifies this builder that a connected {@code ReloadingController}
+     * has detected the need for a reload. This base implementation calls
+     * {@link #resetResult()}, so that the next call of
+     * {@code getConfiguration()} creates a new result object. Derived classes
+     * can override this method to reload in a different way.
+     *
+     * @since 2.5
+     */
+    protected void reloadingRequired()
+    {
+        resetResult();
+    }
+
     /**
      * Creates a new, initialized result object. This method is called by
      * {@code getConfiguration()} if no valid result object exists. This base
@@ -478,14 +542,23 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
      *         object
      * @throws ConfigurationException if an error occurs
      */
-    protected final synchronized BeanDeclaration getResultDeclaration()
+    protected final BeanDeclaration getResultDeclaration()
             throws ConfigurationException
     {
-        if (resultDeclaration == null)
+        BeanDeclaration decl = resultDeclaration;
+        if (decl == null)
         {
-            resultDeclaration = createResultDeclaration(getFilteredParameters());
+            synchronized (this)
+            {
+                decl = resultDeclaration;
+                if (decl == null)
+                {
+                    decl = createResultDeclaration(getFilteredParameters());
+                    resultDeclaration = decl;
+                }
+            }
         }
-        return resultDeclaration;
+        return decl;
     }
 
     /**
@@ -495,11 +568,12 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
      *
      * @return a map with the current set of initialization parameters
      */
-    protected final synchronized Map<String, Object> getParameters()
+    protected final Map<String, Object> getParameters()
     {
-        if (parameters != null)
+        final Map<String, Object> params = parameters;
+        if (params != null)
         {
-            return parameters;
+            return params;
         }
         return Collections.emptyMap();
     }
@@ -651,6 +725,42 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
         parameters = Collections.unmodifiableMap(map);
     }
 
+    /**
+     * Creates a new result object or waits until a creation which is already
+     * in progress is complete. This method is called by
+     * {@code getConfiguration()} if there is no result object. Only one
+     * thread at a time actually creates a result object; it does so holding
+     * the monitor of this builder, so that derived classes can rely on
+     * exclusive access to their internal state. A nested request for the
+     * configuration issued by the creating thread itself is handled directly.
+     * This is also the case if the current thread already holds the monitor
+     * of this builder (e.g. an event listener invoked by {@code reset()}):
+     * waiting for a creation performed by another thread would then cause a
+     * deadlock because this creation needs the monitor, too.
+     *
+     * @return the result object
+     * @throws ConfigurationException if the result object cannot be created
+     */
+    private T createOrAwaitResult() throws ConfigurationException
+    {
+        final ResultCreation creation = new ResultCreation();
+        if (Thread.holdsLock(this))
+        {
+            return creation.perform();
+        }
+        while (!pendingCreation.compareAndSet(null, creation))
+        {
+            final ResultCreation pending = pendingCreation.get();
+            if (pending != null)
+            {
+                return pending.isOwner(Thread.currentThread()) ? creation
+                        .perform() : pending.await();
+            }
+        }
+
+        return creation.perform();
+    }
+
     /**
      * Registers the available event listeners at the given object. This method
      * is called for each result object created by the builder.
@@ -793,4 +903,154 @@ public class BasicConfigurationBuilder<T extends ImmutableConfiguration> impleme
     {
         evSrc.removeEventListener(regData.getEventType(), regData.getListener());
     }
+
+    /**
+     * A class representing the creation of a result object. An instance is
+     * published while the creation is in progress, so that other threads
+     * requesting the configuration can wait for its outcome.
+     */
+    private class ResultCreation
+    {
+        /** The thread performing the creation. */
+        private final Thread owner;
+
+        /** A latch for waiting until the creation is complete. */
+        private final CountDownLatch completion;
+
+        /** The result object; only accessed after the latch was released. */
+        private T resultObject;
+
+        /** An exception thrown during the creation. */
+        private Throwable failure;
+
+        /**
+         * Creates a new instance of {@code ResultCreation} owned by the
+         * current thread.
+         */
+        public ResultCreation()
+        {
+            owner = Thread.currentThread();
+            completion = new CountDownLatch(1);
+        }
+
+        /**
+         * Returns a flag whether the given thread performs this creation.
+         *
+         * @param thread the thread to check
+         * @return a flag whether this thread is the owner of this creation
+         */
+        public boolean isOwner(final Thread thread)
+        {
+            return owner == thread;
+        }
+
+        /**
+         * Creates the result object if necessary and notifies waiting
+         * threads. An event about a newly created result object is fired.
+         *
+         * @return the result object
+         * @throws ConfigurationException if an error occurs
+         */
+        public T perform() throws ConfigurationException
+        {
+            T resObj = null;
+            boolean created = false;
+            try
+            {
+                synchronized (BasicConfigurationBuilder.this)
+                {
+                    resObj = result;
+                    if (resObj == null)
+                    {
+                        result = resObj = createResult();
+                        created = true;
+                    }
+                }
+            }
+            catch (final ConfigurationException cex)
+            {
+                complete(cex);
+                throw cex;
+            }
+            catch (final RuntimeException rex)
+            {
+                complete(rex);
+                throw rex;
+            }
+            catch (final Error err)
+            {
+                complete(err);
+                throw err;
+            }
+
+            resultObject = resObj;
+            complete(null);
+            if (created)
+            {
+                fireBuilderEvent(new ConfigurationBuilderResultCreatedEvent(
+                        BasicConfigurationBuilder.this,
+                        ConfigurationBuilderResultCreatedEvent.RESULT_CREATED,
+                        resObj));
+            }
+            return resObj;
+        }
+
+        /**
+         * Waits until this creation is complete and returns its outcome. If
+         * the creation failed, the exception is rethrown. Waiting is not
+         * aborted if the current thread is interrupted; the interrupted
+         * status is restored afterwards.
+         *
+         * @return the result object
+         * @throws ConfigurationException if the creation failed
+         */
+        public T await() throws ConfigurationException
+        {
+            boolean interrupted = false;
+            while (true)
+            {
+                try
+                {
+                    completion.await();
+                    break;
+                }
+                catch (final InterruptedException iex)
+                {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            if (failure instanceof ConfigurationException)
+            {
+                throw (ConfigurationException) failure;
+            }
+            if (failure instanceof RuntimeException)
+            {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error)
+            {
+                throw (Error) failure;
+            }
+            return resultObject;
+        }
+
+        /**
+         * Marks this creation as complete. It is removed from the builder, so
+         * that later requests start a new creation if necessary, and waiting
+         * threads are released.
+         *
+         * @param ex an exception thrown during the creation or <b>null</b>
+         */
+        private void complete(final Throwable ex)
+        {
+            failure = ex;
+            pendingCreation.compareAndSet(this, null);
+            completion.countDown();
+        }
+    }
 }
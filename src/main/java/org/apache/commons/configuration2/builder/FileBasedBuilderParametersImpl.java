@@ -19,6 +19,7 @@ package org.apache.commons.configuration2.builder;
 import java.io.File;
 import java.net.URL;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.configuration2.io.FileHandler;
 import org.apache.commons.configuration2.io.FileLocationStrategy;
@@ -60,6 +61,13 @@ public class FileBasedBuilderParametersImpl extends BasicBuilderParameters
     private static final String PROP_DETECTOR_FACTORY =
             "reloadingDetectorFactory";
 
+    /** Property name of the executor for background reloads. */
+    private static final String PROP_RELOADING_EXECUTOR = "reloadingExecutor";
+
+    /** Property name of the flag for incremental reloading. */
+    private static final String PROP_INCREMENTAL_RELOADING =
+            "incrementalReloading";
+
     /**
      * Stores the associated file handler for the location of the configuration.
      */
@@ -71,6 +79,12 @@ public class FileBasedBuilderParametersImpl extends BasicBuilderParameters
     /** The refresh delay for reloading support. */
     private Long reloadingRefreshDelay;
 
+    /** The executor for reloading in the background. */
+    private Executor reloadingExecutor;
+
+    /** The flag whether reloads are incremental. */
+    private Boolean incrementalReloading;
+
     /**
      * Creates a new instance of {@code FileBasedBuilderParametersImpl} with an
      * uninitialized {@code FileHandler} object.
@@ -159,6 +173,10 @@ public class FileBasedBuilderParametersImpl extends BasicBuilderParameters
             params.setReloadingRefreshDelay((Long) map.get(PROP_REFRESH_DELAY));
             params.setReloadingDetectorFactory((ReloadingDetectorFactory) map
                     .get(PROP_DETECTOR_FACTORY));
+            params.setReloadingExecutor((Executor) map
+                    .get(PROP_RELOADING_EXECUTOR));
+            params.setIncrementalReloading((Boolean) map
+                    .get(PROP_INCREMENTAL_RELOADING));
         }
         return params;
     }
@@ -191,6 +209,14 @@ public class FileBasedBuilderParametersImpl extends BasicBuilderParameters
             {
                 setReloadingRefreshDelay(srcParams.getReloadingRefreshDelay());
             }
+            if (srcParams.getReloadingExecutor() != null)
+            {
+                setReloadingExecutor(srcParams.getReloadingExecutor());
+            }
+            if (srcParams.getIncrementalReloading() != null)
+            {
+                setIncrementalReloading(srcParams.getIncrementalReloading());
+            }
         }
     }
 
@@ -243,6 +269,48 @@ public class FileBasedBuilderParametersImpl extends BasicBuilderParameters
         return this;
     }
 
+    /**
+     * Returns the {@code Executor} for reloading in the background. Result
+     * may be <b>null</b>; then reloads are performed by the next thread
+     * requesting the configuration.
+     *
+     * @return the {@code Executor} for background reloads
+     * @since 2.5
+     */
+    public Executor getReloadingExecutor()
+    {
+        return reloadingExecutor;
+    }
+
+    @Override
+    public FileBasedBuilderParametersImpl setReloadingExecutor(
+            final Executor executor)
+    {
+        reloadingExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Returns the flag whether reloads are incremental. Result may be
+     * <b>null</b> if this value has not been set; then the configuration is
+     * replaced on a reload.
+     *
+     * @return the flag for incremental reloading
+     * @since 2.5
+     */
+    public Boolean getIncrementalReloading()
+    {
+        return incrementalReloading;
+    }
+
+    @Override
+    public FileBasedBuilderParametersImpl setIncrementalReloading(
+            final Boolean incremental)
+    {
+        incrementalReloading = incremental;
+        return this;
+    }
+
     @Override
     public FileBasedBuilderParametersImpl setFile(final File file)
     {
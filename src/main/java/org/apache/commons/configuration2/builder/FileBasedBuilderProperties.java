@@ -18,6 +18,7 @@ package org.apache.commons.configuration2.builder;
 
 import java.io.File;
 import java.net.URL;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.configuration2.io.FileLocationStrategy;
 import org.apache.commons.configuration2.io.FileSystem;
@@ -55,6 +56,37 @@ public interface FileBasedBuilderProperties<T>
      */
     T setReloadingDetectorFactory(ReloadingDetectorFactory factory);
 
+    /**
+     * Sets an {@code Executor} for reloading the configuration in the
+     * background. This is evaluated by builders with reloading support. If an
+     * {@code Executor} is set, a new configuration is created by this
+     * {@code Executor} when a reload is required; until it is available, the
+     * builder continues to return the previous configuration. Per default, the
+     * builder's result is reset, and the new configuration is created by the
+     * next thread requesting it.
+     *
+     * @param executor the {@code Executor} for background reloads
+     * @return a reference to this object for method chaining
+     * @since 2.5
+     */
+    T setReloadingExecutor(Executor executor);
+
+    /**
+     * Sets a flag whether a reload should update the existing configuration
+     * rather than replace it. This is evaluated by builders with reloading
+     * support. If enabled, the modified file is loaded into a temporary
+     * configuration, and only the properties which have actually changed are
+     * added, set, or cleared on the configuration returned by the builder. So
+     * listeners registered at the configuration receive an event for each
+     * changed property. If the existing configuration cannot be updated this
+     * way, it is replaced as usual.
+     *
+     * @param incremental the flag whether reloads are incremental
+     * @return a reference to this object for method chaining
+     * @since 2.5
+     */
+    T setIncrementalReloading(Boolean incremental);
+
     /**
      * Sets the location of the associated {@code FileHandler} as a {@code File}
      * object.
@@ -32,8 +32,8 @@ import org.apache.commons.configuration2.reloading.ReloadingEvent;
  * <ul>
  * <li>An instance is registered as listener at a {@code ReloadingController}.
  * Whenever the controller indicates that a reload should happen, the associated
- * configuration builder's {@link BasicConfigurationBuilder#resetResult()}
- * method is called.</li>
+ * configuration builder's {@link BasicConfigurationBuilder#reloadingRequired()}
+ * method is called. Per default, this resets the builder's result.</li>
  * <li>When the builder fires a {@link ConfigurationBuilderResultCreatedEvent}
  * event the reloading controller's reloading state is reset. At that time the
  * reload has actually happened, and the controller is prepared to observe new
@@ -95,7 +95,8 @@ final class ReloadingBuilderSupportListener implements EventListener<Event>
     /**
      * {@inheritDoc} This implementation resets the controller's reloading state
      * if an event about a newly created result was received. Otherwise, in case
-     * of a reloading event, the builder's result object is reset.
+     * of a reloading event, the builder is notified that a reload is
+     * required.
      */
     @Override
     public void onEvent(final Event event)
@@ -107,7 +108,7 @@ final class ReloadingBuilderSupportListener implements EventListener<Event>
         }
         else
         {
-            builder.resetResult();
+            builder.reloadingRequired();
         }
     }
 }
@@ -16,14 +16,32 @@
  */
 package org.apache.commons.configuration2.builder;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.commons.configuration2.AbstractConfiguration;
 import org.apache.commons.configuration2.FileBasedConfiguration;
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.convert.ListDelimiterHandler;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.io.FileHandler;
 import org.apache.commons.configuration2.reloading.ReloadingController;
 import org.apache.commons.configuration2.reloading.ReloadingControllerSupport;
 import org.apache.commons.configuration2.reloading.ReloadingDetector;
+import org.apache.commons.configuration2.reloading.WatchServiceReloadingDetector;
+import org.apache.commons.configuration2.sync.LockMode;
+import org.apache.commons.configuration2.sync.NoOpSynchronizer;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.commons.configuration2.tree.InMemoryNodeModelSupport;
 
 /**
  * <p>
@@ -53,6 +71,46 @@ import org.apache.commons.configuration2.reloading.ReloadingDetector;
  * perform a reload check. This has to be done by an external component, e.g. a
  * timer.
  * </p>
+ * <p>
+ * Per default, the thread calling {@code getConfiguration()} after a reset
+ * loads the modified file; other threads requesting the configuration at the
+ * same time are blocked until this is done. If an {@code Executor} has been
+ * set using the {@code setReloadingExecutor()} method of the builder's
+ * parameters, a reload is performed in the background instead: The new
+ * configuration is created by the {@code Executor} while
+ * {@code getConfiguration()} still returns the previous instance. When it is
+ * complete, it replaces the previous instance atomically, and the usual reset
+ * event is fired. If the new configuration cannot be created (e.g. because the
+ * file is invalid), the builder falls back to the default behavior: Its result
+ * is reset, so that the next call of {@code getConfiguration()} tries to load
+ * the file again and reports the error.
+ * </p>
+ * <p>
+ * If the <em>incrementalReloading</em> flag is set in the builder's
+ * parameters, a reload does not replace the configuration at all. Rather, the
+ * modified file is loaded into a temporary configuration which is compared
+ * with the current one; then only the properties that have actually changed
+ * are added, set, or cleared on the current configuration. So
+ * {@code getConfiguration()} keeps returning the same instance, and listeners
+ * registered at it receive a {@code ConfigurationEvent} for each changed
+ * property; components caching data derived from the configuration can thus
+ * invalidate only the affected entries. Because the current configuration is
+ * changed while other threads may access it, this is only done if it uses a
+ * {@code Synchronizer} which actually guards it, i.e. a {@code Synchronizer}
+ * other than {@link NoOpSynchronizer}; this can be set using the
+ * {@code setSynchronizer()} method of the builder's parameters. For
+ * hierarchical configurations, an incremental update is only possible if the
+ * structure of the node tree has not changed; there is no diff of node
+ * structures. So only values of existing nodes and attributes may be
+ * different, and the update fires only {@code SET_PROPERTY} events; if nodes
+ * or attributes are added or removed, the configuration is replaced. If the
+ * current configuration cannot be updated incrementally, or if the builder's
+ * <em>autoSave</em> flag is set, it is replaced as described above. An
+ * incremental reload is performed by the {@code Executor} for background
+ * reloads if one is set; otherwise, it is performed directly by the thread
+ * which detected the change, e.g. the thread calling
+ * {@code checkForReloading()} on the {@code ReloadingController}.
+ * </p>
  *
  * @version $Id$
  * @since 2.0
@@ -78,6 +136,21 @@ public class ReloadingFileBasedConfigurationBuilder<T extends FileBasedConfigura
      */
     private volatile ReloadingDetector resultReloadingDetector;
 
+    /**
+     * The executor for reloading in the background. It is obtained from the
+     * parameters when a new result object is created.
+     */
+    private volatile Executor reloadingExecutor;
+
+    /**
+     * A flag whether reloads update the current result object. It is
+     * obtained from the parameters when a new result object is created.
+     */
+    private volatile boolean incrementalReloading;
+
+    /** A flag whether a background reload is pending. */
+    private final AtomicBoolean backgroundReloadPending = new AtomicBoolean();
+
     /**
      * Creates a new instance of {@code ReloadingFileBasedConfigurationBuilder}
      * which produces result objects of the specified class and sets
@@ -184,10 +257,160 @@ public class ReloadingFileBasedConfigurationBuilder<T extends FileBasedConfigura
     {
         super.initFileHandler(handler);
 
-        resultReloadingDetector =
-                createReloadingDetector(handler,
-                        FileBasedBuilderParametersImpl.fromParameters(
-                                getParameters(), true));
+        final FileBasedBuilderParametersImpl fbparams =
+                FileBasedBuilderParametersImpl.fromParameters(getParameters(),
+                        true);
+        final ReloadingDetector oldDetector = resultReloadingDetector;
+        resultReloadingDetector = createReloadingDetector(handler, fbparams);
+        reloadingExecutor = fbparams.getReloadingExecutor();
+        incrementalReloading =
+                Boolean.TRUE.equals(fbparams.getIncrementalReloading());
+        if (oldDetector instanceof WatchServiceReloadingDetector)
+        {
+            // stop monitoring the file for the previous result object
+            ((WatchServiceReloadingDetector) oldDetector).close();
+        }
+    }
+
+    /**
+     * {@inheritDoc} If an {@code Executor} for background reloads is
+     * configured, this implementation creates the new result object using
+     * this {@code Executor}; the current result object remains available in
+     * the meantime. Otherwise, the result object is reset. If incremental
+     * reloading is enabled, the current result object is updated instead if
+     * possible.
+     */
+    @Override
+    protected void reloadingRequired()
+    {
+        final Executor executor = reloadingExecutor;
+        if (executor == null)
+        {
+            if (!incrementalReloading || !updateResultIfPossible())
+            {
+                super.reloadingRequired();
+            }
+            return;
+        }
+
+        if (backgroundReloadPending.compareAndSet(false, true))
+        {
+            try
+            {
+                executor.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        reloadInBackground();
+                    }
+                });
+            }
+            catch (final RejectedExecutionException rex)
+            {
+                backgroundReloadPending.set(false);
+                super.reloadingRequired();
+            }
+        }
+    }
+
+    /**
+     * Updates the current result object with the content of the modified
+     * file. This method is called on a reload if incremental reloading is
+     * enabled. It loads the file into a new, temporary result object and
+     * passes it together with the current result object to
+     * {@link #applyChanges(FileBasedConfiguration, FileBasedConfiguration)}.
+     * If the changes could be applied, the reloading state of the
+     * {@code ReloadingController} is reset, so that further changes are
+     * detected. A return value of <b>false</b> means that the current result
+     * object has not been changed; it then has to be replaced.
+     *
+     * @return a flag whether the current result object has been updated
+     * @throws ConfigurationException if the file cannot be loaded
+     * @since 2.5
+     */
+    protected boolean updateResult() throws ConfigurationException
+    {
+        final T current = getCurrentResult();
+        if (current == null || isAutoSave())
+        {
+            return false;
+        }
+
+        final T loaded = loadResultInstance();
+        if (loaded == null || !applyChanges(current, loaded))
+        {
+            return false;
+        }
+        getReloadingController().resetReloadingState();
+        return true;
+    }
+
+    /**
+     * Applies the differences between the current result object and a newly
+     * loaded configuration to the current result object. This method is
+     * called by {@link #updateResult()}. This implementation compares the
+     * values of all keys: Properties only contained in the loaded
+     * configuration are added, properties with different values are set, and
+     * properties no longer contained are cleared. This causes the
+     * corresponding events to be fired by the current result object. The
+     * changes are made while holding its write lock; therefore, the current
+     * result object is only updated if it uses a {@code Synchronizer} other
+     * than {@link NoOpSynchronizer}. Hierarchical configurations are only
+     * updated if the structure of their node trees is the same; node
+     * structures are not compared in detail, so for them only the values of
+     * existing keys can change. If the changes cannot be applied, this method
+     * returns <b>false</b> without changing the current result object.
+     *
+     * @param current the current result object
+     * @param loaded the configuration loaded from the modified file
+     * @return a flag whether the changes have been applied
+     * @since 2.5
+     */
+    protected boolean applyChanges(final T current, final T loaded)
+    {
+        if (!(current instanceof AbstractConfiguration)
+                || current.getSynchronizer() instanceof NoOpSynchronizer
+                || !isSameStructure(current, loaded))
+        {
+            return false;
+        }
+        final ListDelimiterHandler listHandler =
+                ((AbstractConfiguration) current).getListDelimiterHandler();
+
+        current.lock(LockMode.WRITE);
+        try
+        {
+            final Set<String> removedKeys = new LinkedHashSet<>();
+            for (final Iterator<String> it = current.getKeys(); it.hasNext();)
+            {
+                removedKeys.add(it.next());
+            }
+
+            for (final Iterator<String> it = loaded.getKeys(); it.hasNext();)
+            {
+                final String key = it.next();
+                final Object value = loaded.getProperty(key);
+                if (!removedKeys.remove(key))
+                {
+                    current.addProperty(key, escape(listHandler, value));
+                }
+                else if (!Objects.equals(current.getProperty(key), value))
+                {
+                    current.setProperty(key, escape(listHandler, value));
+                }
+            }
+
+            for (final String key : removedKeys)
+            {
+                current.clearProperty(key);
+            }
+        }
+        finally
+        {
+            current.unlock(LockMode.WRITE);
+        }
+        return true;
     }
 
     /**
@@ -239,6 +462,176 @@ public class ReloadingFileBasedConfigurationBuilder<T extends FileBasedConfigura
         };
     }
 
+    /**
+     * Replaces the current result object by a newly loaded one or updates it
+     * if incremental reloading is enabled. This method is executed by the
+     * {@code Executor} for background reloads. If loading fails, the result
+     * object is reset; then the next request for the configuration reports
+     * the error.
+     */
+    private void reloadInBackground()
+    {
+        try
+        {
+            if (!incrementalReloading || !updateResult())
+            {
+                refreshResult();
+            }
+        }
+        catch (final ConfigurationException cex)
+        {
+            resetResult();
+        }
+        catch (final RuntimeException rex)
+        {
+            resetResult();
+        }
+        finally
+        {
+            backgroundReloadPending.set(false);
+        }
+    }
+
+    /**
+     * Calls {@link #updateResult()} and handles exceptions. If the file
+     * cannot be loaded, the result object has to be reset; then the next
+     * request for the configuration reports the error.
+     *
+     * @return a flag whether the current result object has been updated
+     */
+    private boolean updateResultIfPossible()
+    {
+        try
+        {
+            return updateResult();
+        }
+        catch (final ConfigurationException cex)
+        {
+            return false;
+        }
+        catch (final RuntimeException rex)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Creates a new result object and loads the current file into it. The
+     * new object is initialized from the result declaration, but it is not
+     * connected to this builder: neither event listeners nor a
+     * {@code FileHandler} are registered. Result is <b>null</b> if no
+     * location is defined.
+     *
+     * @return the newly loaded result object or <b>null</b>
+     * @throws ConfigurationException if an error occurs
+     */
+    private T loadResultInstance() throws ConfigurationException
+    {
+        final T obj;
+        final FileHandler handler;
+        synchronized (this)
+        {
+            final FileHandler srcHandler = getFileHandler();
+            if (!srcHandler.isLocationDefined())
+            {
+                return null;
+            }
+            obj = createResultInstance();
+            fetchBeanHelper().initBean(obj, getResultDeclaration());
+            handler = new FileHandler(obj, srcHandler);
+        }
+        handler.load();
+        return obj;
+    }
+
+    /**
+     * Checks whether the structures of the given configurations allow an
+     * incremental update. This is always the case for non-hierarchical
+     * configurations. For hierarchical configurations, the node trees must
+     * have the same structure.
+     *
+     * @param current the current result object
+     * @param loaded the newly loaded configuration
+     * @return a flag whether the structures are compatible
+     */
+    private static boolean isSameStructure(final Object current,
+            final Object loaded)
+    {
+        if (!(current instanceof HierarchicalConfiguration))
+        {
+            return true;
+        }
+        return current instanceof InMemoryNodeModelSupport
+                && loaded instanceof InMemoryNodeModelSupport
+                && isSameStructure(
+                        ((InMemoryNodeModelSupport) current).getNodeModel()
+                                .getRootNode(),
+                        ((InMemoryNodeModelSupport) loaded).getNodeModel()
+                                .getRootNode());
+    }
+
+    /**
+     * Checks whether the given nodes have the same structure. This is the
+     * case if they have the same names, the same attribute names, and both
+     * have a value or none, and if this holds recursively for their children.
+     * Then the keys of both node trees are the same, and the values of
+     * corresponding keys can be set in a single operation. Node trees with
+     * different structures are not compared further, because adding or
+     * removing single keys could not reproduce the order and nesting of their
+     * nodes.
+     *
+     * @param node1 the first node
+     * @param node2 the second node
+     * @return a flag whether the nodes have the same structure
+     */
+    private static boolean isSameStructure(final ImmutableNode node1,
+            final ImmutableNode node2)
+    {
+        if (!Objects.equals(node1.getNodeName(), node2.getNodeName())
+                || (node1.getValue() == null) != (node2.getValue() == null)
+                || !node1.getAttributes().keySet()
+                        .equals(node2.getAttributes().keySet())
+                || node1.getChildren().size() != node2.getChildren().size())
+        {
+            return false;
+        }
+
+        for (int i = 0; i < node1.getChildren().size(); i++)
+        {
+            if (!isSameStructure(node1.getChildren().get(i),
+                    node2.getChildren().get(i)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Escapes a property value obtained from a configuration, so that it is
+     * not split again by the {@code ListDelimiterHandler} when it is added to
+     * another configuration.
+     *
+     * @param listHandler the {@code ListDelimiterHandler}
+     * @param value the value (a single value or a collection)
+     * @return the escaped value
+     */
+    private static Object escape(final ListDelimiterHandler listHandler,
+            final Object value)
+    {
+        if (value instanceof Collection)
+        {
+            final List<Object> values = new ArrayList<>();
+            for (final Object v : (Collection<?>) value)
+            {
+                values.add(listHandler.escape(v,
+                        ListDelimiterHandler.NOOP_TRANSFORMER));
+            }
+            return values;
+        }
+        return listHandler.escape(value, ListDelimiterHandler.NOOP_TRANSFORMER);
+    }
+
     /**
      * Returns a {@code ReloadingDetectorFactory} either from the passed in
      * parameters or a default factory.
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.builder;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.configuration2.io.FileHandler;
+import org.apache.commons.configuration2.reloading.FileWatcher;
+import org.apache.commons.configuration2.reloading.ReloadingDetector;
+import org.apache.commons.configuration2.reloading.WatchServiceReloadingDetector;
+
+/**
+ * <p>
+ * An implementation of the {@code ReloadingDetectorFactory} interface which
+ * creates objects of type {@link WatchServiceReloadingDetector}.
+ * </p>
+ * <p>
+ * All detectors created by an instance share the same {@link FileWatcher}. If
+ * no watcher is passed to the constructor, the default one is used. The
+ * refresh delay defined in the builder parameters is only relevant if a file
+ * cannot be watched. Instances can be shared between multiple builders.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class WatchServiceReloadingDetectorFactory implements
+        ReloadingDetectorFactory
+{
+    /** The watcher passed to the detectors. */
+    private final FileWatcher fileWatcher;
+
+    /**
+     * Creates a new instance of {@code WatchServiceReloadingDetectorFactory}
+     * which uses the specified {@code FileWatcher}.
+     *
+     * @param watcher the {@code FileWatcher} (can be <b>null</b>, then the
+     *        default instance is used)
+     */
+    public WatchServiceReloadingDetectorFactory(final FileWatcher watcher)
+    {
+        fileWatcher = (watcher != null) ? watcher : FileWatcher
+                .getDefaultInstance();
+    }
+
+    /**
+     * Creates a new instance of {@code WatchServiceReloadingDetectorFactory}
+     * which uses the default {@code FileWatcher}.
+     */
+    public WatchServiceReloadingDetectorFactory()
+    {
+        this(null);
+    }
+
+    /**
+     * Returns the {@code FileWatcher} used by this factory.
+     *
+     * @return the {@code FileWatcher}
+     */
+    public FileWatcher getFileWatcher()
+    {
+        return fileWatcher;
+    }
+
+    @Override
+    public ReloadingDetector createReloadingDetector(final FileHandler handler,
+            final FileBasedBuilderParametersImpl params)
+            throws ConfigurationException
+    {
+        final Long refreshDelay = params.getReloadingRefreshDelay();
+
+        final WatchServiceReloadingDetector detector =
+                (refreshDelay != null) ? new WatchServiceReloadingDetector(
+                        handler, refreshDelay, fileWatcher)
+                        : new WatchServiceReloadingDetector(handler,
+                                fileWatcher);
+
+        detector.refresh();
+
+        return detector;
+    }
+}
@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.configuration2.ConfigurationUtils;
 import org.apache.commons.configuration2.HierarchicalConfiguration;
@@ -78,6 +79,9 @@ public class CombinedBuilderParametersImpl extends BasicBuilderParameters
     /** A flag whether settings should be inherited by child builders. */
     private boolean inheritSettings;
 
+    /** The executor for loading child configuration sources. */
+    private Executor loadExecutor;
+
     /**
      * Creates a new instance of {@code CombinedBuilderParametersImpl}.
      */
@@ -166,6 +170,34 @@ public class CombinedBuilderParametersImpl extends BasicBuilderParameters
         return this;
     }
 
+    /**
+     * Returns the {@code Executor} for loading child configuration sources in
+     * parallel. Result is <b>null</b> if sources are to be loaded
+     * sequentially.
+     *
+     * @return the {@code Executor} for loading configuration sources
+     * @since 2.5
+     */
+    public Executor getLoadExecutor()
+    {
+        return loadExecutor;
+    }
+
+    /**
+     * {@inheritDoc} This property is not copied by {@code inheritFrom()}: If
+     * loading of a nested combined configuration used the same
+     * {@code Executor} as its parent, tasks of the parent waiting for the
+     * nested sources could block all threads of the {@code Executor}.
+     *
+     * @since 2.5
+     */
+    @Override
+    public CombinedBuilderParametersImpl setLoadExecutor(final Executor executor)
+    {
+        loadExecutor = executor;
+        return this;
+    }
+
     /**
      * Returns the {@code ConfigurationBuilder} object for obtaining the
      * definition configuration.
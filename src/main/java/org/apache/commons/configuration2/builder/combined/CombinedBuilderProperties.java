@@ -16,6 +16,8 @@
  */
 package org.apache.commons.configuration2.builder.combined;
 
+import java.util.concurrent.Executor;
+
 import org.apache.commons.configuration2.HierarchicalConfiguration;
 import org.apache.commons.configuration2.builder.BuilderParameters;
 import org.apache.commons.configuration2.builder.ConfigurationBuilder;
@@ -109,6 +111,27 @@ public interface CombinedBuilderProperties<T>
      */
     T setDefinitionBuilderParameters(BuilderParameters params);
 
+    /**
+     * Sets an {@code Executor} for loading the child configuration sources in
+     * parallel. Per default, the configuration sources declared in the
+     * definition configuration are loaded one after the other. If an
+     * {@code Executor} is set, the builders for all sources of a section are
+     * created first, and then their configurations are loaded concurrently
+     * using this {@code Executor}. When all sources have been loaded, their
+     * configurations are added to the resulting combined configuration in the
+     * order in which they are declared; so the result is the same as for
+     * sequential loading. This mode is suitable if loading of the single
+     * sources is expensive (e.g. because remote resources are involved) and
+     * independent of each other. The {@code Executor} is not inherited by
+     * builders for nested combined configurations.
+     *
+     * @param executor the {@code Executor} for loading configuration sources
+     *        (<b>null</b> for sequential loading)
+     * @return a reference to this object for method chaining
+     * @since 2.5
+     */
+    T setLoadExecutor(Executor executor);
+
     /**
      * Sets a {@code DefaultParametersManager} object responsible for managing the default
      * parameter handlers to be applied on child configuration sources. When creating
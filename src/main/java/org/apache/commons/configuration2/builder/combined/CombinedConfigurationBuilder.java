@@ -26,6 +26,11 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.commons.configuration2.CombinedConfiguration;
 import org.apache.commons.configuration2.Configuration;
@@ -161,6 +166,15 @@ import org.xml.sax.EntityResolver;
  * sources it is possible to enable reloading by providing this attribute with a
  * value of <strong>true</strong>.</td>
  * </tr>
+ * <tr>
+ * <td valign="top">{@code config-lazy}</td>
+ * <td>Can be set to <strong>true</strong> for optional configuration sources.
+ * Such a source is not loaded when the combined configuration is created, but
+ * when a key below its {@code config-at} path is accessed for the first time.
+ * Until then, it is represented by an empty {@link LazySourceConfiguration}
+ * object, which is also returned when querying the configuration by its
+ * name.</td>
+ * </tr>
  * </table>
  * <p>
  * The optional <em>header</em> section can contain some meta data about the
@@ -230,6 +244,14 @@ import org.xml.sax.EntityResolver;
  * configuration sources which have been assigned a name; care has to be taken
  * that these names are unique.
  * </p>
+ * <p>
+ * Per default, the configuration sources are loaded one after the other. If
+ * sources are expensive to load and independent of each other, an
+ * {@code Executor} can be set using the {@code setLoadExecutor()} method of the
+ * builder's parameters object. Then the sources of a section are loaded
+ * concurrently, but added to the resulting configuration in the order of their
+ * declaration.
+ * </p>
  *
  * @since 1.3
  * @author <a
@@ -298,6 +320,12 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
             + "reload"
             + DefaultExpressionEngineSymbols.DEFAULT_ATTRIBUTE_END;
 
+    /** Constant for the lazy attribute. */
+    static final String ATTR_LAZY = DefaultExpressionEngineSymbols.DEFAULT_ATTRIBUTE_START
+            + XMLBeanDeclaration.RESERVED_PREFIX
+            + "lazy"
+            + DefaultExpressionEngineSymbols.DEFAULT_ATTRIBUTE_END;
+
     /**
      * Constant for the tag attribute for providers.
      */
@@ -1468,6 +1496,8 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
                 newBuilders = builders;
             }
 
+            final Executor executor = (srcDecl.size() > 1) ? currentParameters
+                    .getLoadExecutor() : null;
             for (int i = 0; i < srcDecl.size(); i++)
             {
                 ConfigurationBuilder<? extends Configuration> b;
@@ -1480,9 +1510,17 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
                 {
                     b = builders.get(i);
                 }
-                addChildConfiguration(ccResult, srcDecl.get(i), b);
+                if (executor == null)
+                {
+                    addChildConfiguration(ccResult, srcDecl.get(i), b);
+                }
             }
 
+            if (executor != null)
+            {
+                addChildConfigurationsParallel(ccResult, srcDecl, newBuilders,
+                        executor);
+            }
             return newBuilders;
         }
 
@@ -1603,6 +1641,12 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
                 final ConfigurationBuilder<? extends Configuration> builder)
                 throws ConfigurationException
         {
+            if (isLazy(decl))
+            {
+                addLazyChildConfiguration(ccResult, decl, builder);
+                return;
+            }
+
             try
             {
                 ccResult.addConfiguration(
@@ -1619,6 +1663,206 @@ public class CombinedConfigurationBuilder extends BasicConfigurationBuilder<Comb
             }
         }
 
+        /**
+         * Adds a placeholder for a configuration source which is loaded on
+         * first access to the resulting combined configuration. The builder is
+         * not asked for its configuration now.
+         *
+         * @param ccResult the resulting combined configuration
+         * @param decl the current {@code ConfigurationDeclaration}
+         * @param builder the configuration builder
+         */
+        private void addLazyChildConfiguration(
+                final CombinedConfiguration ccResult,
+                final ConfigurationDeclaration decl,
+                final ConfigurationBuilder<? extends Configuration> builder)
+        {
+            ccResult.addConfiguration(
+                    new LazySourceConfiguration(builder,
+                            ccResult.getConversionExpressionEngine()),
+                    decl.getName(), decl.getAt());
+        }
+
+        /**
+         * Creates the configurations of the given builders in parallel using
+         * the specified {@code Executor} and adds them to the resulting
+         * combined configuration. This method waits until all configurations
+         * have been loaded. They are then added in the order of their
+         * declarations; exceptions are handled in the same way as by
+         * {@link #addChildConfiguration(CombinedConfiguration, ConfigurationDeclaration, ConfigurationBuilder)}.
+         *
+         * @param ccResult the resulting combined configuration
+         * @param srcDecl the list with the declarations of the sources
+         * @param builders the list with the builders for these sources
+         * @param executor the {@code Executor} for loading the sources
+         * @throws ConfigurationException if an error occurs
+         */
+        private void addChildConfigurationsParallel(
+                final CombinedConfiguration ccResult,
+                final List<ConfigurationDeclaration> srcDecl,
+                final List<ConfigurationBuilder<? extends Configuration>> builders,
+                final Executor executor) throws ConfigurationException
+        {
+            final List<FutureTask<Configuration>> tasks =
+                    new ArrayList<>(builders.size());
+            for (int i = 0; i < builders.size(); i++)
+            {
+                if (isLazy(srcDecl.get(i)))
+                {
+                    // loaded on demand
+                    tasks.add(null);
+                    continue;
+                }
+
+                final ConfigurationBuilder<? extends Configuration> b =
+                        builders.get(i);
+                final FutureTask<Configuration> task =
+                        new FutureTask<>(new Callable<Configuration>()
+                        {
+                            @Override
+                            public Configuration call()
+                                    throws ConfigurationException
+                            {
+                                return b.getConfiguration();
+                            }
+                        });
+                tasks.add(task);
+                try
+                {
+                    executor.execute(task);
+                }
+                catch (final RejectedExecutionException rex)
+                {
+                    // load this source in the current thread
+                    task.run();
+                }
+            }
+
+            for (int i = 0; i < srcDecl.size(); i++)
+            {
+                final ConfigurationDeclaration decl = srcDecl.get(i);
+                if (tasks.get(i) == null)
+                {
+                    addLazyChildConfiguration(ccResult, decl, builders.get(i));
+                    continue;
+                }
+
+                try
+                {
+                    ccResult.addConfiguration(fetchLoadResult(tasks, i),
+                            decl.getName(), decl.getAt());
+                }
+                catch (final ConfigurationException cex)
+                {
+                    // ignore exceptions for optional configurations
+                    if (!decl.isOptional())
+                    {
+                        throw cex;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Obtains the configuration loaded by a task started by
+         * {@code addChildConfigurationsParallel()}. If the loading of a
+         * configuration failed, this method first waits for all other tasks,
+         * so that no source is loaded any more when the exception is thrown.
+         * Then it throws the exception that caused the failure.
+         *
+         * @param tasks the list with all tasks
+         * @param index the index of the task whose result is requested
+         * @return the configuration loaded by this task
+         * @throws ConfigurationException if loading failed
+         */
+        private Configuration fetchLoadResult(
+                final List<FutureTask<Configuration>> tasks, final int index)
+                throws ConfigurationException
+        {
+            try
+            {
+                return tasks.get(index).get();
+            }
+            catch (final ExecutionException eex)
+            {
+                awaitTasks(tasks);
+                final Throwable cause = eex.getCause();
+                if (cause instanceof ConfigurationException)
+                {
+                    throw (ConfigurationException) cause;
+                }
+                if (cause instanceof RuntimeException)
+                {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error)
+                {
+                    throw (Error) cause;
+                }
+                throw new ConfigurationException(cause);
+            }
+            catch (final InterruptedException iex)
+            {
+                Thread.currentThread().interrupt();
+                for (final FutureTask<Configuration> task : tasks)
+                {
+                    if (task != null)
+                    {
+                        task.cancel(true);
+                    }
+                }
+                throw new ConfigurationException(
+                        "Interrupted while loading configuration sources", iex);
+            }
+        }
+
+        /**
+         * Checks whether the configuration source defined by the given
+         * declaration is to be loaded on first access. This is the case for
+         * optional sources with the {@code lazy} attribute.
+         *
+         * @param decl the {@code ConfigurationDeclaration}
+         * @return a flag whether this source is loaded lazily
+         */
+        private boolean isLazy(final ConfigurationDeclaration decl)
+        {
+            return decl.isOptional() && decl.isLazy();
+        }
+
+        /**
+         * Waits until all of the given tasks are complete, no matter whether
+         * they succeed or fail.
+         *
+         * @param tasks the list with the tasks
+         * @throws ConfigurationException if the current thread is interrupted
+         */
+        private void awaitTasks(final List<FutureTask<Configuration>> tasks)
+                throws ConfigurationException
+        {
+            for (int i = 0; i < tasks.size(); i++)
+            {
+                if (tasks.get(i) == null)
+                {
+                    continue;
+                }
+                try
+                {
+                    tasks.get(i).get();
+                }
+                catch (final ExecutionException eex)
+                {
+                    // ignore; failures are reported when results are fetched
+                }
+                catch (final InterruptedException iex)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new ConfigurationException(
+                            "Interrupted while loading configuration sources",
+                            iex);
+                }
+            }
+        }
+
         /**
          * Creates a listener for builder change events. This listener is
          * registered at all builders for child configurations.
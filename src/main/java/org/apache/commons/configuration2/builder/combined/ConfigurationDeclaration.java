@@ -118,6 +118,22 @@ public class ConfigurationDeclaration extends XMLBeanDeclaration
                 CombinedConfigurationBuilder.ATTR_FORCECREATE, false);
     }
 
+    /**
+     * Returns a flag whether this configuration should be loaded lazily. This
+     * flag is evaluated only for optional configurations. If it is set, the
+     * configuration is not created when the combined configuration is
+     * constructed; rather, a placeholder is added which loads it when one of
+     * its keys is accessed for the first time.
+     *
+     * @return the value of the {@code lazy} attribute
+     * @since 2.5
+     */
+    public boolean isLazy()
+    {
+        return getConfiguration().getBoolean(
+                CombinedConfigurationBuilder.ATTR_LAZY, false);
+    }
+
     /**
      * Returns a flag whether a builder with reloading support should be
      * created. This may not be supported by all configuration builder
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.builder.combined;
+
+import org.apache.commons.configuration2.BaseHierarchicalConfiguration;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.configuration2.ConfigurationUtils;
+import org.apache.commons.configuration2.LazyLoadingSupport;
+import org.apache.commons.configuration2.builder.ConfigurationBuilder;
+import org.apache.commons.configuration2.event.ConfigurationEvent;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.configuration2.tree.ExpressionEngine;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+
+/**
+ * <p>
+ * A placeholder for a configuration source of a
+ * {@link CombinedConfigurationBuilder} which is loaded on first access.
+ * </p>
+ * <p>
+ * An instance is created for each source declared with both the
+ * {@code config-optional} and the {@code config-lazy} attribute. It is added
+ * to the resulting combined configuration instead of the configuration
+ * created by the source's builder. Initially, it is empty. Because it
+ * implements the {@link LazyLoadingSupport} interface, the combined
+ * configuration calls its {@code load()} method when a key is queried which
+ * may refer to the content of this source. Then the builder is asked for its
+ * configuration, and the nodes of this configuration are copied into this
+ * object. The combined configuration is notified about this change by an
+ * event and takes the new content into account.
+ * </p>
+ * <p>
+ * The source is loaded only once; this is done in a thread-safe way. As the
+ * source is optional, an exception thrown by its builder is ignored; this
+ * configuration then remains empty. Note that this object stores a copy of the
+ * data of the loaded configuration; changes on the configuration returned by
+ * the builder are not reflected.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class LazySourceConfiguration extends BaseHierarchicalConfiguration
+        implements LazyLoadingSupport
+{
+    /** The builder for the configuration to be loaded. */
+    private final ConfigurationBuilder<? extends Configuration> builder;
+
+    /** The expression engine for converting the loaded configuration. */
+    private final ExpressionEngine conversionEngine;
+
+    /** A flag whether the source has been loaded. */
+    private volatile boolean loaded;
+
+    /** A flag whether the source is currently loaded by the owning thread. */
+    private boolean loading;
+
+    /**
+     * Creates a new instance of {@code LazySourceConfiguration} for the given
+     * builder.
+     *
+     * @param builder the builder for the configuration to be loaded (must not
+     *        be <b>null</b>)
+     * @param conversionEngine the expression engine to be used if the loaded
+     *        configuration is not hierarchical and has to be converted (can be
+     *        <b>null</b>, then a default engine is used)
+     * @throws IllegalArgumentException if the builder is <b>null</b>
+     */
+    public LazySourceConfiguration(
+            final ConfigurationBuilder<? extends Configuration> builder,
+            final ExpressionEngine conversionEngine)
+    {
+        if (builder == null)
+        {
+            throw new IllegalArgumentException("Builder must not be null!");
+        }
+        this.builder = builder;
+        this.conversionEngine = conversionEngine;
+    }
+
+    /**
+     * Returns the builder for the configuration loaded by this object.
+     *
+     * @return the builder
+     */
+    public ConfigurationBuilder<? extends Configuration> getBuilder()
+    {
+        return builder;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isLoaded()
+    {
+        return loaded;
+    }
+
+    /**
+     * {@inheritDoc} This implementation obtains the configuration from the
+     * builder and sets its nodes as content of this configuration. A change
+     * event of type {@code ADD_NODES} is fired. If the builder throws an
+     * exception, this configuration stays empty. Concurrent callers block
+     * until loading is complete. A recursive call on the loading thread (e.g.
+     * from an event listener) returns immediately.
+     */
+    @Override
+    public synchronized void load()
+    {
+        if (loaded || loading)
+        {
+            return;
+        }
+
+        loading = true;
+        try
+        {
+            final ImmutableNode root = loadRootNode();
+            if (root != null)
+            {
+                setLoadedRootNode(root);
+            }
+            loaded = true;
+        }
+        finally
+        {
+            loading = false;
+        }
+    }
+
+    /**
+     * Obtains the configuration from the builder and returns its root node.
+     * Result is <b>null</b> if the configuration cannot be created.
+     *
+     * @return the root node of the loaded configuration or <b>null</b>
+     */
+    private ImmutableNode loadRootNode()
+    {
+        try
+        {
+            return ConfigurationUtils
+                    .convertToHierarchical(builder.getConfiguration(),
+                            conversionEngine).getNodeModel()
+                    .getInMemoryRepresentation();
+        }
+        catch (final ConfigurationException cex)
+        {
+            // ignore exceptions for optional configurations
+            getLogger().warn("Could not load optional configuration source",
+                    cex);
+            return null;
+        }
+    }
+
+    /**
+     * Sets the root node of the loaded configuration as content of this
+     * configuration and fires the corresponding events. A combined
+     * configuration containing this object invalidates its node structure on
+     * both events, so the new content is visible even if the structure is
+     * re-constructed by a listener of the first event.
+     *
+     * @param root the new root node
+     */
+    private void setLoadedRootNode(final ImmutableNode root)
+    {
+        beginWrite(false);
+        try
+        {
+            fireEvent(ConfigurationEvent.ADD_NODES, null, root.getChildren(),
+                    true);
+            getSubConfigurationParentModel().setRootNode(root);
+            fireEvent(ConfigurationEvent.ADD_NODES, null, root.getChildren(),
+                    false);
+        }
+        finally
+        {
+            endWrite();
+        }
+    }
+}
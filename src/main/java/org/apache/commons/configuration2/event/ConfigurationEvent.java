@@ -147,6 +147,17 @@ public class ConfigurationEvent extends Event
             new EventType<>(ANY_HIERARCHICAL,
                     "SUBNODE_CHANGED");
 
+    /**
+     * Constant for the event type for the execution of a batch of update
+     * operations. The event has no property name; its value is the
+     * {@link org.apache.commons.configuration2.tree.BatchUpdate BatchUpdate}
+     * object with the operations.
+     *
+     * @since 2.5
+     */
+    public static final EventType<ConfigurationEvent> BATCH_UPDATE =
+            new EventType<>(ANY_HIERARCHICAL, "BATCH_UPDATE");
+
     /**
      * The serial version UID.
      */
@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -76,6 +77,15 @@ import org.apache.commons.text.lookup.StringLookup;
  * values of specific variables without performing interpolation.
  * </p>
  * <p>
+ * Optionally, an instance can cache the results of interpolation operations
+ * (see {@link #setEnableCaching(boolean)}). For each cached result the names
+ * of the variables that were resolved to produce it are recorded. When the
+ * value of a variable changes, {@link #invalidateCache(String)} removes only
+ * the results referencing this variable. A configuration owning a
+ * {@code ConfigurationInterpolator} calls this method automatically for the
+ * keys affected by its change events.
+ * </p>
+ * <p>
  * Implementation node: This class is thread-safe. Lookup objects can be added
  * or removed at any time concurrent to interpolation operations.
  * </p>
@@ -106,6 +116,13 @@ public class ConfigurationInterpolator
     /** A map containing the default prefix lookups. */
     private static final Map<String, Lookup> DEFAULT_PREFIX_LOOKUPS;
 
+    /**
+     * Stores the names of the variables resolved by the current thread while
+     * an interpolation result to be cached is computed.
+     */
+    private static final ThreadLocal<Set<String>> RESOLVED_VARIABLES =
+            new ThreadLocal<>();
+
     static
     {
         final Map<String, Lookup> lookups = new HashMap<>(DefaultLookups.values().length);
@@ -219,6 +236,9 @@ public class ConfigurationInterpolator
     /** Stores a parent interpolator objects if the interpolator is nested hierarchically. */
     private volatile ConfigurationInterpolator parentInterpolator;
 
+    /** The cache for interpolation results; null if caching is disabled. */
+    private volatile InterpolationCache cache;
+
     /**
      * Creates a new instance of {@code ConfigurationInterpolator}.
      */
@@ -243,6 +263,7 @@ public class ConfigurationInterpolator
     public void addDefaultLookup(final Lookup defaultLookup)
     {
         defaultLookups.add(defaultLookup);
+        clearCache();
     }
 
     /**
@@ -259,6 +280,7 @@ public class ConfigurationInterpolator
         if (lookups != null)
         {
             defaultLookups.addAll(lookups);
+            clearCache();
         }
     }
 
@@ -272,7 +294,9 @@ public class ConfigurationInterpolator
      */
     public boolean deregisterLookup(final String prefix)
     {
-        return prefixLookups.remove(prefix) != null;
+        final boolean removed = prefixLookups.remove(prefix) != null;
+        clearCache();
+        return removed;
     }
 
     /**
@@ -303,6 +327,21 @@ public class ConfigurationInterpolator
         return new ArrayList<>(defaultLookups);
     }
 
+    /**
+     * Returns the {@code Lookup} object registered for the given prefix at
+     * this instance. Result is <b>null</b> if there is no such object. In
+     * contrast to {@link #getLookups()}, this method does not copy the map
+     * with all registered lookups; so it is suitable for frequent calls.
+     *
+     * @param prefix the variable prefix
+     * @return the {@code Lookup} registered for this prefix or <b>null</b>
+     * @since 2.5
+     */
+    public Lookup getLookup(final String prefix)
+    {
+        return prefix != null ? prefixLookups.get(prefix) : null;
+    }
+
     /**
      * Returns a map with the currently registered {@code Lookup} objects and
      * their prefixes. This is a snapshot copy of the internally used map. So
@@ -361,21 +400,195 @@ public class ConfigurationInterpolator
         if (value instanceof String)
         {
             final String strValue = (String) value;
-            if (looksLikeSingleVariable(strValue))
+            final InterpolationCache c = cache;
+            if (c != null && strValue.contains(VAR_START))
+            {
+                return interpolateCached(c, strValue);
+            }
+            return interpolateString(strValue);
+        }
+        return value;
+    }
+
+    /**
+     * Returns a flag whether the results of interpolation operations are
+     * cached.
+     *
+     * @return the caching flag
+     * @since 2.5
+     */
+    public boolean isEnableCaching()
+    {
+        return cache != null;
+    }
+
+    /**
+     * Sets a flag whether the results of interpolation operations are to be
+     * cached. If enabled, the result of interpolating a string containing
+     * variables is stored together with the names of all variables resolved
+     * for it, so that repeated interpolations of the same string become a
+     * single map lookup. The number of cached results is limited; if the
+     * limit is reached, the oldest results are discarded. Cached results must
+     * be invalidated when the values of variables change; this can be done
+     * using the {@link #invalidateCache(String)} and {@link #clearCache()}
+     * methods. Results for values which are no longer used can be removed
+     * using {@link #invalidateCachedValue(Object)}.
+     * Changes on the set of {@code Lookup} objects or the parent interpolator
+     * clear the cache automatically. Note that values of lookups whose data
+     * may change at any time (for instance system properties) are cached as
+     * well; so if such variables are used, {@link #invalidateCache(String)}
+     * has to be called with their prefix when their values change.
+     *
+     * @param f the caching flag
+     * @since 2.5
+     */
+    public void setEnableCaching(final boolean f)
+    {
+        if (f != isEnableCaching())
+        {
+            cache = f ? new InterpolationCache() : null;
+        }
+    }
+
+    /**
+     * Removes all cached results of interpolation operations. If caching is
+     * disabled, this method has no effect.
+     *
+     * @since 2.5
+     */
+    public void clearCache()
+    {
+        final InterpolationCache c = cache;
+        if (c != null)
+        {
+            c.clear();
+        }
+    }
+
+    /**
+     * Removes all cached results of interpolation operations that reference
+     * the given variable. The variable name is matched against the names of
+     * the variables recorded for cached results (including prefixes); results
+     * are removed if one of the names is a prefix of the other. So passing in
+     * only a prefix like <em>sys:</em> removes all results referencing
+     * variables with this prefix. If caching is disabled, this method has no
+     * effect.
+     *
+     * @param variable the name of the variable whose value has changed (must
+     *        not be <b>null</b>)
+     * @since 2.5
+     */
+    public void invalidateCache(final String variable)
+    {
+        final InterpolationCache c = cache;
+        if (c != null)
+        {
+            c.invalidate(variable);
+        }
+    }
+
+    /**
+     * Removes the cached result of interpolating the given value. This method
+     * can be called when a value is no longer used, for instance because the
+     * property it has been assigned to is changed or removed. If the value is
+     * a collection or an array, the results for all its string elements are
+     * removed. If caching is disabled, this method has no effect.
+     *
+     * @param value the value whose cached result is to be removed (may be
+     *        <b>null</b>)
+     * @since 2.5
+     */
+    public void invalidateCachedValue(final Object value)
+    {
+        final InterpolationCache c = cache;
+        if (c != null && value != null)
+        {
+            if (value instanceof String)
+            {
+                c.remove((String) value);
+            }
+            else if (value instanceof Iterable)
+            {
+                for (final Object elem : (Iterable<?>) value)
+                {
+                    invalidateCachedValue(elem);
+                }
+            }
+            else if (value instanceof Object[])
             {
-                final Object resolvedValue = resolveSingleVariable(strValue);
-                if (resolvedValue != null && !(resolvedValue instanceof String))
+                for (final Object elem : (Object[]) value)
                 {
-                    // If the value is again a string, it needs no special
-                    // treatment; it may also contain further variables which
-                    // must be resolved; therefore, the default mechanism is
-                    // applied.
-                    return resolvedValue;
+                    invalidateCachedValue(elem);
                 }
             }
-            return substitutor.replace(strValue);
         }
-        return value;
+    }
+
+    /**
+     * Performs interpolation of a string value using the cache. The cache is
+     * queried first. If it does not contain a result, interpolation is
+     * performed, and the names of all variables resolved during this
+     * operation are recorded. Nested interpolations (e.g. triggered by a
+     * {@code Lookup} which interpolates itself) do not use cached results,
+     * but contribute their variables to the enclosing operation.
+     *
+     * @param c the cache
+     * @param strValue the string to be interpolated
+     * @return the interpolated value
+     */
+    private Object interpolateCached(final InterpolationCache c,
+            final String strValue)
+    {
+        final Set<String> outerVariables = RESOLVED_VARIABLES.get();
+        if (outerVariables == null)
+        {
+            final Object cachedResult = c.get(strValue);
+            if (cachedResult != null)
+            {
+                return cachedResult;
+            }
+        }
+
+        final long modCount = c.getModificationCount();
+        final Set<String> variables = new HashSet<>();
+        RESOLVED_VARIABLES.set(variables);
+        try
+        {
+            final Object result = interpolateString(strValue);
+            c.put(strValue, result, variables, modCount);
+            return result;
+        }
+        finally
+        {
+            RESOLVED_VARIABLES.set(outerVariables);
+            if (outerVariables != null)
+            {
+                outerVariables.addAll(variables);
+            }
+        }
+    }
+
+    /**
+     * Performs interpolation of a string value.
+     *
+     * @param strValue the string to be interpolated
+     * @return the interpolated value
+     */
+    private Object interpolateString(final String strValue)
+    {
+        if (looksLikeSingleVariable(strValue))
+        {
+            final Object resolvedValue = resolveSingleVariable(strValue);
+            if (resolvedValue != null && !(resolvedValue instanceof String))
+            {
+                // If the value is again a string, it needs no special
+                // treatment; it may also contain further variables which
+                // must be resolved; therefore, the default mechanism is
+                // applied.
+                return resolvedValue;
+            }
+        }
+        return substitutor.replace(strValue);
     }
 
     /**
@@ -440,6 +653,7 @@ public class ConfigurationInterpolator
                     "Lookup object must not be null!");
         }
         prefixLookups.put(prefix, lookup);
+        clearCache();
     }
 
     /**
@@ -456,6 +670,7 @@ public class ConfigurationInterpolator
         if (lookups != null)
         {
             prefixLookups.putAll(lookups);
+            clearCache();
         }
     }
 
@@ -469,7 +684,9 @@ public class ConfigurationInterpolator
      */
     public boolean removeDefaultLookup(final Lookup lookup)
     {
-        return defaultLookups.remove(lookup);
+        final boolean removed = defaultLookups.remove(lookup);
+        clearCache();
+        return removed;
     }
 
     /**
@@ -492,6 +709,11 @@ public class ConfigurationInterpolator
         {
             return null;
         }
+        final Set<String> resolvedVariables = RESOLVED_VARIABLES.get();
+        if (resolvedVariables != null)
+        {
+            resolvedVariables.add(var);
+        }
 
         final int prefixPos = var.indexOf(PREFIX_SEPARATOR);
         if (prefixPos >= 0)
@@ -543,6 +765,7 @@ public class ConfigurationInterpolator
     public void setEnableSubstitutionInVariables(final boolean f)
     {
         substitutor.setEnableSubstitutionInVariables(f);
+        clearCache();
     }
 
     /**
@@ -557,5 +780,6 @@ public class ConfigurationInterpolator
             final ConfigurationInterpolator parentInterpolator)
     {
         this.parentInterpolator = parentInterpolator;
+        clearCache();
     }
 }
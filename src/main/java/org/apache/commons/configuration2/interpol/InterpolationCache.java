@@ -0,0 +1,328 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.interpol;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * A cache for the results of interpolation operations used internally by
+ * {@link ConfigurationInterpolator}.
+ * </p>
+ * <p>
+ * The cache maps values to be interpolated to their interpolated results.
+ * For each entry the names of the variables which have been resolved to
+ * produce the result are recorded. These dependencies are stored in a
+ * reverse index, so that all entries referencing a specific variable can be
+ * removed efficiently when the value of this variable changes. When an entry
+ * is removed, it is also removed from the reverse index.
+ * </p>
+ * <p>
+ * The number of entries is limited. If the limit is reached, the entry which
+ * has been stored first is removed. In addition, the entry for a specific
+ * value can be removed, e.g. when a property with this value is changed, so
+ * that it is no longer needed.
+ * </p>
+ * <p>
+ * Cached results can be queried without locking. Updates of the cache are
+ * synchronized and guarded by a modification count, so that a result
+ * computed before a concurrent invalidation is not stored.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+class InterpolationCache
+{
+    /** The default maximum number of cached results. */
+    static final int DEFAULT_MAX_SIZE = 1000;
+
+    /** The map with cached results. */
+    private final ConcurrentMap<String, CacheEntry> results;
+
+    /**
+     * The reverse index from variable names to dependent values. It is
+     * guarded by this object's monitor.
+     */
+    private final Map<String, Set<String>> dependents;
+
+    /**
+     * The cached values in the order in which they have been stored. It is
+     * guarded by this object's monitor.
+     */
+    private final Set<String> insertionOrder;
+
+    /** The maximum number of cached results. */
+    private final int maxSize;
+
+    /** The modification count. */
+    private final AtomicLong modCount;
+
+    /**
+     * Creates a new, empty instance of {@code InterpolationCache} with the
+     * default maximum size.
+     */
+    public InterpolationCache()
+    {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a new, empty instance of {@code InterpolationCache} with the
+     * given maximum size.
+     *
+     * @param maxSize the maximum number of cached results
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    public InterpolationCache(final int maxSize)
+    {
+        if (maxSize <= 0)
+        {
+            throw new IllegalArgumentException(
+                    "Maximum size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        results = new ConcurrentHashMap<>();
+        dependents = new HashMap<>();
+        insertionOrder = new LinkedHashSet<>();
+        modCount = new AtomicLong();
+    }
+
+    /**
+     * Returns the maximum number of results stored in this cache.
+     *
+     * @return the maximum size
+     */
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * Returns the current modification count. This value has to be obtained
+     * before an interpolation is performed whose result is to be cached.
+     *
+     * @return the current modification count
+     */
+    public long getModificationCount()
+    {
+        return modCount.get();
+    }
+
+    /**
+     * Returns the cached result for the given value or <b>null</b> if there
+     * is none.
+     *
+     * @param value the value to be interpolated
+     * @return the cached result or <b>null</b>
+     */
+    public Object get(final String value)
+    {
+        final CacheEntry entry = results.get(value);
+        return (entry != null) ? entry.result : null;
+    }
+
+    /**
+     * Returns the number of results stored in this cache.
+     *
+     * @return the number of cached results
+     */
+    public int size()
+    {
+        return results.size();
+    }
+
+    /**
+     * Returns the number of variables for which dependent values are
+     * recorded. This is mainly useful for testing purposes.
+     *
+     * @return the number of variables in the reverse index
+     */
+    synchronized int getDependencyCount()
+    {
+        return dependents.size();
+    }
+
+    /**
+     * Stores the result of an interpolation in this cache together with the
+     * names of the variables it depends on. The result is stored only if no
+     * invalidation happened since the passed in modification count was
+     * obtained. If the maximum size is exceeded, the oldest entry is removed.
+     *
+     * @param value the value which has been interpolated
+     * @param result the result of the interpolation
+     * @param variables the names of the variables the result depends on
+     * @param expectedModCount the modification count obtained before the
+     *        interpolation was started
+     */
+    public synchronized void put(final String value, final Object result,
+            final Set<String> variables, final long expectedModCount)
+    {
+        if (result == null || expectedModCount != modCount.get())
+        {
+            return;
+        }
+
+        removeEntry(value);
+        final CacheEntry entry =
+                new CacheEntry(result, new HashSet<>(variables));
+        for (final String var : entry.variables)
+        {
+            fetchDependents(var).add(value);
+        }
+        results.put(value, entry);
+        insertionOrder.add(value);
+
+        if (insertionOrder.size() > maxSize)
+        {
+            final Iterator<String> it = insertionOrder.iterator();
+            removeEntry(it.next());
+        }
+    }
+
+    /**
+     * Removes the result cached for the given value. This method can be
+     * called if a value is no longer used, e.g. because the property it has
+     * been assigned to has been changed.
+     *
+     * @param value the value whose result is to be removed
+     */
+    public synchronized void remove(final String value)
+    {
+        modCount.incrementAndGet();
+        removeEntry(value);
+    }
+
+    /**
+     * Removes all entries from this cache.
+     */
+    public synchronized void clear()
+    {
+        modCount.incrementAndGet();
+        results.clear();
+        dependents.clear();
+        insertionOrder.clear();
+    }
+
+    /**
+     * Removes all entries depending on the given variable. A variable is
+     * considered to match if one of the names is a prefix of the other one.
+     * So passing in a prefix like <em>sys:</em> removes all entries which
+     * reference a variable with this prefix, and the change of a hierarchical
+     * key also affects entries referencing this key with an index.
+     *
+     * @param variable the name of the variable that has changed
+     */
+    public synchronized void invalidate(final String variable)
+    {
+        modCount.incrementAndGet();
+        final Set<String> affectedValues = new HashSet<>();
+        for (final Map.Entry<String, Set<String>> e : dependents.entrySet())
+        {
+            if (e.getKey().startsWith(variable)
+                    || variable.startsWith(e.getKey()))
+            {
+                affectedValues.addAll(e.getValue());
+            }
+        }
+
+        for (final String value : affectedValues)
+        {
+            removeEntry(value);
+        }
+    }
+
+    /**
+     * Removes the entry for the given value and unlinks it from the reverse
+     * index. This method must be called while holding this object's monitor.
+     *
+     * @param value the value to be removed
+     */
+    private void removeEntry(final String value)
+    {
+        final CacheEntry entry = results.remove(value);
+        if (entry != null)
+        {
+            insertionOrder.remove(value);
+            for (final String var : entry.variables)
+            {
+                final Set<String> values = dependents.get(var);
+                if (values != null)
+                {
+                    values.remove(value);
+                    if (values.isEmpty())
+                    {
+                        dependents.remove(var);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the set with the values depending on the given variable,
+     * creating it on demand. This method must be called while holding this
+     * object's monitor.
+     *
+     * @param variable the variable name
+     * @return the set with the dependent values
+     */
+    private Set<String> fetchDependents(final String variable)
+    {
+        Set<String> values = dependents.get(variable);
+        if (values == null)
+        {
+            values = new HashSet<>();
+            dependents.put(variable, values);
+        }
+        return values;
+    }
+
+    /**
+     * A data class representing a cached result together with the names of
+     * the variables it depends on.
+     */
+    private static class CacheEntry
+    {
+        /** The cached result. */
+        final Object result;
+
+        /** The names of the variables the result depends on. */
+        final Set<String> variables;
+
+        /**
+         * Creates a new instance of {@code CacheEntry}.
+         *
+         * @param result the result
+         * @param variables the variables
+         */
+        CacheEntry(final Object result, final Set<String> variables)
+        {
+            this.result = result;
+            this.variables = Collections.unmodifiableSet(variables);
+        }
+    }
+}
@@ -19,6 +19,18 @@ package org.apache.commons.configuration2.reloading;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
 
 /**
  * <p>
@@ -48,6 +60,20 @@ import java.util.Collections;
  * controllers (e.g. a more dynamic way). However, they are then responsible to
  * ensure a safe access to this list in a multi-threaded environment.
  * </p>
+ * <p>
+ * Per default, a reload check is performed on the sub controllers one after
+ * the other. So a single slow check - e.g. for a file on a network drive -
+ * delays the checks of all other controllers. Alternatively, an
+ * {@code Executor} and a timeout can be passed to the constructor. Then the
+ * checks of the sub controllers are performed concurrently by this
+ * {@code Executor}, and a reload is signaled as soon as one of them reports a
+ * change. The timeout defines how long to wait for the answers of the sub
+ * controllers, measured from the start of the check. A sub controller which
+ * has not answered within this time is considered unchanged for this check;
+ * its check continues in the background, and a change detected by it is
+ * reported by the next check. As long as such a check is still running, no
+ * further check of this sub controller is started.
+ * </p>
  *
  * @version $Id$
  * @since 2.0
@@ -64,6 +90,15 @@ public class CombinedReloadingController extends ReloadingController
     /** The reloading detector used by this instance. */
     private final ReloadingDetector detector;
 
+    /** The executor for checking sub controllers concurrently. */
+    private final Executor pollingExecutor;
+
+    /** The timeout for concurrent checks in nanoseconds. */
+    private final long pollingTimeoutNanos;
+
+    /** The sub controllers whose concurrent check is still running. */
+    private final Set<ReloadingController> runningChecks;
+
     /**
      * Creates a new instance of {@code CombinedReloadingController} and
      * initializes it with the {@code ReloadingController} objects to be
@@ -80,6 +115,51 @@ public class CombinedReloadingController extends ReloadingController
         super(DUMMY);
         controllers = checkManagedControllers(subCtrls);
         detector = new MultiReloadingControllerDetector(this);
+        pollingExecutor = null;
+        pollingTimeoutNanos = 0;
+        runningChecks = null;
+    }
+
+    /**
+     * Creates a new instance of {@code CombinedReloadingController} which
+     * checks the managed {@code ReloadingController} objects concurrently.
+     * The checks are executed by the given {@code Executor}; the results are
+     * waited for at most the specified timeout.
+     *
+     * @param subCtrls the collection with sub {@code ReloadingController}s
+     *        (must not be <b>null</b> or contain <b>null</b> entries)
+     * @param executor the {@code Executor} for checking the sub controllers
+     *        (must not be <b>null</b>)
+     * @param timeout the timeout for the checks of the sub controllers (must
+     *        be greater than 0)
+     * @param unit the unit of the timeout (must not be <b>null</b>)
+     * @throws IllegalArgumentException if a parameter is invalid
+     * @since 2.5
+     */
+    public CombinedReloadingController(
+            final Collection<? extends ReloadingController> subCtrls,
+            final Executor executor, final long timeout, final TimeUnit unit)
+    {
+        super(DUMMY);
+        if (executor == null)
+        {
+            throw new IllegalArgumentException("Executor must not be null!");
+        }
+        if (timeout <= 0)
+        {
+            throw new IllegalArgumentException("Timeout must be positive: "
+                    + timeout);
+        }
+        if (unit == null)
+        {
+            throw new IllegalArgumentException("Time unit must not be null!");
+        }
+        controllers = checkManagedControllers(subCtrls);
+        detector = new MultiReloadingControllerDetector(this);
+        pollingExecutor = executor;
+        pollingTimeoutNanos = unit.toNanos(timeout);
+        runningChecks = Collections
+                .newSetFromMap(new ConcurrentHashMap<ReloadingController, Boolean>());
     }
 
     /**
@@ -93,6 +173,33 @@ public class CombinedReloadingController extends ReloadingController
         return controllers;
     }
 
+    /**
+     * Returns the {@code Executor} for checking the sub controllers
+     * concurrently. Result is <b>null</b> if the sub controllers are checked
+     * one after the other.
+     *
+     * @return the {@code Executor} for concurrent checks or <b>null</b>
+     * @since 2.5
+     */
+    public Executor getPollingExecutor()
+    {
+        return pollingExecutor;
+    }
+
+    /**
+     * Returns the timeout for concurrent checks of the sub controllers in the
+     * given unit. Result is 0 if the sub controllers are checked one after
+     * the other.
+     *
+     * @param unit the desired time unit
+     * @return the timeout for concurrent checks
+     * @since 2.5
+     */
+    public long getPollingTimeout(final TimeUnit unit)
+    {
+        return unit.convert(pollingTimeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
     /**
      * {@inheritDoc} This implementation returns a special reloading detector
      * which operates on all managed controllers.
@@ -175,11 +282,19 @@ public class CombinedReloadingController extends ReloadingController
          * controllers. For all of them the {@code checkForReloading()}
          * method is called, giving them the chance to trigger a reload if
          * necessary. If one of these calls returns <b>true</b>, the result of
-         * this method is <b>true</b>, otherwise <b>false</b>.
+         * this method is <b>true</b>, otherwise <b>false</b>. If the owner
+         * has an {@code Executor} for concurrent checks, the calls are
+         * performed concurrently, and this method returns as soon as one of
+         * them has returned <b>true</b>.
          */
         @Override
         public boolean isReloadingRequired()
         {
+            if (owner.getPollingExecutor() != null)
+            {
+                return checkConcurrently();
+            }
+
             boolean result = false;
             for (final ReloadingController rc : owner.getSubControllers())
             {
@@ -191,6 +306,120 @@ public class CombinedReloadingController extends ReloadingController
             return result;
         }
 
+        /**
+         * Checks the managed controllers concurrently using the owner's
+         * {@code Executor}. Controllers whose previous check is still running
+         * are skipped. If the {@code Executor} rejects a check, it is
+         * performed directly.
+         *
+         * @return a flag whether one of the managed controllers has reported
+         *         a change within the timeout
+         */
+        private boolean checkConcurrently()
+        {
+            final long deadline = System.nanoTime() + owner.pollingTimeoutNanos;
+            final CompletionService<Boolean> service =
+                    new ExecutorCompletionService<>(owner.getPollingExecutor());
+            int pendingChecks = 0;
+            for (final ReloadingController rc : owner.getSubControllers())
+            {
+                if (!owner.runningChecks.add(rc))
+                {
+                    // the previous check has not completed yet
+                    continue;
+                }
+                try
+                {
+                    service.submit(createCheckTask(rc));
+                    pendingChecks++;
+                }
+                catch (final RejectedExecutionException rex)
+                {
+                    owner.runningChecks.remove(rc);
+                    if (rc.checkForReloading(null))
+                    {
+                        return true;
+                    }
+                }
+            }
+
+            try
+            {
+                for (; pendingChecks > 0; pendingChecks--)
+                {
+                    final Future<Boolean> check = service.poll(
+                            deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (check == null)
+                    {
+                        // timeout; the remaining checks are ignored
+                        return false;
+                    }
+                    if (check.get().booleanValue())
+                    {
+                        return true;
+                    }
+                }
+            }
+            catch (final InterruptedException iex)
+            {
+                Thread.currentThread().interrupt();
+            }
+            catch (final ExecutionException eex)
+            {
+                throw handleCheckException(eex.getCause());
+            }
+            return false;
+        }
+
+        /**
+         * Creates the task for checking the given controller concurrently.
+         * When the check is complete, the controller is removed from the set
+         * of running checks.
+         *
+         * @param rc the controller to be checked
+         * @return the task for checking this controller
+         */
+        private Callable<Boolean> createCheckTask(final ReloadingController rc)
+        {
+            return new Callable<Boolean>()
+            {
+                @Override
+                public Boolean call()
+                {
+                    try
+                    {
+                        return Boolean.valueOf(rc.checkForReloading(null));
+                    }
+                    finally
+                    {
+                        owner.runningChecks.remove(rc);
+                    }
+                }
+            };
+        }
+
+        /**
+         * Handles an exception thrown by the concurrent check of a managed
+         * controller. Unchecked exceptions and errors are rethrown, so that
+         * they are propagated as in the case of sequential checks.
+         *
+         * @param cause the exception thrown by the check
+         * @return the exception to be thrown
+         */
+        private static RuntimeException handleCheckException(
+                final Throwable cause)
+        {
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                return (RuntimeException) cause;
+            }
+            return new ConfigurationRuntimeException(cause);
+        }
+
         /**
          * {@inheritDoc} This implementation resets the reloading state on all
          * managed controllers.
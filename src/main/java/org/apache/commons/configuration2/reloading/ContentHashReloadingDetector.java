@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.reloading;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import org.apache.commons.configuration2.io.FileHandler;
+
+/**
+ * <p>
+ * A specialized implementation of {@code ReloadingDetector} which only
+ * reports the need for a reload if the content of the monitored file has
+ * actually changed.
+ * </p>
+ * <p>
+ * Tools used for deployment often touch files or replace them by identical
+ * copies. This changes the last modification date, so that
+ * {@link FileHandlerReloadingDetector} triggers a reload although the
+ * configuration data is the same. This class stores the size and a checksum
+ * of the file's content in addition to the modification date. The checks are
+ * performed in the order of their costs: If the modification date has not
+ * changed, no further check is done. Otherwise, the size of the file is
+ * compared; only if it is unchanged, the checksum is computed by reading the
+ * file. If the content turns out to be the same, the new modification date
+ * is stored, and no reload is triggered.
+ * </p>
+ * <p>
+ * The refresh delay and the initialization work in the same way as for the
+ * base class.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class ContentHashReloadingDetector extends FileHandlerReloadingDetector
+{
+    /** The size of the buffer used for reading files. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** The size of the file when it was last loaded. */
+    private long lastSize;
+
+    /** The checksum of the file when it was last loaded. */
+    private long lastChecksum;
+
+    /** A flag whether size and checksum are known. */
+    private boolean contentKnown;
+
+    /**
+     * Creates a new instance of {@code ContentHashReloadingDetector} and
+     * initializes it with the {@code FileHandler} to monitor and the refresh
+     * delay.
+     *
+     * @param handler the {@code FileHandler} associated with this detector
+     *        (can be <b>null</b>)
+     * @param refreshDelay the refresh delay; a value of 0 means that a check
+     *        is performed in all cases
+     */
+    public ContentHashReloadingDetector(final FileHandler handler,
+            final long refreshDelay)
+    {
+        super(handler, refreshDelay);
+    }
+
+    /**
+     * Creates a new instance of {@code ContentHashReloadingDetector} and
+     * initializes it with the {@code FileHandler} to monitor and a default
+     * refresh delay.
+     *
+     * @param handler the {@code FileHandler} associated with this detector
+     *        (can be <b>null</b>)
+     */
+    public ContentHashReloadingDetector(final FileHandler handler)
+    {
+        super(handler);
+    }
+
+    /**
+     * Creates a new instance of {@code ContentHashReloadingDetector} with an
+     * uninitialized {@code FileHandler} object.
+     */
+    public ContentHashReloadingDetector()
+    {
+        super();
+    }
+
+    /**
+     * {@inheritDoc} If the last modification date of the file has changed,
+     * this implementation also compares the size and the checksum of the
+     * file's content. A reload is only required if one of them differs.
+     */
+    @Override
+    public boolean isReloadingRequired()
+    {
+        if (!super.isReloadingRequired())
+        {
+            return false;
+        }
+
+        final File file = getFile();
+        if (!contentKnown || file == null || file.length() != lastSize)
+        {
+            return true;
+        }
+
+        final long modified = getLastModificationDate();
+        try
+        {
+            if (computeChecksum(file) != lastChecksum)
+            {
+                return true;
+            }
+        }
+        catch (final IOException ioex)
+        {
+            return true;
+        }
+
+        // only the modification date has changed
+        super.updateLastModified(modified);
+        return false;
+    }
+
+    /**
+     * {@inheritDoc} This implementation also records the current size and
+     * checksum of the monitored file.
+     */
+    @Override
+    protected void updateLastModified(final long time)
+    {
+        super.updateLastModified(time);
+        contentKnown = false;
+        final File file = getFile();
+        if (time != 0 && file != null)
+        {
+            try
+            {
+                lastSize = file.length();
+                lastChecksum = computeChecksum(file);
+                contentKnown = true;
+            }
+            catch (final IOException ioex)
+            {
+                // the next change of the file triggers a reload
+            }
+        }
+    }
+
+    /**
+     * Computes a checksum of the content of the given file. This
+     * implementation computes a CRC-32 checksum; the file is read using a
+     * {@code FileChannel}.
+     *
+     * @param file the file
+     * @return the checksum of the file's content
+     * @throws IOException if the file cannot be read
+     */
+    protected long computeChecksum(final File file) throws IOException
+    {
+        final CRC32 crc = new CRC32();
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (final FileChannel channel =
+                FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            while (channel.read(buffer) >= 0)
+            {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+}
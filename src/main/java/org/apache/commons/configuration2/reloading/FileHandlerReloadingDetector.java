@@ -58,7 +58,7 @@ public class FileHandlerReloadingDetector implements ReloadingDetector
     private static final String JAR_PROTOCOL = "jar";
 
     /** Constant for the default refresh delay. */
-    private static final int DEFAULT_REFRESH_DELAY = 5000;
+    static final int DEFAULT_REFRESH_DELAY = 5000;
 
     /** The associated file handler. */
     private final FileHandler fileHandler;
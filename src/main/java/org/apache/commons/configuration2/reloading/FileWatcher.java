@@ -0,0 +1,481 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.reloading;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * <p>
+ * A class which monitors files for changes using a
+ * {@code java.nio.file.WatchService}.
+ * </p>
+ * <p>
+ * An arbitrary number of files can be registered at an instance. The
+ * directories containing these files are registered at a single
+ * {@code WatchService}, and a single background thread waits for its events.
+ * So there is no file system access while the files are not changed, and the
+ * costs do not grow with the number of monitored files. When a file is created
+ * or modified, the {@link Registration} object representing this file is
+ * marked as changed. The change can then be queried without any I/O, e.g. by
+ * a {@link WatchServiceReloadingDetector}.
+ * </p>
+ * <p>
+ * The {@code WatchService} and the background thread are created when the
+ * first file is registered. An instance can be shared by many components. For
+ * this purpose, there is a default instance which is used if no specific one
+ * is provided. After calling {@link #close()}, an instance can no longer be
+ * used. Implementation note: This class is thread-safe.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class FileWatcher
+{
+    /** The default instance. */
+    private static final FileWatcher DEFAULT_INSTANCE = new FileWatcher();
+
+    /** The logger. */
+    private final Log log = LogFactory.getLog(FileWatcher.class);
+
+    /** A map with the currently monitored directories. */
+    private final Map<Path, DirectoryWatch> directories;
+
+    /** The watch service; created on first access. */
+    private WatchService watchService;
+
+    /** A flag whether this object has been closed. */
+    private boolean closed;
+
+    /**
+     * Creates a new instance of {@code FileWatcher}.
+     */
+    public FileWatcher()
+    {
+        directories = new HashMap<>();
+    }
+
+    /**
+     * Returns the default instance of {@code FileWatcher}. This instance is
+     * shared by all components that do not use a specific one. It must not be
+     * closed.
+     *
+     * @return the default {@code FileWatcher}
+     */
+    public static FileWatcher getDefaultInstance()
+    {
+        return DEFAULT_INSTANCE;
+    }
+
+    /**
+     * Registers the specified file at this watcher. The file does not have to
+     * exist, but its parent directory has to. The returned
+     * {@code Registration} is marked as changed whenever the file is created
+     * or modified. If the file is no longer to be monitored, the registration
+     * has to be canceled.
+     *
+     * @param file the file to be monitored (must not be <b>null</b>)
+     * @return a {@code Registration} for this file
+     * @throws IOException if the file cannot be monitored
+     * @throws IllegalArgumentException if the file is <b>null</b>
+     * @throws IllegalStateException if this watcher has been closed
+     */
+    public synchronized Registration register(final File file)
+            throws IOException
+    {
+        if (file == null)
+        {
+            throw new IllegalArgumentException("File must not be null!");
+        }
+        if (closed)
+        {
+            throw new IllegalStateException("FileWatcher has been closed!");
+        }
+
+        final Path path = file.getAbsoluteFile().toPath().normalize();
+        final Path dir = path.getParent();
+        if (dir == null)
+        {
+            throw new IOException("Cannot monitor file without directory: "
+                    + file);
+        }
+
+        DirectoryWatch dirWatch = directories.get(dir);
+        if (dirWatch == null || !dirWatch.key.isValid())
+        {
+            final WatchKey key = dir.register(fetchWatchService(),
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            dirWatch = new DirectoryWatch(dir, key);
+            directories.put(dir, dirWatch);
+        }
+
+        final Registration reg =
+                new Registration(this, dirWatch, path.getFileName());
+        dirWatch.registrations.add(reg);
+        return reg;
+    }
+
+    /**
+     * Closes this watcher. All monitored directories are unregistered, and
+     * the background thread terminates. Existing registrations no longer
+     * receive change notifications.
+     *
+     * @throws IOException if an error occurs when closing the watch service
+     * @throws IllegalStateException if this is the default instance
+     */
+    public synchronized void close() throws IOException
+    {
+        if (this == DEFAULT_INSTANCE)
+        {
+            throw new IllegalStateException(
+                    "The default FileWatcher cannot be closed!");
+        }
+        if (!closed)
+        {
+            closed = true;
+            for (final DirectoryWatch dirWatch : directories.values())
+            {
+                dirWatch.invalidate();
+            }
+            directories.clear();
+            if (watchService != null)
+            {
+                watchService.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of directories currently monitored by this watcher.
+     * This is mainly useful for testing purposes.
+     *
+     * @return the number of monitored directories
+     */
+    public synchronized int getDirectoryCount()
+    {
+        return directories.size();
+    }
+
+    /**
+     * Creates the thread which processes the events of the watch service.
+     * This method is called when the first file is registered.
+     *
+     * @param task the task to be executed by the thread
+     * @return the new thread
+     */
+    protected Thread createWatcherThread(final Runnable task)
+    {
+        final ThreadFactory factory =
+                new BasicThreadFactory.Builder()
+                        .namingPattern("FileWatcher-%s").daemon(true)
+                        .build();
+        return factory.newThread(task);
+    }
+
+    /**
+     * Returns the watch service, creating it and starting the background
+     * thread on first access.
+     *
+     * @return the watch service
+     * @throws IOException if the watch service cannot be created
+     */
+    private WatchService fetchWatchService() throws IOException
+    {
+        if (watchService == null)
+        {
+            final WatchService service =
+                    FileSystems.getDefault().newWatchService();
+            createWatcherThread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    processEvents(service);
+                }
+            }).start();
+            watchService = service;
+        }
+        return watchService;
+    }
+
+    /**
+     * Removes the given registration. If it was the last one for its
+     * directory, the directory is no longer monitored.
+     *
+     * @param reg the registration to be removed
+     */
+    private synchronized void unregister(final Registration reg)
+    {
+        final DirectoryWatch dirWatch = reg.directory;
+        dirWatch.registrations.remove(reg);
+        if (dirWatch.registrations.isEmpty()
+                && directories.get(dirWatch.dir) == dirWatch)
+        {
+            directories.remove(dirWatch.dir);
+            dirWatch.key.cancel();
+        }
+    }
+
+    /**
+     * Removes the given directory if its watch key is no longer valid, e.g.
+     * because the directory has been deleted. Its registrations are
+     * invalidated.
+     *
+     * @param dirWatch the directory
+     */
+    private synchronized void removeInvalidDirectory(
+            final DirectoryWatch dirWatch)
+    {
+        if (directories.get(dirWatch.dir) == dirWatch)
+        {
+            directories.remove(dirWatch.dir);
+        }
+        dirWatch.invalidate();
+    }
+
+    /**
+     * Returns the directory associated with the given watch key.
+     *
+     * @param key the watch key
+     * @return the directory or <b>null</b> if it is no longer monitored
+     */
+    private synchronized DirectoryWatch findDirectory(final WatchKey key)
+    {
+        final DirectoryWatch dirWatch = directories.get(key.watchable());
+        return (dirWatch != null && dirWatch.key == key) ? dirWatch : null;
+    }
+
+    /**
+     * The main loop of the background thread. Events are obtained from the
+     * watch service and passed to the affected registrations until the
+     * service is closed.
+     *
+     * @param service the watch service
+     */
+    private void processEvents(final WatchService service)
+    {
+        try
+        {
+            while (true)
+            {
+                final WatchKey key = service.take();
+                final DirectoryWatch dirWatch = findDirectory(key);
+                for (final WatchEvent<?> event : key.pollEvents())
+                {
+                    if (dirWatch != null)
+                    {
+                        dirWatch.handleEvent(event);
+                    }
+                }
+                if (!key.reset() && dirWatch != null)
+                {
+                    removeInvalidDirectory(dirWatch);
+                }
+            }
+        }
+        catch (final ClosedWatchServiceException cwex)
+        {
+            log.debug("FileWatcher closed.");
+        }
+        catch (final InterruptedException iex)
+        {
+            log.warn("FileWatcher thread interrupted; "
+                    + "file changes are no longer detected.");
+        }
+    }
+
+    /**
+     * A class representing a file registered at a {@code FileWatcher}. An
+     * instance records whether the file has been changed since the last
+     * reset.
+     */
+    public static class Registration
+    {
+        /** The owning watcher. */
+        private final FileWatcher watcher;
+
+        /** The directory containing the file. */
+        private final DirectoryWatch directory;
+
+        /** The name of the file. */
+        private final Path fileName;
+
+        /** A flag whether the file has been changed. */
+        private volatile boolean changed;
+
+        /** A flag whether this registration is still valid. */
+        private volatile boolean valid;
+
+        /**
+         * Creates a new instance of {@code Registration}.
+         *
+         * @param owner the owning watcher
+         * @param dir the directory containing the file
+         * @param name the name of the file
+         */
+        private Registration(final FileWatcher owner, final DirectoryWatch dir,
+                final Path name)
+        {
+            watcher = owner;
+            directory = dir;
+            fileName = name;
+            valid = true;
+        }
+
+        /**
+         * Returns the monitored file.
+         *
+         * @return the monitored file
+         */
+        public File getFile()
+        {
+            return directory.dir.resolve(fileName).toFile();
+        }
+
+        /**
+         * Returns a flag whether the monitored file has been changed since
+         * this registration was created or {@link #reset()} was called.
+         *
+         * @return a flag whether the file has been changed
+         */
+        public boolean isChanged()
+        {
+            return changed;
+        }
+
+        /**
+         * Resets the changed flag of this registration. The next change of
+         * the file sets it again.
+         */
+        public void reset()
+        {
+            changed = false;
+        }
+
+        /**
+         * Returns a flag whether this registration is still valid. A
+         * registration becomes invalid if it is canceled, if its directory can
+         * no longer be monitored (e.g. because it has been deleted), or if the
+         * owning watcher has been closed. Then changes of the file are no
+         * longer detected.
+         *
+         * @return a flag whether this registration is valid
+         */
+        public boolean isValid()
+        {
+            return valid;
+        }
+
+        /**
+         * Cancels this registration. The file is no longer monitored.
+         */
+        public void cancel()
+        {
+            if (valid)
+            {
+                valid = false;
+                watcher.unregister(this);
+            }
+        }
+
+        /**
+         * Marks this registration as changed.
+         */
+        private void markChanged()
+        {
+            changed = true;
+        }
+    }
+
+    /**
+     * A class storing the information about a monitored directory.
+     */
+    private static class DirectoryWatch
+    {
+        /** The directory. */
+        final Path dir;
+
+        /** The watch key of the directory. */
+        final WatchKey key;
+
+        /** The registrations for files in this directory. */
+        final List<Registration> registrations;
+
+        /**
+         * Creates a new instance of {@code DirectoryWatch}.
+         *
+         * @param d the directory
+         * @param k the watch key
+         */
+        DirectoryWatch(final Path d, final WatchKey k)
+        {
+            dir = d;
+            key = k;
+            registrations = new CopyOnWriteArrayList<>();
+        }
+
+        /**
+         * Processes an event for this directory. The registrations of the
+         * affected file are marked as changed. If events have been lost, all
+         * registrations are marked.
+         *
+         * @param event the event
+         */
+        void handleEvent(final WatchEvent<?> event)
+        {
+            final boolean overflow =
+                    event.kind() == StandardWatchEventKinds.OVERFLOW;
+            for (final Registration reg : registrations)
+            {
+                if (overflow || reg.fileName.equals(event.context()))
+                {
+                    reg.markChanged();
+                }
+            }
+        }
+
+        /**
+         * Invalidates all registrations of this directory.
+         */
+        void invalidate()
+        {
+            key.cancel();
+            for (final Registration reg : registrations)
+            {
+                reg.valid = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.reloading;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * <p>
+ * A class which triggers reloading checks for an arbitrary number of
+ * {@link ReloadingController} objects using a single scheduler.
+ * </p>
+ * <p>
+ * In contrast to {@link PeriodicReloadingTrigger}, which is responsible for a
+ * single controller, an instance of this class manages many controllers. They
+ * are registered with the period in which they are to be checked. All checks
+ * are executed by the same {@code ScheduledExecutorService}; per default, it
+ * uses a single daemon thread. So the number of threads does not depend on
+ * the number of controllers.
+ * </p>
+ * <p>
+ * In order to avoid that the checks of controllers registered at the same
+ * time are always executed together, the first check of each controller is
+ * delayed by a random time (in addition to its period). Checks of a controller
+ * are scheduled with a fixed delay, so they do not pile up if the scheduler
+ * is busy. An exception thrown by a check is logged; it does not stop the
+ * checks of this controller.
+ * </p>
+ * <p>
+ * For each controller, a quiet period can be specified. After a check has
+ * triggered a reload, the controller is not checked again until this period
+ * has passed. Changes of the monitored source during this time - e.g. when a
+ * deployment updates a file multiple times - are not lost; they are detected
+ * by the first check after the quiet period and thus cause a single further
+ * reload.
+ * </p>
+ * <p>
+ * When the registry is no longer needed, its {@code shutdown()} method should
+ * be called. Implementation note: This class is thread-safe.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ * @see PeriodicReloadingTrigger
+ */
+public class ReloadingTriggerRegistry
+{
+    /** The logger. */
+    private final Log log = LogFactory.getLog(ReloadingTriggerRegistry.class);
+
+    /** The executor service used by this registry. */
+    private final ScheduledExecutorService executorService;
+
+    /** A map with the triggers for the registered controllers. */
+    private final ConcurrentMap<ReloadingController, Trigger> triggers;
+
+    /**
+     * Creates a new instance of {@code ReloadingTriggerRegistry} which uses
+     * the specified executor service.
+     *
+     * @param exec the executor service to use (can be <b>null</b>, then a
+     *        default executor service with a single thread is created)
+     */
+    public ReloadingTriggerRegistry(final ScheduledExecutorService exec)
+    {
+        executorService = (exec != null) ? exec : createDefaultExecutorService();
+        triggers = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Creates a new instance of {@code ReloadingTriggerRegistry} with a
+     * default executor service using a single thread.
+     */
+    public ReloadingTriggerRegistry()
+    {
+        this(null);
+    }
+
+    /**
+     * Registers a {@code ReloadingController} without a quiet period. This is
+     * a shortcut for {@code register(ctrl, ctrlParam, period, 0, unit)}.
+     *
+     * @param ctrl the {@code ReloadingController} (must not be <b>null</b>)
+     * @param ctrlParam the optional parameter to be passed to the controller
+     *        when doing reloading checks
+     * @param period the period in which the controller is checked
+     * @param unit the time unit
+     * @throws IllegalArgumentException if a required argument is missing or
+     *         invalid
+     */
+    public void register(final ReloadingController ctrl, final Object ctrlParam,
+            final long period, final TimeUnit unit)
+    {
+        register(ctrl, ctrlParam, period, 0, unit);
+    }
+
+    /**
+     * Registers a {@code ReloadingController} at this registry. The
+     * controller is checked periodically; the first check happens after the
+     * period plus a random delay less than the period. If the controller is
+     * already registered, its previous registration is replaced.
+     *
+     * @param ctrl the {@code ReloadingController} (must not be <b>null</b>)
+     * @param ctrlParam the optional parameter to be passed to the controller
+     *        when doing reloading checks
+     * @param period the period in which the controller is checked (must be
+     *        greater than 0)
+     * @param quietPeriod the time after a triggered reload in which the
+     *        controller is not checked; 0 for none
+     * @param unit the time unit for the period and the quiet period (must
+     *        not be <b>null</b>)
+     * @throws IllegalArgumentException if a required argument is missing or
+     *         invalid
+     */
+    public void register(final ReloadingController ctrl, final Object ctrlParam,
+            final long period, final long quietPeriod, final TimeUnit unit)
+    {
+        if (ctrl == null)
+        {
+            throw new IllegalArgumentException(
+                    "ReloadingController must not be null!");
+        }
+        if (unit == null)
+        {
+            throw new IllegalArgumentException("TimeUnit must not be null!");
+        }
+        if (period <= 0 || quietPeriod < 0)
+        {
+            throw new IllegalArgumentException("Invalid period: " + period
+                    + ", quiet period: " + quietPeriod);
+        }
+
+        // schedule the trigger before it is published, so that a concurrent
+        // unregister() operation can always cancel it
+        final Trigger trigger =
+                new Trigger(ctrl, ctrlParam, unit.toNanos(quietPeriod));
+        trigger.schedule(period + computeJitter(period), period, unit);
+        final Trigger old = triggers.put(ctrl, trigger);
+        if (old != null)
+        {
+            old.cancel();
+        }
+    }
+
+    /**
+     * Removes the registration of the specified {@code ReloadingController}.
+     * It is no longer checked by this registry.
+     *
+     * @param ctrl the {@code ReloadingController}
+     * @return a flag whether the controller was registered
+     */
+    public boolean unregister(final ReloadingController ctrl)
+    {
+        final Trigger trigger = triggers.remove(ctrl);
+        if (trigger != null)
+        {
+            trigger.cancel();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a flag whether the specified {@code ReloadingController} is
+     * registered at this registry.
+     *
+     * @param ctrl the {@code ReloadingController}
+     * @return a flag whether this controller is registered
+     */
+    public boolean isRegistered(final ReloadingController ctrl)
+    {
+        return triggers.containsKey(ctrl);
+    }
+
+    /**
+     * Returns the number of registered controllers.
+     *
+     * @return the number of registered controllers
+     */
+    public int getRegistrationCount()
+    {
+        return triggers.size();
+    }
+
+    /**
+     * Shuts down this registry and optionally the
+     * {@code ScheduledExecutorService} used by it. All controllers are
+     * unregistered.
+     *
+     * @param shutdownExecutor a flag whether the associated
+     *        {@code ScheduledExecutorService} is to be shut down
+     */
+    public void shutdown(final boolean shutdownExecutor)
+    {
+        for (final ReloadingController ctrl : triggers.keySet())
+        {
+            unregister(ctrl);
+        }
+        if (shutdownExecutor)
+        {
+            getExecutorService().shutdown();
+        }
+    }
+
+    /**
+     * Shuts down this registry and its {@code ScheduledExecutorService}. This
+     * is a shortcut for {@code shutdown(true)}.
+     */
+    public void shutdown()
+    {
+        shutdown(true);
+    }
+
+    /**
+     * Returns the {@code ScheduledExecutorService} used by this object.
+     *
+     * @return the associated {@code ScheduledExecutorService}
+     */
+    ScheduledExecutorService getExecutorService()
+    {
+        return executorService;
+    }
+
+    /**
+     * Returns the random delay added to the first check of a controller. This
+     * implementation returns a value in the range from 0 (inclusive) to the
+     * period (exclusive).
+     *
+     * @param period the period of the controller
+     * @return the additional delay of the first check
+     */
+    long computeJitter(final long period)
+    {
+        return ThreadLocalRandom.current().nextLong(period);
+    }
+
+    /**
+     * Returns the current time in nanoseconds. This is used to determine
+     * whether the quiet period of a controller has passed.
+     *
+     * @return the current time
+     */
+    long now()
+    {
+        return System.nanoTime();
+    }
+
+    /**
+     * Creates a default executor service. This method is called if no
+     * executor has been passed to the constructor.
+     *
+     * @return the default executor service
+     */
+    private static ScheduledExecutorService createDefaultExecutorService()
+    {
+        final ThreadFactory factory =
+                new BasicThreadFactory.Builder()
+                        .namingPattern("ReloadingTriggerRegistry-%s")
+                        .daemon(true).build();
+        return Executors.newScheduledThreadPool(1, factory);
+    }
+
+    /**
+     * The task which checks a single registered controller.
+     */
+    private class Trigger implements Runnable
+    {
+        /** The controller to be checked. */
+        private final ReloadingController controller;
+
+        /** The parameter passed to the controller. */
+        private final Object controllerParam;
+
+        /** The quiet period in nanoseconds. */
+        private final long quietNanos;
+
+        /** The time when the current quiet period ends. */
+        private long quietUntil;
+
+        /** A flag whether a quiet period is active. */
+        private boolean quiet;
+
+        /** The future of the scheduled task. */
+        private volatile ScheduledFuture<?> future;
+
+        /**
+         * Creates a new instance of {@code Trigger}.
+         *
+         * @param ctrl the controller
+         * @param ctrlParam the parameter for the controller
+         * @param quietPeriod the quiet period in nanoseconds
+         */
+        Trigger(final ReloadingController ctrl, final Object ctrlParam,
+                final long quietPeriod)
+        {
+            controller = ctrl;
+            controllerParam = ctrlParam;
+            quietNanos = quietPeriod;
+        }
+
+        /**
+         * Schedules this trigger at the executor service.
+         *
+         * @param initialDelay the delay of the first check
+         * @param period the period
+         * @param unit the time unit
+         */
+        void schedule(final long initialDelay, final long period,
+                final TimeUnit unit)
+        {
+            future = getExecutorService().scheduleWithFixedDelay(this,
+                    initialDelay, period, unit);
+        }
+
+        /**
+         * Cancels this trigger.
+         */
+        void cancel()
+        {
+            final ScheduledFuture<?> f = future;
+            if (f != null)
+            {
+                f.cancel(false);
+            }
+        }
+
+        /**
+         * Checks the controller unless a quiet period is active.
+         */
+        @Override
+        public void run()
+        {
+            try
+            {
+                check();
+            }
+            catch (final RuntimeException rex)
+            {
+                log.warn("Reloading check failed.", rex);
+            }
+        }
+
+        /**
+         * Performs the actual check of the controller. If it causes a reload,
+         * the quiet period is started.
+         */
+        private void check()
+        {
+            if (quiet)
+            {
+                if (now() - quietUntil < 0)
+                {
+                    return;
+                }
+                quiet = false;
+            }
+
+            final boolean pending = controller.isInReloadingState();
+            if (controller.checkForReloading(controllerParam) && !pending
+                    && quietNanos > 0)
+            {
+                quietUntil = now() + quietNanos;
+                quiet = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.reloading;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.configuration2.io.FileHandler;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * <p>
+ * A specialized implementation of {@code ReloadingDetector} which is notified
+ * about changes of the monitored file by a {@link FileWatcher}.
+ * </p>
+ * <p>
+ * In contrast to its base class, this detector does not access the file
+ * system when it is asked whether a reload is required. The file obtained
+ * from the associated {@code FileHandler} is registered at a
+ * {@code FileWatcher}, which records changes as they happen. So
+ * {@code isReloadingRequired()} is cheap and reports a change on the first
+ * call after it has happened; there is no refresh delay. Many detectors can
+ * share the same {@code FileWatcher}; per default, the watcher returned by
+ * {@link FileWatcher#getDefaultInstance()} is used.
+ * </p>
+ * <p>
+ * If the file cannot be registered at the watcher - for instance because its
+ * directory does not exist -, this detector falls back to the behavior of its
+ * base class: it compares
+ * the file's last modification date, taking the refresh delay into account.
+ * The registration is attempted again on the next check.
+ * </p>
+ * <p>
+ * When a detector is no longer needed, its {@link #close()} method should be
+ * called, so that the file is no longer monitored.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class WatchServiceReloadingDetector extends FileHandlerReloadingDetector
+{
+    /** The logger. */
+    private final Log log = LogFactory.getLog(getClass());
+
+    /** The watcher used by this detector. */
+    private final FileWatcher fileWatcher;
+
+    /** The current registration at the watcher. */
+    private FileWatcher.Registration registration;
+
+    /** The file for which the current registration was created. */
+    private File registeredFile;
+
+    /**
+     * Creates a new instance of {@code WatchServiceReloadingDetector} and
+     * initializes it with the {@code FileHandler} to monitor, the refresh
+     * delay for the fallback mode, and the {@code FileWatcher} to be used.
+     *
+     * @param handler the {@code FileHandler} associated with this detector
+     *        (can be <b>null</b>)
+     * @param refreshDelay the refresh delay used if the file cannot be
+     *        watched
+     * @param watcher the {@code FileWatcher} (can be <b>null</b>, then the
+     *        default instance is used)
+     */
+    public WatchServiceReloadingDetector(final FileHandler handler,
+            final long refreshDelay, final FileWatcher watcher)
+    {
+        super(handler, refreshDelay);
+        fileWatcher = (watcher != null) ? watcher : FileWatcher
+                .getDefaultInstance();
+    }
+
+    /**
+     * Creates a new instance of {@code WatchServiceReloadingDetector} and
+     * initializes it with the {@code FileHandler} to monitor and the
+     * {@code FileWatcher} to be used. The default refresh delay is used for
+     * the fallback mode.
+     *
+     * @param handler the {@code FileHandler} associated with this detector
+     *        (can be <b>null</b>)
+     * @param watcher the {@code FileWatcher} (can be <b>null</b>, then the
+     *        default instance is used)
+     */
+    public WatchServiceReloadingDetector(final FileHandler handler,
+            final FileWatcher watcher)
+    {
+        this(handler, DEFAULT_REFRESH_DELAY, watcher);
+    }
+
+    /**
+     * Creates a new instance of {@code WatchServiceReloadingDetector} and
+     * initializes it with the {@code FileHandler} to monitor. The default
+     * {@code FileWatcher} is used.
+     *
+     * @param handler the {@code FileHandler} associated with this detector
+     *        (can be <b>null</b>)
+     */
+    public WatchServiceReloadingDetector(final FileHandler handler)
+    {
+        this(handler, null);
+    }
+
+    /**
+     * Returns the {@code FileWatcher} used by this detector.
+     *
+     * @return the {@code FileWatcher}
+     */
+    public FileWatcher getFileWatcher()
+    {
+        return fileWatcher;
+    }
+
+    /**
+     * Returns a flag whether the monitored file is currently registered at
+     * the {@code FileWatcher}. If this method returns <b>false</b>, this
+     * detector operates in fallback mode.
+     *
+     * @return a flag whether the file is watched
+     */
+    public synchronized boolean isWatching()
+    {
+        return registration != null && registration.isValid();
+    }
+
+    /**
+     * {@inheritDoc} This implementation checks whether the
+     * {@code FileWatcher} has reported a change of the monitored file. If the
+     * file cannot be watched, the check of the base class is performed.
+     */
+    @Override
+    public synchronized boolean isReloadingRequired()
+    {
+        final FileWatcher.Registration reg = fetchRegistration();
+        if (reg == null)
+        {
+            return super.isReloadingRequired();
+        }
+        return reg.isChanged() && reg.getFile().exists();
+    }
+
+    /**
+     * {@inheritDoc} This implementation resets the change notification of
+     * the {@code FileWatcher}, so that the next change is detected.
+     */
+    @Override
+    public synchronized void reloadingPerformed()
+    {
+        final FileWatcher.Registration reg = fetchRegistration();
+        if (reg != null)
+        {
+            reg.reset();
+        }
+        super.reloadingPerformed();
+    }
+
+    /**
+     * {@inheritDoc} This implementation also registers the monitored file at
+     * the {@code FileWatcher}.
+     */
+    @Override
+    public synchronized void refresh()
+    {
+        fetchRegistration();
+        super.refresh();
+    }
+
+    /**
+     * Stops monitoring the file. This detector should no longer be used
+     * afterwards.
+     */
+    public synchronized void close()
+    {
+        cancelRegistration();
+    }
+
+    /**
+     * Returns the registration for the monitored file at the
+     * {@code FileWatcher}. The registration is created on demand; if the
+     * file of the {@code FileHandler} has changed, a new one is created.
+     * Result is <b>null</b> if the file cannot be watched.
+     *
+     * @return the current registration or <b>null</b>
+     */
+    private FileWatcher.Registration fetchRegistration()
+    {
+        final File file = getFile();
+        if (registration != null && registration.isValid()
+                && registeredFile.equals(file))
+        {
+            return registration;
+        }
+
+        cancelRegistration();
+        if (file != null)
+        {
+            try
+            {
+                registration = fileWatcher.register(file);
+                registeredFile = file;
+            }
+            catch (final IOException ioex)
+            {
+                log.debug("Cannot watch file " + file
+                        + "; falling back to polling.", ioex);
+            }
+        }
+        return registration;
+    }
+
+    /**
+     * Cancels the current registration at the {@code FileWatcher} if there
+     * is one.
+     */
+    private void cancelRegistration()
+    {
+        if (registration != null)
+        {
+            registration.cancel();
+            registration = null;
+            registeredFile = null;
+        }
+    }
+}
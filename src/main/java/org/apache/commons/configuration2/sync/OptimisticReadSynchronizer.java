@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.sync;
+
+/**
+ * <p>
+ * An extension of the {@code Synchronizer} interface for implementations
+ * supporting optimistic reads.
+ * </p>
+ * <p>
+ * An optimistic read does not acquire a lock. The reading thread obtains a
+ * stamp, performs its read operation, and then validates the stamp. If no
+ * write operation was started in the meantime, the validation succeeds, and
+ * the result of the read operation can be used. Otherwise, the read has to be
+ * repeated in the regular way, i.e. between calls of {@code beginRead()} and
+ * {@code endRead()}. Because the data read optimistically may be inconsistent,
+ * this mode is only suitable for read operations which do not have any side
+ * effects. Configurations decide on their own whether they make use of this
+ * feature.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public interface OptimisticReadSynchronizer extends Synchronizer
+{
+    /**
+     * Returns a stamp for an optimistic read operation. A return value of 0
+     * means that an optimistic read is not possible currently (e.g. because a
+     * write operation is in progress); then the caller has to use the regular
+     * read methods.
+     *
+     * @return the stamp for an optimistic read or 0
+     */
+    long tryOptimisticRead();
+
+    /**
+     * Checks whether no write operation has been started since the given stamp
+     * was obtained. If this method returns <b>true</b>, the results of an
+     * optimistic read operation can be used.
+     *
+     * @param stamp the stamp obtained from {@link #tryOptimisticRead()}
+     * @return a flag whether the optimistic read was successful
+     */
+    boolean validate(long stamp);
+}
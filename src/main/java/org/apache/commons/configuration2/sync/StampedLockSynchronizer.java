@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.sync;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * <p>
+ * A special implementation of {@code Synchronizer} based on the JDK's
+ * {@code StampedLock} class.
+ * </p>
+ * <p>
+ * This class supports optimistic reads as defined by the
+ * {@link OptimisticReadSynchronizer} interface. Configurations supporting this
+ * mode first try to read their data without acquiring a lock; a read lock is
+ * only obtained if a write operation happened concurrently. So in the typical
+ * case of a configuration which is read frequently, but updated rarely,
+ * readers do not write to any shared memory and therefore scale much better
+ * with the number of threads than with a {@link ReadWriteSynchronizer}.
+ * </p>
+ * <p>
+ * The regular read and write operations are delegated to the read and write
+ * lock of the underlying {@code StampedLock}. Other than
+ * {@code StampedLock}, this class is reentrant like
+ * {@code ReadWriteSynchronizer}: a thread holding the write lock can start
+ * further read or write operations, and read operations can be nested. As
+ * usual for read-write locks, a thread holding only a read lock must not start
+ * a write operation.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class StampedLockSynchronizer implements OptimisticReadSynchronizer
+{
+    /** The underlying lock. */
+    private final StampedLock lock;
+
+    /** Stores the read holds of the current thread. */
+    private final ThreadLocal<ReadHolds> readHolds;
+
+    /** The thread currently owning the write lock. */
+    private volatile Thread writeOwner;
+
+    /** The stamp of the current write lock; accessed by the owner only. */
+    private long writeStamp;
+
+    /** The number of write holds of the owner thread. */
+    private int writeHolds;
+
+    /**
+     * Creates a new instance of {@code StampedLockSynchronizer}.
+     */
+    public StampedLockSynchronizer()
+    {
+        lock = new StampedLock();
+        readHolds = new ThreadLocal<ReadHolds>()
+        {
+            @Override
+            protected ReadHolds initialValue()
+            {
+                return new ReadHolds();
+            }
+        };
+    }
+
+    @Override
+    public void beginRead()
+    {
+        final ReadHolds holds = readHolds.get();
+        if (holds.count == 0 && !isWriteLockedByCurrentThread())
+        {
+            holds.stamp = lock.readLock();
+        }
+        holds.count++;
+    }
+
+    @Override
+    public void endRead()
+    {
+        final ReadHolds holds = readHolds.get();
+        if (holds.count <= 0)
+        {
+            throw new IllegalMonitorStateException(
+                    "Current thread does not hold a read lock!");
+        }
+        if (--holds.count == 0 && holds.stamp != 0)
+        {
+            final long stamp = holds.stamp;
+            holds.stamp = 0;
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void beginWrite()
+    {
+        if (isWriteLockedByCurrentThread())
+        {
+            writeHolds++;
+        }
+        else
+        {
+            final long stamp = lock.writeLock();
+            writeOwner = Thread.currentThread();
+            writeStamp = stamp;
+            writeHolds = 1;
+        }
+    }
+
+    @Override
+    public void endWrite()
+    {
+        if (!isWriteLockedByCurrentThread())
+        {
+            throw new IllegalMonitorStateException(
+                    "Current thread does not hold the write lock!");
+        }
+        if (--writeHolds == 0)
+        {
+            final long stamp = writeStamp;
+            writeOwner = null;
+            writeStamp = 0;
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * {@inheritDoc} This implementation delegates to the underlying
+     * {@code StampedLock}. It returns 0 if the lock is currently held in write
+     * mode, including the case that the calling thread owns it.
+     */
+    @Override
+    public long tryOptimisticRead()
+    {
+        return lock.tryOptimisticRead();
+    }
+
+    @Override
+    public boolean validate(final long stamp)
+    {
+        return lock.validate(stamp);
+    }
+
+    /**
+     * Returns a flag whether the current thread holds the write lock.
+     *
+     * @return a flag whether the write lock is owned by the current thread
+     */
+    private boolean isWriteLockedByCurrentThread()
+    {
+        return writeOwner == Thread.currentThread();
+    }
+
+    /**
+     * A helper class storing the read holds of a thread.
+     */
+    private static class ReadHolds
+    {
+        /** The number of nested read operations. */
+        private int count;
+
+        /** The stamp of the read lock; 0 if no lock was acquired. */
+        private long stamp;
+    }
+}
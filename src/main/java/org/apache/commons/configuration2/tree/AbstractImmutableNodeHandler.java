@@ -66,12 +66,19 @@ abstract class AbstractImmutableNodeHandler implements
 
     /**
      * {@inheritDoc} This implementation returns an immutable list with all
-     * child nodes accepted by the specified matcher.
+     * child nodes accepted by the specified matcher. If the matcher selects
+     * children by their exact names, the index of child nodes maintained by
+     * {@link ImmutableNode} is used; otherwise, all children are checked.
      */
     @Override
     public <C> List<ImmutableNode> getMatchingChildren(final ImmutableNode node,
             final NodeMatcher<C> matcher, final C criterion)
     {
+        if (matcher == NodeNameMatchers.EQUALS && criterion != null)
+        {
+            return node.getNamedChildren((String) criterion);
+        }
+
         final List<ImmutableNode> result =
                 new ArrayList<>(node.getChildren().size());
         for (final ImmutableNode c : node.getChildren())
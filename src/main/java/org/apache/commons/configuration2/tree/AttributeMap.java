@@ -0,0 +1,614 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <p>
+ * An internally used immutable map for storing the attributes of an
+ * {@link ImmutableNode}.
+ * </p>
+ * <p>
+ * Most nodes of a typical configuration do not have attributes at all or only
+ * a few of them. Therefore, this class uses different representations
+ * depending on the number of attributes: There is a shared instance for the
+ * empty map, a special implementation for a single attribute, and a compact
+ * array of names and values for a small number of attributes. Only if the
+ * number of attributes exceeds {@link #MAX_ARRAY_SIZE}, a
+ * {@link PersistentHashMap} is used.
+ * </p>
+ * <p>
+ * Update methods return a new map and leave the original map unchanged. As
+ * long as the array representation is used, they copy the (small) array. The
+ * hash representation shares all parts of its structure not affected by an
+ * update; so changing a single attribute has logarithmic costs. The small
+ * representations keep the order in which attributes have been added. Both
+ * attribute names and values may be <b>null</b>.
+ * </p>
+ * <p>
+ * The map cannot be modified via the methods of the {@code Map} interface;
+ * they throw an {@code UnsupportedOperationException}.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+abstract class AttributeMap extends AbstractMap<String, Object>
+{
+    /** The maximum number of attributes stored in an array. */
+    static final int MAX_ARRAY_SIZE = 8;
+
+    /** A placeholder for <b>null</b> names or values in a hash map. */
+    private static final Object NULL = new Object();
+
+    /** The empty map. */
+    private static final AttributeMap EMPTY = new EmptyAttributes();
+
+    /**
+     * Returns an empty {@code AttributeMap}.
+     *
+     * @return the empty map
+     */
+    public static AttributeMap empty()
+    {
+        return EMPTY;
+    }
+
+    /**
+     * Returns an {@code AttributeMap} with the content of the given map. If
+     * the map is already an {@code AttributeMap}, it is returned directly.
+     *
+     * @param map the map to be copied (may be <b>null</b>)
+     * @return the {@code AttributeMap} with the same content
+     */
+    public static AttributeMap copyOf(final Map<String, ?> map)
+    {
+        if (map instanceof AttributeMap)
+        {
+            return (AttributeMap) map;
+        }
+        return (map != null) ? EMPTY.withAll(map) : EMPTY;
+    }
+
+    /**
+     * Returns a map which contains all attributes of this map plus the given
+     * one. An existing value of this attribute is replaced. If the attribute
+     * already has this value, the same map is returned.
+     *
+     * @param name the name of the attribute
+     * @param value the value of the attribute
+     * @return the updated map
+     */
+    public abstract AttributeMap with(String name, Object value);
+
+    /**
+     * Returns a map which contains all attributes of this map except for the
+     * one with the given name. If this attribute does not exist, the same map
+     * is returned.
+     *
+     * @param name the name of the attribute to be removed
+     * @return the updated map
+     */
+    public abstract AttributeMap without(Object name);
+
+    /**
+     * Returns a map which contains all attributes of this map plus the ones
+     * of the given map. Existing values of attributes are replaced.
+     *
+     * @param map the map with attributes to be added
+     * @return the updated map
+     */
+    public AttributeMap withAll(final Map<String, ?> map)
+    {
+        if (map.isEmpty())
+        {
+            return this;
+        }
+        if (isEmpty() && map instanceof AttributeMap)
+        {
+            return (AttributeMap) map;
+        }
+
+        if (size() + map.size() <= MAX_ARRAY_SIZE)
+        {
+            AttributeMap result = this;
+            for (final Map.Entry<String, ?> e : map.entrySet())
+            {
+                result = result.with(e.getKey(), e.getValue());
+            }
+            return result;
+        }
+
+        final PersistentHashMap.Editor<Object, Object> editor =
+                toHashMap().edit();
+        for (final Map.Entry<String, ?> e : map.entrySet())
+        {
+            editor.put(mask(e.getKey()), mask(e.getValue()));
+        }
+        return fromHashMap(editor.create());
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet()
+    {
+        return new AbstractSet<Map.Entry<String, Object>>()
+        {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator()
+            {
+                return entryIterator();
+            }
+
+            @Override
+            public int size()
+            {
+                return AttributeMap.this.size();
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator over the entries of this map. The iterator does not
+     * support removal.
+     *
+     * @return the iterator
+     */
+    abstract Iterator<Map.Entry<String, Object>> entryIterator();
+
+    /**
+     * Returns a {@code PersistentHashMap} with the content of this map.
+     * Names and values are masked.
+     *
+     * @return the hash map with the content of this map
+     */
+    abstract PersistentHashMap<Object, Object> toHashMap();
+
+    /**
+     * Replaces a <b>null</b> name or value by a placeholder, so that it can be
+     * stored in a {@code PersistentHashMap}.
+     *
+     * @param obj the object
+     * @return the masked object
+     */
+    private static Object mask(final Object obj)
+    {
+        return (obj != null) ? obj : NULL;
+    }
+
+    /**
+     * Reverts the masking of a name or value.
+     *
+     * @param obj the masked object
+     * @return the original object
+     */
+    private static Object unmask(final Object obj)
+    {
+        return (obj != NULL) ? obj : null;
+    }
+
+    /**
+     * Creates an {@code AttributeMap} for the content of the given hash map
+     * choosing the most compact representation.
+     *
+     * @param map the hash map
+     * @return the {@code AttributeMap}
+     */
+    private static AttributeMap fromHashMap(
+            final PersistentHashMap<Object, Object> map)
+    {
+        if (map.size() > MAX_ARRAY_SIZE)
+        {
+            return new HashAttributes(map);
+        }
+        if (map.isEmpty())
+        {
+            return EMPTY;
+        }
+
+        final Object[] array = new Object[2 * map.size()];
+        int idx = 0;
+        for (final Iterator<Map.Entry<Object, Object>> it = map.iterator(); it
+                .hasNext();)
+        {
+            final Map.Entry<Object, Object> e = it.next();
+            array[idx++] = unmask(e.getKey());
+            array[idx++] = unmask(e.getValue());
+        }
+        return fromArray(array);
+    }
+
+    /**
+     * Creates an {@code AttributeMap} for the given array of names and values
+     * choosing the most compact representation. The array is not copied.
+     *
+     * @param array the array
+     * @return the {@code AttributeMap}
+     */
+    private static AttributeMap fromArray(final Object[] array)
+    {
+        switch (array.length)
+        {
+        case 0:
+            return EMPTY;
+        case 2:
+            return new SingletonAttributes((String) array[0], array[1]);
+        default:
+            return new ArrayAttributes(array);
+        }
+    }
+
+    /**
+     * The implementation of the empty map.
+     */
+    private static final class EmptyAttributes extends AttributeMap
+    {
+        @Override
+        public AttributeMap with(final String name, final Object value)
+        {
+            return new SingletonAttributes(name, value);
+        }
+
+        @Override
+        public AttributeMap without(final Object name)
+        {
+            return this;
+        }
+
+        @Override
+        public Object get(final Object key)
+        {
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(final Object key)
+        {
+            return false;
+        }
+
+        @Override
+        public int size()
+        {
+            return 0;
+        }
+
+        @Override
+        Iterator<Map.Entry<String, Object>> entryIterator()
+        {
+            return Collections.emptyIterator();
+        }
+
+        @Override
+        PersistentHashMap<Object, Object> toHashMap()
+        {
+            return PersistentHashMap.empty();
+        }
+    }
+
+    /**
+     * The implementation of a map with a single attribute.
+     */
+    private static final class SingletonAttributes extends AttributeMap
+    {
+        /** The name of the attribute. */
+        private final String name;
+
+        /** The value of the attribute. */
+        private final Object value;
+
+        /**
+         * Creates a new instance of {@code SingletonAttributes}.
+         *
+         * @param name the name
+         * @param value the value
+         */
+        SingletonAttributes(final String name, final Object value)
+        {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public AttributeMap with(final String n, final Object v)
+        {
+            if (Objects.equals(name, n))
+            {
+                return (value == v) ? this : new SingletonAttributes(n, v);
+            }
+            return new ArrayAttributes(new Object[] {
+                    name, value, n, v
+            });
+        }
+
+        @Override
+        public AttributeMap without(final Object n)
+        {
+            return Objects.equals(name, n) ? EMPTY : this;
+        }
+
+        @Override
+        public Object get(final Object key)
+        {
+            return Objects.equals(name, key) ? value : null;
+        }
+
+        @Override
+        public boolean containsKey(final Object key)
+        {
+            return Objects.equals(name, key);
+        }
+
+        @Override
+        public int size()
+        {
+            return 1;
+        }
+
+        @Override
+        Iterator<Map.Entry<String, Object>> entryIterator()
+        {
+            return Collections.<Map.Entry<String, Object>> singleton(
+                    new AbstractMap.SimpleImmutableEntry<>(name, value))
+                    .iterator();
+        }
+
+        @Override
+        PersistentHashMap<Object, Object> toHashMap()
+        {
+            return PersistentHashMap.empty().put(mask(name), mask(value));
+        }
+    }
+
+    /**
+     * The implementation storing a small number of attributes in an array.
+     * The array contains alternating names and values.
+     */
+    private static final class ArrayAttributes extends AttributeMap
+    {
+        /** The array with names and values. */
+        private final Object[] array;
+
+        /**
+         * Creates a new instance of {@code ArrayAttributes}.
+         *
+         * @param array the array with names and values
+         */
+        ArrayAttributes(final Object[] array)
+        {
+            this.array = array;
+        }
+
+        @Override
+        public AttributeMap with(final String name, final Object value)
+        {
+            final int idx = indexOf(name);
+            if (idx >= 0)
+            {
+                if (array[idx + 1] == value)
+                {
+                    return this;
+                }
+                final Object[] newArray = array.clone();
+                newArray[idx + 1] = value;
+                return new ArrayAttributes(newArray);
+            }
+
+            if (size() < MAX_ARRAY_SIZE)
+            {
+                final Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, array.length);
+                newArray[array.length] = name;
+                newArray[array.length + 1] = value;
+                return new ArrayAttributes(newArray);
+            }
+            final PersistentHashMap.Editor<Object, Object> editor =
+                    toHashMap().edit();
+            editor.put(mask(name), mask(value));
+            return new HashAttributes(editor.create());
+        }
+
+        @Override
+        public AttributeMap without(final Object name)
+        {
+            final int idx = indexOf(name);
+            if (idx < 0)
+            {
+                return this;
+            }
+            final Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, idx);
+            System.arraycopy(array, idx + 2, newArray, idx, newArray.length
+                    - idx);
+            return fromArray(newArray);
+        }
+
+        @Override
+        public Object get(final Object key)
+        {
+            final int idx = indexOf(key);
+            return (idx >= 0) ? array[idx + 1] : null;
+        }
+
+        @Override
+        public boolean containsKey(final Object key)
+        {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public int size()
+        {
+            return array.length / 2;
+        }
+
+        @Override
+        Iterator<Map.Entry<String, Object>> entryIterator()
+        {
+            return new Iterator<Map.Entry<String, Object>>()
+            {
+                /** The current position in the array. */
+                private int position;
+
+                @Override
+                public boolean hasNext()
+                {
+                    return position < array.length;
+                }
+
+                @Override
+                public Map.Entry<String, Object> next()
+                {
+                    if (!hasNext())
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    final Map.Entry<String, Object> entry =
+                            new AbstractMap.SimpleImmutableEntry<>(
+                                    (String) array[position],
+                                    array[position + 1]);
+                    position += 2;
+                    return entry;
+                }
+            };
+        }
+
+        @Override
+        PersistentHashMap<Object, Object> toHashMap()
+        {
+            final PersistentHashMap.Editor<Object, Object> editor =
+                    PersistentHashMap.empty().edit();
+            for (int i = 0; i < array.length; i += 2)
+            {
+                editor.put(mask(array[i]), mask(array[i + 1]));
+            }
+            return editor.create();
+        }
+
+        /**
+         * Returns the index of the attribute with the given name in the array
+         * or -1 if it cannot be found.
+         *
+         * @param name the name of the attribute
+         * @return the index of this attribute
+         */
+        private int indexOf(final Object name)
+        {
+            for (int i = 0; i < array.length; i += 2)
+            {
+                if (Objects.equals(array[i], name))
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * The implementation for a larger number of attributes based on a
+     * {@code PersistentHashMap}.
+     */
+    private static final class HashAttributes extends AttributeMap
+    {
+        /** The underlying hash map. */
+        private final PersistentHashMap<Object, Object> map;
+
+        /**
+         * Creates a new instance of {@code HashAttributes}.
+         *
+         * @param map the hash map
+         */
+        HashAttributes(final PersistentHashMap<Object, Object> map)
+        {
+            this.map = map;
+        }
+
+        @Override
+        public AttributeMap with(final String name, final Object value)
+        {
+            final PersistentHashMap<Object, Object> newMap =
+                    map.put(mask(name), mask(value));
+            return (newMap == map) ? this : new HashAttributes(newMap);
+        }
+
+        @Override
+        public AttributeMap without(final Object name)
+        {
+            final PersistentHashMap<Object, Object> newMap =
+                    map.remove(mask(name));
+            if (newMap == map)
+            {
+                return this;
+            }
+            return fromHashMap(newMap);
+        }
+
+        @Override
+        public Object get(final Object key)
+        {
+            return unmask(map.get(mask(key)));
+        }
+
+        @Override
+        public boolean containsKey(final Object key)
+        {
+            return map.get(mask(key)) != null;
+        }
+
+        @Override
+        public int size()
+        {
+            return map.size();
+        }
+
+        @Override
+        Iterator<Map.Entry<String, Object>> entryIterator()
+        {
+            final Iterator<Map.Entry<Object, Object>> it = map.iterator();
+            return new Iterator<Map.Entry<String, Object>>()
+            {
+                @Override
+                public boolean hasNext()
+                {
+                    return it.hasNext();
+                }
+
+                @Override
+                public Map.Entry<String, Object> next()
+                {
+                    final Map.Entry<Object, Object> e = it.next();
+                    return new AbstractMap.SimpleImmutableEntry<>(
+                            (String) unmask(e.getKey()), unmask(e.getValue()));
+                }
+            };
+        }
+
+        @Override
+        PersistentHashMap<Object, Object> toHashMap()
+        {
+            return map;
+        }
+    }
+}
@@ -0,0 +1,809 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * An internally used helper class for executing a {@link BatchUpdate} on an
+ * {@link InMemoryNodeModel}.
+ * </p>
+ * <p>
+ * The operations of a batch are added to a single {@link ModelTransaction} as
+ * far as possible. However, the keys of the operations are resolved against
+ * the node structure the transaction is based on; changes made by earlier
+ * operations in the same transaction are not yet visible. To obtain the same
+ * result as if all operations were executed one after the other, this class
+ * keeps track of the parts of the node structure which are changed by the
+ * current transaction. Keys are resolved using a special
+ * {@code NodeHandler} which records the nodes, children, and attributes
+ * accessed. If an operation depends on something changed by an earlier
+ * operation (for instance, it adds a property to a node which has just been
+ * created), the current transaction is executed, and a new one is started on
+ * its result. The resulting {@link TreeData} object is then published by the
+ * calling model at once.
+ * </p>
+ * <p>
+ * Operations which may cause nodes to be removed (e.g. clearing a property)
+ * are treated in a conservative way: Because the removal of a node can cause
+ * its parent to become undefined, they mark the whole path to the root node as
+ * changed.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+class BatchTransaction
+{
+    /** The node model to be updated. */
+    private final InMemoryNodeModel model;
+
+    /** The selector for the root node of the update. */
+    private final NodeSelector selector;
+
+    /** The {@code NodeKeyResolver}. */
+    private final NodeKeyResolver<ImmutableNode> resolver;
+
+    /** Stores the changes performed by the current transaction. */
+    private final Map<ImmutableNode, NodeChanges> changes;
+
+    /**
+     * Stores the nodes which are going to be replaced by the current
+     * transaction. These are the nodes with changes and all their ancestors.
+     */
+    private final Set<ImmutableNode> dirtyNodes;
+
+    /** The data the current transaction is based on. */
+    private TreeData currentData;
+
+    /** The current transaction. */
+    private ModelTransaction transaction;
+
+    /** The handler for resolving keys of the current operation. */
+    private NodeHandler<ImmutableNode> queryHandler;
+
+    /** A flag whether the current transaction contains operations. */
+    private boolean pending;
+
+    /** A flag whether the data of the model has been changed. */
+    private boolean modified;
+
+    /** A flag whether the current operation depends on pending changes. */
+    private boolean conflict;
+
+    /**
+     * Creates a new instance of {@code BatchTransaction}.
+     *
+     * @param model the model to be updated
+     * @param treeData the current data of the model
+     * @param selector an optional {@code NodeSelector} defining the root node
+     *        of the update
+     * @param resolver the {@code NodeKeyResolver}
+     */
+    public BatchTransaction(final InMemoryNodeModel model,
+            final TreeData treeData, final NodeSelector selector,
+            final NodeKeyResolver<ImmutableNode> resolver)
+    {
+        this.model = model;
+        this.selector = selector;
+        this.resolver = resolver;
+        currentData = treeData;
+        changes = new HashMap<>();
+        dirtyNodes = new HashSet<>();
+    }
+
+    /**
+     * Executes all operations of the given batch. Result is the new data of
+     * the model or <b>null</b> if the batch did not cause any changes.
+     *
+     * @param batch the batch to be executed
+     * @return the new {@code TreeData} object or <b>null</b>
+     */
+    public TreeData execute(final BatchUpdate batch)
+    {
+        for (final BatchUpdate.Operation op : batch.getOperations())
+        {
+            switch (op.getType())
+            {
+            case ADD_PROPERTY:
+                addProperty(op.getKey(), op.getValues());
+                break;
+            case ADD_NODES:
+                addNodes(op.getKey(), op.getNodes());
+                break;
+            case SET_PROPERTY:
+                setProperty(op.getKey(), op.getValue());
+                break;
+            case CLEAR_PROPERTY:
+                clearProperty(op.getKey());
+                break;
+            default:
+                clearTree(op.getKey());
+                break;
+            }
+        }
+
+        flush();
+        return modified ? currentData : null;
+    }
+
+    /**
+     * Handles an operation which adds property values.
+     *
+     * @param key the key
+     * @param values the values to be added
+     */
+    private void addProperty(final String key, final Iterable<?> values)
+    {
+        if (!values.iterator().hasNext())
+        {
+            return;
+        }
+
+        NodeAddData<ImmutableNode> addData;
+        do
+        {
+            startOperation();
+            addData = resolver.resolveAddKey(getQueryRoot(), key, queryHandler);
+        } while (!canApply());
+
+        addValues(addData, values);
+    }
+
+    /**
+     * Handles an operation which adds nodes.
+     *
+     * @param key the key
+     * @param nodes the nodes to be added
+     */
+    private void addNodes(final String key,
+            final Collection<? extends ImmutableNode> nodes)
+    {
+        if (nodes == null || nodes.isEmpty())
+        {
+            return;
+        }
+
+        List<QueryResult<ImmutableNode>> results;
+        NodeAddData<ImmutableNode> addData;
+        do
+        {
+            startOperation();
+            results = resolver.resolveKey(getQueryRoot(), key, queryHandler);
+            addData = (results.size() == 1) ? null : resolver.resolveAddKey(
+                    getQueryRoot(), key, queryHandler);
+        } while (!canApply());
+
+        if (addData == null)
+        {
+            final QueryResult<ImmutableNode> result = results.get(0);
+            if (result.isAttributeResult())
+            {
+                throw InMemoryNodeModel.attributeKeyException(key);
+            }
+            transaction.addAddNodesOperation(result.getNode(), nodes);
+            for (final ImmutableNode node : nodes)
+            {
+                fetchChanges(result.getNode()).childChanged(node.getNodeName());
+            }
+        }
+        else
+        {
+            if (addData.isAttribute())
+            {
+                throw InMemoryNodeModel.attributeKeyException(key);
+            }
+            final ImmutableNode newNode =
+                    new ImmutableNode.Builder(nodes.size())
+                            .name(addData.getNewNodeName()).addChildren(nodes)
+                            .create();
+            InMemoryNodeModel.addNodesByAddData(transaction, addData,
+                    Collections.singleton(newNode));
+            recordAdd(addData);
+        }
+        pending = true;
+    }
+
+    /**
+     * Handles an operation which sets the value of a property.
+     *
+     * @param key the key
+     * @param value the new value
+     */
+    private void setProperty(final String key, final Object value)
+    {
+        NodeUpdateData<ImmutableNode> updateData;
+        NodeAddData<ImmutableNode> addData;
+        do
+        {
+            startOperation();
+            updateData = resolver.resolveUpdateKey(getQueryRoot(), key, value,
+                    queryHandler);
+            addData = updateData.getNewValues().isEmpty() ? null : resolver
+                    .resolveAddKey(getQueryRoot(), key, queryHandler);
+        } while (!canApply());
+
+        if (addData != null)
+        {
+            addValues(addData, updateData.getNewValues());
+        }
+        clearResults(updateData.getRemovedNodes());
+
+        if (InMemoryNodeModel.initializeUpdateTransaction(transaction,
+                updateData.getChangedValues()))
+        {
+            for (final Map.Entry<QueryResult<ImmutableNode>, Object> e : updateData
+                    .getChangedValues().entrySet())
+            {
+                if (e.getValue() == null)
+                {
+                    recordRemoval(e.getKey().getNode());
+                }
+                else if (e.getKey().isAttributeResult())
+                {
+                    fetchChanges(e.getKey().getNode()).attributeChanged(
+                            e.getKey().getAttributeName());
+                }
+                else
+                {
+                    fetchChanges(e.getKey().getNode()).valueChanged();
+                }
+            }
+            pending = true;
+        }
+    }
+
+    /**
+     * Handles an operation which removes the values of a property.
+     *
+     * @param key the key
+     */
+    private void clearProperty(final String key)
+    {
+        List<QueryResult<ImmutableNode>> results;
+        do
+        {
+            startOperation();
+            results = resolver.resolveKey(getQueryRoot(), key, queryHandler);
+        } while (!canApply());
+
+        clearResults(results);
+    }
+
+    /**
+     * Handles an operation which removes sub trees. If the root node of the
+     * model is affected, the whole model is cleared.
+     *
+     * @param key the key
+     */
+    private void clearTree(final String key)
+    {
+        List<QueryResult<ImmutableNode>> results;
+        do
+        {
+            startOperation();
+            results = resolver.resolveKey(getQueryRoot(), key, queryHandler);
+            checkRemovals(results);
+        } while (!canApply());
+
+        for (final QueryResult<ImmutableNode> result : results)
+        {
+            if (!result.isAttributeResult()
+                    && result.getNode() == currentData.getRootNode())
+            {
+                clearModel();
+                return;
+            }
+        }
+
+        for (final QueryResult<ImmutableNode> result : results)
+        {
+            if (result.isAttributeResult())
+            {
+                transaction.addRemoveAttributeOperation(result.getNode(),
+                        result.getAttributeName());
+            }
+            else
+            {
+                transaction.addRemoveNodeOperation(
+                        currentData.getParent(result.getNode()),
+                        result.getNode());
+            }
+            recordRemoval(result.getNode());
+            pending = true;
+        }
+    }
+
+    /**
+     * Adds the operations for adding new values described by the given
+     * {@code NodeAddData} object to the current transaction.
+     *
+     * @param addData the {@code NodeAddData}
+     * @param values the values to be added
+     */
+    private void addValues(final NodeAddData<ImmutableNode> addData,
+            final Iterable<?> values)
+    {
+        if (addData.isAttribute())
+        {
+            InMemoryNodeModel.addAttributeProperty(transaction, addData, values);
+        }
+        else
+        {
+            InMemoryNodeModel.addNodeProperty(transaction, addData, values);
+        }
+        recordAdd(addData);
+        pending = true;
+    }
+
+    /**
+     * Adds operations for clearing the given query results to the current
+     * transaction.
+     *
+     * @param results the results to be cleared
+     */
+    private void clearResults(
+            final Collection<QueryResult<ImmutableNode>> results)
+    {
+        if (InMemoryNodeModel.initializeClearTransaction(transaction, results))
+        {
+            for (final QueryResult<ImmutableNode> result : results)
+            {
+                recordRemoval(result.getNode());
+            }
+            pending = true;
+        }
+    }
+
+    /**
+     * Replaces the root node of the model by an empty node. All changes
+     * pending so far become irrelevant.
+     */
+    private void clearModel()
+    {
+        final ImmutableNode newRoot =
+                new ImmutableNode.Builder().name(
+                        currentData.getRootNode().getNodeName()).create();
+        currentData = model.createTreeData(newRoot, currentData);
+        transaction = null;
+        changes.clear();
+        dirtyNodes.clear();
+        pending = false;
+        modified = true;
+    }
+
+    /**
+     * Prepares the execution of a new operation. If necessary, a new
+     * transaction is created. A new handler for recording accesses to nodes
+     * is created for each operation, so that {@code NodeKeyResolver}
+     * implementations cannot reuse results obtained for a previous operation.
+     */
+    private void startOperation()
+    {
+        if (transaction == null)
+        {
+            transaction = new ModelTransaction(currentData, selector, resolver);
+        }
+        queryHandler = new RecordingNodeHandler();
+        conflict = false;
+    }
+
+    /**
+     * Checks whether the operation whose keys have just been resolved can be
+     * added to the current transaction. If it depends on pending changes, the
+     * transaction is executed, and <b>false</b> is returned; the operation
+     * then has to be resolved again on the updated structure.
+     *
+     * @return a flag whether the current operation can be applied
+     */
+    private boolean canApply()
+    {
+        if (conflict)
+        {
+            flush();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Executes the current transaction if it contains pending changes.
+     */
+    private void flush()
+    {
+        if (pending)
+        {
+            currentData = transaction.execute();
+            modified = true;
+            pending = false;
+            changes.clear();
+            dirtyNodes.clear();
+        }
+        transaction = null;
+    }
+
+    /**
+     * Returns the root node for resolving keys.
+     *
+     * @return the query root node
+     */
+    private ImmutableNode getQueryRoot()
+    {
+        return transaction.getQueryRoot();
+    }
+
+    /**
+     * Records the changes caused by an add operation.
+     *
+     * @param addData the {@code NodeAddData} describing the operation
+     */
+    private void recordAdd(final NodeAddData<ImmutableNode> addData)
+    {
+        final NodeChanges parentChanges = fetchChanges(addData.getParent());
+        if (!addData.getPathNodes().isEmpty())
+        {
+            parentChanges.childChanged(addData.getPathNodes().get(0));
+        }
+        else if (addData.isAttribute())
+        {
+            parentChanges.attributeChanged(addData.getNewNodeName());
+        }
+        else
+        {
+            parentChanges.childChanged(addData.getNewNodeName());
+        }
+    }
+
+    /**
+     * Records the changes caused by an operation which might remove the given
+     * node. The node itself is considered to be changed completely. As the
+     * removal can propagate to the parent nodes, the children on the whole
+     * path to the root node are marked as changed.
+     *
+     * @param node the affected node
+     */
+    private void recordRemoval(final ImmutableNode node)
+    {
+        fetchChanges(node).allChanged();
+        ImmutableNode current = node;
+        ImmutableNode parent = currentData.getParent(current);
+        while (parent != null)
+        {
+            fetchChanges(parent).childChanged(current.getNodeName());
+            current = parent;
+            parent = currentData.getParent(current);
+        }
+    }
+
+    /**
+     * Returns the object storing the changes of the given node, creating it
+     * on demand.
+     *
+     * @param node the node
+     * @return the changes of this node
+     */
+    private NodeChanges fetchChanges(final ImmutableNode node)
+    {
+        NodeChanges nodeChanges = changes.get(node);
+        if (nodeChanges == null)
+        {
+            nodeChanges = new NodeChanges();
+            changes.put(node, nodeChanges);
+            markDirty(node);
+        }
+        return nodeChanges;
+    }
+
+    /**
+     * Marks the given node and all its ancestors as dirty.
+     *
+     * @param node the node
+     */
+    private void markDirty(final ImmutableNode node)
+    {
+        ImmutableNode current = node;
+        while (current != null && dirtyNodes.add(current))
+        {
+            current = currentData.getParent(current);
+        }
+    }
+
+    /**
+     * Checks whether nodes to be removed are affected by pending changes. A
+     * {@code ModelTransaction} cannot remove a node which it also replaces
+     * because of a change in its sub tree; so in this case the current
+     * transaction has to be executed first.
+     *
+     * @param results the results to be removed
+     */
+    private void checkRemovals(final List<QueryResult<ImmutableNode>> results)
+    {
+        for (final QueryResult<ImmutableNode> result : results)
+        {
+            if (!result.isAttributeResult()
+                    && dirtyNodes.contains(result.getNode()))
+            {
+                conflict = true;
+            }
+        }
+    }
+
+    /**
+     * Checks whether an access to the given node conflicts with pending
+     * changes.
+     *
+     * @param node the node accessed
+     * @param type the type of the access
+     * @param name the name of the child or attribute accessed; <b>null</b>
+     *        for all of them
+     */
+    private void checkAccess(final ImmutableNode node, final AccessType type,
+            final String name)
+    {
+        if (!changes.isEmpty())
+        {
+            final NodeChanges nodeChanges = changes.get(node);
+            if (nodeChanges != null && nodeChanges.isAffected(type, name))
+            {
+                conflict = true;
+            }
+        }
+    }
+
+    /**
+     * An enumeration for the different parts of a node which can be accessed
+     * or changed.
+     */
+    private enum AccessType
+    {
+        /** The children of a node. */
+        CHILDREN,
+
+        /** The attributes of a node. */
+        ATTRIBUTES,
+
+        /** The value of a node. */
+        VALUE
+    }
+
+    /**
+     * A class storing the changes of a single node in the current
+     * transaction.
+     */
+    private static class NodeChanges
+    {
+        /** The names of the affected children. */
+        private final Set<String> children = new HashSet<>();
+
+        /** The names of the affected attributes. */
+        private final Set<String> attributes = new HashSet<>();
+
+        /** A flag whether the value has been changed. */
+        private boolean value;
+
+        /** A flag whether the node has been changed completely. */
+        private boolean all;
+
+        /**
+         * Records a change of the children with the given name.
+         *
+         * @param name the name of the children
+         */
+        public void childChanged(final String name)
+        {
+            children.add(name);
+        }
+
+        /**
+         * Records a change of the given attribute.
+         *
+         * @param name the name of the attribute
+         */
+        public void attributeChanged(final String name)
+        {
+            attributes.add(name);
+        }
+
+        /**
+         * Records a change of the value.
+         */
+        public void valueChanged()
+        {
+            value = true;
+        }
+
+        /**
+         * Records that every part of the node may have been changed.
+         */
+        public void allChanged()
+        {
+            all = true;
+        }
+
+        /**
+         * Checks whether an access to this node is affected by the changes.
+         *
+         * @param type the type of the access
+         * @param name the name of the child or attribute; <b>null</b> for
+         *        all of them
+         * @return a flag whether the access is affected
+         */
+        public boolean isAffected(final AccessType type, final String name)
+        {
+            if (all)
+            {
+                return true;
+            }
+
+            switch (type)
+            {
+            case CHILDREN:
+                return (name == null) ? !children.isEmpty() : children
+                        .contains(name);
+            case ATTRIBUTES:
+                return (name == null) ? !attributes.isEmpty() : attributes
+                        .contains(name);
+            default:
+                return value;
+            }
+        }
+    }
+
+    /**
+     * A {@code NodeHandler} implementation which checks all accesses to nodes
+     * against the changes of the current transaction.
+     */
+    private class RecordingNodeHandler extends
+            NodeHandlerDecorator<ImmutableNode>
+    {
+        @Override
+        public Object getValue(final ImmutableNode node)
+        {
+            checkAccess(node, AccessType.VALUE, null);
+            return super.getValue(node);
+        }
+
+        @Override
+        public ImmutableNode getParent(final ImmutableNode node)
+        {
+            final ImmutableNode parent = super.getParent(node);
+            if (parent != null)
+            {
+                checkAccess(parent, AccessType.CHILDREN, node.getNodeName());
+            }
+            return parent;
+        }
+
+        @Override
+        public List<ImmutableNode> getChildren(final ImmutableNode node)
+        {
+            checkAccess(node, AccessType.CHILDREN, null);
+            return super.getChildren(node);
+        }
+
+        @Override
+        public <C> List<ImmutableNode> getMatchingChildren(
+                final ImmutableNode node, final NodeMatcher<C> matcher,
+                final C criterion)
+        {
+            checkAccess(node, AccessType.CHILDREN,
+                    matchedName(matcher, criterion));
+            return super.getMatchingChildren(node, matcher, criterion);
+        }
+
+        @Override
+        public <C> int getMatchingChildrenCount(final ImmutableNode node,
+                final NodeMatcher<C> matcher, final C criterion)
+        {
+            checkAccess(node, AccessType.CHILDREN,
+                    matchedName(matcher, criterion));
+            return super.getMatchingChildrenCount(node, matcher, criterion);
+        }
+
+        @Override
+        public List<ImmutableNode> getChildren(final ImmutableNode node,
+                final String name)
+        {
+            checkAccess(node, AccessType.CHILDREN, name);
+            return super.getChildren(node, name);
+        }
+
+        @Override
+        public ImmutableNode getChild(final ImmutableNode node, final int index)
+        {
+            checkAccess(node, AccessType.CHILDREN, null);
+            return super.getChild(node, index);
+        }
+
+        @Override
+        public int indexOfChild(final ImmutableNode parent,
+                final ImmutableNode child)
+        {
+            checkAccess(parent, AccessType.CHILDREN, null);
+            return super.indexOfChild(parent, child);
+        }
+
+        @Override
+        public int getChildrenCount(final ImmutableNode node, final String name)
+        {
+            checkAccess(node, AccessType.CHILDREN, name);
+            return super.getChildrenCount(node, name);
+        }
+
+        @Override
+        public Set<String> getAttributes(final ImmutableNode node)
+        {
+            checkAccess(node, AccessType.ATTRIBUTES, null);
+            return super.getAttributes(node);
+        }
+
+        @Override
+        public boolean hasAttributes(final ImmutableNode node)
+        {
+            checkAccess(node, AccessType.ATTRIBUTES, null);
+            return super.hasAttributes(node);
+        }
+
+        @Override
+        public Object getAttributeValue(final ImmutableNode node,
+                final String name)
+        {
+            checkAccess(node, AccessType.ATTRIBUTES, name);
+            return super.getAttributeValue(node, name);
+        }
+
+        @Override
+        public boolean isDefined(final ImmutableNode node)
+        {
+            checkAccess(node, AccessType.CHILDREN, null);
+            checkAccess(node, AccessType.ATTRIBUTES, null);
+            checkAccess(node, AccessType.VALUE, null);
+            return super.isDefined(node);
+        }
+
+        @Override
+        protected NodeHandler<ImmutableNode> getDecoratedNodeHandler()
+        {
+            return currentData;
+        }
+
+        /**
+         * Determines the name of the children selected by a matcher. Only for
+         * a matcher comparing names exactly, a specific name can be
+         * determined. Otherwise, result is <b>null</b>, meaning that all
+         * children are affected.
+         *
+         * @param matcher the matcher
+         * @param criterion the criterion
+         * @param <C> the type of the criterion
+         * @return the name of the matching children or <b>null</b>
+         */
+        private <C> String matchedName(final NodeMatcher<C> matcher,
+                final C criterion)
+        {
+            return (matcher == NodeNameMatchers.EQUALS && criterion != null)
+                    ? (String) criterion : null;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * A class for collecting multiple update operations on a node model which are
+ * to be executed together.
+ * </p>
+ * <p>
+ * The methods of this class correspond to the update methods defined by the
+ * {@link NodeModel} interface. Rather than executing an operation directly,
+ * they just record it. A batch populated this way can then be passed to
+ * {@link InMemoryNodeModel#updateBatch(BatchUpdate, NodeKeyResolver)}. The
+ * model executes all operations in the order they have been added, but it
+ * publishes only a single new node structure at the end. So, on the one hand,
+ * concurrent readers see either none or all of the changes; on the other hand,
+ * many changes of the model are much more efficient: The nodes on the path to
+ * the root node have to be replaced only once and not for each single
+ * operation.
+ * </p>
+ * <p>
+ * The values passed to {@code addProperty()} are expected to be already split
+ * into single values, as it is the case for
+ * {@link NodeModel#addProperty(String, Iterable, NodeKeyResolver)}.
+ * Implementation note: This class is not thread-safe. It is intended to be
+ * populated by a single thread and then passed to a model.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class BatchUpdate
+{
+    /** The list with the recorded operations. */
+    private final List<Operation> operations;
+
+    /**
+     * Creates a new, empty instance of {@code BatchUpdate}.
+     */
+    public BatchUpdate()
+    {
+        operations = new ArrayList<>();
+    }
+
+    /**
+     * Records an operation which adds new values to a property.
+     *
+     * @param key the key of the property
+     * @param values the values to be added
+     * @return a reference to this object for method chaining
+     * @see NodeModel#addProperty(String, Iterable, NodeKeyResolver)
+     */
+    public BatchUpdate addProperty(final String key, final Iterable<?> values)
+    {
+        return record(OperationType.ADD_PROPERTY, key, values);
+    }
+
+    /**
+     * Records an operation which adds a collection of new nodes.
+     *
+     * @param key the key where the nodes are to be added
+     * @param nodes the collection of new nodes
+     * @return a reference to this object for method chaining
+     * @see NodeModel#addNodes(String, Collection, NodeKeyResolver)
+     */
+    public BatchUpdate addNodes(final String key,
+            final Collection<? extends ImmutableNode> nodes)
+    {
+        return record(OperationType.ADD_NODES, key, nodes);
+    }
+
+    /**
+     * Records an operation which changes the value of a property.
+     *
+     * @param key the key of the property
+     * @param value the new value of this property
+     * @return a reference to this object for method chaining
+     * @see NodeModel#setProperty(String, Object, NodeKeyResolver)
+     */
+    public BatchUpdate setProperty(final String key, final Object value)
+    {
+        return record(OperationType.SET_PROPERTY, key, value);
+    }
+
+    /**
+     * Records an operation which removes the values of a property.
+     *
+     * @param key the key of the property
+     * @return a reference to this object for method chaining
+     * @see NodeModel#clearProperty(String, NodeKeyResolver)
+     */
+    public BatchUpdate clearProperty(final String key)
+    {
+        return record(OperationType.CLEAR_PROPERTY, key, null);
+    }
+
+    /**
+     * Records an operation which removes a whole sub tree.
+     *
+     * @param key the key selecting the nodes to be removed
+     * @return a reference to this object for method chaining
+     * @see NodeModel#clearTree(String, NodeKeyResolver)
+     */
+    public BatchUpdate clearTree(final String key)
+    {
+        return record(OperationType.CLEAR_TREE, key, null);
+    }
+
+    /**
+     * Returns the number of operations recorded in this batch.
+     *
+     * @return the number of operations
+     */
+    public int size()
+    {
+        return operations.size();
+    }
+
+    /**
+     * Returns a flag whether this batch does not contain any operations.
+     *
+     * @return <b>true</b> if this batch is empty, <b>false</b> otherwise
+     */
+    public boolean isEmpty()
+    {
+        return operations.isEmpty();
+    }
+
+    /**
+     * Returns a list with the keys of all operations recorded in this batch.
+     * The keys are returned in the order the operations have been added. This
+     * information is useful, for instance, for event listeners which have to
+     * find out which properties have been affected by a batch.
+     *
+     * @return a list with the keys of the recorded operations
+     */
+    public List<String> getKeys()
+    {
+        final List<String> keys = new ArrayList<>(operations.size());
+        for (final Operation op : operations)
+        {
+            keys.add(op.getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * Executes all operations of this batch one by one on the given model.
+     * This method can be used for models which do not support the execution
+     * of batches in a single step. The changes are not atomic; each
+     * operation is performed as a separate update of the model.
+     *
+     * @param model the {@code NodeModel} to be updated
+     * @param resolver the {@code NodeKeyResolver}
+     */
+    public void applyTo(final NodeModel<ImmutableNode> model,
+            final NodeKeyResolver<ImmutableNode> resolver)
+    {
+        for (final Operation op : operations)
+        {
+            switch (op.getType())
+            {
+            case ADD_PROPERTY:
+                model.addProperty(op.getKey(), op.getValues(), resolver);
+                break;
+            case ADD_NODES:
+                model.addNodes(op.getKey(), op.getNodes(), resolver);
+                break;
+            case SET_PROPERTY:
+                model.setProperty(op.getKey(), op.getValue(), resolver);
+                break;
+            case CLEAR_PROPERTY:
+                model.clearProperty(op.getKey(), resolver);
+                break;
+            default:
+                model.clearTree(op.getKey(), resolver);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns an unmodifiable list with the operations recorded in this
+     * batch.
+     *
+     * @return the list with operations
+     */
+    List<Operation> getOperations()
+    {
+        return Collections.unmodifiableList(operations);
+    }
+
+    /**
+     * Adds a new operation to this batch.
+     *
+     * @param type the type of the operation
+     * @param key the key
+     * @param value the value of the operation
+     * @return a reference to this object
+     */
+    private BatchUpdate record(final OperationType type, final String key,
+            final Object value)
+    {
+        operations.add(new Operation(type, key, value));
+        return this;
+    }
+
+    /**
+     * An enumeration for the types of operations supported by a batch.
+     */
+    enum OperationType
+    {
+        /** Adding values to a property. */
+        ADD_PROPERTY,
+
+        /** Adding nodes. */
+        ADD_NODES,
+
+        /** Setting the value of a property. */
+        SET_PROPERTY,
+
+        /** Removing the values of a property. */
+        CLEAR_PROPERTY,
+
+        /** Removing a sub tree. */
+        CLEAR_TREE
+    }
+
+    /**
+     * A simple data class representing an operation recorded by a batch.
+     */
+    static class Operation
+    {
+        /** The type of this operation. */
+        private final OperationType type;
+
+        /** The key of this operation. */
+        private final String key;
+
+        /** The value of this operation; its meaning depends on the type. */
+        private final Object value;
+
+        /**
+         * Creates a new instance of {@code Operation}.
+         *
+         * @param type the type
+         * @param key the key
+         * @param value the value
+         */
+        public Operation(final OperationType type, final String key,
+                final Object value)
+        {
+            this.type = type;
+            this.key = key;
+            this.value = value;
+        }
+
+        /**
+         * Returns the type of this operation.
+         *
+         * @return the type
+         */
+        public OperationType getType()
+        {
+            return type;
+        }
+
+        /**
+         * Returns the key of this operation.
+         *
+         * @return the key
+         */
+        public String getKey()
+        {
+            return key;
+        }
+
+        /**
+         * Returns the value of this operation. This is the new value of a set
+         * property operation.
+         *
+         * @return the value
+         */
+        public Object getValue()
+        {
+            return value;
+        }
+
+        /**
+         * Returns the values of an add property operation.
+         *
+         * @return the values to be added
+         */
+        public Iterable<?> getValues()
+        {
+            return (Iterable<?>) value;
+        }
+
+        /**
+         * Returns the nodes of an add nodes operation.
+         *
+         * @return the nodes to be added
+         */
+        @SuppressWarnings("unchecked")
+        public Collection<? extends ImmutableNode> getNodes()
+        {
+            return (Collection<? extends ImmutableNode>) value;
+        }
+    }
+}
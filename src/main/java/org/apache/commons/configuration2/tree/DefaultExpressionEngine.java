@@ -16,9 +16,12 @@
  */
 package org.apache.commons.configuration2.tree;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -106,6 +109,11 @@ import org.apache.commons.lang3.StringUtils;
  * Instances of this class are thread-safe and can be shared between multiple
  * hierarchical configuration objects.
  * </p>
+ * <p>
+ * Keys passed to the {@code query()} method are parsed only once: an instance
+ * keeps a cache of parsed keys, so that repeated queries for the same key can
+ * directly traverse the node structure. The size of this cache is limited.
+ * </p>
  *
  * @since 1.3
  * @author <a
@@ -123,12 +131,27 @@ public class DefaultExpressionEngine implements ExpressionEngine
             new DefaultExpressionEngine(
                     DefaultExpressionEngineSymbols.DEFAULT_SYMBOLS);
 
+    /** Constant for the maximum number of keys in the cache of parsed keys. */
+    private static final int MAX_CACHED_KEYS = 4096;
+
+    /** Constant for the name of the method to find the nodes for a key. */
+    private static final String FIND_NODES_METHOD = "findNodesForKey";
+
     /** The symbols used by this instance. */
     private final DefaultExpressionEngineSymbols symbols;
 
     /** The matcher for node names. */
     private final NodeMatcher<String> nameMatcher;
 
+    /** A cache for keys which have already been parsed. */
+    private final ConcurrentMap<String, CompiledKey> compiledKeys;
+
+    /**
+     * A flag whether the {@code findNodesForKey()} method is overridden by a
+     * subclass; then the cache of parsed keys cannot be used.
+     */
+    private final boolean findNodesOverridden;
+
     /**
      * Creates a new instance of {@code DefaultExpressionEngine} and initializes
      * its symbols.
@@ -164,6 +187,8 @@ public class DefaultExpressionEngine implements ExpressionEngine
         nameMatcher =
                 (nodeNameMatcher != null) ? nodeNameMatcher
                         : NodeNameMatchers.EQUALS;
+        compiledKeys = new ConcurrentHashMap<>();
+        findNodesOverridden = isFindNodesOverridden(getClass());
     }
 
     /**
@@ -180,15 +205,27 @@ public class DefaultExpressionEngine implements ExpressionEngine
 
     /**
      * {@inheritDoc} This method supports the syntax as described in the class
-     * comment.
+     * comment. The key is parsed only on its first query; afterwards, it is
+     * obtained from a cache. If a derived class overrides
+     * {@link #findNodesForKey(DefaultConfigurationKey.KeyIterator, Object, Collection, NodeHandler)},
+     * the cache is not used, and the overridden method is called for each
+     * query. Subclasses not overriding this method use the cache.
      */
     @Override
     public <T> List<QueryResult<T>> query(final T root, final String key,
             final NodeHandler<T> handler)
     {
-        final List<QueryResult<T>> results = new LinkedList<>();
-        findNodesForKey(new DefaultConfigurationKey(this, key).iterator(),
-                root, results, handler);
+        if (findNodesOverridden)
+        {
+            final List<QueryResult<T>> results = new LinkedList<>();
+            findNodesForKey(new DefaultConfigurationKey(this, key).iterator(),
+                    root, results, handler);
+            return results;
+        }
+
+        final List<QueryResult<T>> results = new ArrayList<>(1);
+        findNodesForCompiledKey(fetchCompiledKey(key), 0, root, results,
+                handler);
         return results;
     }
 
@@ -470,6 +507,111 @@ public class DefaultExpressionEngine implements ExpressionEngine
         }
     }
 
+    /**
+     * Evaluates a parsed key. This method does the same as
+     * {@code findNodesForKey()}, but it operates on a key which has already
+     * been parsed, so that no further objects need to be created while
+     * traversing the node structure.
+     *
+     * @param <T> the type of nodes to be dealt with
+     * @param key the parsed key
+     * @param pos the position of the current key part
+     * @param node the current node
+     * @param results here the found results are stored
+     * @param handler the node handler
+     */
+    private <T> void findNodesForCompiledKey(final CompiledKey key,
+            final int pos, final T node,
+            final Collection<QueryResult<T>> results,
+            final NodeHandler<T> handler)
+    {
+        if (pos >= key.size())
+        {
+            results.add(QueryResult.createNodeResult(node));
+            return;
+        }
+
+        final String name = key.getName(pos);
+        if (key.isPropertyKey(pos))
+        {
+            final List<T> subNodes = findChildNodesByName(handler, node, name);
+            final int index = key.getIndex(pos);
+            if (index != CompiledKey.NO_INDEX)
+            {
+                if (index >= 0 && index < subNodes.size())
+                {
+                    findNodesForCompiledKey(key, pos + 1, subNodes.get(index),
+                            results, handler);
+                }
+            }
+            else
+            {
+                for (final T child : subNodes)
+                {
+                    findNodesForCompiledKey(key, pos + 1, child, results,
+                            handler);
+                }
+            }
+        }
+        if (key.isAttribute(pos) && pos == key.size() - 1
+                && handler.getAttributeValue(node, name) != null)
+        {
+            results.add(QueryResult.createAttributeResult(node, name));
+        }
+    }
+
+    /**
+     * Returns the parsed form of the given key. The key is looked up in the
+     * cache first. If it is not found, it is parsed now and added to the
+     * cache. If the cache becomes too large, it is cleared.
+     *
+     * @param key the key
+     * @return the parsed key
+     */
+    private CompiledKey fetchCompiledKey(final String key)
+    {
+        if (key == null)
+        {
+            return compileKey(null);
+        }
+
+        CompiledKey compiledKey = compiledKeys.get(key);
+        if (compiledKey == null)
+        {
+            compiledKey = compileKey(key);
+            if (compiledKeys.size() >= MAX_CACHED_KEYS)
+            {
+                compiledKeys.clear();
+            }
+            compiledKeys.put(key, compiledKey);
+        }
+        return compiledKey;
+    }
+
+    /**
+     * Parses the given key and creates a {@code CompiledKey} from it.
+     *
+     * @param key the key
+     * @return the parsed key
+     */
+    private CompiledKey compileKey(final String key)
+    {
+        final List<String> names = new ArrayList<>();
+        final List<Integer> indices = new ArrayList<>();
+        final List<Boolean> propertyKeys = new ArrayList<>();
+        final List<Boolean> attributes = new ArrayList<>();
+        final DefaultConfigurationKey.KeyIterator it =
+                new DefaultConfigurationKey(this, key).iterator();
+        while (it.hasNext())
+        {
+            names.add(it.nextKey(false));
+            indices.add(it.hasIndex() ? it.getIndex() : CompiledKey.NO_INDEX);
+            propertyKeys.add(it.isPropertyKey());
+            attributes.add(it.isAttribute());
+        }
+        return new CompiledKey(names, indices, propertyKeys, attributes);
+    }
+
     /**
      * Determines the index of the given node based on its parent node.
      *
@@ -502,4 +644,139 @@ public class DefaultExpressionEngine implements ExpressionEngine
     {
         return handler.getMatchingChildren(parent, nameMatcher, nodeName);
     }
+
+    /**
+     * Checks whether the given class or one of its super classes below
+     * {@code DefaultExpressionEngine} overrides the
+     * {@link #findNodesForKey(DefaultConfigurationKey.KeyIterator, Object, Collection, NodeHandler)}
+     * method.
+     *
+     * @param engineClass the class of this engine
+     * @return a flag whether the method is overridden
+     */
+    static boolean isFindNodesOverridden(final Class<?> engineClass)
+    {
+        Class<?> c = engineClass;
+        while (c != DefaultExpressionEngine.class)
+        {
+            try
+            {
+                c.getDeclaredMethod(FIND_NODES_METHOD,
+                        DefaultConfigurationKey.KeyIterator.class,
+                        Object.class, Collection.class, NodeHandler.class);
+                return true;
+            }
+            catch (final NoSuchMethodException e)
+            {
+                // not overridden on this level, check the super class
+                c = c.getSuperclass();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An immutable representation of a parsed configuration key. The key is
+     * split into its parts; for each part the name, the index, and the flags
+     * whether it refers to a property or an attribute are stored.
+     */
+    private static final class CompiledKey
+    {
+        /** Constant for an undefined index. */
+        static final int NO_INDEX = Integer.MIN_VALUE;
+
+        /** The names of the key parts. */
+        private final String[] names;
+
+        /** The indices of the key parts. */
+        private final int[] indices;
+
+        /** The flags whether the key parts refer to properties. */
+        private final boolean[] propertyKeys;
+
+        /** The flags whether the key parts refer to attributes. */
+        private final boolean[] attributes;
+
+        /**
+         * Creates a new instance of {@code CompiledKey}.
+         *
+         * @param nameList the names of the key parts
+         * @param indexList the indices of the key parts
+         * @param propertyKeyList the property flags of the key parts
+         * @param attributeList the attribute flags of the key parts
+         */
+        CompiledKey(final List<String> nameList, final List<Integer> indexList,
+                final List<Boolean> propertyKeyList,
+                final List<Boolean> attributeList)
+        {
+            final int size = nameList.size();
+            names = nameList.toArray(new String[size]);
+            indices = new int[size];
+            propertyKeys = new boolean[size];
+            attributes = new boolean[size];
+            for (int i = 0; i < size; i++)
+            {
+                indices[i] = indexList.get(i);
+                propertyKeys[i] = propertyKeyList.get(i);
+                attributes[i] = attributeList.get(i);
+            }
+        }
+
+        /**
+         * Returns the number of key parts.
+         *
+         * @return the number of key parts
+         */
+        public int size()
+        {
+            return names.length;
+        }
+
+        /**
+         * Returns the name of the key part at the given position.
+         *
+         * @param pos the position
+         * @return the name of this key part
+         */
+        public String getName(final int pos)
+        {
+            return names[pos];
+        }
+
+        /**
+         * Returns the index of the key part at the given position or
+         * {@link #NO_INDEX} if it has no index.
+         *
+         * @param pos the position
+         * @return the index of this key part
+         */
+        public int getIndex(final int pos)
+        {
+            return indices[pos];
+        }
+
+        /**
+         * Returns a flag whether the key part at the given position refers to
+         * a property.
+         *
+         * @param pos the position
+         * @return a flag whether this is a property key
+         */
+        public boolean isPropertyKey(final int pos)
+        {
+            return propertyKeys[pos];
+        }
+
+        /**
+         * Returns a flag whether the key part at the given position refers to
+         * an attribute.
+         *
+         * @param pos the position
+         * @return a flag whether this is an attribute key
+         */
+        public boolean isAttribute(final int pos)
+        {
+            return attributes[pos];
+        }
+    }
 }
@@ -54,7 +54,13 @@ public final class ImmutableNode
     private final List<ImmutableNode> children;
 
     /** A map with the attributes of this node. */
-    private final Map<String, Object> attributes;
+    private final AttributeMap attributes;
+
+    /**
+     * An index of the child nodes by their names. It is created on demand
+     * when children are queried by name for the first time.
+     */
+    private volatile Map<String, List<ImmutableNode>> childrenIndex;
 
     /**
      * Creates a new instance of {@code ImmutableNode} from the given
@@ -102,7 +108,10 @@ public final class ImmutableNode
     }
 
     /**
-     * Returns a list with the children of this node.
+     * Returns a list with the children of this node with the given name. The
+     * children are looked up in an index which is created when a lookup by
+     * name is done for the first time. The list returned is a copy which can
+     * be modified by the caller.
      *
      * @param name the node name to find
      *
@@ -110,24 +119,32 @@ public final class ImmutableNode
      */
     public List<ImmutableNode> getChildren(final String name)
     {
-        final List<ImmutableNode> list = new ArrayList<>();
+        return new ArrayList<>(getNamedChildren(name));
+    }
+
+    /**
+     * Returns an unmodifiable list with the children of this node with the
+     * given name. This method returns the list stored in the index of child
+     * nodes directly without copying it; so the costs of this method do not
+     * depend on the number of children. It is used by node handlers, which
+     * return immutable lists anyway.
+     *
+     * @param name the node name to find
+     * @return an unmodifiable list with the child nodes
+     */
+    List<ImmutableNode> getNamedChildren(final String name)
+    {
         if (name == null)
         {
-            return list;
-        }
-        for (final ImmutableNode node : children)
-        {
-            if (name.equals(node.getNodeName()))
-            {
-                list.add(node);
-            }
+            return Collections.emptyList();
         }
-        return list;
+        final List<ImmutableNode> list = fetchChildrenIndex().get(name);
+        return (list != null) ? list : Collections.<ImmutableNode> emptyList();
     }
 
     /**
      * Returns a map with the attributes of this node. This map cannot be
-     * modified.
+     * modified. Its iteration order is not specified.
      *
      * @return a map with this node's attributes
      */
@@ -145,8 +162,8 @@ public final class ImmutableNode
      */
     public ImmutableNode setName(final String name)
     {
-        return new Builder(children, attributes).name(name).value(value)
-                .create();
+        return shareChildrenIndex(new Builder(children, attributes).name(name)
+                .value(value).create());
     }
 
     /**
@@ -158,8 +175,8 @@ public final class ImmutableNode
      */
     public ImmutableNode setValue(final Object newValue)
     {
-        return new Builder(children, attributes).name(nodeName).value(newValue)
-                .create();
+        return shareChildrenIndex(new Builder(children, attributes)
+                .name(nodeName).value(newValue).create());
     }
 
     /**
@@ -175,7 +192,17 @@ public final class ImmutableNode
         checkChildNode(child);
         final Builder builder = new Builder(children.size() + 1, attributes);
         builder.addChildren(children).addChild(child);
-        return createWithBasicProperties(builder);
+        final ImmutableNode node = createWithBasicProperties(builder);
+        final Map<String, List<ImmutableNode>> index = childrenIndex;
+        if (index != null)
+        {
+            final List<ImmutableNode> namedChildren =
+                    new ArrayList<>(getNamedChildren(child.getNodeName()));
+            namedChildren.add(child);
+            node.childrenIndex =
+                    updateChildrenIndex(index, child.getNodeName(), namedChildren);
+        }
+        return node;
     }
 
     /**
@@ -203,7 +230,21 @@ public final class ImmutableNode
             }
         }
 
-        return foundChild ? createWithBasicProperties(builder) : this;
+        if (!foundChild)
+        {
+            return this;
+        }
+        final ImmutableNode node = createWithBasicProperties(builder);
+        final Map<String, List<ImmutableNode>> index = childrenIndex;
+        if (index != null)
+        {
+            final List<ImmutableNode> namedChildren =
+                    new ArrayList<>(getNamedChildren(child.getNodeName()));
+            namedChildren.removeAll(Collections.singleton(child));
+            node.childrenIndex =
+                    updateChildrenIndex(index, child.getNodeName(), namedChildren);
+        }
+        return node;
     }
 
     /**
@@ -235,7 +276,22 @@ public final class ImmutableNode
             }
         }
 
-        return foundChild ? createWithBasicProperties(builder) : this;
+        if (!foundChild)
+        {
+            return this;
+        }
+        final ImmutableNode node = createWithBasicProperties(builder);
+        final Map<String, List<ImmutableNode>> index = childrenIndex;
+        final String name = newChild.getNodeName();
+        if (index != null && name != null && name.equals(oldChild.getNodeName()))
+        {
+            final List<ImmutableNode> namedChildren =
+                    new ArrayList<>(getNamedChildren(name));
+            Collections.replaceAll(namedChildren, oldChild, newChild);
+            node.childrenIndex =
+                    updateChildrenIndex(index, name, namedChildren);
+        }
+        return node;
     }
 
     /**
@@ -268,9 +324,7 @@ public final class ImmutableNode
      */
     public ImmutableNode setAttribute(final String name, final Object value)
     {
-        final Map<String, Object> newAttrs = new HashMap<>(attributes);
-        newAttrs.put(name, value);
-        return createWithNewAttributes(newAttrs);
+        return createWithNewAttributes(attributes.with(name, value));
     }
 
     /**
@@ -290,9 +344,7 @@ public final class ImmutableNode
             return this;
         }
 
-        final Map<String, Object> newAttrs = new HashMap<>(attributes);
-        newAttrs.putAll(newAttributes);
-        return createWithNewAttributes(newAttrs);
+        return createWithNewAttributes(attributes.withAll(newAttributes));
     }
 
     /**
@@ -305,8 +357,8 @@ public final class ImmutableNode
      */
     public ImmutableNode removeAttribute(final String name)
     {
-        final Map<String, Object> newAttrs = new HashMap<>(attributes);
-        if (newAttrs.remove(name) != null)
+        final AttributeMap newAttrs = attributes.without(name);
+        if (newAttrs != attributes)
         {
             return createWithNewAttributes(newAttrs);
         }
@@ -328,15 +380,117 @@ public final class ImmutableNode
 
     /**
      * Creates a new {@code ImmutableNode} instance with the same properties as
-     * this object, but with the given new attributes.
+     * this object, but with the given new attributes. The attribute map is
+     * passed to the new node directly; as it is immutable, it can be shared.
      *
      * @param newAttrs the new attributes
      * @return the new node instance
      */
-    private ImmutableNode createWithNewAttributes(final Map<String, Object> newAttrs)
+    private ImmutableNode createWithNewAttributes(final AttributeMap newAttrs)
+    {
+        return shareChildrenIndex(createWithBasicProperties(new Builder(
+                children, newAttrs)));
+    }
+
+    /**
+     * Returns the index of child nodes by their names, creating it if
+     * necessary. If multiple threads call this method concurrently, the index
+     * may be created multiple times; but as all instances are equivalent,
+     * this does not cause any harm.
+     *
+     * @return the index of child nodes
+     */
+    private Map<String, List<ImmutableNode>> fetchChildrenIndex()
+    {
+        Map<String, List<ImmutableNode>> index = childrenIndex;
+        if (index == null)
+        {
+            index = createChildrenIndex(children);
+            childrenIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Passes the index of child nodes of this node to the given node. This
+     * method is called for newly created nodes which have the same children as
+     * this node. So an index which has already been created can be reused.
+     *
+     * @param node the new node
+     * @return the same node
+     */
+    private ImmutableNode shareChildrenIndex(final ImmutableNode node)
     {
-        return createWithBasicProperties(new Builder(children, null)
-                .addAttributes(newAttrs));
+        node.childrenIndex = childrenIndex;
+        return node;
+    }
+
+    /**
+     * Creates an index of the given child nodes by their names. Children
+     * without a name are not contained in the index.
+     *
+     * @param nodes the child nodes
+     * @return the index for these child nodes
+     */
+    private static Map<String, List<ImmutableNode>> createChildrenIndex(
+            final List<ImmutableNode> nodes)
+    {
+        if (nodes.isEmpty())
+        {
+            return Collections.emptyMap();
+        }
+
+        final Map<String, List<ImmutableNode>> index = new HashMap<>();
+        for (final ImmutableNode node : nodes)
+        {
+            if (node.getNodeName() != null)
+            {
+                List<ImmutableNode> namedChildren = index.get(node.getNodeName());
+                if (namedChildren == null)
+                {
+                    namedChildren = new ArrayList<>(1);
+                    index.put(node.getNodeName(), namedChildren);
+                }
+                namedChildren.add(node);
+            }
+        }
+
+        for (final Map.Entry<String, List<ImmutableNode>> e : index.entrySet())
+        {
+            e.setValue(Collections.unmodifiableList(e.getValue()));
+        }
+        return Collections.unmodifiableMap(index);
+    }
+
+    /**
+     * Creates a new index of child nodes derived from an existing one in which
+     * only the children with the given name have changed. The lists for all
+     * other names are shared with the existing index.
+     *
+     * @param index the existing index
+     * @param name the name of the affected children (may be <b>null</b>)
+     * @param namedChildren the new list of children with this name
+     * @return the new index
+     */
+    private static Map<String, List<ImmutableNode>> updateChildrenIndex(
+            final Map<String, List<ImmutableNode>> index, final String name,
+            final List<ImmutableNode> namedChildren)
+    {
+        if (name == null)
+        {
+            return index;
+        }
+
+        final Map<String, List<ImmutableNode>> newIndex = new HashMap<>(index);
+        if (namedChildren.isEmpty())
+        {
+            newIndex.remove(name);
+        }
+        else
+        {
+            newIndex.put(name, Collections.unmodifiableList(namedChildren));
+        }
+        return Collections.unmodifiableMap(newIndex);
     }
 
     /**
@@ -375,7 +529,7 @@ public final class ImmutableNode
         private final List<ImmutableNode> directChildren;
 
         /** The direct map of attributes of the new node. */
-        private final Map<String, Object> directAttributes;
+        private final AttributeMap directAttributes;
 
         /**
          * A list for the children of the new node. This list is populated by
@@ -385,9 +539,11 @@ public final class ImmutableNode
 
         /**
          * A map for storing the attributes of the new node. This map is
-         * populated by {@code addAttribute()}.
+         * populated by {@code addAttribute()}. As it is immutable, each
+         * update creates a new map; but maps of other nodes passed to
+         * {@code addAttributes()} can be shared.
          */
-        private Map<String, Object> attributes;
+        private AttributeMap attributes;
 
         /** The name of the node. */
         private String name;
@@ -430,7 +586,7 @@ public final class ImmutableNode
          * @param dirAttrs the attributes of the new node
          */
         private Builder(final List<ImmutableNode> dirChildren,
-                final Map<String, Object> dirAttrs)
+                final AttributeMap dirAttrs)
         {
             directChildren = dirChildren;
             directAttributes = dirAttrs;
@@ -447,7 +603,7 @@ public final class ImmutableNode
          * @param childCount the expected number of new children
          * @param dirAttrs the attributes of the new node
          */
-        private Builder(final int childCount, final Map<String, Object> dirAttrs)
+        private Builder(final int childCount, final AttributeMap dirAttrs)
         {
             this(null, dirAttrs);
             initChildrenCollection(childCount);
@@ -524,8 +680,7 @@ public final class ImmutableNode
          */
         public Builder addAttribute(final String name, final Object value)
         {
-            ensureAttributesExist();
-            attributes.put(name, value);
+            attributes = fetchAttributes().with(name, value);
             return this;
         }
 
@@ -541,8 +696,7 @@ public final class ImmutableNode
         {
             if (attrs != null)
             {
-                ensureAttributesExist();
-                attributes.putAll(attrs);
+                attributes = fetchAttributes().withAll(attrs);
             }
             return this;
         }
@@ -584,22 +738,18 @@ public final class ImmutableNode
         /**
          * Creates a map with the attributes of the newly created node. This is
          * an immutable map. If direct attributes were set, they are returned.
-         * Otherwise an unmodifiable map from the attributes passed to this
-         * builder is constructed.
+         * Otherwise the map with the attributes passed to this builder is
+         * returned.
          *
          * @return a map with the attributes for the new node
          */
-        private Map<String, Object> createAttributes()
+        private AttributeMap createAttributes()
         {
             if (directAttributes != null)
             {
                 return directAttributes;
             }
-            if (attributes != null)
-            {
-                return Collections.unmodifiableMap(attributes);
-            }
-            return Collections.emptyMap();
+            return fetchAttributes();
         }
 
         /**
@@ -615,15 +765,14 @@ public final class ImmutableNode
         }
 
         /**
-         * Ensures that the map for the attributes exists. It is created on
-         * demand.
+         * Returns the map with the attributes added to this builder so far.
+         * If no attributes have been added, result is an empty map.
+         *
+         * @return the current map with attributes
          */
-        private void ensureAttributesExist()
+        private AttributeMap fetchAttributes()
         {
-            if (attributes == null)
-            {
-                attributes = new HashMap<>();
-            }
+            return (attributes != null) ? attributes : AttributeMap.empty();
         }
 
         /**
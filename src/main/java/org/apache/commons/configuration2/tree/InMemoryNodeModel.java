@@ -58,7 +58,7 @@ public class InMemoryNodeModel implements NodeModel<ImmutableNode>
      */
     private static final NodeHandler<ImmutableNode> DUMMY_HANDLER =
             new TreeData(null,
-                    Collections.<ImmutableNode, ImmutableNode> emptyMap(),
+                    PersistentHashMap.<ImmutableNode, ImmutableNode> empty(),
                     Collections.<ImmutableNode, ImmutableNode> emptyMap(), null, new ReferenceTracker());
 
     /** Stores information about the current nodes structure. */
@@ -269,6 +269,74 @@ public class InMemoryNodeModel implements NodeModel<ImmutableNode>
         }, selector, resolver);
     }
 
+    /**
+     * Executes all operations contained in the given {@code BatchUpdate} as a
+     * single update of this model. This is equivalent to calling the update
+     * methods corresponding to the recorded operations one after the other.
+     * However, the new node structure is published only once after all
+     * operations have been applied; so concurrent readers never see an
+     * intermediate state. In addition, the nodes on the path to the root
+     * node are typically replaced only once, which makes this method much
+     * more efficient than single updates if there are many operations.
+     *
+     * @param batch the {@code BatchUpdate} to be executed
+     * @param resolver the {@code NodeKeyResolver}
+     * @since 2.5
+     */
+    public void updateBatch(final BatchUpdate batch,
+            final NodeKeyResolver<ImmutableNode> resolver)
+    {
+        updateBatch(batch, null, resolver);
+    }
+
+    /**
+     * Executes all operations contained in the given {@code BatchUpdate} as a
+     * single update of this model using a tracked node as root node. This
+     * method works like the {@code updateBatch()} method without a selector,
+     * but the keys of all operations are interpreted relative to the tracked
+     * node identified by the passed in {@code NodeSelector}. The selector can
+     * be <b>null</b>, then the root node is assumed.
+     *
+     * @param batch the {@code BatchUpdate} to be executed
+     * @param selector the {@code NodeSelector} defining the root node (or
+     *        <b>null</b>)
+     * @param resolver the {@code NodeKeyResolver}
+     * @throws ConfigurationRuntimeException if the selector cannot be resolved
+     * @since 2.5
+     */
+    public void updateBatch(final BatchUpdate batch,
+            final NodeSelector selector,
+            final NodeKeyResolver<ImmutableNode> resolver)
+    {
+        if (batch.isEmpty())
+        {
+            return;
+        }
+
+        boolean done;
+        do
+        {
+            final TreeData currentData = getTreeData();
+            if (selector != null)
+            {
+                final InMemoryNodeModel detachedNodeModel =
+                        currentData.getNodeTracker().getDetachedNodeModel(
+                                selector);
+                if (detachedNodeModel != null)
+                {
+                    detachedNodeModel.updateBatch(batch, null, resolver);
+                    return;
+                }
+            }
+
+            final TreeData newData =
+                    new BatchTransaction(this, currentData, selector, resolver)
+                            .execute(batch);
+            done = newData == null
+                    || structure.compareAndSet(currentData, newData);
+        } while (!done);
+    }
+
     /**
      * {@inheritDoc} This implementation checks whether nodes become undefined
      * after subtrees have been removed. If this is the case, such nodes are
@@ -806,10 +874,11 @@ public class InMemoryNodeModel implements NodeModel<ImmutableNode>
      * of the passed in root node. For each node in the subtree the parent
      * relation is added to the map.
      *
-     * @param parents the map with parent nodes
+     * @param parents the editor for the map with parent nodes
      * @param root the root node of the current tree
      */
-    static void updateParentMapping(final Map<ImmutableNode, ImmutableNode> parents,
+    static void updateParentMapping(
+            final PersistentHashMap.Editor<ImmutableNode, ImmutableNode> parents,
             final ImmutableNode root)
     {
         NodeTreeWalker.INSTANCE.walkBFS(root,
@@ -871,7 +940,7 @@ public class InMemoryNodeModel implements NodeModel<ImmutableNode>
      * @param current the current {@code TreeData} object (may be <b>null</b>)
      * @return the {@code TreeData} describing the current tree
      */
-    private TreeData createTreeData(final ImmutableNode root, final TreeData current)
+    TreeData createTreeData(final ImmutableNode root, final TreeData current)
     {
         final NodeTracker newTracker =
                 (current != null) ? current.getNodeTracker()
@@ -902,7 +971,7 @@ public class InMemoryNodeModel implements NodeModel<ImmutableNode>
      * @param addData the {@code NodeAddData}
      * @param values the collection with node values
      */
-    private static void addNodeProperty(final ModelTransaction tx,
+    static void addNodeProperty(final ModelTransaction tx,
             final NodeAddData<ImmutableNode> addData, final Iterable<?> values)
     {
         final Collection<ImmutableNode> newNodes =
@@ -920,7 +989,7 @@ public class InMemoryNodeModel implements NodeModel<ImmutableNode>
      * @param addData the {@code NodeAddData}
      * @param newNodes the collection of new child nodes
      */
-    private static void addNodesByAddData(final ModelTransaction tx,
+    static void addNodesByAddData(final ModelTransaction tx,
             final NodeAddData<ImmutableNode> addData,
             final Collection<ImmutableNode> newNodes)
     {
@@ -943,7 +1012,7 @@ public class InMemoryNodeModel implements NodeModel<ImmutableNode>
      * @param addData the {@code NodeAddData}
      * @param values the collection with node values
      */
-    private static void addAttributeProperty(final ModelTransaction tx,
+    static void addAttributeProperty(final ModelTransaction tx,
             final NodeAddData<ImmutableNode> addData, final Iterable<?> values)
     {
         if (addData.getPathNodes().isEmpty())
@@ -1040,7 +1109,7 @@ public class InMemoryNodeModel implements NodeModel<ImmutableNode>
      *        cleared
      * @return a flag whether there are elements to be cleared
      */
-    private static boolean initializeClearTransaction(final ModelTransaction tx,
+    static boolean initializeClearTransaction(final ModelTransaction tx,
             final Collection<QueryResult<ImmutableNode>> results)
     {
         for (final QueryResult<ImmutableNode> result : results)
@@ -1067,7 +1136,7 @@ public class InMemoryNodeModel implements NodeModel<ImmutableNode>
      * @param changedValues the map defining the elements to be changed
      * @return a flag whether there are elements to be updated
      */
-    private static boolean initializeUpdateTransaction(final ModelTransaction tx,
+    static boolean initializeUpdateTransaction(final ModelTransaction tx,
             final Map<QueryResult<ImmutableNode>, Object> changedValues)
     {
         for (final Map.Entry<QueryResult<ImmutableNode>, Object> e : changedValues
@@ -1135,13 +1204,13 @@ public class InMemoryNodeModel implements NodeModel<ImmutableNode>
      * @param root the root node of the structure
      * @return the parent node mapping
      */
-    private Map<ImmutableNode, ImmutableNode> createParentMapping(
+    private PersistentHashMap<ImmutableNode, ImmutableNode> createParentMapping(
             final ImmutableNode root)
     {
-        final Map<ImmutableNode, ImmutableNode> parents =
-                new HashMap<>();
+        final PersistentHashMap.Editor<ImmutableNode, ImmutableNode> parents =
+                PersistentHashMap.<ImmutableNode, ImmutableNode> empty().edit();
         updateParentMapping(parents, root);
-        return parents;
+        return parents.create();
     }
 
     /**
@@ -1387,7 +1456,7 @@ public class InMemoryNodeModel implements NodeModel<ImmutableNode>
      * @param key the invalid key causing this exception
      * @return the exception
      */
-    private static RuntimeException attributeKeyException(final String key)
+    static RuntimeException attributeKeyException(final String key)
     {
         return new IllegalArgumentException(
                 "New nodes cannot be added to an attribute key: " + key);
@@ -66,10 +66,11 @@ class ModelTransaction
 {
     /**
      * Constant for the maximum number of entries in the replacement mapping. If
-     * this number is exceeded, the parent mapping is reconstructed. The number
-     * is a bit arbitrary. If it is too low, updates - especially on large node
-     * structures - are expensive because the parent mapping is often rebuild.
-     * If it is too big, read access to the model is slowed down because looking
+     * this number is exceeded, the replacements are incorporated into the
+     * parent mapping. The number is a bit arbitrary. If it is too low, updates
+     * - especially on nodes with many children - are expensive because the
+     * parent mapping is often updated for all children of replaced nodes. If
+     * it is too big, read access to the model is slowed down because looking
      * up the parent of a node is more complicated.
      */
     private static final int MAX_REPLACEMENTS = 200;
@@ -95,8 +96,8 @@ class ModelTransaction
     /** The nodes replaced in this transaction. */
     private final Map<ImmutableNode, ImmutableNode> replacedNodes;
 
-    /** A new parent mapping. */
-    private final Map<ImmutableNode, ImmutableNode> parentMapping;
+    /** The editor for the new parent mapping. */
+    private final PersistentHashMap.Editor<ImmutableNode, ImmutableNode> parentMapping;
 
     /** A collection with nodes which have been added. */
     private final Collection<ImmutableNode> addedNodes;
@@ -141,7 +142,7 @@ class ModelTransaction
         this.resolver = resolver;
         replacementMapping = getCurrentData().copyReplacementMapping();
         replacedNodes = new HashMap<>();
-        parentMapping = getCurrentData().copyParentMapping();
+        parentMapping = getCurrentData().getParentMapping().edit();
         operations = new TreeMap<>();
         addedNodes = new LinkedList<>();
         removedNodes = new LinkedList<>();
@@ -321,7 +322,7 @@ class ModelTransaction
     {
         executeOperations();
         updateParentMapping();
-        return new TreeData(newRoot, parentMapping, replacementMapping,
+        return new TreeData(newRoot, parentMapping.create(), replacementMapping,
                 currentData.getNodeTracker().update(newRoot, rootNodeSelector,
                         getResolver(), getCurrentData()), updateReferenceTracker()
         );
@@ -437,21 +438,61 @@ class ModelTransaction
     private void updateParentMapping()
     {
         replacementMapping.putAll(replacedNodes);
+        updateParentMappingForAddedNodes();
+        updateParentMappingForRemovedNodes();
         if (replacementMapping.size() > MAX_REPLACEMENTS)
+        {
+            compactParentMapping();
+        }
+    }
+
+    /**
+     * Incorporates the replacement mapping into the parent mapping. This
+     * method is called if the replacement mapping exceeds its maximum size.
+     * Only the nodes affected by replacements are updated: the replaced nodes
+     * are removed from the parent mapping, and the children of replacement
+     * nodes which are still part of the structure are assigned their new
+     * parents. Afterwards, the replacement mapping can be cleared. If the
+     * replacements cannot be reached from the new root node, the parent
+     * mapping is rebuilt from scratch.
+     */
+    private void compactParentMapping()
+    {
+        final Set<ImmutableNode> currentReplacements =
+                new HashSet<>(replacementMapping.values());
+        currentReplacements.removeAll(replacementMapping.keySet());
+
+        if (newRoot == null || !currentReplacements.contains(newRoot))
         {
             rebuildParentMapping();
+            return;
         }
-        else
+
+        for (final ImmutableNode node : replacementMapping.keySet())
+        {
+            parentMapping.remove(node);
+        }
+        final List<ImmutableNode> pendingNodes = new LinkedList<>();
+        pendingNodes.add(newRoot);
+        while (!pendingNodes.isEmpty())
         {
-            updateParentMappingForAddedNodes();
-            updateParentMappingForRemovedNodes();
+            final ImmutableNode node = pendingNodes.remove(0);
+            for (final ImmutableNode child : node.getChildren())
+            {
+                parentMapping.put(child, node);
+                if (currentReplacements.contains(child))
+                {
+                    pendingNodes.add(child);
+                }
+            }
         }
+        replacementMapping.clear();
     }
 
     /**
-     * Rebuilds the parent mapping from scratch. This method is called if the
-     * replacement mapping exceeds its maximum size. In this case, it is
-     * cleared, and a new parent mapping is constructed for the new root node.
+     * Rebuilds the parent mapping from scratch. In this case, the
+     * replacement mapping is cleared, and a new parent mapping is constructed
+     * for the new root node.
      */
     private void rebuildParentMapping()
     {
@@ -0,0 +1,925 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * An internally used immutable hash map supporting efficient updates.
+ * </p>
+ * <p>
+ * This class is a hash array mapped trie. Update operations do not copy the
+ * whole map, but only the nodes of the trie on the path to the affected entry;
+ * all other nodes are shared between the original and the updated map. So a
+ * single update has logarithmic costs. It is used by {@link TreeData} to store
+ * the mapping from nodes to their parents, which has to be updated for each
+ * change of the node structure while older versions are still in use by other
+ * threads. It also serves as storage for nodes with many attributes (see
+ * {@link AttributeMap}).
+ * </p>
+ * <p>
+ * Multiple updates are performed via an {@link Editor}. An editor manipulates
+ * the nodes of the trie it has created itself directly, so that a sequence of
+ * updates does not copy the same nodes again and again. When all updates have
+ * been done, an immutable map is obtained from the editor.
+ * </p>
+ * <p>
+ * Keys and values must not be <b>null</b>.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+final class PersistentHashMap<K, V>
+{
+    /** Constant for the number of hash bits consumed per level of the trie. */
+    private static final int BITS = 5;
+
+    /** Constant for the mask to extract the bits of a level. */
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * Constant for the maximum depth of the trie. This is the number of
+     * levels needed to consume all bits of a hash code plus one level for
+     * collision nodes.
+     */
+    private static final int MAX_DEPTH = (Integer.SIZE + BITS - 1) / BITS + 1;
+
+    /** The empty map. */
+    @SuppressWarnings("rawtypes")
+    private static final PersistentHashMap EMPTY = new PersistentHashMap(null, 0);
+
+    /** The root node of the trie. */
+    private final Node root;
+
+    /** The number of entries in this map. */
+    private final int size;
+
+    /**
+     * Creates a new instance of {@code PersistentHashMap}.
+     *
+     * @param root the root node
+     * @param size the size of the map
+     */
+    private PersistentHashMap(final Node root, final int size)
+    {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns an empty map.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty()
+    {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the value stored for the given key or <b>null</b> if the key is
+     * not contained in this map.
+     *
+     * @param key the key
+     * @return the value for this key or <b>null</b>
+     */
+    public V get(final Object key)
+    {
+        return find(root, key);
+    }
+
+    /**
+     * Returns the number of entries contained in this map.
+     *
+     * @return the size of this map
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns a flag whether this map is empty.
+     *
+     * @return <b>true</b> if this map is empty, <b>false</b> otherwise
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Returns a map which contains all entries of this map plus the given
+     * key-value pair. An existing value for this key is replaced.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the updated map
+     */
+    public PersistentHashMap<K, V> put(final K key, final V value)
+    {
+        final Editor<K, V> editor = edit();
+        editor.put(key, value);
+        final PersistentHashMap<K, V> result = editor.create();
+        return (result.root == root) ? this : result;
+    }
+
+    /**
+     * Returns a map which contains all entries of this map except for the one
+     * with the given key. If the key is not contained, this map is returned.
+     *
+     * @param key the key to be removed
+     * @return the updated map
+     */
+    public PersistentHashMap<K, V> remove(final Object key)
+    {
+        final Editor<K, V> editor = edit();
+        editor.remove(key);
+        final PersistentHashMap<K, V> result = editor.create();
+        return (result.root == root) ? this : result;
+    }
+
+    /**
+     * Returns an iterator over the entries of this map. The order of the
+     * entries is determined by the hash codes of their keys. The iterator
+     * does not support removal.
+     *
+     * @return an iterator over the entries of this map
+     */
+    public Iterator<Map.Entry<K, V>> iterator()
+    {
+        return new EntryIterator<>(root);
+    }
+
+    /**
+     * Returns an {@code Editor} for performing multiple updates on this map.
+     * This map is not affected by the editor.
+     *
+     * @return an {@code Editor} initialized with the content of this map
+     */
+    public Editor<K, V> edit()
+    {
+        return new Editor<>(root, size);
+    }
+
+    /**
+     * Looks up the given key in the trie defined by the given root node.
+     *
+     * @param root the root node (may be <b>null</b>)
+     * @param key the key
+     * @param <V> the type of the values
+     * @return the value for this key or <b>null</b>
+     */
+    @SuppressWarnings("unchecked")
+    private static <V> V find(final Node root, final Object key)
+    {
+        return (root != null) ? (V) root.find(0, hash(key), key) : null;
+    }
+
+    /**
+     * Returns the hash code of the given key.
+     *
+     * @param key the key
+     * @return the hash code of this key
+     */
+    private static int hash(final Object key)
+    {
+        return key.hashCode();
+    }
+
+    /**
+     * Returns the bit representing the given hash code on the level defined by
+     * the shift.
+     *
+     * @param hash the hash code
+     * @param shift the shift of the current level
+     * @return the bit for this level
+     */
+    private static int bitPos(final int hash, final int shift)
+    {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * Returns a copy of the given array in which the two elements at the
+     * given index are removed.
+     *
+     * @param array the array
+     * @param index the index of the first element to remove
+     * @return the new array
+     */
+    private static Object[] removePair(final Object[] array, final int index)
+    {
+        final Object[] newArray = new Object[array.length - 2];
+        System.arraycopy(array, 0, newArray, 0, index);
+        System.arraycopy(array, index + 2, newArray, index, newArray.length
+                - index);
+        return newArray;
+    }
+
+    /**
+     * Returns a copy of the given array with a new pair of elements inserted
+     * at the given index.
+     *
+     * @param array the array
+     * @param index the index of the new elements
+     * @param first the first element
+     * @param second the second element
+     * @return the new array
+     */
+    private static Object[] insertPair(final Object[] array, final int index,
+            final Object first, final Object second)
+    {
+        final Object[] newArray = new Object[array.length + 2];
+        System.arraycopy(array, 0, newArray, 0, index);
+        newArray[index] = first;
+        newArray[index + 1] = second;
+        System.arraycopy(array, index, newArray, index + 2, array.length
+                - index);
+        return newArray;
+    }
+
+    /**
+     * <p>
+     * A class for performing multiple updates on a {@code PersistentHashMap}.
+     * </p>
+     * <p>
+     * An editor is initialized with the content of a map. It offers methods
+     * for reading and manipulating this content. Nodes of the trie which have
+     * been created by this editor are updated in place. The {@code create()}
+     * method returns an immutable map with the current content; afterwards
+     * the editor can no longer be used. An editor is not thread-safe.
+     * </p>
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    static final class Editor<K, V>
+    {
+        /** A flag used to track whether an entry was added or removed. */
+        private final Box changed;
+
+        /** The token identifying the nodes owned by this editor. */
+        private Object owner;
+
+        /** The current root node. */
+        private Node root;
+
+        /** The current size. */
+        private int size;
+
+        /**
+         * Creates a new instance of {@code Editor}.
+         *
+         * @param root the initial root node
+         * @param size the initial size
+         */
+        private Editor(final Node root, final int size)
+        {
+            this.root = root;
+            this.size = size;
+            changed = new Box();
+            owner = new Object();
+        }
+
+        /**
+         * Returns the value stored for the given key or <b>null</b> if the key
+         * is not contained.
+         *
+         * @param key the key
+         * @return the value for this key or <b>null</b>
+         */
+        public V get(final Object key)
+        {
+            return find(root, key);
+        }
+
+        /**
+         * Returns the current number of entries.
+         *
+         * @return the size
+         */
+        public int size()
+        {
+            return size;
+        }
+
+        /**
+         * Adds a key-value pair. An existing value for this key is replaced.
+         *
+         * @param key the key
+         * @param value the value
+         */
+        public void put(final K key, final V value)
+        {
+            final Object token = checkOwner();
+            changed.flag = false;
+            final Node start = (root != null) ? root : BitmapNode.EMPTY;
+            root = start.put(token, 0, hash(key), key, value, changed);
+            if (changed.flag)
+            {
+                size++;
+            }
+        }
+
+        /**
+         * Removes the entry with the given key. If the key is not contained,
+         * this method has no effect.
+         *
+         * @param key the key to be removed
+         */
+        public void remove(final Object key)
+        {
+            final Object token = checkOwner();
+            if (root != null)
+            {
+                changed.flag = false;
+                root = root.remove(token, 0, hash(key), key, changed);
+                if (changed.flag)
+                {
+                    size--;
+                }
+            }
+        }
+
+        /**
+         * Removes all entries.
+         */
+        public void clear()
+        {
+            checkOwner();
+            root = null;
+            size = 0;
+        }
+
+        /**
+         * Returns an immutable map with the content of this editor. After
+         * this method has been called, the editor can no longer be used.
+         *
+         * @return the resulting map
+         */
+        public PersistentHashMap<K, V> create()
+        {
+            checkOwner();
+            owner = null;
+            return (size == 0) ? PersistentHashMap.<K, V> empty()
+                    : new PersistentHashMap<K, V>(root, size);
+        }
+
+        /**
+         * Returns the owner token of this editor and checks whether it is
+         * still valid.
+         *
+         * @return the owner token
+         * @throws IllegalStateException if {@code create()} has already been
+         *         called
+         */
+        private Object checkOwner()
+        {
+            if (owner == null)
+            {
+                throw new IllegalStateException(
+                        "Editor cannot be used after create() was called!");
+            }
+            return owner;
+        }
+    }
+
+    /**
+     * A simple mutable flag used to report structural changes from the
+     * recursive update methods.
+     */
+    private static final class Box
+    {
+        /** The flag. */
+        private boolean flag;
+    }
+
+    /**
+     * An abstract base class for the nodes of the trie.
+     */
+    private abstract static class Node
+    {
+        /** The editor token owning this node; it can then be changed in place. */
+        final Object owner;
+
+        /**
+         * Creates a new instance of {@code Node}.
+         *
+         * @param owner the owner token
+         */
+        protected Node(final Object owner)
+        {
+            this.owner = owner;
+        }
+
+        /**
+         * Looks up a key in this node.
+         *
+         * @param shift the shift of this node's level
+         * @param hash the hash code of the key
+         * @param key the key
+         * @return the value of this key or <b>null</b>
+         */
+        abstract Object find(int shift, int hash, Object key);
+
+        /**
+         * Returns the array with the entries of this node. It consists of
+         * pairs of elements. A pair with a <b>null</b> key references a sub
+         * node, all other pairs are key-value pairs.
+         *
+         * @return the array with entries
+         */
+        abstract Object[] entries();
+
+        /**
+         * Adds a key-value pair to this node.
+         *
+         * @param token the token of the current editor
+         * @param shift the shift of this node's level
+         * @param hash the hash code of the key
+         * @param key the key
+         * @param value the value
+         * @param added a flag to be set if a new entry was added
+         * @return the updated node
+         */
+        abstract Node put(Object token, int shift, int hash, Object key,
+                Object value, Box added);
+
+        /**
+         * Removes a key from this node.
+         *
+         * @param token the token of the current editor
+         * @param shift the shift of this node's level
+         * @param hash the hash code of the key
+         * @param key the key
+         * @param removed a flag to be set if an entry was removed
+         * @return the updated node or <b>null</b> if it became empty
+         */
+        abstract Node remove(Object token, int shift, int hash, Object key,
+                Box removed);
+
+        /**
+         * Checks whether this node can be changed in place by the editor with
+         * the given token.
+         *
+         * @param token the token of the current editor
+         * @return a flag whether this node is owned by this editor
+         */
+        boolean isOwnedBy(final Object token)
+        {
+            return owner == token;
+        }
+    }
+
+    /**
+     * A node storing its entries in an array indexed by a bitmap. Each entry
+     * occupies two slots of the array: For a key-value pair the first slot
+     * contains the key and the second one the value. For a sub node the first
+     * slot is <b>null</b> and the second one contains the node.
+     */
+    private static final class BitmapNode extends Node
+    {
+        /** An empty node. */
+        static final BitmapNode EMPTY = new BitmapNode(null, 0, new Object[0]);
+
+        /** The bitmap. */
+        private int bitmap;
+
+        /** The array with entries. */
+        private Object[] array;
+
+        /**
+         * Creates a new instance of {@code BitmapNode}.
+         *
+         * @param owner the owner token
+         * @param bitmap the bitmap
+         * @param array the array with entries
+         */
+        BitmapNode(final Object owner, final int bitmap, final Object[] array)
+        {
+            super(owner);
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        @Override
+        Object find(final int shift, final int hash, final Object key)
+        {
+            final int bit = bitPos(hash, shift);
+            if ((bitmap & bit) == 0)
+            {
+                return null;
+            }
+            final int idx = index(bit);
+            final Object k = array[idx];
+            final Object v = array[idx + 1];
+            if (k == null)
+            {
+                return ((Node) v).find(shift + BITS, hash, key);
+            }
+            return key.equals(k) ? v : null;
+        }
+
+        @Override
+        Object[] entries()
+        {
+            return array;
+        }
+
+        @Override
+        Node put(final Object token, final int shift, final int hash,
+                final Object key, final Object value, final Box added)
+        {
+            final int bit = bitPos(hash, shift);
+            final int idx = index(bit);
+            if ((bitmap & bit) == 0)
+            {
+                added.flag = true;
+                return update(token, bitmap | bit,
+                        insertPair(array, idx, key, value));
+            }
+
+            final Object k = array[idx];
+            final Object v = array[idx + 1];
+            if (k == null)
+            {
+                final Node child = (Node) v;
+                final Node newChild =
+                        child.put(token, shift + BITS, hash, key, value, added);
+                return (newChild == child) ? this : set(token, idx + 1,
+                        newChild);
+            }
+            if (key.equals(k))
+            {
+                return (value == v) ? this : set(token, idx + 1, value);
+            }
+
+            added.flag = true;
+            final Node subNode =
+                    createSubNode(token, shift + BITS, k, v, hash, key, value);
+            return set(token, idx, null).set(token, idx + 1, subNode);
+        }
+
+        @Override
+        Node remove(final Object token, final int shift, final int hash,
+                final Object key, final Box removed)
+        {
+            final int bit = bitPos(hash, shift);
+            if ((bitmap & bit) == 0)
+            {
+                return this;
+            }
+
+            final int idx = index(bit);
+            final Object k = array[idx];
+            final Object v = array[idx + 1];
+            if (k == null)
+            {
+                final Node child = (Node) v;
+                final Node newChild =
+                        child.remove(token, shift + BITS, hash, key, removed);
+                if (newChild == child)
+                {
+                    return this;
+                }
+                if (newChild != null)
+                {
+                    return set(token, idx + 1, newChild);
+                }
+            }
+            else if (!key.equals(k))
+            {
+                return this;
+            }
+            else
+            {
+                removed.flag = true;
+            }
+
+            if (bitmap == bit)
+            {
+                return null;
+            }
+            return update(token, bitmap ^ bit, removePair(array, idx));
+        }
+
+        /**
+         * Returns the array index for the given bit.
+         *
+         * @param bit the bit
+         * @return the index of the corresponding entry in the array
+         */
+        private int index(final int bit)
+        {
+            return 2 * Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        /**
+         * Sets an element of the array, either in place or in a copy.
+         *
+         * @param token the token of the current editor
+         * @param idx the index
+         * @param obj the new element
+         * @return the updated node
+         */
+        private BitmapNode set(final Object token, final int idx,
+                final Object obj)
+        {
+            if (isOwnedBy(token))
+            {
+                array[idx] = obj;
+                return this;
+            }
+            final Object[] newArray = array.clone();
+            newArray[idx] = obj;
+            return new BitmapNode(token, bitmap, newArray);
+        }
+
+        /**
+         * Replaces the bitmap and the array, either in place or in a copy.
+         *
+         * @param token the token of the current editor
+         * @param newBitmap the new bitmap
+         * @param newArray the new array
+         * @return the updated node
+         */
+        private BitmapNode update(final Object token, final int newBitmap,
+                final Object[] newArray)
+        {
+            if (isOwnedBy(token))
+            {
+                bitmap = newBitmap;
+                array = newArray;
+                return this;
+            }
+            return new BitmapNode(token, newBitmap, newArray);
+        }
+
+        /**
+         * Creates a node on the next level containing two entries whose keys
+         * fall into the same slot on the current level.
+         *
+         * @param token the token of the current editor
+         * @param shift the shift of the new node's level
+         * @param key1 the first key
+         * @param value1 the first value
+         * @param hash2 the hash code of the second key
+         * @param key2 the second key
+         * @param value2 the second value
+         * @return the new node
+         */
+        private static Node createSubNode(final Object token, final int shift,
+                final Object key1, final Object value1, final int hash2,
+                final Object key2, final Object value2)
+        {
+            final int hash1 = hash(key1);
+            if (hash1 == hash2)
+            {
+                return new CollisionNode(token, hash1, new Object[] {
+                        key1, value1, key2, value2
+                });
+            }
+            final Box dummy = new Box();
+            return new BitmapNode(token, 0, new Object[0]).put(token, shift,
+                    hash1, key1, value1, dummy).put(token, shift, hash2, key2,
+                    value2, dummy);
+        }
+    }
+
+    /**
+     * A node storing entries whose keys have the same hash code.
+     */
+    private static final class CollisionNode extends Node
+    {
+        /** The common hash code of all keys. */
+        private final int hash;
+
+        /** The array with key-value pairs. */
+        private Object[] array;
+
+        /**
+         * Creates a new instance of {@code CollisionNode}.
+         *
+         * @param owner the owner token
+         * @param hash the hash code
+         * @param array the array with key-value pairs
+         */
+        CollisionNode(final Object owner, final int hash, final Object[] array)
+        {
+            super(owner);
+            this.hash = hash;
+            this.array = array;
+        }
+
+        @Override
+        Object find(final int shift, final int hash, final Object key)
+        {
+            final int idx = indexOf(key);
+            return (idx < 0) ? null : array[idx + 1];
+        }
+
+        @Override
+        Object[] entries()
+        {
+            return array;
+        }
+
+        @Override
+        Node put(final Object token, final int shift, final int hash,
+                final Object key, final Object value, final Box added)
+        {
+            if (hash != this.hash)
+            {
+                // nest this node into a bitmap node on the current level
+                return new BitmapNode(token, bitPos(this.hash, shift),
+                        new Object[] {
+                                null, this
+                        }).put(token, shift, hash, key, value, added);
+            }
+
+            final int idx = indexOf(key);
+            if (idx >= 0)
+            {
+                if (array[idx + 1] == value)
+                {
+                    return this;
+                }
+                final Object[] newArray = isOwnedBy(token) ? array : array.clone();
+                newArray[idx + 1] = value;
+                return update(token, newArray);
+            }
+
+            added.flag = true;
+            return update(token, insertPair(array, array.length, key, value));
+        }
+
+        @Override
+        Node remove(final Object token, final int shift, final int hash,
+                final Object key, final Box removed)
+        {
+            final int idx = indexOf(key);
+            if (idx < 0)
+            {
+                return this;
+            }
+            removed.flag = true;
+            return (array.length == 2) ? null : update(token,
+                    removePair(array, idx));
+        }
+
+        /**
+         * Returns the index of the given key in the array or -1 if it cannot
+         * be found.
+         *
+         * @param key the key
+         * @return the index of this key
+         */
+        private int indexOf(final Object key)
+        {
+            for (int i = 0; i < array.length; i += 2)
+            {
+                if (key.equals(array[i]))
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Replaces the array, either in place or in a copy.
+         *
+         * @param token the token of the current editor
+         * @param newArray the new array
+         * @return the updated node
+         */
+        private CollisionNode update(final Object token, final Object[] newArray)
+        {
+            if (isOwnedBy(token))
+            {
+                array = newArray;
+                return this;
+            }
+            return new CollisionNode(token, hash, newArray);
+        }
+    }
+
+    /**
+     * The iterator implementation. It traverses the trie in depth-first order
+     * using an explicit stack of the entry arrays currently visited.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    private static final class EntryIterator<K, V> implements
+            Iterator<Map.Entry<K, V>>
+    {
+        /** The stack with the entry arrays of the nodes being visited. */
+        private final Object[][] arrays;
+
+        /** The stack with the current positions in these arrays. */
+        private final int[] positions;
+
+        /** The current depth in the stack; -1 means exhausted. */
+        private int depth;
+
+        /** The next entry to be returned. */
+        private Map.Entry<K, V> nextEntry;
+
+        /**
+         * Creates a new instance of {@code EntryIterator}.
+         *
+         * @param root the root node of the trie (may be <b>null</b>)
+         */
+        EntryIterator(final Node root)
+        {
+            arrays = new Object[MAX_DEPTH][];
+            positions = new int[MAX_DEPTH];
+            if (root != null)
+            {
+                arrays[0] = root.entries();
+            }
+            else
+            {
+                depth = -1;
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return nextEntry != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next()
+        {
+            if (nextEntry == null)
+            {
+                throw new NoSuchElementException();
+            }
+            final Map.Entry<K, V> result = nextEntry;
+            advance();
+            return result;
+        }
+
+        /**
+         * Moves to the next key-value pair in the trie.
+         */
+        @SuppressWarnings("unchecked")
+        private void advance()
+        {
+            nextEntry = null;
+            while (depth >= 0)
+            {
+                final Object[] array = arrays[depth];
+                final int pos = positions[depth];
+                if (pos >= array.length)
+                {
+                    arrays[depth--] = null;
+                    continue;
+                }
+
+                positions[depth] = pos + 2;
+                if (array[pos] == null)
+                {
+                    depth++;
+                    arrays[depth] = ((Node) array[pos + 1]).entries();
+                    positions[depth] = 0;
+                }
+                else
+                {
+                    nextEntry = new AbstractMap.SimpleImmutableEntry<>(
+                            (K) array[pos], (V) array[pos + 1]);
+                    return;
+                }
+            }
+        }
+    }
+}
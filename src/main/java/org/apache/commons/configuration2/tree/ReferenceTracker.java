@@ -18,7 +18,6 @@ package org.apache.commons.configuration2.tree;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -56,7 +55,7 @@ import java.util.Map;
 class ReferenceTracker
 {
     /** A map with reference data. */
-    private final Map<ImmutableNode, Object> references;
+    private final PersistentHashMap<ImmutableNode, Object> references;
 
     /** A list with the removed references. */
     private final List<Object> removedReferences;
@@ -69,7 +68,7 @@ class ReferenceTracker
      * @param refs the references
      * @param removedRefs the removed references
      */
-    private ReferenceTracker(final Map<ImmutableNode, Object> refs,
+    private ReferenceTracker(final PersistentHashMap<ImmutableNode, Object> refs,
             final List<Object> removedRefs)
     {
         references = refs;
@@ -82,7 +81,7 @@ class ReferenceTracker
      */
     public ReferenceTracker()
     {
-        this(Collections.<ImmutableNode, Object> emptyMap(), Collections
+        this(PersistentHashMap.<ImmutableNode, Object> empty(), Collections
                 .emptyList());
     }
 
@@ -96,10 +95,13 @@ class ReferenceTracker
      */
     public ReferenceTracker addReferences(final Map<ImmutableNode, ?> refs)
     {
-        final Map<ImmutableNode, Object> newRefs =
-                new HashMap<>(references);
-        newRefs.putAll(refs);
-        return new ReferenceTracker(newRefs, removedReferences);
+        final PersistentHashMap.Editor<ImmutableNode, Object> newRefs =
+                references.edit();
+        for (final Map.Entry<ImmutableNode, ?> e : refs.entrySet())
+        {
+            newRefs.put(e.getKey(), e.getValue());
+        }
+        return new ReferenceTracker(newRefs.create(), removedReferences);
     }
 
     /**
@@ -118,7 +120,7 @@ class ReferenceTracker
     {
         if (!references.isEmpty())
         {
-            Map<ImmutableNode, Object> newRefs = null;
+            PersistentHashMap.Editor<ImmutableNode, Object> newRefs = null;
             for (final Map.Entry<ImmutableNode, ImmutableNode> e : replacedNodes
                     .entrySet())
             {
@@ -127,8 +129,7 @@ class ReferenceTracker
                 {
                     if (newRefs == null)
                     {
-                        newRefs =
-                                new HashMap<>(references);
+                        newRefs = references.edit();
                     }
                     newRefs.put(e.getValue(), ref);
                     newRefs.remove(e.getKey());
@@ -145,8 +146,7 @@ class ReferenceTracker
                 {
                     if (newRefs == null)
                     {
-                        newRefs =
-                                new HashMap<>(references);
+                        newRefs = references.edit();
                     }
                     newRefs.remove(node);
                     if (newRemovedRefs == null)
@@ -160,7 +160,7 @@ class ReferenceTracker
 
             if (newRefs != null)
             {
-                return new ReferenceTracker(newRefs, newRemovedRefs);
+                return new ReferenceTracker(newRefs.create(), newRemovedRefs);
             }
         }
 
@@ -197,6 +197,22 @@ public class TrackedNodeModel implements NodeModel<ImmutableNode>
         getParentModel().setProperty(key, getSelector(), value, resolver);
     }
 
+    /**
+     * Executes all operations of the given {@code BatchUpdate} as a single
+     * update. The keys of the operations are interpreted relative to the
+     * tracked node this model is based upon.
+     *
+     * @param batch the {@code BatchUpdate} to be executed
+     * @param resolver the {@code NodeKeyResolver}
+     * @see InMemoryNodeModel#updateBatch(BatchUpdate, NodeSelector, NodeKeyResolver)
+     * @since 2.5
+     */
+    public void updateBatch(final BatchUpdate batch,
+            final NodeKeyResolver<ImmutableNode> resolver)
+    {
+        getParentModel().updateBatch(batch, getSelector(), resolver);
+    }
+
     @Override
     public List<QueryResult<ImmutableNode>> clearTree(final String key,
             final NodeKeyResolver<ImmutableNode> resolver)
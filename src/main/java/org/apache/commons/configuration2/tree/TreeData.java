@@ -35,7 +35,7 @@ class TreeData extends AbstractImmutableNodeHandler implements ReferenceNodeHand
     private final ImmutableNode root;
 
     /** A map that associates the parent node to each node. */
-    private final Map<ImmutableNode, ImmutableNode> parentMapping;
+    private final PersistentHashMap<ImmutableNode, ImmutableNode> parentMapping;
 
     /**
      * Stores information about nodes which have been replaced by
@@ -64,7 +64,7 @@ class TreeData extends AbstractImmutableNodeHandler implements ReferenceNodeHand
      * @param refTracker the {@code ReferenceTracker}
      */
     public TreeData(final ImmutableNode root,
-            final Map<ImmutableNode, ImmutableNode> parentMapping,
+            final PersistentHashMap<ImmutableNode, ImmutableNode> parentMapping,
             final Map<ImmutableNode, ImmutableNode> replacements,
             final NodeTracker tracker, final ReferenceTracker refTracker)
     {
@@ -130,13 +130,15 @@ class TreeData extends AbstractImmutableNodeHandler implements ReferenceNodeHand
     }
 
     /**
-     * Returns a copy of the mapping from nodes to their parents.
+     * Returns the mapping from nodes to their parents. As this mapping is
+     * immutable, it can be used as starting point for updates without being
+     * copied.
      *
-     * @return the copy of the parent mapping
+     * @return the parent mapping
      */
-    public Map<ImmutableNode, ImmutableNode> copyParentMapping()
+    public PersistentHashMap<ImmutableNode, ImmutableNode> getParentMapping()
     {
-        return new HashMap<>(parentMapping);
+        return parentMapping;
     }
 
     /**
@@ -18,6 +18,7 @@ package org.apache.commons.configuration2;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
@@ -1071,6 +1072,172 @@ public class TestAbstractConfigurationBasicFeatures
         assertEquals("Wrong size", PROP_COUNT, config.size());
     }
 
+    /**
+     * Tests that the cache for converted values is disabled per default.
+     */
+    @Test
+    public void testConversionCacheDisabledByDefault()
+    {
+        final CountingConfiguration config = new CountingConfiguration();
+        assertFalse("Cache enabled", config.isConversionCacheEnabled());
+        config.addProperty(KEY_PREFIX, "42");
+        config.getInt(KEY_PREFIX);
+        config.getInt(KEY_PREFIX);
+        assertEquals("Wrong number of accesses", 2, config.accessCount);
+    }
+
+    /**
+     * Tests whether converted values are served from the cache.
+     */
+    @Test
+    public void testConversionCacheHit()
+    {
+        final CountingConfiguration config = new CountingConfiguration();
+        config.setConversionCacheEnabled(true);
+        config.addProperty(KEY_PREFIX, "42");
+        assertEquals("Wrong value (1)", 42, config.getInt(KEY_PREFIX));
+        assertEquals("Wrong value (2)", 42, config.getInt(KEY_PREFIX));
+        assertEquals("Wrong value (3)", Long.valueOf(42),
+                config.get(Long.class, KEY_PREFIX));
+        assertEquals("Wrong number of accesses", 2, config.accessCount);
+    }
+
+    /**
+     * Tests whether the cache for converted values is invalidated when a
+     * property is changed.
+     */
+    @Test
+    public void testConversionCacheInvalidatedByUpdates()
+    {
+        final CountingConfiguration config = new CountingConfiguration();
+        config.setConversionCacheEnabled(true);
+        config.addProperty(KEY_PREFIX, "1");
+        config.addProperty("other", "100");
+        assertEquals("Wrong initial value", 1, config.getInt(KEY_PREFIX));
+        assertEquals("Wrong other value", 100, config.getInt("other"));
+        config.setProperty(KEY_PREFIX, "2");
+        assertEquals("Wrong value after set", 2, config.getInt(KEY_PREFIX));
+        config.clearProperty(KEY_PREFIX);
+        assertNull("Got a value after clear",
+                config.getInteger(KEY_PREFIX, null));
+        config.addProperty(KEY_PREFIX, "3");
+        assertEquals("Wrong value after add", 3, config.getInt(KEY_PREFIX));
+        config.clear();
+        assertEquals("Wrong default value", 4, config.getInt("other", 4));
+    }
+
+    /**
+     * Tests that the default value is applied correctly for undefined
+     * properties stored in the cache for converted values.
+     */
+    @Test
+    public void testConversionCacheUndefinedProperty()
+    {
+        final CountingConfiguration config = new CountingConfiguration();
+        config.setConversionCacheEnabled(true);
+        assertEquals("Wrong default (1)", 1, config.getInt(KEY_PREFIX, 1));
+        assertEquals("Wrong default (2)", 2, config.getInt(KEY_PREFIX, 2));
+        assertEquals("Wrong number of accesses", 1, config.accessCount);
+    }
+
+    /**
+     * Tests that values affected by interpolation are not cached.
+     */
+    @Test
+    public void testConversionCacheInterpolatedValue()
+    {
+        final CountingConfiguration config = new CountingConfiguration();
+        config.setConversionCacheEnabled(true);
+        config.addProperty("base", "10");
+        config.addProperty(KEY_PREFIX, "${base}");
+        assertEquals("Wrong value (1)", 10, config.getInt(KEY_PREFIX));
+        config.setProperty("base", "20");
+        assertEquals("Wrong value (2)", 20, config.getInt(KEY_PREFIX));
+    }
+
+    /**
+     * Tests that values referencing an undefined variable are not cached, so
+     * that a later definition of the variable is taken into account.
+     */
+    @Test
+    public void testConversionCacheUndefinedVariable()
+    {
+        final CountingConfiguration config = new CountingConfiguration();
+        config.setConversionCacheEnabled(true);
+        config.addProperty(KEY_PREFIX, "${base}");
+        assertEquals("Wrong value (1)", "${base}",
+                config.get(String.class, KEY_PREFIX));
+        config.addProperty("base", "20");
+        assertEquals("Wrong value (2)", "20",
+                config.get(String.class, KEY_PREFIX));
+    }
+
+    /**
+     * Tests whether change events invalidate the interpolation results cached
+     * by the configuration's interpolator.
+     */
+    @Test
+    public void testInterpolationCacheInvalidatedByUpdates()
+    {
+        final BaseConfiguration config = new BaseConfiguration();
+        config.getInterpolator().setEnableCaching(true);
+        config.addProperty("animal", "quick brown fox");
+        config.addProperty("target", "lazy dog");
+        config.addProperty(KEY_PREFIX, SUBST_TXT);
+        assertEquals("Wrong initial value",
+                "The quick brown fox jumps over the lazy dog.",
+                config.getString(KEY_PREFIX));
+        config.setProperty("target", "fence");
+        assertEquals("Wrong value after change",
+                "The quick brown fox jumps over the fence.",
+                config.getString(KEY_PREFIX));
+    }
+
+    /**
+     * Tests whether the interpolation result cached for the old value of a
+     * property is removed when the property is changed.
+     */
+    @Test
+    public void testInterpolationCacheEvictsReplacedValue()
+    {
+        final BaseConfiguration config = new BaseConfiguration();
+        final List<String> resolved = new ArrayList<>();
+        config.getInterpolator().registerLookup("test", new Lookup()
+        {
+            @Override
+            public Object lookup(final String variable)
+            {
+                resolved.add(variable);
+                return "value";
+            }
+        });
+        config.getInterpolator().setEnableCaching(true);
+        config.addProperty(KEY_PREFIX, "${test:x}");
+        config.addProperty("other", "${test:x}");
+        assertEquals("Wrong value (1)", "value", config.getString(KEY_PREFIX));
+        final int lookupCount = resolved.size();
+        config.setProperty(KEY_PREFIX, "new");
+        assertEquals("Wrong value (2)", "value", config.getString("other"));
+        assertEquals("Result not evicted", 2 * lookupCount, resolved.size());
+    }
+
+    /**
+     * Tests that a clone does not share the cache for converted values.
+     */
+    @Test
+    public void testConversionCacheClone()
+    {
+        final BaseConfiguration config = new BaseConfiguration();
+        config.setConversionCacheEnabled(true);
+        config.addProperty(KEY_PREFIX, "1");
+        assertEquals("Wrong value", 1, config.getInt(KEY_PREFIX));
+        final BaseConfiguration copy = (BaseConfiguration) config.clone();
+        copy.setProperty(KEY_PREFIX, "2");
+        assertTrue("Cache not enabled", copy.isConversionCacheEnabled());
+        assertEquals("Wrong value in copy", 2, copy.getInt(KEY_PREFIX));
+        assertEquals("Wrong value in original", 1, config.getInt(KEY_PREFIX));
+    }
+
     /**
      * Creates the source configuration for testing the copy() and append()
      * methods. This configuration contains keys with an odd index and values
@@ -1219,6 +1386,28 @@ public class TestAbstractConfigurationBasicFeatures
         }
     }
 
+    /**
+     * A test configuration implementation which counts the accesses to
+     * property values.
+     */
+    private static class CountingConfiguration extends TestConfigurationImpl
+    {
+        /** The number of property accesses. */
+        private int accessCount;
+
+        public CountingConfiguration()
+        {
+            super(new BaseConfiguration());
+        }
+
+        @Override
+        protected Object getPropertyInternal(final String key)
+        {
+            accessCount++;
+            return super.getPropertyInternal(key);
+        }
+    }
+
     /**
      * An event listener implementation that simply collects all received
      * configuration events.
@@ -786,4 +786,15 @@ public class TestBaseConfiguration
         }
         assertEquals("Wrong size", count, config.size());
     }
+
+    /**
+     * Tests that optimistic reads are not supported because the data is
+     * stored in a mutable map.
+     */
+    @Test
+    public void testOptimisticReadNotSupported()
+    {
+        assertFalse("Optimistic reads supported",
+                config.isOptimisticReadSupported());
+    }
 }
@@ -31,10 +31,13 @@ import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.configuration2.SynchronizerTestImpl.Methods;
 import org.apache.commons.configuration2.convert.DefaultListDelimiterHandler;
@@ -49,6 +52,7 @@ import org.apache.commons.configuration2.sync.Synchronizer;
 import org.apache.commons.configuration2.tree.DefaultExpressionEngine;
 import org.apache.commons.configuration2.tree.DefaultExpressionEngineSymbols;
 import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.commons.configuration2.tree.InMemoryNodeModel;
 import org.apache.commons.configuration2.tree.NodeCombiner;
 import org.apache.commons.configuration2.tree.NodeModel;
 import org.apache.commons.configuration2.tree.OverrideCombiner;
@@ -372,6 +376,186 @@ public class TestCombinedConfiguration
         listener.checkEvent(1, 0);
     }
 
+    /**
+     * Adds a number of simple child configurations to the test configuration
+     * and installs a combiner which counts its invocations.
+     *
+     * @param count the number of child configurations
+     * @return the counting combiner
+     */
+    private CountingCombiner setUpIncrementalTest(final int count)
+    {
+        final CountingCombiner combiner = new CountingCombiner();
+        config.setNodeCombiner(combiner);
+        for (int i = 0; i < count; i++)
+        {
+            final BaseHierarchicalConfiguration child =
+                    new BaseHierarchicalConfiguration();
+            child.addProperty("key" + i, "value" + i);
+            config.addConfiguration(child);
+        }
+        assertEquals("Wrong initial value", "value0", config.getString("key0"));
+        assertEquals("Wrong number of initial combinations", count - 1,
+                combiner.combinations.getAndSet(0));
+        return combiner;
+    }
+
+    /**
+     * Tests that a change of a child configuration only recombines the nodes
+     * starting with this child.
+     */
+    @Test
+    public void testIncrementalRecombinationOnChange()
+    {
+        final CountingCombiner combiner = setUpIncrementalTest(4);
+        ((AbstractConfiguration) config.getConfiguration(3)).setProperty(
+                "key3", "changed3");
+        assertEquals("Wrong value 3", "changed3", config.getString("key3"));
+        assertEquals("Wrong combinations for last child", 1,
+                combiner.combinations.getAndSet(0));
+
+        ((AbstractConfiguration) config.getConfiguration(1)).setProperty(
+                "key1", "changed1");
+        assertEquals("Wrong value 1", "changed1", config.getString("key1"));
+        assertEquals("Change not kept", "changed3", config.getString("key3"));
+        assertEquals("Wrong combinations for second child", 3,
+                combiner.combinations.getAndSet(0));
+    }
+
+    /**
+     * Tests that only the affected nodes are recombined if child
+     * configurations are added or removed.
+     */
+    @Test
+    public void testIncrementalRecombinationAddRemove()
+    {
+        final CountingCombiner combiner = setUpIncrementalTest(4);
+        final BaseHierarchicalConfiguration child =
+                new BaseHierarchicalConfiguration();
+        child.addProperty("key4", "value4");
+        config.addConfiguration(child);
+        assertEquals("Wrong value of added child", "value4",
+                config.getString("key4"));
+        assertEquals("Wrong combinations after add", 1,
+                combiner.combinations.getAndSet(0));
+
+        config.removeConfigurationAt(2);
+        assertFalse("Removed child still found", config.containsKey("key2"));
+        assertEquals("Wrong value after remove", "value3",
+                config.getString("key3"));
+        assertEquals("Wrong combinations after remove", 2,
+                combiner.combinations.getAndSet(0));
+    }
+
+    /**
+     * Tests that invalidate() causes a full recombination, including changes
+     * of child configurations which were not reported.
+     */
+    @Test
+    public void testInvalidateFullRecombination()
+    {
+        final CountingCombiner combiner = setUpIncrementalTest(3);
+        final BaseHierarchicalConfiguration child =
+                (BaseHierarchicalConfiguration) config.getConfiguration(0);
+        child.removeEventListener(ConfigurationEvent.ANY, config);
+        child.setProperty("key0", "changed");
+        assertEquals("Change detected", "value0", config.getString("key0"));
+
+        config.invalidate();
+        assertEquals("Change not detected", "changed", config.getString("key0"));
+        assertEquals("Wrong number of combinations", 2,
+                combiner.combinations.get());
+    }
+
+    /**
+     * Tests that stale reads are disabled by default.
+     */
+    @Test
+    public void testStaleReadDisabledByDefault()
+    {
+        assertFalse("Stale reads enabled", config.isStaleReadEnabled());
+    }
+
+    /**
+     * Tests that in stale read mode readers are not blocked while another
+     * thread re-constructs the combined node structure.
+     */
+    @Test(timeout = 10000)
+    public void testStaleReadWhileRebuilding() throws InterruptedException
+    {
+        final BlockingCombiner combiner = new BlockingCombiner();
+        config.setSynchronizer(new ReadWriteSynchronizer());
+        config.setNodeCombiner(combiner);
+        config.setStaleReadEnabled(true);
+        final BaseHierarchicalConfiguration child1 =
+                new BaseHierarchicalConfiguration();
+        child1.addProperty("key1", "value1");
+        final BaseHierarchicalConfiguration child2 =
+                new BaseHierarchicalConfiguration();
+        child2.addProperty("key2", "value2");
+        config.addConfiguration(child1);
+        config.addConfiguration(child2);
+        assertEquals("Wrong initial value", "value2", config.getString("key2"));
+
+        combiner.block = true;
+        child2.setProperty("key2", "changed");
+        final AtomicReference<String> rebuildResult = new AtomicReference<>();
+        final Thread rebuildThread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                rebuildResult.set(config.getString("key2"));
+            }
+        };
+        rebuildThread.start();
+        combiner.entered.await();
+        assertEquals("Wrong stale value", "value2", config.getString("key2"));
+
+        combiner.release.countDown();
+        rebuildThread.join();
+        assertEquals("Wrong value of rebuilding thread", "changed",
+                rebuildResult.get());
+        assertEquals("Wrong value after rebuild", "changed",
+                config.getString("key2"));
+    }
+
+    /**
+     * Tests that a node structure constructed in stale read mode is not
+     * published if the configuration was invalidated in the meantime.
+     */
+    @Test
+    public void testStaleReadRebuildOutdated()
+    {
+        config.setStaleReadEnabled(true);
+        final BaseHierarchicalConfiguration child =
+                new BaseHierarchicalConfiguration();
+        child.addProperty("key", "value");
+        final AtomicBoolean changeDuringRebuild = new AtomicBoolean();
+        final BaseHierarchicalConfiguration child2 =
+                new BaseHierarchicalConfiguration()
+                {
+                    @Override
+                    public InMemoryNodeModel getNodeModel()
+                    {
+                        if (changeDuringRebuild.getAndSet(false))
+                        {
+                            child.setProperty("key", "changedAgain");
+                        }
+                        return super.getNodeModel();
+                    }
+                };
+        config.addConfiguration(child);
+        config.addConfiguration(child2);
+        assertEquals("Wrong initial value", "value", config.getString("key"));
+
+        changeDuringRebuild.set(true);
+        child2.addProperty("other", "test");
+        assertEquals("Wrong stale value", "value", config.getString("key"));
+        assertEquals("Wrong value after rebuild", "changedAgain",
+                config.getString("key"));
+    }
+
     /**
      * Tests setting a null node combiner. This should cause an exception.
      */
@@ -645,6 +829,39 @@ public class TestCombinedConfiguration
                 listener.invalidateEvents);
     }
 
+    /**
+     * Tests that a change of a child configuration is visible if the combined
+     * node structure is re-constructed between the events fired before and
+     * after the change.
+     */
+    @Test
+    public void testRebuildBetweenBeforeAndAfterEvent()
+    {
+        final BaseHierarchicalConfiguration child =
+                new BaseHierarchicalConfiguration();
+        child.addProperty("key", "old");
+        config.addConfiguration(child);
+        assertEquals("Wrong initial value", "old", config.getString("key"));
+        child.addEventListener(ConfigurationEvent.ANY,
+                new EventListener<ConfigurationEvent>()
+                {
+                    @Override
+                    public void onEvent(final ConfigurationEvent event)
+                    {
+                        if (event.isBeforeUpdate())
+                        {
+                            config.getString("key");
+                        }
+                    }
+                });
+        listener.invalidateEvents = 0;
+
+        child.setProperty("key", "new");
+        assertEquals("Change not visible", "new", config.getString("key"));
+        assertEquals("Wrong number of invalidate events", 2,
+                listener.invalidateEvents);
+    }
+
     /**
      * Tests using a conversion expression engine for child configurations with
      * strange keys. This test is related to CONFIGURATION-336.
@@ -1114,6 +1331,220 @@ public class TestCombinedConfiguration
         return config;
     }
 
+    /**
+     * Tests that a lazy child configuration is loaded when a key below its
+     * at path is queried.
+     */
+    @Test
+    public void testLazyChildLoadedOnAccess()
+    {
+        config.addConfiguration(setUpTestConfiguration());
+        final LazyTestConfiguration lazy = new LazyTestConfiguration();
+        config.addConfiguration(lazy, CHILD1, "lazy.data");
+        assertTrue("Wrong value", config.getBoolean(TEST_KEY));
+        assertFalse("Key found", config.containsKey("other.key"));
+        assertEquals("Loaded too early", 0, lazy.getLoadCount());
+
+        assertEquals("Wrong lazy value", "lazyValue",
+                config.getString("lazy.data.key"));
+        assertEquals("Wrong load count", 1, lazy.getLoadCount());
+        assertEquals("Wrong lazy value (2)", "lazyValue",
+                config.getString("lazy.data.key"));
+        assertEquals("Loaded again", 1, lazy.getLoadCount());
+    }
+
+    /**
+     * Tests that a lazy child configuration is loaded if a parent key of its
+     * at path is queried.
+     */
+    @Test
+    public void testLazyChildLoadedForParentKey()
+    {
+        final LazyTestConfiguration lazy = new LazyTestConfiguration();
+        config.addConfiguration(lazy, CHILD1, "lazy.data");
+        final Configuration sub = config.subset("lazy");
+        assertEquals("Wrong value in subset", "lazyValue",
+                sub.getString("data.key"));
+        assertEquals("Wrong load count", 1, lazy.getLoadCount());
+    }
+
+    /**
+     * Tests that indices in a query key are ignored when matching it against
+     * the at path of a lazy child configuration.
+     */
+    @Test
+    public void testLazyChildLoadedForIndexedKey()
+    {
+        final LazyTestConfiguration lazy = new LazyTestConfiguration();
+        config.addConfiguration(lazy, CHILD1, "lazy.data");
+        assertEquals("Wrong value", "lazyValue",
+                config.getString("lazy(0).data(0).key"));
+        assertEquals("Wrong load count", 1, lazy.getLoadCount());
+    }
+
+    /**
+     * Tests that a lazy child configuration without an at path is loaded on
+     * each query.
+     */
+    @Test
+    public void testLazyChildWithoutAtPath()
+    {
+        final LazyTestConfiguration lazy = new LazyTestConfiguration();
+        config.addConfiguration(lazy);
+        assertFalse("Key found", config.containsKey("other.key"));
+        assertEquals("Wrong load count", 1, lazy.getLoadCount());
+        assertEquals("Wrong value", "lazyValue", config.getString("key"));
+    }
+
+    /**
+     * Tests that all lazy child configurations are loaded when iterating over
+     * all keys.
+     */
+    @Test
+    public void testLazyChildLoadedByGetKeys()
+    {
+        final LazyTestConfiguration lazy = new LazyTestConfiguration();
+        config.addConfiguration(lazy, CHILD1, "lazy.data");
+        final List<String> keys = new ArrayList<>();
+        for (final Iterator<String> it = config.getKeys(); it.hasNext();)
+        {
+            keys.add(it.next());
+        }
+        assertEquals("Wrong keys", Collections.singletonList("lazy.data.key"),
+                keys);
+    }
+
+    /**
+     * Tests that the query is passed to nested combined configurations.
+     */
+    @Test
+    public void testLazyChildInNestedConfiguration()
+    {
+        final CombinedConfiguration nested = new CombinedConfiguration();
+        final LazyTestConfiguration lazy = new LazyTestConfiguration();
+        nested.addConfiguration(lazy, CHILD1, "lazy");
+        config.addConfiguration(nested, CHILD2, "nested");
+        assertFalse("Key found", config.containsKey("nested.other"));
+        assertEquals("Loaded too early", 0, lazy.getLoadCount());
+        assertEquals("Wrong value", "lazyValue",
+                config.getString("nested.lazy.key"));
+        assertEquals("Wrong load count", 1, lazy.getLoadCount());
+    }
+
+    /**
+     * Tests that a removed lazy child configuration is no longer loaded.
+     */
+    @Test
+    public void testLazyChildRemoved()
+    {
+        final LazyTestConfiguration lazy = new LazyTestConfiguration();
+        config.addConfiguration(lazy, CHILD1);
+        config.removeConfiguration(CHILD1);
+        assertFalse("Key found", config.containsKey("key"));
+        assertEquals("Removed child loaded", 0, lazy.getLoadCount());
+    }
+
+    /**
+     * Tests that the lazy child configurations of a clone are loaded on
+     * demand, too.
+     */
+    @Test
+    public void testLazyChildInClone()
+    {
+        config.addConfiguration(new LazyTestConfiguration(), CHILD1, "lazy");
+        final CombinedConfiguration copy = (CombinedConfiguration) config.clone();
+        assertEquals("Wrong value", "lazyValue", copy.getString("lazy.key"));
+    }
+
+    /**
+     * A test configuration which is loaded lazily. When loaded, it adds a
+     * single property.
+     */
+    private static class LazyTestConfiguration extends
+            BaseHierarchicalConfiguration implements LazyLoadingSupport
+    {
+        /** The number of load operations. */
+        private final AtomicInteger loadCount = new AtomicInteger();
+
+        /**
+         * Returns the number of load operations.
+         *
+         * @return the load count
+         */
+        public int getLoadCount()
+        {
+            return loadCount.get();
+        }
+
+        @Override
+        public boolean isLoaded()
+        {
+            return loadCount.get() > 0;
+        }
+
+        @Override
+        public void load()
+        {
+            if (loadCount.getAndIncrement() == 0)
+            {
+                addProperty("key", "lazyValue");
+            }
+        }
+    }
+
+    /**
+     * A combiner implementation which can block combine operations until it
+     * is released.
+     */
+    private static class BlockingCombiner extends UnionCombiner
+    {
+        /** A latch to signal that a combine operation has been entered. */
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        /** A latch for releasing blocked combine operations. */
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        /** A flag whether combine operations should block. */
+        private volatile boolean block;
+
+        @Override
+        public ImmutableNode combine(final ImmutableNode node1,
+                final ImmutableNode node2)
+        {
+            if (block)
+            {
+                entered.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch (final InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.combine(node1, node2);
+        }
+    }
+
+    /**
+     * A combiner implementation which counts the number of combine
+     * operations.
+     */
+    private static class CountingCombiner extends UnionCombiner
+    {
+        /** The number of combine operations. */
+        private final AtomicInteger combinations = new AtomicInteger();
+
+        @Override
+        public ImmutableNode combine(final ImmutableNode node1,
+                final ImmutableNode node2)
+        {
+            combinations.incrementAndGet();
+            return super.combine(node1, node2);
+        }
+    }
+
     /**
      * Test event listener class for checking if the expected invalidate events
      * are fired.
@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration2.event.ConfigurationEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@code CombinedConfigurationCache}.
+ *
+ * @version $Id$
+ */
+public class TestCombinedConfigurationCache
+{
+    /** A child configuration shared by all cached configurations. */
+    private PropertiesConfiguration child;
+
+    /** The number of listeners registered at the child initially. */
+    private int initialListenerCount;
+
+    /** The cache to be tested. */
+    private ClockCache cache;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        child = new PropertiesConfiguration();
+        initialListenerCount =
+                child.getEventListeners(ConfigurationEvent.ANY).size();
+        cache = new ClockCache();
+    }
+
+    /**
+     * Creates a combined configuration which is registered at the test child
+     * configuration.
+     *
+     * @return the combined configuration
+     */
+    private CombinedConfiguration createConfig()
+    {
+        final CombinedConfiguration config = new CombinedConfiguration();
+        config.addConfiguration(child);
+        return config;
+    }
+
+    /**
+     * Returns the number of combined configurations registered as listeners
+     * at the test child configuration.
+     *
+     * @return the number of attached combined configurations
+     */
+    private int attachedCount()
+    {
+        return child.getEventListeners(ConfigurationEvent.ANY).size()
+                - initialListenerCount;
+    }
+
+    /**
+     * Tests the default settings of a new instance.
+     */
+    @Test
+    public void testInit()
+    {
+        assertEquals("Wrong max size", 0, cache.getMaxSize());
+        assertEquals("Wrong max idle time", 0, cache.getMaxIdleTime());
+        assertEquals("Wrong size", 0, cache.size());
+    }
+
+    /**
+     * Tests whether configurations can be stored and queried and whether
+     * hits and misses are counted.
+     */
+    @Test
+    public void testGetPut()
+    {
+        final CombinedConfiguration config = createConfig();
+        assertNull("Got a configuration", cache.get("k1"));
+        cache.put("k1", config);
+        assertSame("Wrong configuration", config, cache.get("k1"));
+        assertSame("Wrong configuration (2)", config, cache.get("k1"));
+        assertEquals("Wrong hits", 2, cache.getHitCount());
+        assertEquals("Wrong misses", 1, cache.getMissCount());
+        assertEquals("Wrong size", 1, cache.size());
+    }
+
+    /**
+     * Tests that a replaced configuration is detached from its children.
+     */
+    @Test
+    public void testPutReplace()
+    {
+        cache.put("k1", createConfig());
+        final CombinedConfiguration config = createConfig();
+        cache.put("k1", config);
+        assertSame("Wrong configuration", config, cache.get("k1"));
+        assertEquals("Replaced configuration not detached", 1,
+                attachedCount());
+    }
+
+    /**
+     * Tests that the least recently used entry is evicted if the maximum size
+     * is exceeded.
+     */
+    @Test
+    public void testEvictLeastRecentlyUsed()
+    {
+        cache.setMaxSize(2);
+        final CombinedConfiguration config1 = createConfig();
+        cache.put("k1", config1);
+        cache.tick();
+        cache.put("k2", createConfig());
+        cache.tick();
+        assertSame("Wrong configuration", config1, cache.get("k1"));
+        cache.tick();
+        cache.put("k3", createConfig());
+        assertEquals("Wrong size", 2, cache.size());
+        assertNull("Entry not evicted", cache.get("k2"));
+        assertNotNull("Wrong entry evicted", cache.get("k1"));
+        assertNotNull("New entry evicted", cache.get("k3"));
+        assertEquals("Wrong eviction count", 1, cache.getEvictionCount());
+        assertEquals("Evicted configuration not detached", 2,
+                attachedCount());
+    }
+
+    /**
+     * Tests that a batch of entries is evicted for larger caches.
+     */
+    @Test
+    public void testEvictBatch()
+    {
+        cache.setMaxSize(16);
+        for (int i = 0; i < 16; i++)
+        {
+            cache.put("k" + i, createConfig());
+            cache.tick();
+        }
+        assertEquals("Wrong size before eviction", 16, cache.size());
+        cache.put("new", createConfig());
+        assertEquals("Wrong size after eviction", 14, cache.size());
+        assertEquals("Wrong eviction count", 3, cache.getEvictionCount());
+        for (int i = 0; i < 3; i++)
+        {
+            assertNull("Entry not evicted: " + i, cache.get("k" + i));
+        }
+        assertNotNull("New entry evicted", cache.get("new"));
+    }
+
+    /**
+     * Tests that expired entries are no longer returned and removed on the
+     * next insertion.
+     */
+    @Test
+    public void testExpiredEntries()
+    {
+        cache.setMaxIdleTime(100);
+        cache.put("k1", createConfig());
+        cache.put("k2", createConfig());
+        cache.advance(60);
+        assertNotNull("Entry expired too early", cache.get("k2"));
+        cache.advance(60);
+        assertNull("Entry not expired", cache.get("k1"));
+        assertNotNull("Accessed entry expired", cache.get("k2"));
+
+        cache.put("k3", createConfig());
+        assertEquals("Wrong size", 2, cache.size());
+        assertEquals("Wrong eviction count", 1, cache.getEvictionCount());
+        assertEquals("Expired configuration not detached", 2,
+                attachedCount());
+    }
+
+    /**
+     * Tests that clear() removes and detaches all configurations.
+     */
+    @Test
+    public void testClear()
+    {
+        cache.put("k1", createConfig());
+        cache.put("k2", createConfig());
+        cache.clear();
+        assertEquals("Wrong size", 0, cache.size());
+        assertTrue("Not empty", cache.configurations().isEmpty());
+        assertEquals("Configurations not detached", 0, attachedCount());
+    }
+
+    /**
+     * Tries to set a negative maximum size.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetMaxSizeNegative()
+    {
+        cache.setMaxSize(-1);
+    }
+
+    /**
+     * Tries to set a negative maximum idle time.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetMaxIdleTimeNegative()
+    {
+        cache.setMaxIdleTime(-1);
+    }
+
+    /**
+     * A cache implementation with a manually controlled clock.
+     */
+    private static class ClockCache extends CombinedConfigurationCache
+    {
+        /** The current time. */
+        private long time;
+
+        /**
+         * Advances the clock by the given number of milliseconds.
+         *
+         * @param millis the time span
+         */
+        public void advance(final long millis)
+        {
+            time += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        /**
+         * Advances the clock by a minimum step.
+         */
+        public void tick()
+        {
+            time++;
+        }
+
+        @Override
+        long now()
+        {
+            return time;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.configuration2.interpol.ConfigurationInterpolator;
+import org.apache.commons.configuration2.interpol.Lookup;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@code CompiledKeyPattern}.
+ *
+ * @version $Id$
+ */
+public class TestCompiledKeyPattern
+{
+    /** The map with the values of the test lookup. */
+    private Map<String, Object> values;
+
+    /** The interpolator providing the test lookup. */
+    private ConfigurationInterpolator interpolator;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        values = new HashMap<>();
+        interpolator = new ConfigurationInterpolator();
+        interpolator.registerLookup("test", new Lookup()
+        {
+            @Override
+            public Object lookup(final String variable)
+            {
+                return values.get(variable);
+            }
+        });
+    }
+
+    /**
+     * Resolves the given pattern using the test interpolator.
+     *
+     * @param pattern the pattern
+     * @return the resolved key
+     */
+    private String resolve(final String pattern)
+    {
+        return CompiledKeyPattern.compile(pattern).resolve(interpolator);
+    }
+
+    /**
+     * Tests a pattern without variables.
+     */
+    @Test
+    public void testLiteralOnly()
+    {
+        assertEquals("Wrong key", "literal", resolve("literal"));
+    }
+
+    /**
+     * Tests a pattern consisting of variables and literal text.
+     */
+    @Test
+    public void testVariables()
+    {
+        values.put("a", "1");
+        values.put("b", 2);
+        assertEquals("Wrong key", "x1-2y", resolve("x${test:a}-${test:b}y"));
+    }
+
+    /**
+     * Tests that the key produced for a pattern corresponds to the result of
+     * standard interpolation.
+     */
+    @Test
+    public void testSameResultAsInterpolation()
+    {
+        values.put("a", "1");
+        final String pattern = "${test:a}/${test:unknown}/${other:a}";
+        assertEquals("Wrong key",
+                interpolator.interpolate(pattern), resolve(pattern));
+    }
+
+    /**
+     * Tests that the key is reused as long as the values of the variables do
+     * not change.
+     */
+    @Test
+    public void testKeyReused()
+    {
+        final CompiledKeyPattern pattern =
+                CompiledKeyPattern.compile("${test:a}.${test:b}");
+        values.put("a", "1");
+        values.put("b", "2");
+        final String key = pattern.resolve(interpolator);
+        assertSame("Key not reused", key, pattern.resolve(interpolator));
+
+        values.put("b", "3");
+        final String key2 = pattern.resolve(interpolator);
+        assertEquals("Wrong changed key", "1.3", key2);
+        assertNotSame("Key not constructed again", key, key2);
+        values.put("a", "4");
+        assertEquals("Wrong changed key (2)", "4.3",
+                pattern.resolve(interpolator));
+    }
+
+    /**
+     * Tests that changes of the lookups registered at the interpolator are
+     * taken into account.
+     */
+    @Test
+    public void testLookupChanged()
+    {
+        final CompiledKeyPattern pattern =
+                CompiledKeyPattern.compile("${other:a}");
+        assertEquals("Wrong unresolved key", "${other:a}",
+                pattern.resolve(interpolator));
+        interpolator.registerLookup("other", new Lookup()
+        {
+            @Override
+            public Object lookup(final String variable)
+            {
+                return "resolved";
+            }
+        });
+        assertEquals("Wrong resolved key", "resolved",
+                pattern.resolve(interpolator));
+    }
+
+    /**
+     * Tests that patterns using advanced interpolation features are not
+     * compiled.
+     */
+    @Test
+    public void testUnsupportedPatterns()
+    {
+        assertFalse("Null", CompiledKeyPattern.compile(null).isSupported());
+        assertFalse("Default value",
+                CompiledKeyPattern.compile("${test:a:-def}").isSupported());
+        assertFalse("Nested",
+                CompiledKeyPattern.compile("${test:${test:a}}").isSupported());
+        assertFalse("Escaped",
+                CompiledKeyPattern.compile("$${test:a}").isSupported());
+        assertFalse("No prefix",
+                CompiledKeyPattern.compile("${a}").isSupported());
+        assertFalse("Unterminated",
+                CompiledKeyPattern.compile("${test:a").isSupported());
+        assertNull("Got a key", resolve("${a}"));
+        assertTrue("Simple pattern not supported",
+                CompiledKeyPattern.compile("${test:a}").isSupported());
+    }
+
+    /**
+     * Tests that values containing further variables cause a fallback to
+     * standard interpolation.
+     */
+    @Test
+    public void testRecursiveValue()
+    {
+        values.put("a", "${test:b}");
+        assertNull("Got a key", resolve("${test:a}"));
+    }
+}
@@ -955,4 +955,175 @@ public class TestCompositeConfiguration
                 cc.getNumberOfConfigurations());
         sync.verify(Methods.BEGIN_READ, Methods.END_READ);
     }
+
+    /**
+     * Tests that the key index is disabled by default.
+     */
+    @Test
+    public void testKeyIndexDisabledByDefault()
+    {
+        assertFalse("Key index enabled", cc.isKeyIndexEnabled());
+    }
+
+    /**
+     * Tests that with an enabled key index the child configurations are
+     * queried only once for a key, also for keys which are not contained.
+     */
+    @Test
+    public void testKeyIndexQueriesChildrenOnce()
+    {
+        final CountingConfiguration child = new CountingConfiguration();
+        child.addProperty("key", "value");
+        cc.addConfiguration(child);
+        cc.setKeyIndexEnabled(true);
+
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals("Wrong value", "value", cc.getString("key"));
+            assertTrue("Key not found", cc.containsKey("key"));
+            assertFalse("Unknown key found", cc.containsKey("unknown"));
+        }
+        assertEquals("Wrong number of queries", 2, child.queries);
+    }
+
+    /**
+     * Tests that the key index is updated when a flat child configuration is
+     * changed.
+     */
+    @Test
+    public void testKeyIndexUpdateFlatChild()
+    {
+        cc.addConfiguration(conf1);
+        cc.addConfiguration(conf2);
+        cc.setKeyIndexEnabled(true);
+        assertFalse("Key found", cc.containsKey("new.key"));
+        assertEquals("Wrong initial value", "test.properties",
+                cc.getString("propertyInOrder"));
+
+        conf2.addProperty("new.key", "value2");
+        assertEquals("Wrong value of new key", "value2",
+                cc.getString("new.key"));
+        conf1.addProperty("new.key", "value1");
+        assertEquals("Wrong value of overridden key", "value1",
+                cc.getString("new.key"));
+        conf1.clearProperty("propertyInOrder");
+        assertEquals("Wrong value after clear", "test2.properties",
+                cc.getString("propertyInOrder"));
+    }
+
+    /**
+     * Tests that the key index is updated when a hierarchical child
+     * configuration is changed.
+     */
+    @Test
+    public void testKeyIndexUpdateHierarchicalChild()
+    {
+        cc.addConfiguration(xmlConf);
+        cc.setKeyIndexEnabled(true);
+        assertTrue("Key not found", cc.containsKey("test.short"));
+        xmlConf.clearTree("test");
+        assertFalse("Key still found", cc.containsKey("test.short"));
+    }
+
+    /**
+     * Tests that the key index takes added and removed child configurations
+     * into account.
+     */
+    @Test
+    public void testKeyIndexAddRemoveConfiguration()
+    {
+        cc.setKeyIndexEnabled(true);
+        assertFalse("Key found", cc.containsKey("propertyInOrder"));
+        cc.addConfiguration(conf2);
+        assertEquals("Wrong value after add", "test2.properties",
+                cc.getString("propertyInOrder"));
+        cc.addConfigurationFirst(conf1);
+        assertEquals("Wrong value after add first", "test.properties",
+                cc.getString("propertyInOrder"));
+        cc.removeConfiguration(conf1);
+        assertEquals("Wrong value after remove", "test2.properties",
+                cc.getString("propertyInOrder"));
+    }
+
+    /**
+     * Tests getSource() and getList() with an enabled key index.
+     */
+    @Test
+    public void testKeyIndexGetSourceAndList()
+    {
+        cc.addConfiguration(conf1);
+        cc.addConfiguration(conf2);
+        cc.setKeyIndexEnabled(true);
+        conf1.addProperty(TEST_PROPERTY, "1");
+        assertSame("Wrong source", conf1, cc.getSource(TEST_PROPERTY));
+        cc.addProperty(TEST_PROPERTY, "2");
+        assertEquals("Wrong list", "[1, 2]", cc.getList(TEST_PROPERTY)
+                .toString());
+        try
+        {
+            cc.getSource(TEST_PROPERTY);
+            fail("Multiple sources not detected!");
+        }
+        catch (final IllegalArgumentException iex)
+        {
+            // expected
+        }
+        assertNull("Got a source", cc.getSource("unknown.key"));
+        assertTrue("Got a list", cc.getList("unknown.key").isEmpty());
+    }
+
+    /**
+     * Tests that disabling the key index removes the event listeners from the
+     * child configurations.
+     */
+    @Test
+    public void testKeyIndexDisable()
+    {
+        cc.addConfiguration(conf1);
+        final int listenerCount =
+                conf1.getEventListeners(ConfigurationEvent.ANY).size();
+        cc.setKeyIndexEnabled(true);
+        assertEquals("Listener not registered", listenerCount + 1, conf1
+                .getEventListeners(ConfigurationEvent.ANY).size());
+        cc.setKeyIndexEnabled(false);
+        assertFalse("Still enabled", cc.isKeyIndexEnabled());
+        assertEquals("Listener not removed", listenerCount, conf1
+                .getEventListeners(ConfigurationEvent.ANY).size());
+        conf1.addProperty("new.key", "value");
+        assertEquals("Wrong value", "value", cc.getString("new.key"));
+    }
+
+    /**
+     * Tests that a clone has its own key index.
+     */
+    @Test
+    public void testKeyIndexClone()
+    {
+        cc.addConfiguration(conf1);
+        cc.setKeyIndexEnabled(true);
+        assertFalse("Key found", cc.containsKey("new.key"));
+        final CompositeConfiguration copy = (CompositeConfiguration) cc.clone();
+        assertTrue("Index not enabled", copy.isKeyIndexEnabled());
+        ((Configuration) copy.getConfiguration(0)).addProperty("new.key",
+                "value");
+        assertEquals("Wrong value in copy", "value", copy.getString("new.key"));
+        assertFalse("Key found in original", cc.containsKey("new.key"));
+    }
+
+    /**
+     * A test configuration class which counts the invocations of
+     * {@code containsKey()}.
+     */
+    private static class CountingConfiguration extends BaseConfiguration
+    {
+        /** The number of queries. */
+        private int queries;
+
+        @Override
+        protected boolean containsKeyInternal(final String key)
+        {
+            queries++;
+            return super.containsKeyInternal(key);
+        }
+    }
 }
@@ -43,6 +43,7 @@ import org.apache.commons.configuration2.builder.combined.MultiFileConfiguration
 import org.apache.commons.configuration2.builder.combined.ReloadingCombinedConfigurationBuilder;
 import org.apache.commons.configuration2.builder.fluent.Parameters;
 import org.apache.commons.configuration2.convert.DefaultListDelimiterHandler;
+import org.apache.commons.configuration2.event.ConfigurationEvent;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.interpol.ConfigurationInterpolator;
 import org.apache.commons.configuration2.interpol.Lookup;
@@ -407,6 +408,139 @@ public class TestDynamicCombinedConfiguration
     }
 
 
+    /**
+     * Creates a configuration for testing the cache of child configurations.
+     * Its key pattern refers to the test system property.
+     *
+     * @param child the child configuration to be added
+     * @return the test configuration
+     */
+    private static DynamicCombinedConfiguration createCacheTestConfig(
+            final Configuration child)
+    {
+        final DynamicCombinedConfiguration config =
+                new DynamicCombinedConfiguration();
+        config.setKeyPattern(PATTERN);
+        config.addConfiguration(child, "child");
+        return config;
+    }
+
+    /**
+     * Queries the test property for the given value of the key pattern.
+     *
+     * @param config the configuration
+     * @param id the value for the key pattern
+     * @return the property value
+     */
+    private static String fetchForId(final Configuration config, final String id)
+    {
+        System.setProperty("Id", id);
+        return config.getString("test");
+    }
+
+    /**
+     * Tests the default settings of the cache for child configurations.
+     */
+    @Test
+    public void testCacheDefaults()
+    {
+        final DynamicCombinedConfiguration config =
+                new DynamicCombinedConfiguration();
+        assertEquals("Wrong max size", 0, config.getMaxCachedConfigurations());
+        assertEquals("Wrong max idle time", 0, config.getMaxIdleTime());
+        assertEquals("Wrong cache size", 0, config.getCachedConfigurationCount());
+    }
+
+    /**
+     * Tests the statistics of the cache for child configurations.
+     */
+    @Test
+    public void testCacheStatistics()
+    {
+        final PropertiesConfiguration child = new PropertiesConfiguration();
+        child.addProperty("test", "value");
+        final DynamicCombinedConfiguration config = createCacheTestConfig(child);
+        final long misses = config.getCacheMissCount();
+        try
+        {
+            assertEquals("Wrong value (1)", "value", fetchForId(config, "a"));
+            assertEquals("Wrong value (2)", "value", fetchForId(config, "b"));
+            assertEquals("Wrong value (3)", "value", fetchForId(config, "a"));
+        }
+        finally
+        {
+            System.getProperties().remove("Id");
+        }
+        assertEquals("Wrong cache size", 2, config.getCachedConfigurationCount());
+        assertEquals("Wrong hits", 1, config.getCacheHitCount());
+        assertEquals("Wrong misses", 2, config.getCacheMissCount() - misses);
+        assertEquals("Wrong evictions", 0, config.getCacheEvictionCount());
+    }
+
+    /**
+     * Tests that the size of the cache for child configurations can be
+     * limited and that evicted configurations are created anew.
+     */
+    @Test
+    public void testCacheMaxSize()
+    {
+        final PropertiesConfiguration child = new PropertiesConfiguration();
+        child.addProperty("test", "value");
+        final int listenerCount =
+                child.getEventListeners(ConfigurationEvent.ANY).size();
+        final DynamicCombinedConfiguration config = createCacheTestConfig(child);
+        config.setMaxCachedConfigurations(2);
+        try
+        {
+            fetchForId(config, "a");
+            fetchForId(config, "b");
+            fetchForId(config, "c");
+            assertEquals("Wrong cache size", 2,
+                    config.getCachedConfigurationCount());
+            assertEquals("Wrong evictions", 1, config.getCacheEvictionCount());
+            assertEquals("Evicted configuration not detached",
+                    listenerCount + 2,
+                    child.getEventListeners(ConfigurationEvent.ANY).size());
+
+            child.setProperty("test", "changed");
+            assertEquals("Wrong value for recreated configuration",
+                    "changed", fetchForId(config, "a"));
+            assertEquals("Wrong value for cached configuration", "changed",
+                    fetchForId(config, "c"));
+        }
+        finally
+        {
+            System.getProperties().remove("Id");
+        }
+    }
+
+    /**
+     * Tests that adding a configuration detaches the cached child
+     * configurations.
+     */
+    @Test
+    public void testCacheClearedOnAddConfiguration()
+    {
+        final PropertiesConfiguration child = new PropertiesConfiguration();
+        final int listenerCount =
+                child.getEventListeners(ConfigurationEvent.ANY).size();
+        final DynamicCombinedConfiguration config = createCacheTestConfig(child);
+        try
+        {
+            fetchForId(config, "a");
+            fetchForId(config, "b");
+        }
+        finally
+        {
+            System.getProperties().remove("Id");
+        }
+        config.addConfiguration(new PropertiesConfiguration());
+        assertEquals("Cache not cleared", 0,
+                config.getCachedConfigurationCount());
+        assertEquals("Configurations not detached", listenerCount,
+                child.getEventListeners(ConfigurationEvent.ANY).size());
+    }
+
     private class ReloadThread extends Thread
     {
         private final CombinedConfigurationBuilder builder;
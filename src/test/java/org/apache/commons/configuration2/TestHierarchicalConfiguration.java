@@ -17,19 +17,30 @@
 package org.apache.commons.configuration2;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.configuration2.convert.DefaultListDelimiterHandler;
+import org.apache.commons.configuration2.event.ConfigurationEvent;
+import org.apache.commons.configuration2.event.EventListenerTestImpl;
 import org.apache.commons.configuration2.ex.ConfigurationRuntimeException;
+import org.apache.commons.configuration2.tree.BatchUpdate;
 import org.apache.commons.configuration2.tree.DefaultConfigurationKey;
 import org.apache.commons.configuration2.tree.DefaultExpressionEngine;
+import org.apache.commons.configuration2.tree.DefaultExpressionEngineSymbols;
 import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.commons.configuration2.tree.NodeHandler;
 import org.apache.commons.configuration2.tree.NodeStructureHelper;
+import org.apache.commons.configuration2.tree.QueryResult;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -640,6 +651,242 @@ public class TestHierarchicalConfiguration
                 config.childConfigurationsAt("not.existing.key").isEmpty());
     }
 
+    /**
+     * Tests that cached converted values are invalidated if a property is
+     * changed using a key with an index on an inner component.
+     */
+    @Test
+    public void testConversionCacheUpdateIndexedKey()
+    {
+        config.setConversionCacheEnabled(true);
+        config.addProperty("cache.value", 1);
+        assertEquals("Wrong initial value", 1, config.getInt("cache.value"));
+        config.setProperty("cache(0).value", 2);
+        assertEquals("Cache not invalidated", 2, config.getInt("cache.value"));
+    }
+
+    /**
+     * Tests that cached interpolation results are invalidated if a property
+     * is changed using a key with an index on an inner component.
+     */
+    @Test
+    public void testInterpolationCacheUpdateIndexedKey()
+    {
+        config.getInterpolator().setEnableCaching(true);
+        config.addProperty("cache.value", 1);
+        config.addProperty("cache.ref", "${cache.value}");
+        assertEquals("Wrong initial value", "1", config.getString("cache.ref"));
+        config.setProperty("cache(0).value", 2);
+        assertEquals("Cache not invalidated", "2",
+                config.getString("cache.ref"));
+    }
+
+    /**
+     * Tests that the index for resolved keys is disabled per default.
+     */
+    @Test
+    public void testKeyIndexDisabledByDefault()
+    {
+        assertFalse("Key index enabled", config.isKeyIndexEnabled());
+    }
+
+    /**
+     * Tests that repeated queries for a key are served from the key index.
+     */
+    @Test
+    public void testKeyIndexRepeatedQueries()
+    {
+        config.setKeyIndexEnabled(true);
+        checkContent(config);
+        checkContent(config);
+        final ImmutableNode root = config.getNodeModel().getRootNode();
+        final List<QueryResult<ImmutableNode>> results =
+                config.resolveKey(root, "tables.table.name",
+                        config.getNodeModel().getNodeHandler());
+        assertEquals("Wrong number of results",
+                NodeStructureHelper.tablesLength(), results.size());
+        assertSame("Key not indexed", results, config.resolveKey(root,
+                "tables.table.name", config.getNodeModel().getNodeHandler()));
+    }
+
+    /**
+     * Tests that the key index does not return outdated results after the
+     * configuration has been changed.
+     */
+    @Test
+    public void testKeyIndexUpdates()
+    {
+        config.setKeyIndexEnabled(true);
+        final String key = "tables.table(0).name";
+        assertEquals("Wrong initial value", NodeStructureHelper.table(0),
+                config.getString(key));
+        assertNull("Got new property", config.getProperty("tables.newKey"));
+
+        config.setProperty(key, NEW_NAME);
+        config.addProperty("tables.newKey", "test");
+        assertEquals("Wrong value after set", NEW_NAME, config.getString(key));
+        assertEquals("Wrong new property", "test",
+                config.getString("tables.newKey"));
+
+        config.clearTree("tables.table(0)");
+        assertEquals("Wrong value after clear", NodeStructureHelper.table(1),
+                config.getString(key));
+        config.clear();
+        assertNull("Got value after clear", config.getProperty(key));
+    }
+
+    /**
+     * Tests that the key index is discarded if the expression engine is
+     * changed.
+     */
+    @Test
+    public void testKeyIndexExpressionEngineChanged()
+    {
+        config.setKeyIndexEnabled(true);
+        assertEquals("Wrong value", NodeStructureHelper.table(1),
+                config.getString("tables.table(1).name"));
+
+        final DefaultExpressionEngineSymbols symbols =
+                new DefaultExpressionEngineSymbols.Builder(
+                        DefaultExpressionEngineSymbols.DEFAULT_SYMBOLS)
+                        .setPropertyDelimiter("/").create();
+        config.setExpressionEngine(new DefaultExpressionEngine(symbols));
+        assertNull("Got value for old key",
+                config.getProperty("tables.table(1).name"));
+        assertEquals("Wrong value for new key", NodeStructureHelper.table(1),
+                config.getString("tables/table(1)/name"));
+    }
+
+    /**
+     * Tests that keys resolved on a tree other than the root node of the
+     * configuration are not indexed and do not replace the index.
+     */
+    @Test
+    public void testKeyIndexOtherRoot()
+    {
+        config.setKeyIndexEnabled(true);
+        final NodeHandler<ImmutableNode> handler =
+                config.getNodeModel().getNodeHandler();
+        final ImmutableNode root = handler.getRootNode();
+        final List<QueryResult<ImmutableNode>> results =
+                config.resolveKey(root, "tables.table.name", handler);
+        final ImmutableNode otherRoot = root.getChildren().get(0);
+        final List<QueryResult<ImmutableNode>> otherResults =
+                config.resolveKey(otherRoot, "table.name", handler);
+        assertEquals("Wrong number of results",
+                NodeStructureHelper.tablesLength(), otherResults.size());
+        assertNotSame("Other root indexed", otherResults,
+                config.resolveKey(otherRoot, "table.name", handler));
+        assertSame("Index replaced", results,
+                config.resolveKey(root, "tables.table.name", handler));
+    }
+
+    /**
+     * Tests that the results of a query are still correct after the key index
+     * has been disabled.
+     */
+    @Test
+    public void testKeyIndexDisabled()
+    {
+        config.setKeyIndexEnabled(true);
+        checkContent(config);
+        config.setKeyIndexEnabled(false);
+        config.setProperty("tables.table(0).name", NEW_NAME);
+        assertEquals("Wrong value", NEW_NAME,
+                config.getString("tables.table(0).name"));
+    }
+
+    /**
+     * Tests a batch update on a configuration.
+     */
+    @Test
+    public void testBatch()
+    {
+        config.setListDelimiterHandler(new DefaultListDelimiterHandler(','));
+        final BaseHierarchicalConfiguration.Batch batch = config.createBatch();
+        batch.setProperty("tables.table(0).name", NEW_NAME)
+                .addProperty("tables.table(1).fields.field(-1).name", "f1,f2")
+                .addProperty("new.key", "value").clearTree("tables.table(1)")
+                .clearProperty("new.key");
+        assertEquals("Wrong size", 5, batch.size());
+        assertEquals("Batch already executed", NodeStructureHelper.table(0),
+                config.getString("tables.table(0).name"));
+
+        batch.commit();
+        assertEquals("Batch not reset", 0, batch.size());
+        assertEquals("Wrong table name", NEW_NAME,
+                config.getString("tables.table(0).name"));
+        assertEquals("Wrong number of tables", 0,
+                config.getMaxIndex("tables.table"));
+        assertFalse("Property not removed", config.containsKey("new.key"));
+    }
+
+    /**
+     * Tests that the values of add operations are split.
+     */
+    @Test
+    public void testBatchAddPropertySplit()
+    {
+        config.setListDelimiterHandler(new DefaultListDelimiterHandler(','));
+        config.createBatch().addProperty("new.key", "a,b,c").commit();
+        assertEquals("Wrong values", Arrays.asList("a", "b", "c"),
+                config.getList("new.key"));
+    }
+
+    /**
+     * Tests that a batch update fires a single pair of events.
+     */
+    @Test
+    public void testBatchEvents()
+    {
+        final EventListenerTestImpl listener = new EventListenerTestImpl(config);
+        config.addEventListener(ConfigurationEvent.ANY, listener);
+        final BatchUpdate update = new BatchUpdate();
+        for (int i = 0; i < 10; i++)
+        {
+            update.addProperty("new.key",
+                    Collections.singleton(Integer.valueOf(i)));
+        }
+
+        config.updateBatch(update);
+        listener.checkEvent(ConfigurationEvent.BATCH_UPDATE, null, update, true);
+        listener.checkEvent(ConfigurationEvent.BATCH_UPDATE, null, update,
+                false);
+        listener.done();
+        assertEquals("Wrong number of values", 10,
+                config.getList("new.key").size());
+    }
+
+    /**
+     * Tests that an empty batch does not fire events.
+     */
+    @Test
+    public void testBatchEmpty()
+    {
+        final EventListenerTestImpl listener = new EventListenerTestImpl(config);
+        config.addEventListener(ConfigurationEvent.ANY, listener);
+        config.createBatch().commit();
+        listener.done();
+    }
+
+    /**
+     * Tests a batch update on a sub configuration.
+     */
+    @Test
+    public void testBatchSubConfiguration()
+    {
+        final HierarchicalConfiguration<ImmutableNode> sub =
+                config.configurationAt("tables.table(1)", true);
+        ((BaseHierarchicalConfiguration) sub).createBatch()
+                .setProperty("name", NEW_NAME)
+                .addProperty("fields.field(-1).name", "newField").commit();
+        assertEquals("Wrong table name", NEW_NAME,
+                config.getString("tables.table(1).name"));
+        assertEquals("Wrong field name", "newField",
+                config.getString("tables.table(1).fields.field("
+                        + NodeStructureHelper.fieldsLength(1) + ").name"));
+    }
+
     /**
      * Checks the content of the passed in configuration object. Used by some
      * tests that copy a configuration.
@@ -173,4 +173,16 @@ public class TestMapConfiguration extends TestAbstractConfiguration
         config.setListDelimiterHandler(new DisabledListDelimiterHandler());
         assertEquals("Wrong trimmed value", SPACE_VALUE, config.getProperty(KEY));
     }
+
+    /**
+     * Tests that optimistic reads are not supported because the underlying
+     * map is mutable.
+     */
+    @Test
+    public void testOptimisticReadNotSupported()
+    {
+        final MapConfiguration config = (MapConfiguration) getConfiguration();
+        assertFalse("Optimistic reads supported",
+                config.isOptimisticReadSupported());
+    }
 }
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.configuration2.convert.DefaultListDelimiterHandler;
+import org.apache.commons.configuration2.event.ConfigurationEvent;
+import org.apache.commons.configuration2.event.EventListenerTestImpl;
+import org.junit.Test;
+
+/**
+ * Test class for {@code SnapshotConfiguration}.
+ *
+ * @version $Id$
+ */
+public class TestSnapshotConfiguration extends TestAbstractConfiguration
+{
+    @Override
+    protected AbstractConfiguration getConfiguration()
+    {
+        final SnapshotConfiguration config = new SnapshotConfiguration();
+        config.setListDelimiterHandler(new DefaultListDelimiterHandler(','));
+        config.addProperty("key1", "value1");
+        config.addProperty("key2", "value2");
+        config.addProperty("list", "value1, value2");
+        config.addProperty("listesc", "value1\\,value2");
+        return config;
+    }
+
+    @Override
+    protected AbstractConfiguration getEmptyConfiguration()
+    {
+        return new SnapshotConfiguration();
+    }
+
+    /**
+     * Tests whether a configuration can be initialized from a map.
+     */
+    @Test
+    public void testInitFromMap()
+    {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("key", "value");
+        map.put("list", Arrays.asList("a", "b"));
+        final SnapshotConfiguration config = new SnapshotConfiguration(map);
+        map.put("other", "x");
+
+        assertEquals("Wrong size", 2, config.size());
+        assertEquals("Wrong value", "value", config.getString("key"));
+        assertEquals("Wrong list", Arrays.asList("a", "b"),
+                config.getList(String.class, "list"));
+    }
+
+    /**
+     * Tries to create an instance from a null map.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitFromNullMap()
+    {
+        new SnapshotConfiguration((Map<String, ?>) null);
+    }
+
+    /**
+     * Tests that a snapshot is not affected by later updates.
+     */
+    @Test
+    public void testGetSnapshotNotAffectedByUpdates()
+    {
+        final SnapshotConfiguration config =
+                (SnapshotConfiguration) getConfiguration();
+        final Map<String, Object> snapshot = config.getSnapshot();
+        config.setProperty("key1", "changed");
+        config.addProperty("key3", "value3");
+        config.clearProperty("key2");
+
+        assertEquals("Wrong size", 4, snapshot.size());
+        assertEquals("Snapshot changed", "value1", snapshot.get("key1"));
+        assertFalse("New key in snapshot", snapshot.containsKey("key3"));
+        assertEquals("Wrong current value", "changed",
+                config.getString("key1"));
+    }
+
+    /**
+     * Tests that a snapshot cannot be modified.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetSnapshotModify()
+    {
+        ((SnapshotConfiguration) getConfiguration()).getSnapshot().put("key",
+                "value");
+    }
+
+    /**
+     * Tests that setProperty() produces only a single event.
+     */
+    @Test
+    public void testSetPropertyEvents()
+    {
+        final AbstractConfiguration config = getConfiguration();
+        final EventListenerTestImpl listener = new EventListenerTestImpl(config);
+        config.addEventListener(ConfigurationEvent.ANY, listener);
+        config.setProperty("list", "a, b, c");
+
+        listener.checkEvent(ConfigurationEvent.SET_PROPERTY, "list", "a, b, c",
+                true);
+        listener.checkEvent(ConfigurationEvent.SET_PROPERTY, "list", "a, b, c",
+                false);
+        listener.done();
+        assertEquals("Wrong list", Arrays.asList("a", "b", "c"),
+                config.getList(String.class, "list"));
+    }
+
+    /**
+     * Tests whether a clone is decoupled from the original.
+     */
+    @Test
+    public void testCloneModify()
+    {
+        final SnapshotConfiguration config =
+                (SnapshotConfiguration) getConfiguration();
+        final SnapshotConfiguration copy = (SnapshotConfiguration) config.clone();
+        final StrictConfigurationComparator comp =
+                new StrictConfigurationComparator();
+        assertTrue("Configurations are not equal", comp.compare(config, copy));
+
+        config.addProperty("cloneTest", Boolean.TRUE);
+        assertFalse("Not decoupled", copy.containsKey("cloneTest"));
+        copy.clearProperty("key1");
+        assertEquals("Not decoupled (2)", "value1", config.getString("key1"));
+    }
+
+    /**
+     * Tests whether an instance can be used as in-memory configuration of a
+     * composite configuration.
+     */
+    @Test
+    public void testInMemoryConfigurationOfComposite()
+    {
+        final Map<String, Object> map = new HashMap<>();
+        map.put("key1", "child");
+        final SnapshotConfiguration inMemory = new SnapshotConfiguration();
+        final CompositeConfiguration cc = new CompositeConfiguration(inMemory);
+        cc.addConfiguration(new MapConfiguration(map));
+        cc.addProperty("key2", "memory");
+
+        assertEquals("Wrong child value", "child", cc.getString("key1"));
+        assertEquals("Wrong in-memory value", "memory", cc.getString("key2"));
+        assertEquals("Not stored in memory", "memory",
+                inMemory.getString("key2"));
+    }
+
+    /**
+     * Tests that concurrent readers never see a property in an intermediate
+     * state while it is updated.
+     */
+    @Test
+    public void testConcurrentReadsSeeConsistentState()
+            throws InterruptedException
+    {
+        final int updateCount = 5000;
+        final SnapshotConfiguration config = new SnapshotConfiguration();
+        config.setProperty("list", Arrays.asList(0, 0));
+        final AtomicInteger errors = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(1);
+        final Thread reader = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                while (done.getCount() > 0)
+                {
+                    final List<Object> values = config.getList("list");
+                    if (values.size() != 2
+                            || !values.get(0).equals(values.get(1)))
+                    {
+                        errors.incrementAndGet();
+                    }
+                }
+            }
+        };
+        reader.start();
+
+        for (int i = 1; i <= updateCount; i++)
+        {
+            config.setProperty("list", Arrays.asList(i, i));
+        }
+        done.countDown();
+        reader.join();
+        assertEquals("Inconsistent reads", 0, errors.get());
+    }
+}
@@ -29,6 +29,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.configuration2.BaseConfiguration;
 import org.apache.commons.configuration2.BaseHierarchicalConfiguration;
@@ -279,6 +280,157 @@ public class TestBasicConfigurationBuilder
         assertEquals("Wrong number of result objects", 1, results.size());
     }
 
+    /**
+     * Starts a number of threads requesting the configuration from a builder
+     * whose result creation is currently in progress. The method returns when
+     * all threads are waiting for this creation.
+     *
+     * @param builder the builder
+     * @param count the number of threads
+     * @param endLatch the latch counted down by the threads when they are done
+     * @return the threads
+     * @throws InterruptedException if waiting is interrupted
+     */
+    private static AccessBuilderThread[] startWaitingThreads(
+            final BlockingBuilderImpl builder, final int count,
+            final CountDownLatch endLatch) throws InterruptedException
+    {
+        final CountDownLatch startLatch = new CountDownLatch(0);
+        final AccessBuilderThread[] threads = new AccessBuilderThread[count];
+        for (int i = 0; i < count; i++)
+        {
+            threads[i] = new AccessBuilderThread(startLatch, endLatch, builder);
+            threads[i].start();
+        }
+        for (final AccessBuilderThread t : threads)
+        {
+            while (t.getState() != Thread.State.WAITING)
+            {
+                Thread.sleep(1);
+            }
+        }
+        return threads;
+    }
+
+    /**
+     * Tests that threads requesting the configuration while it is created
+     * obtain the result of this creation instead of creating it again.
+     */
+    @Test
+    public void testGetConfigurationConcurrentlySingleCreation()
+            throws Exception
+    {
+        final int threadCount = 8;
+        final BlockingBuilderImpl builder = new BlockingBuilderImpl(false);
+        final CountDownLatch endLatch = new CountDownLatch(threadCount + 1);
+        final AccessBuilderThread creator = new AccessBuilderThread(
+                new CountDownLatch(0), endLatch, builder);
+        creator.start();
+        assertTrue("Creation not started",
+                builder.creationStarted.await(5, TimeUnit.SECONDS));
+        final AccessBuilderThread[] threads =
+                startWaitingThreads(builder, threadCount, endLatch);
+        builder.creationReleased.countDown();
+        assertTrue("Timeout", endLatch.await(5, TimeUnit.SECONDS));
+
+        assertTrue("No configuration created",
+                creator.result instanceof PropertiesConfiguration);
+        for (final AccessBuilderThread t : threads)
+        {
+            assertSame("Wrong result", creator.result, t.result);
+        }
+        assertEquals("Wrong number of creations", 1,
+                builder.creationCount.get());
+    }
+
+    /**
+     * Tests that threads waiting for the creation of the configuration obtain
+     * the exception if the creation fails.
+     */
+    @Test
+    public void testGetConfigurationConcurrentlyCreationFails()
+            throws Exception
+    {
+        final int threadCount = 8;
+        final BlockingBuilderImpl builder = new BlockingBuilderImpl(true);
+        final CountDownLatch endLatch = new CountDownLatch(threadCount + 1);
+        final AccessBuilderThread creator = new AccessBuilderThread(
+                new CountDownLatch(0), endLatch, builder);
+        creator.start();
+        assertTrue("Creation not started",
+                builder.creationStarted.await(5, TimeUnit.SECONDS));
+        final AccessBuilderThread[] threads =
+                startWaitingThreads(builder, threadCount, endLatch);
+        builder.creationReleased.countDown();
+        assertTrue("Timeout", endLatch.await(5, TimeUnit.SECONDS));
+
+        assertTrue("No exception",
+                creator.result instanceof ConfigurationException);
+        for (final AccessBuilderThread t : threads)
+        {
+            assertSame("Wrong exception", creator.result, t.result);
+        }
+        assertEquals("Wrong number of creations", 1,
+                builder.creationCount.get());
+
+        builder.failOnCreate = false;
+        assertTrue("No configuration after failure",
+                builder.getConfiguration() instanceof PropertiesConfiguration);
+        assertEquals("Wrong number of creations after failure", 2,
+                builder.creationCount.get());
+    }
+
+    /**
+     * Tests that no deadlock occurs if a listener for reset events requests
+     * the configuration while another thread is about to create it. The
+     * listener is called while the builder's monitor is held by reset().
+     */
+    @Test(timeout = 10000)
+    public void testGetConfigurationFromResetListenerConcurrently()
+            throws Exception
+    {
+        final BasicConfigurationBuilder<PropertiesConfiguration> builder =
+                new BasicConfigurationBuilder<>(PropertiesConfiguration.class);
+        builder.getConfiguration();
+        final CountDownLatch endLatch = new CountDownLatch(1);
+        final AccessBuilderThread[] otherThread = new AccessBuilderThread[1];
+        final Object[] listenerResult = new Object[1];
+        builder.addEventListener(ConfigurationBuilderEvent.RESET,
+                new EventListener<ConfigurationBuilderEvent>()
+                {
+                    @Override
+                    public void onEvent(final ConfigurationBuilderEvent event)
+                    {
+                        if (otherThread[0] != null)
+                        {
+                            return;
+                        }
+                        otherThread[0] = new AccessBuilderThread(
+                                new CountDownLatch(0), endLatch, builder);
+                        otherThread[0].start();
+                        try
+                        {
+                            while (otherThread[0].getState() != Thread.State.BLOCKED)
+                            {
+                                Thread.sleep(1);
+                            }
+                            listenerResult[0] = builder.getConfiguration();
+                        }
+                        catch (final Exception ex)
+                        {
+                            listenerResult[0] = ex;
+                        }
+                    }
+                });
+
+        builder.reset();
+        assertTrue("Timeout", endLatch.await(5, TimeUnit.SECONDS));
+        assertTrue("No configuration created",
+                listenerResult[0] instanceof PropertiesConfiguration);
+        assertSame("Different results", listenerResult[0],
+                otherThread[0].result);
+    }
+
     /**
      * Tests whether a reset of the result object can be performed.
      */
@@ -681,6 +833,57 @@ public class TestBasicConfigurationBuilder
         }
     }
 
+    /**
+     * A builder test implementation whose creation of result objects blocks
+     * until it is released. It can also be configured to fail.
+     */
+    private static class BlockingBuilderImpl extends
+            BasicConfigurationBuilder<PropertiesConfiguration>
+    {
+        /** A latch which is released when the first creation starts. */
+        final CountDownLatch creationStarted = new CountDownLatch(1);
+
+        /** A latch for releasing the blocked creation. */
+        final CountDownLatch creationReleased = new CountDownLatch(1);
+
+        /** The number of result objects created. */
+        final AtomicInteger creationCount = new AtomicInteger();
+
+        /** A flag whether the creation should fail. */
+        volatile boolean failOnCreate;
+
+        public BlockingBuilderImpl(final boolean fail)
+        {
+            super(PropertiesConfiguration.class);
+            failOnCreate = fail;
+        }
+
+        /**
+         * {@inheritDoc} This implementation blocks until the creation is
+         * released and records the invocation.
+         */
+        @Override
+        protected PropertiesConfiguration createResultInstance()
+                throws ConfigurationException
+        {
+            creationCount.incrementAndGet();
+            creationStarted.countDown();
+            try
+            {
+                creationReleased.await();
+            }
+            catch (final InterruptedException iex)
+            {
+                throw new ConfigurationException(iex);
+            }
+            if (failOnCreate)
+            {
+                throw new ConfigurationException("Creation test exception!");
+            }
+            return super.createResultInstance();
+        }
+    }
+
     /**
      * A test configuration implementation which also implements Initializable.
      */
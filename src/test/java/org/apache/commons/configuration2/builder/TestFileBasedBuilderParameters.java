@@ -28,6 +28,7 @@ import java.io.File;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.configuration2.ConfigurationAssert;
 import org.apache.commons.configuration2.beanutils.BeanHelper;
@@ -100,6 +101,38 @@ public class TestFileBasedBuilderParameters
                 params.getReloadingDetectorFactory());
     }
 
+    /**
+     * Tests whether an executor for background reloads can be set.
+     */
+    @Test
+    public void testSetReloadingExecutor()
+    {
+        final Executor executor = EasyMock.createMock(Executor.class);
+        EasyMock.replay(executor);
+        final FileBasedBuilderParametersImpl params =
+                new FileBasedBuilderParametersImpl();
+        assertNull("Got an executor", params.getReloadingExecutor());
+        assertSame("Wrong result", params,
+                params.setReloadingExecutor(executor));
+        assertSame("Executor not set", executor,
+                params.getReloadingExecutor());
+    }
+
+    /**
+     * Tests whether the flag for incremental reloading can be set.
+     */
+    @Test
+    public void testSetIncrementalReloading()
+    {
+        final FileBasedBuilderParametersImpl params =
+                new FileBasedBuilderParametersImpl();
+        assertNull("Got a flag", params.getIncrementalReloading());
+        assertSame("Wrong result", params,
+                params.setIncrementalReloading(Boolean.TRUE));
+        assertEquals("Flag not set", Boolean.TRUE,
+                params.getIncrementalReloading());
+    }
+
     /**
      * Tests whether a file can be set.
      */
@@ -331,6 +364,9 @@ public class TestFileBasedBuilderParameters
         map.put("fileName", fileName);
         map.put("reloadingDetectorFactory", factory);
         map.put("reloadingRefreshDelay", refreshDelay);
+        final Executor executor = EasyMock.createMock(Executor.class);
+        map.put("reloadingExecutor", executor);
+        map.put("incrementalReloading", Boolean.TRUE);
 
         final FileBasedBuilderParametersImpl params =
                 FileBasedBuilderParametersImpl.fromMap(map);
@@ -342,6 +378,9 @@ public class TestFileBasedBuilderParameters
                 params.getReloadingDetectorFactory());
         assertEquals("Wrong refresh delay", refreshDelay,
                 params.getReloadingRefreshDelay());
+        assertSame("Wrong executor", executor, params.getReloadingExecutor());
+        assertEquals("Wrong incremental flag", Boolean.TRUE,
+                params.getIncrementalReloading());
     }
 
     /**
@@ -371,6 +410,8 @@ public class TestFileBasedBuilderParameters
         params.setFileSystem(EasyMock.createMock(FileSystem.class));
         params.setLocationStrategy(EasyMock.createMock(FileLocationStrategy.class));
         params.setReloadingRefreshDelay(20160213171737L);
+        params.setReloadingExecutor(EasyMock.createMock(Executor.class));
+        params.setIncrementalReloading(Boolean.TRUE);
         params.setThrowExceptionOnMissing(true);
         final FileBasedBuilderParametersImpl params2 =
                 new FileBasedBuilderParametersImpl();
@@ -389,6 +430,10 @@ public class TestFileBasedBuilderParameters
                 params2.getReloadingDetectorFactory());
         assertEquals("Refresh delay not set", params.getReloadingRefreshDelay(),
                 params2.getReloadingRefreshDelay());
+        assertSame("Executor not set", params.getReloadingExecutor(),
+                params2.getReloadingExecutor());
+        assertEquals("Incremental flag not set", Boolean.TRUE,
+                params2.getIncrementalReloading());
         assertNull("Path was copied", params2.getFileHandler().getPath());
         assertEquals("Base properties not set", Boolean.TRUE,
                 params2.getParameters().get("throwExceptionOnMissing"));
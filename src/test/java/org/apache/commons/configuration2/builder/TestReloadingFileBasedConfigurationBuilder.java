@@ -22,16 +22,40 @@ import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.apache.commons.configuration2.FileBasedConfiguration;
 import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.commons.configuration2.XMLConfiguration;
+import org.apache.commons.configuration2.convert.DefaultListDelimiterHandler;
+import org.apache.commons.configuration2.event.ConfigurationEvent;
+import org.apache.commons.configuration2.event.EventListenerTestImpl;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.io.FileHandler;
 import org.apache.commons.configuration2.reloading.FileHandlerReloadingDetector;
+import org.apache.commons.configuration2.reloading.FileWatcher;
 import org.apache.commons.configuration2.reloading.ReloadingDetector;
+import org.apache.commons.configuration2.reloading.WatchServiceReloadingDetector;
+import org.apache.commons.configuration2.sync.NoOpSynchronizer;
+import org.apache.commons.configuration2.sync.ReadWriteSynchronizer;
+import org.apache.commons.configuration2.sync.Synchronizer;
 import org.easymock.EasyMock;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * Test class for {@code ReloadingFileBasedConfigurationBuilder}.
@@ -40,6 +64,10 @@ import org.junit.Test;
  */
 public class TestReloadingFileBasedConfigurationBuilder
 {
+    /** A helper object for creating temporary files. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     /**
      * Tests whether a configuration can be created if no location is set. This
      * tests also ensures that the super constructor is called correctly.
@@ -214,6 +242,460 @@ public class TestReloadingFileBasedConfigurationBuilder
         EasyMock.verify(detector);
     }
 
+    /**
+     * Tests that a reload is performed in the background if an executor is
+     * configured.
+     */
+    @Test
+    public void testBackgroundReload() throws ConfigurationException
+    {
+        final ReloadingDetector detector =
+                EasyMock.createMock(ReloadingDetector.class);
+        EasyMock.expect(detector.isReloadingRequired()).andReturn(Boolean.TRUE);
+        detector.reloadingPerformed();
+        EasyMock.replay(detector);
+        final QueueExecutor executor = new QueueExecutor();
+        final ReloadingFileBasedConfigurationBuilderTestImpl builder =
+                new ReloadingFileBasedConfigurationBuilderTestImpl(detector);
+        builder.configure(new FileBasedBuilderParametersImpl()
+                .setReloadingExecutor(executor));
+        final PropertiesConfiguration config1 = builder.getConfiguration();
+        final BuilderEventListenerImpl listener = new BuilderEventListenerImpl();
+        builder.addEventListener(ConfigurationBuilderEvent.ANY, listener);
+
+        builder.getReloadingController().checkForReloading(null);
+        builder.getReloadingController().checkForReloading(null);
+        assertEquals("Wrong number of tasks", 1, executor.tasks.size());
+        assertSame("Result not retained", config1, builder.getConfiguration());
+        executor.tasks.poll().run();
+        final PropertiesConfiguration config2 = builder.getConfiguration();
+        assertNotSame("No new result", config1, config2);
+        listener.nextEvent(ConfigurationBuilderEvent.CONFIGURATION_REQUEST);
+        listener.nextEvent(ConfigurationBuilderEvent.RESET);
+        listener.nextEvent(ConfigurationBuilderResultCreatedEvent.RESULT_CREATED);
+        listener.nextEvent(ConfigurationBuilderEvent.CONFIGURATION_REQUEST);
+        listener.assertNoMoreEvents();
+        assertFalse("Still in reloading state",
+                builder.getReloadingController().isInReloadingState());
+        EasyMock.verify(detector);
+    }
+
+    /**
+     * Tests that the result is reset if the executor for background reloads
+     * rejects the task.
+     */
+    @Test
+    public void testBackgroundReloadRejected() throws ConfigurationException
+    {
+        final ReloadingDetector detector =
+                EasyMock.createMock(ReloadingDetector.class);
+        EasyMock.expect(detector.isReloadingRequired()).andReturn(Boolean.TRUE);
+        EasyMock.replay(detector);
+        final ReloadingFileBasedConfigurationBuilderTestImpl builder =
+                new ReloadingFileBasedConfigurationBuilderTestImpl(detector);
+        builder.configure(new FileBasedBuilderParametersImpl()
+                .setReloadingExecutor(new Executor()
+                {
+                    @Override
+                    public void execute(final Runnable command)
+                    {
+                        throw new RejectedExecutionException("Test exception");
+                    }
+                }));
+        final BuilderEventListenerImpl listener = new BuilderEventListenerImpl();
+        builder.addEventListener(ConfigurationBuilderEvent.RESET, listener);
+        builder.getConfiguration();
+        builder.getReloadingController().checkForReloading(null);
+        listener.nextEvent(ConfigurationBuilderEvent.RESET);
+        listener.assertNoMoreEvents();
+        EasyMock.verify(detector);
+    }
+
+    /**
+     * Tests that the result is reset if a background reload fails.
+     */
+    @Test
+    public void testBackgroundReloadFailure() throws ConfigurationException
+    {
+        final ReloadingDetector detector =
+                EasyMock.createMock(ReloadingDetector.class);
+        EasyMock.expect(detector.isReloadingRequired()).andReturn(Boolean.TRUE)
+                .times(2);
+        detector.reloadingPerformed();
+        EasyMock.replay(detector);
+        final QueueExecutor executor = new QueueExecutor();
+        final ReloadingFileBasedConfigurationBuilderTestImpl builder =
+                new ReloadingFileBasedConfigurationBuilderTestImpl(detector);
+        builder.configure(new FileBasedBuilderParametersImpl()
+                .setReloadingExecutor(executor));
+        final PropertiesConfiguration config1 = builder.getConfiguration();
+        builder.failOnCreate = true;
+        final BuilderEventListenerImpl listener = new BuilderEventListenerImpl();
+        builder.addEventListener(ConfigurationBuilderEvent.RESET, listener);
+        builder.getReloadingController().checkForReloading(null);
+        executor.tasks.poll().run();
+        listener.nextEvent(ConfigurationBuilderEvent.RESET);
+        listener.assertNoMoreEvents();
+        builder.failOnCreate = false;
+        assertNotSame("Result not reset", config1, builder.getConfiguration());
+
+        builder.getReloadingController().checkForReloading(null);
+        assertEquals("Task not scheduled again", 1, executor.tasks.size());
+        EasyMock.verify(detector);
+    }
+
+    /**
+     * Tests that a detector based on a file watcher is closed when it is
+     * replaced for a new result object.
+     */
+    @Test
+    public void testWatchServiceReloadingDetectorClosed() throws Exception
+    {
+        final File file = folder.newFile("watched.properties");
+        final FileWatcher watcher = new FileWatcher();
+        final List<WatchServiceReloadingDetector> detectors =
+                new ArrayList<>();
+        final ReloadingDetectorFactory factory =
+                new WatchServiceReloadingDetectorFactory(watcher)
+                {
+                    @Override
+                    public ReloadingDetector createReloadingDetector(
+                            final FileHandler handler,
+                            final FileBasedBuilderParametersImpl params)
+                            throws ConfigurationException
+                    {
+                        final WatchServiceReloadingDetector detector =
+                                (WatchServiceReloadingDetector) super
+                                        .createReloadingDetector(handler,
+                                                params);
+                        detectors.add(detector);
+                        return detector;
+                    }
+                };
+        final ReloadingFileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new ReloadingFileBasedConfigurationBuilder<>(
+                        PropertiesConfiguration.class);
+        builder.configure(new FileBasedBuilderParametersImpl().setFile(file)
+                .setReloadingDetectorFactory(factory));
+        try
+        {
+            builder.getConfiguration();
+            builder.resetResult();
+            builder.getConfiguration();
+            assertEquals("Wrong number of detectors", 2, detectors.size());
+            assertFalse("Old detector not closed",
+                    detectors.get(0).isWatching());
+            assertTrue("New detector not watching",
+                    detectors.get(1).isWatching());
+        }
+        finally
+        {
+            watcher.close();
+        }
+    }
+
+    /**
+     * Writes the given content into a file.
+     *
+     * @param file the file
+     * @param content the content
+     * @throws IOException if an error occurs
+     */
+    private static void writeFile(final File file, final String content)
+            throws IOException
+    {
+        try (Writer out = new FileWriter(file))
+        {
+            out.write(content);
+        }
+    }
+
+    /**
+     * Creates a builder for the given file with incremental reloading
+     * enabled which uses the given reloading detector. The configurations
+     * created by the builder use a {@code ReadWriteSynchronizer}.
+     *
+     * @param resultClass the result class of the builder
+     * @param file the file
+     * @param detector the reloading detector
+     * @param executor the executor for background reloads (may be
+     *        <b>null</b>)
+     * @return the builder
+     */
+    private static <T extends FileBasedConfiguration> ReloadingFileBasedConfigurationBuilder<T> createIncrementalBuilder(
+            final Class<T> resultClass, final File file,
+            final ReloadingDetector detector, final Executor executor)
+    {
+        return createIncrementalBuilder(resultClass, file, detector, executor,
+                new ReadWriteSynchronizer());
+    }
+
+    /**
+     * Creates a builder for the given file with incremental reloading
+     * enabled which uses the given reloading detector and synchronizer.
+     *
+     * @param resultClass the result class of the builder
+     * @param file the file
+     * @param detector the reloading detector
+     * @param executor the executor for background reloads (may be
+     *        <b>null</b>)
+     * @param sync the synchronizer for the configurations
+     * @return the builder
+     */
+    private static <T extends FileBasedConfiguration> ReloadingFileBasedConfigurationBuilder<T> createIncrementalBuilder(
+            final Class<T> resultClass, final File file,
+            final ReloadingDetector detector, final Executor executor,
+            final Synchronizer sync)
+    {
+        final ReloadingFileBasedConfigurationBuilder<T> builder =
+                new ReloadingFileBasedConfigurationBuilder<>(resultClass);
+        builder.configure(new FileBasedBuilderParametersImpl().setFile(file)
+                .setIncrementalReloading(Boolean.TRUE)
+                .setReloadingExecutor(executor)
+                .setReloadingDetectorFactory(new ReloadingDetectorFactory()
+                {
+                    @Override
+                    public ReloadingDetector createReloadingDetector(
+                            final FileHandler handler,
+                            final FileBasedBuilderParametersImpl params)
+                    {
+                        return detector;
+                    }
+                })
+                .setListDelimiterHandler(new DefaultListDelimiterHandler(','))
+                .setSynchronizer(sync));
+        return builder;
+    }
+
+    /**
+     * Creates a mock reloading detector which reports a single change.
+     *
+     * @return the mock detector
+     */
+    private static ReloadingDetector createSingleChangeDetector()
+    {
+        final ReloadingDetector detector =
+                EasyMock.createMock(ReloadingDetector.class);
+        EasyMock.expect(detector.isReloadingRequired()).andReturn(Boolean.TRUE);
+        detector.reloadingPerformed();
+        EasyMock.replay(detector);
+        return detector;
+    }
+
+    /**
+     * Tests that an incremental reload updates the existing configuration and
+     * fires events only for the changed properties.
+     */
+    @Test
+    public void testIncrementalReload() throws Exception
+    {
+        final File file = folder.newFile("incremental.properties");
+        writeFile(file, "a = 1\nb = 2\nc = x\\,y\ne = 5\n");
+        final ReloadingDetector detector = createSingleChangeDetector();
+        final ReloadingFileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                createIncrementalBuilder(PropertiesConfiguration.class, file,
+                        detector, null);
+        final PropertiesConfiguration config = builder.getConfiguration();
+        final EventListenerTestImpl listener = new EventListenerTestImpl(config);
+        config.addEventListener(ConfigurationEvent.ANY, listener);
+        final BuilderEventListenerImpl builderListener =
+                new BuilderEventListenerImpl();
+        builder.addEventListener(ConfigurationBuilderEvent.RESET,
+                builderListener);
+
+        writeFile(file, "a = 1\nb = 3\nc = x\\,z\nd = 4\n");
+        builder.getReloadingController().checkForReloading(null);
+        assertSame("Result not retained", config, builder.getConfiguration());
+        assertEquals("Wrong value of b", "3", config.getString("b"));
+        assertEquals("Wrong value of c", "x,z", config.getString("c"));
+        assertEquals("Value of c split", 1, config.getList("c").size());
+        assertEquals("Wrong value of d", "4", config.getString("d"));
+        assertFalse("Property not cleared", config.containsKey("e"));
+        listener.checkEvent(ConfigurationEvent.SET_PROPERTY, "b", "3", true);
+        listener.checkEvent(ConfigurationEvent.SET_PROPERTY, "b", "3", false);
+        listener.nextEvent(ConfigurationEvent.SET_PROPERTY);
+        listener.nextEvent(ConfigurationEvent.SET_PROPERTY);
+        listener.checkEvent(ConfigurationEvent.ADD_PROPERTY, "d", "4", true);
+        listener.checkEvent(ConfigurationEvent.ADD_PROPERTY, "d", "4", false);
+        listener.checkEvent(ConfigurationEvent.CLEAR_PROPERTY, "e", null, true);
+        listener.checkEvent(ConfigurationEvent.CLEAR_PROPERTY, "e", null,
+                false);
+        listener.done();
+        builderListener.assertNoMoreEvents();
+        assertFalse("Still in reloading state",
+                builder.getReloadingController().isInReloadingState());
+        EasyMock.verify(detector);
+    }
+
+    /**
+     * Tests an incremental reload of a hierarchical configuration whose
+     * structure has not changed.
+     */
+    @Test
+    public void testIncrementalReloadHierarchical() throws Exception
+    {
+        final File file = folder.newFile("incremental.xml");
+        writeFile(file, "<config><a x=\"1\">v1</a><a>v2</a></config>");
+        final ReloadingDetector detector = createSingleChangeDetector();
+        final ReloadingFileBasedConfigurationBuilder<XMLConfiguration> builder =
+                createIncrementalBuilder(XMLConfiguration.class, file,
+                        detector, null);
+        final XMLConfiguration config = builder.getConfiguration();
+        final EventListenerTestImpl listener = new EventListenerTestImpl(config);
+        config.addEventListener(ConfigurationEvent.ANY, listener);
+
+        writeFile(file, "<config><a x=\"2\">v1</a><a>v3</a></config>");
+        builder.getReloadingController().checkForReloading(null);
+        assertSame("Result not retained", config, builder.getConfiguration());
+        assertEquals("Wrong attribute", "2", config.getString("a(0)[@x]"));
+        assertEquals("Wrong value (1)", "v1", config.getString("a(0)"));
+        assertEquals("Wrong value (2)", "v3", config.getString("a(1)"));
+        final Set<String> changedKeys = new HashSet<>();
+        for (int i = 0; i < 2; i++)
+        {
+            assertTrue("Wrong before flag",
+                    listener.nextEvent(ConfigurationEvent.SET_PROPERTY)
+                            .isBeforeUpdate());
+            final ConfigurationEvent event =
+                    listener.nextEvent(ConfigurationEvent.SET_PROPERTY);
+            assertFalse("Wrong after flag", event.isBeforeUpdate());
+            changedKeys.add(event.getPropertyName());
+        }
+        listener.done();
+        assertEquals("Wrong changed keys",
+                new HashSet<>(Arrays.asList("a", "a[@x]")), changedKeys);
+        EasyMock.verify(detector);
+    }
+
+    /**
+     * Tests that a hierarchical configuration is replaced on a reload if its
+     * structure has changed.
+     */
+    @Test
+    public void testIncrementalReloadHierarchicalStructureChanged()
+            throws Exception
+    {
+        final File file = folder.newFile("incremental.xml");
+        writeFile(file, "<config><a>v1</a></config>");
+        final ReloadingDetector detector = createSingleChangeDetector();
+        final ReloadingFileBasedConfigurationBuilder<XMLConfiguration> builder =
+                createIncrementalBuilder(XMLConfiguration.class, file,
+                        detector, null);
+        final XMLConfiguration config1 = builder.getConfiguration();
+
+        writeFile(file, "<config><a>v1</a><b>v2</b></config>");
+        builder.getReloadingController().checkForReloading(null);
+        final XMLConfiguration config2 = builder.getConfiguration();
+        assertNotSame("Result not replaced", config1, config2);
+        assertEquals("Wrong value", "v2", config2.getString("b"));
+        assertFalse("Old result changed", config1.containsKey("b"));
+        EasyMock.verify(detector);
+    }
+
+    /**
+     * Tests that a configuration without a real synchronizer is replaced on
+     * a reload rather than updated.
+     */
+    @Test
+    public void testIncrementalReloadNoOpSynchronizer() throws Exception
+    {
+        final File file = folder.newFile("incremental.properties");
+        writeFile(file, "a = 1\n");
+        final ReloadingDetector detector = createSingleChangeDetector();
+        final ReloadingFileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                createIncrementalBuilder(PropertiesConfiguration.class, file,
+                        detector, null, NoOpSynchronizer.INSTANCE);
+        final PropertiesConfiguration config1 = builder.getConfiguration();
+
+        writeFile(file, "a = 2\n");
+        builder.getReloadingController().checkForReloading(null);
+        final PropertiesConfiguration config2 = builder.getConfiguration();
+        assertNotSame("Result not replaced", config1, config2);
+        assertEquals("Wrong new value", "2", config2.getString("a"));
+        assertEquals("Old result changed", "1", config1.getString("a"));
+        EasyMock.verify(detector);
+    }
+
+    /**
+     * Tests that an incremental reload is performed by the executor for
+     * background reloads if one is set.
+     */
+    @Test
+    public void testIncrementalReloadInBackground() throws Exception
+    {
+        final File file = folder.newFile("incremental.properties");
+        writeFile(file, "a = 1\n");
+        final ReloadingDetector detector = createSingleChangeDetector();
+        final QueueExecutor executor = new QueueExecutor();
+        final ReloadingFileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                createIncrementalBuilder(PropertiesConfiguration.class, file,
+                        detector, executor);
+        final PropertiesConfiguration config = builder.getConfiguration();
+
+        writeFile(file, "a = 2\n");
+        builder.getReloadingController().checkForReloading(null);
+        assertEquals("Value changed too early", "1", config.getString("a"));
+        assertEquals("Wrong number of tasks", 1, executor.tasks.size());
+        executor.tasks.poll().run();
+        assertSame("Result not retained", config, builder.getConfiguration());
+        assertEquals("Value not changed", "2", config.getString("a"));
+        assertFalse("Still in reloading state",
+                builder.getReloadingController().isInReloadingState());
+        EasyMock.verify(detector);
+    }
+
+    /**
+     * Tests that the result is reset if an incremental reload fails because
+     * the file cannot be loaded.
+     */
+    @Test
+    public void testIncrementalReloadFailure() throws Exception
+    {
+        final File file = folder.newFile("incremental.xml");
+        writeFile(file, "<config><a>v1</a></config>");
+        final ReloadingDetector detector =
+                EasyMock.createMock(ReloadingDetector.class);
+        EasyMock.expect(detector.isReloadingRequired()).andReturn(Boolean.TRUE);
+        EasyMock.replay(detector);
+        final ReloadingFileBasedConfigurationBuilder<XMLConfiguration> builder =
+                createIncrementalBuilder(XMLConfiguration.class, file,
+                        detector, null);
+        final XMLConfiguration config = builder.getConfiguration();
+        final BuilderEventListenerImpl listener = new BuilderEventListenerImpl();
+        builder.addEventListener(ConfigurationBuilderEvent.RESET, listener);
+
+        writeFile(file, "<config><a>v2</a>");
+        builder.getReloadingController().checkForReloading(null);
+        listener.nextEvent(ConfigurationBuilderEvent.RESET);
+        listener.assertNoMoreEvents();
+        assertEquals("Old result changed", "v1", config.getString("a"));
+        EasyMock.verify(detector);
+    }
+
+    /**
+     * Tests that the result is replaced on a reload if the auto save flag is
+     * set, even if incremental reloading is enabled.
+     */
+    @Test
+    public void testIncrementalReloadAutoSave() throws Exception
+    {
+        final File file = folder.newFile("incremental.properties");
+        writeFile(file, "a = 1\n");
+        final ReloadingDetector detector = createSingleChangeDetector();
+        final ReloadingFileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                createIncrementalBuilder(PropertiesConfiguration.class, file,
+                        detector, null);
+        builder.setAutoSave(true);
+        final PropertiesConfiguration config = builder.getConfiguration();
+
+        writeFile(file, "a = 2\n");
+        builder.getReloadingController().checkForReloading(null);
+        assertNotSame("Result not replaced", config,
+                builder.getConfiguration());
+        assertEquals("Old result changed", "1", config.getString("a"));
+        EasyMock.verify(detector);
+    }
+
     /**
      * Tests whether the allowFailOnInit flag is correctly initialized.
      */
@@ -239,6 +721,9 @@ public class TestReloadingFileBasedConfigurationBuilder
         /** Stores the file handler passed to createReloadingDetector(). */
         private FileHandler handlerForDetector;
 
+        /** A flag whether the creation of a result should fail. */
+        private volatile boolean failOnCreate;
+
         /**
          * Creates a new instance of
          * {@code ReloadingFileBasedConfigurationBuilderTestImpl} and
@@ -274,5 +759,35 @@ public class TestReloadingFileBasedConfigurationBuilder
             handlerForDetector = handler;
             return mockDetector;
         }
+
+        /**
+         * Simulates an error if the corresponding flag is set.
+         */
+        @Override
+        protected PropertiesConfiguration createResultInstance()
+                throws ConfigurationException
+        {
+            if (failOnCreate)
+            {
+                throw new ConfigurationException("Test exception");
+            }
+            return super.createResultInstance();
+        }
+    }
+
+    /**
+     * A test executor which stores the passed in tasks, so that they can be
+     * executed manually.
+     */
+    private static class QueueExecutor implements Executor
+    {
+        /** The tasks passed to this executor. */
+        final LinkedList<Runnable> tasks = new LinkedList<>();
+
+        @Override
+        public void execute(final Runnable command)
+        {
+            tasks.add(command);
+        }
     }
 }
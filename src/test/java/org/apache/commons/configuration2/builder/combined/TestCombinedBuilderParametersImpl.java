@@ -26,6 +26,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.configuration2.ConfigurationAssert;
 import org.apache.commons.configuration2.XMLConfiguration;
@@ -477,6 +478,26 @@ public class TestCombinedBuilderParametersImpl
         assertFalse("Inherit flag not set", params2.isInheritSettings());
     }
 
+    /**
+     * Tests whether an executor for loading sources can be set and that it is
+     * not inherited.
+     */
+    @Test
+    public void testSetLoadExecutorNotInherited()
+    {
+        final Executor executor = EasyMock.createMock(Executor.class);
+        EasyMock.replay(executor);
+        final CombinedBuilderParametersImpl params =
+                new CombinedBuilderParametersImpl();
+        assertSame("Wrong result", params, params.setLoadExecutor(executor));
+        assertSame("Executor not set", executor, params.getLoadExecutor());
+
+        final CombinedBuilderParametersImpl params2 =
+                new CombinedBuilderParametersImpl();
+        params2.inheritFrom(params.getParameters());
+        assertNull("Executor inherited", params2.getLoadExecutor());
+    }
+
     /**
      * Tests that inheritFrom() can handle a map which does not contain a
      * parameters object.
@@ -35,6 +35,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.configuration2.BaseHierarchicalConfiguration;
 import org.apache.commons.configuration2.CombinedConfiguration;
@@ -362,6 +366,216 @@ public class TestCombinedConfigurationBuilder
                 cc.getConfiguration(name) instanceof XMLConfiguration);
     }
 
+    /**
+     * Loads the given definition file using an executor for loading the
+     * child sources in parallel.
+     *
+     * @param defFile the definition file
+     * @return the executor used for loading
+     * @throws ConfigurationException if an error occurs
+     */
+    private CountingExecutor loadParallel(final File defFile)
+            throws ConfigurationException
+    {
+        final CountingExecutor executor = new CountingExecutor();
+        try
+        {
+            builder.configure(createParameters().setFile(defFile),
+                    parameters.combined().setLoadExecutor(executor));
+            builder.getConfiguration();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        return executor;
+    }
+
+    /**
+     * Tests whether sources can be loaded in parallel. They must be added in
+     * the order of their declaration.
+     */
+    @Test
+    public void testLoadConfigurationParallel() throws ConfigurationException
+    {
+        final CountingExecutor executor = loadParallel(TEST_FILE);
+        assertEquals("Wrong number of tasks", 3, executor.getCount());
+        checkConfiguration();
+    }
+
+    /**
+     * Tests whether optional sources are handled correctly when loading
+     * sources in parallel.
+     */
+    @Test
+    public void testLoadOptionalParallel() throws ConfigurationException
+    {
+        loadParallel(ConfigurationAssert
+                .getTestFile("testDigesterOptionalConfiguration.xml"));
+        final Configuration config = builder.getConfiguration();
+        assertTrue(config.getBoolean("test.boolean"));
+        assertEquals("value", config.getProperty("element"));
+    }
+
+    /**
+     * Tests that a failing non optional source causes an exception when
+     * loading sources in parallel.
+     */
+    @Test(expected = ConfigurationException.class)
+    public void testLoadOptionalWithExceptionParallel()
+            throws ConfigurationException
+    {
+        loadParallel(ConfigurationAssert
+                .getTestFile("testDigesterOptionalConfigurationEx.xml"));
+    }
+
+    /**
+     * Tests that sources are loaded in the current thread if the executor
+     * rejects a task.
+     */
+    @Test
+    public void testLoadParallelRejected() throws ConfigurationException
+    {
+        final CountingExecutor executor = new CountingExecutor();
+        executor.shutdown();
+        builder.configure(createParameters().setFile(TEST_FILE),
+                parameters.combined().setLoadExecutor(executor));
+        checkConfiguration();
+    }
+
+    /**
+     * Prepares a test for a lazy configuration source. A source is declared
+     * whose builder counts the number of configurations requested.
+     *
+     * @param optional the value of the optional attribute
+     * @param counter the counter for created configurations
+     * @return the resulting combined configuration
+     * @throws ConfigurationException if an error occurs
+     */
+    private CombinedConfiguration prepareLazyTest(final boolean optional,
+            final AtomicInteger counter) throws ConfigurationException
+    {
+        final String tagName = "myLazyTag";
+        final BaseHierarchicalConfiguration dataConf =
+                new BaseHierarchicalConfiguration();
+        dataConf.addProperty("key", "lazyValue");
+        final Map<String, Object> attrs = new HashMap<>();
+        attrs.put("config-name", BUILDER_NAME);
+        attrs.put("config-at", "lazy");
+        attrs.put("config-optional", optional);
+        attrs.put("config-lazy", Boolean.TRUE);
+        builder.configure(new CombinedBuilderParametersImpl()
+                .setDefinitionBuilder(
+                        createDefinitionBuilder(createDefinitionConfig(tagName,
+                                attrs))).registerProvider(tagName,
+                        new ConfigurationBuilderProvider()
+                        {
+                            @Override
+                            public ConfigurationBuilder<? extends Configuration> getConfigurationBuilder(
+                                    final ConfigurationDeclaration decl)
+                                    throws ConfigurationException
+                            {
+                                return new ConstantConfigurationBuilder(
+                                        dataConf)
+                                {
+                                    @Override
+                                    public BaseHierarchicalConfiguration getConfiguration()
+                                            throws ConfigurationException
+                                    {
+                                        counter.incrementAndGet();
+                                        return super.getConfiguration();
+                                    }
+                                };
+                            }
+                        }));
+        return builder.getConfiguration();
+    }
+
+    /**
+     * Tests that an optional lazy source is loaded on first access.
+     */
+    @Test
+    public void testLoadOptionalLazy() throws ConfigurationException
+    {
+        final AtomicInteger counter = new AtomicInteger();
+        final CombinedConfiguration cc = prepareLazyTest(true, counter);
+        assertEquals("Source already loaded", 0, counter.get());
+        assertTrue("Wrong configuration type",
+                cc.getConfiguration(BUILDER_NAME) instanceof LazySourceConfiguration);
+        assertNull("Got a value", cc.getString("other.key"));
+        assertEquals("Source loaded for other key", 0, counter.get());
+
+        assertEquals("Wrong value", "lazyValue", cc.getString("lazy.key"));
+        assertEquals("Wrong value (2)", "lazyValue", cc.getString("lazy.key"));
+        assertEquals("Wrong number of loads", 1, counter.get());
+    }
+
+    /**
+     * Tests that the lazy attribute is ignored for sources which are not
+     * optional.
+     */
+    @Test
+    public void testLoadLazyNotOptional() throws ConfigurationException
+    {
+        final AtomicInteger counter = new AtomicInteger();
+        final CombinedConfiguration cc = prepareLazyTest(false, counter);
+        assertEquals("Source not loaded", 1, counter.get());
+        assertFalse("Wrong configuration type",
+                cc.getConfiguration(BUILDER_NAME) instanceof LazySourceConfiguration);
+    }
+
+    /**
+     * Tests that an optional lazy source which cannot be loaded does not
+     * cause an error.
+     */
+    @Test
+    public void testLoadOptionalLazyWithException()
+            throws ConfigurationException
+    {
+        final Map<String, Object> attrs = new HashMap<>();
+        attrs.put("fileName", "nonExisting.xml");
+        attrs.put("config-name", BUILDER_NAME);
+        attrs.put("config-optional", Boolean.TRUE);
+        attrs.put("config-lazy", Boolean.TRUE);
+        builder.configure(new CombinedBuilderParametersImpl()
+                .setDefinitionBuilder(createDefinitionBuilder(
+                        createDefinitionConfig("xml", attrs))));
+        final CombinedConfiguration cc = builder.getConfiguration();
+        assertFalse("Key found", cc.containsKey("key"));
+        final LazySourceConfiguration lazy =
+                (LazySourceConfiguration) cc.getConfiguration(BUILDER_NAME);
+        assertTrue("Not loaded", lazy.isLoaded());
+        assertTrue("Not empty", lazy.isEmpty());
+    }
+
+    /**
+     * Tests that lazy sources are not loaded when loading sources in
+     * parallel.
+     */
+    @Test
+    public void testLoadOptionalLazyParallel() throws ConfigurationException
+    {
+        final CountingExecutor executor = new CountingExecutor();
+        try
+        {
+            builder.configure(
+                    createParameters().setFile(ConfigurationAssert
+                            .getTestFile("testCCLazySources.xml")),
+                    parameters.combined().setLoadExecutor(executor));
+            final CombinedConfiguration cc = builder.getConfiguration();
+            assertEquals("Wrong number of tasks", 1, executor.getCount());
+            assertTrue("Wrong configuration type",
+                    cc.getConfiguration("lazyProps") instanceof LazySourceConfiguration);
+            assertTrue("Wrong eager value", cc.getBoolean("test.boolean"));
+            assertEquals("Wrong lazy value", "value",
+                    cc.getString("lazy.element"));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
     /**
      * Tests the behavior of builderNames() before the result configuration has
      * been created.
@@ -1606,4 +1820,42 @@ public class TestCombinedConfigurationBuilder
             assertEquals("Wrong value read", Boolean.TRUE, value);
         }
     }
+
+    /**
+     * A test executor which loads sources in separate threads and counts the
+     * tasks passed to it.
+     */
+    private static class CountingExecutor implements Executor
+    {
+        /** The executor service performing the tasks. */
+        private final ExecutorService service = Executors.newFixedThreadPool(2);
+
+        /** The number of executed tasks. */
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public void execute(final Runnable command)
+        {
+            service.execute(command);
+            count.incrementAndGet();
+        }
+
+        /**
+         * Returns the number of tasks passed to this executor.
+         *
+         * @return the number of tasks
+         */
+        public int getCount()
+        {
+            return count.get();
+        }
+
+        /**
+         * Shuts down the underlying executor service.
+         */
+        public void shutdown()
+        {
+            service.shutdown();
+        }
+    }
 }
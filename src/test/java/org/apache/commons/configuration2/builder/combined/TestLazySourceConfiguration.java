@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.builder.combined;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.configuration2.CombinedConfiguration;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.commons.configuration2.builder.BasicConfigurationBuilder;
+import org.apache.commons.configuration2.event.ConfigurationEvent;
+import org.apache.commons.configuration2.event.EventListener;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.junit.Test;
+
+/**
+ * Test class for {@code LazySourceConfiguration}.
+ *
+ * @version $Id$
+ */
+public class TestLazySourceConfiguration
+{
+    /**
+     * Creates a test configuration with some properties.
+     *
+     * @return the test configuration
+     */
+    private static Configuration createSourceConfiguration()
+    {
+        final PropertiesConfiguration config = new PropertiesConfiguration();
+        config.addProperty("test.key", "value");
+        config.addProperty("test.other", "otherValue");
+        return config;
+    }
+
+    /**
+     * Tries to create an instance without a builder.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitNoBuilder()
+    {
+        new LazySourceConfiguration(null, null);
+    }
+
+    /**
+     * Tests that a new instance is empty and not yet loaded.
+     */
+    @Test
+    public void testInit()
+    {
+        final CountingBuilder builder =
+                new CountingBuilder(createSourceConfiguration());
+        final LazySourceConfiguration config =
+                new LazySourceConfiguration(builder, null);
+        assertFalse("Already loaded", config.isLoaded());
+        assertTrue("Not empty", config.isEmpty());
+        assertSame("Wrong builder", builder, config.getBuilder());
+        assertEquals("Builder accessed", 0, builder.getCount());
+    }
+
+    /**
+     * Tests whether the content of the source is loaded and whether a change
+     * event is fired.
+     */
+    @Test
+    public void testLoad()
+    {
+        final CountingBuilder builder =
+                new CountingBuilder(createSourceConfiguration());
+        final LazySourceConfiguration config =
+                new LazySourceConfiguration(builder, null);
+        final List<ConfigurationEvent> events = new ArrayList<>();
+        config.addEventListener(ConfigurationEvent.ADD_NODES,
+                new EventListener<ConfigurationEvent>()
+                {
+                    @Override
+                    public void onEvent(final ConfigurationEvent event)
+                    {
+                        events.add(event);
+                    }
+                });
+        config.load();
+        assertTrue("Not loaded", config.isLoaded());
+        assertEquals("Wrong value", "value", config.getString("test.key"));
+        assertEquals("Wrong other value", "otherValue",
+                config.getString("test.other"));
+        assertEquals("Wrong number of events", 2, events.size());
+        assertTrue("No before event", events.get(0).isBeforeUpdate());
+        assertFalse("No after event", events.get(1).isBeforeUpdate());
+    }
+
+    /**
+     * Tests that the source is loaded only once.
+     */
+    @Test
+    public void testLoadOnlyOnce()
+    {
+        final CountingBuilder builder =
+                new CountingBuilder(createSourceConfiguration());
+        final LazySourceConfiguration config =
+                new LazySourceConfiguration(builder, null);
+        config.load();
+        config.load();
+        assertEquals("Wrong number of loads", 1, builder.getCount());
+    }
+
+    /**
+     * Tests that an exception thrown by the builder is ignored.
+     */
+    @Test
+    public void testLoadFailure()
+    {
+        final CountingBuilder builder = new CountingBuilder(null);
+        final LazySourceConfiguration config =
+                new LazySourceConfiguration(builder, null);
+        config.load();
+        assertTrue("Not loaded", config.isLoaded());
+        assertTrue("Not empty", config.isEmpty());
+        config.load();
+        assertEquals("Loaded again", 1, builder.getCount());
+    }
+
+    /**
+     * Tests that concurrent threads load the source only once and see its
+     * content afterwards.
+     */
+    @Test
+    public void testLoadConcurrently() throws InterruptedException
+    {
+        final CountingBuilder builder =
+                new CountingBuilder(createSourceConfiguration());
+        final LazySourceConfiguration config =
+                new LazySourceConfiguration(builder, null);
+        final int threadCount = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger errors = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++)
+        {
+            final Thread t = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                        config.load();
+                        if (!"value".equals(config.getString("test.key")))
+                        {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    catch (final InterruptedException iex)
+                    {
+                        errors.incrementAndGet();
+                    }
+                }
+            };
+            threads.add(t);
+            t.start();
+        }
+        start.countDown();
+        for (final Thread t : threads)
+        {
+            t.join();
+        }
+        assertEquals("Wrong number of errors", 0, errors.get());
+        assertEquals("Wrong number of loads", 1, builder.getCount());
+    }
+
+    /**
+     * Tests that the loaded content becomes visible in a combined
+     * configuration even if its node structure is re-constructed between the
+     * events fired before and after the source is loaded.
+     */
+    @Test
+    public void testLoadVisibleAfterRebuildFromBeforeEvent()
+    {
+        final LazySourceConfiguration config = new LazySourceConfiguration(
+                new CountingBuilder(createSourceConfiguration()), null);
+        final CombinedConfiguration cc = new CombinedConfiguration();
+        cc.addConfiguration(config, "lazy", "lazy");
+        config.addEventListener(ConfigurationEvent.ADD_NODES,
+                new EventListener<ConfigurationEvent>()
+                {
+                    @Override
+                    public void onEvent(final ConfigurationEvent event)
+                    {
+                        if (event.isBeforeUpdate())
+                        {
+                            cc.getString("other");
+                        }
+                    }
+                });
+        assertEquals("Wrong value", "value", cc.getString("lazy.test.key"));
+        assertEquals("Wrong value (2)", "value",
+                cc.getString("lazy.test.key"));
+    }
+
+    /**
+     * A test builder which returns a constant configuration and counts the
+     * number of requests. If no configuration is set, an exception is
+     * thrown.
+     */
+    private static class CountingBuilder extends
+            BasicConfigurationBuilder<Configuration>
+    {
+        /** The configuration to be returned. */
+        private final Configuration configuration;
+
+        /** The number of requests. */
+        private final AtomicInteger count = new AtomicInteger();
+
+        /**
+         * Creates a new instance of {@code CountingBuilder}.
+         *
+         * @param config the configuration to be returned
+         */
+        public CountingBuilder(final Configuration config)
+        {
+            super(Configuration.class);
+            configuration = config;
+        }
+
+        /**
+         * Returns the number of requests.
+         *
+         * @return the number of requests
+         */
+        public int getCount()
+        {
+            return count.get();
+        }
+
+        @Override
+        public Configuration getConfiguration() throws ConfigurationException
+        {
+            count.incrementAndGet();
+            if (configuration == null)
+            {
+                throw new ConfigurationException("Test exception");
+            }
+            return configuration;
+        }
+    }
+}
@@ -322,6 +322,20 @@ public class TestConfigurationInterpolator
         assertTrue("Map was modified", interpolator.getLookups().isEmpty());
     }
 
+    /**
+     * Tests whether a single lookup object can be queried by its prefix.
+     */
+    @Test
+    public void testGetLookup()
+    {
+        final Lookup lookup = setUpTestLookup();
+        interpolator.registerLookup(TEST_PREFIX, lookup);
+        assertSame("Wrong lookup", lookup, interpolator.getLookup(TEST_PREFIX));
+        assertNull("Got lookup for unknown prefix",
+                interpolator.getLookup("unknown"));
+        assertNull("Got lookup for null prefix", interpolator.getLookup(null));
+    }
+
     /**
      * Tests whether multiple default lookups can be added.
      */
@@ -634,4 +648,166 @@ public class TestConfigurationInterpolator
         final Lookup lookup = ConfigurationInterpolator.nullSafeLookup(null);
         assertNull("Got a lookup result", lookup.lookup("someVar"));
     }
+
+    /**
+     * Creates a lookup object backed by the given map which counts the
+     * variables it resolves.
+     *
+     * @param values the map with variable values
+     * @param counter a list for recording the resolved variables
+     * @return the test lookup object
+     */
+    private static Lookup setUpMapLookup(final Map<String, Object> values,
+            final List<String> counter)
+    {
+        return new Lookup()
+        {
+            @Override
+            public Object lookup(final String variable)
+            {
+                counter.add(variable);
+                return values.get(variable);
+            }
+        };
+    }
+
+    /**
+     * Tests that caching is disabled per default.
+     */
+    @Test
+    public void testCachingDisabledByDefault()
+    {
+        assertFalse("Caching enabled", interpolator.isEnableCaching());
+        final Map<String, Object> values = new HashMap<>();
+        values.put("a", "1");
+        final List<String> resolved = new ArrayList<>();
+        interpolator.addDefaultLookup(setUpMapLookup(values, resolved));
+        interpolator.interpolate("${a}!");
+        interpolator.interpolate("${a}!");
+        assertEquals("Wrong number of lookups", 2, resolved.size());
+    }
+
+    /**
+     * Tests whether cached interpolation results are reused.
+     */
+    @Test
+    public void testCachingResultsAreReused()
+    {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("a", "1");
+        final List<String> resolved = new ArrayList<>();
+        interpolator.addDefaultLookup(setUpMapLookup(values, resolved));
+        interpolator.setEnableCaching(true);
+        assertEquals("Wrong result (1)", "1!", interpolator.interpolate("${a}!"));
+        assertEquals("Wrong result (2)", "1!", interpolator.interpolate("${a}!"));
+        assertEquals("Wrong number of lookups", 1, resolved.size());
+    }
+
+    /**
+     * Tests that invalidating a variable only removes the results that
+     * reference it.
+     */
+    @Test
+    public void testInvalidateCacheReferencedVariable()
+    {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("a", "1");
+        values.put("b", "2");
+        final List<String> resolved = new ArrayList<>();
+        interpolator.addDefaultLookup(setUpMapLookup(values, resolved));
+        interpolator.setEnableCaching(true);
+        interpolator.interpolate("${a}!");
+        interpolator.interpolate("${b}!");
+        values.put("b", "3");
+        interpolator.invalidateCache("b");
+        resolved.clear();
+        assertEquals("Wrong result for a", "1!", interpolator.interpolate("${a}!"));
+        assertEquals("Wrong result for b", "3!", interpolator.interpolate("${b}!"));
+        assertEquals("Wrong resolved variables", Arrays.asList("b"), resolved);
+    }
+
+    /**
+     * Tests that dependencies on variables referenced by the values of other
+     * variables are tracked.
+     */
+    @Test
+    public void testInvalidateCacheNestedVariable()
+    {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("a", "${b}");
+        values.put("b", "2");
+        final List<String> resolved = new ArrayList<>();
+        interpolator.addDefaultLookup(setUpMapLookup(values, resolved));
+        interpolator.setEnableCaching(true);
+        assertEquals("Wrong initial result", "2!", interpolator.interpolate("${a}!"));
+        values.put("b", "3");
+        interpolator.invalidateCache("b");
+        assertEquals("Wrong result after change", "3!",
+                interpolator.interpolate("${a}!"));
+    }
+
+    /**
+     * Tests that the cache is cleared when the lookups are changed.
+     */
+    @Test
+    public void testCacheClearedWhenLookupsChange()
+    {
+        interpolator.setEnableCaching(true);
+        interpolator.registerLookup(TEST_PREFIX, setUpTestLookup());
+        final String var = "${" + TEST_PREFIX + ":" + TEST_NAME + "}";
+        assertEquals("Wrong initial result", TEST_VALUE, interpolator.interpolate(var));
+        interpolator.registerLookup(TEST_PREFIX, setUpTestLookup(TEST_NAME, "other"));
+        assertEquals("Wrong result after change", "other", interpolator.interpolate(var));
+    }
+
+    /**
+     * Tests that a prefix can be used to invalidate all results referencing
+     * variables of a specific lookup.
+     */
+    @Test
+    public void testInvalidateCachePrefix()
+    {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("x", "1");
+        final List<String> resolved = new ArrayList<>();
+        interpolator.registerLookup(TEST_PREFIX, setUpMapLookup(values, resolved));
+        interpolator.setEnableCaching(true);
+        final String var = "${" + TEST_PREFIX + ":x}";
+        assertEquals("Wrong initial result", "1", interpolator.interpolate(var));
+        values.put("x", "2");
+        interpolator.invalidateCache(TEST_PREFIX + ":");
+        assertEquals("Wrong result after change", "2", interpolator.interpolate(var));
+    }
+
+    /**
+     * Tests whether the cached result for a value no longer used can be
+     * removed.
+     */
+    @Test
+    public void testInvalidateCachedValue()
+    {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("a", "1");
+        final List<String> resolved = new ArrayList<>();
+        interpolator.addDefaultLookup(setUpMapLookup(values, resolved));
+        interpolator.setEnableCaching(true);
+        interpolator.interpolate("${a}!");
+        interpolator.interpolate("${a}?");
+        interpolator.invalidateCachedValue(Arrays.asList("${a}!", 42));
+        resolved.clear();
+        assertEquals("Wrong result (1)", "1!", interpolator.interpolate("${a}!"));
+        assertEquals("Wrong result (2)", "1?", interpolator.interpolate("${a}?"));
+        assertEquals("Wrong resolved variables", Arrays.asList("a"), resolved);
+    }
+
+    /**
+     * Tests that invalidating a cached value is a noop if caching is
+     * disabled.
+     */
+    @Test
+    public void testInvalidateCachedValueCachingDisabled()
+    {
+        interpolator.invalidateCachedValue("${a}");
+        assertFalse("Caching enabled", interpolator.isEnableCaching());
+    }
 }
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.interpol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@code InterpolationCache}.
+ *
+ * @version $Id$
+ */
+public class TestInterpolationCache
+{
+    /**
+     * Helper method for creating a set with variable names.
+     *
+     * @param vars the variable names
+     * @return the set
+     */
+    private static Set<String> vars(final String... vars)
+    {
+        return new HashSet<>(Arrays.asList(vars));
+    }
+
+    /**
+     * Stores an entry in the given cache.
+     *
+     * @param cache the cache
+     * @param value the value
+     * @param variables the variables the value depends on
+     */
+    private static void put(final InterpolationCache cache, final String value,
+            final String... variables)
+    {
+        cache.put(value, value + "_result", vars(variables),
+                cache.getModificationCount());
+    }
+
+    /**
+     * Tests that an invalid maximum size is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitInvalidMaxSize()
+    {
+        new InterpolationCache(0);
+    }
+
+    /**
+     * Tests that the oldest entries are removed if the maximum size is
+     * exceeded.
+     */
+    @Test
+    public void testMaxSizeEvictsOldestEntries()
+    {
+        final InterpolationCache cache = new InterpolationCache(2);
+        put(cache, "${a}", "a");
+        put(cache, "${b}", "b");
+        put(cache, "${c}", "c");
+        assertEquals("Wrong size", 2, cache.size());
+        assertNull("Oldest entry not evicted", cache.get("${a}"));
+        assertEquals("Wrong result", "${c}_result", cache.get("${c}"));
+        assertEquals("Dependencies not unlinked", 2,
+                cache.getDependencyCount());
+    }
+
+    /**
+     * Tests that replacing an entry does not count against the maximum size.
+     */
+    @Test
+    public void testPutExistingValue()
+    {
+        final InterpolationCache cache = new InterpolationCache(2);
+        put(cache, "${a}", "a");
+        put(cache, "${b}", "b");
+        put(cache, "${a}", "a");
+        assertEquals("Wrong size", 2, cache.size());
+        assertEquals("Entry evicted", "${b}_result", cache.get("${b}"));
+    }
+
+    /**
+     * Tests whether removing a value unlinks it from its variables.
+     */
+    @Test
+    public void testRemoveUnlinksDependencies()
+    {
+        final InterpolationCache cache = new InterpolationCache();
+        put(cache, "${a}${b}", "a", "b");
+        put(cache, "${b}", "b");
+        cache.remove("${a}${b}");
+        assertNull("Entry not removed", cache.get("${a}${b}"));
+        assertEquals("Wrong dependency count", 1, cache.getDependencyCount());
+        cache.remove("${b}");
+        assertEquals("Dependencies remaining", 0, cache.getDependencyCount());
+    }
+
+    /**
+     * Tests whether invalidating a variable unlinks the removed values from
+     * other variables as well.
+     */
+    @Test
+    public void testInvalidateUnlinksOtherVariables()
+    {
+        final InterpolationCache cache = new InterpolationCache();
+        put(cache, "${a}${b}", "a", "b");
+        cache.invalidate("a");
+        assertEquals("Wrong size", 0, cache.size());
+        assertEquals("Dependencies remaining", 0, cache.getDependencyCount());
+    }
+
+    /**
+     * Tests that a result is not stored if the cache has been modified in the
+     * meantime.
+     */
+    @Test
+    public void testPutAfterConcurrentModification()
+    {
+        final InterpolationCache cache = new InterpolationCache();
+        final long modCount = cache.getModificationCount();
+        cache.invalidate("a");
+        cache.put("${a}", "1", Collections.singleton("a"), modCount);
+        assertEquals("Result stored", 0, cache.size());
+        assertEquals("Dependencies stored", 0, cache.getDependencyCount());
+    }
+}
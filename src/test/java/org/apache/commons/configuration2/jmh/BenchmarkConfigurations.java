@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.jmh;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.commons.configuration2.XMLConfiguration;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.configuration2.io.FileHandler;
+
+/**
+ * A helper class providing test data for benchmarks.
+ *
+ * <p>
+ * All configurations created by this class contain the same data: a number of
+ * keys generated by {@link #key(int)} with the index of the key as numeric
+ * value. The keys are structured in two levels, so that hierarchical
+ * configurations do not degenerate to a single node with a huge number of
+ * children.
+ * </p>
+ *
+ * @version $Id$
+ */
+final class BenchmarkConfigurations
+{
+    /** The number of keys stored in a single section. */
+    private static final int SECTION_SIZE = 1000;
+
+    /**
+     * Private constructor so that no instances can be created.
+     */
+    private BenchmarkConfigurations()
+    {
+    }
+
+    /**
+     * Returns the key with the given index.
+     *
+     * @param index the index
+     * @return the key with this index
+     */
+    public static String key(final int index)
+    {
+        return "section" + (index / SECTION_SIZE) + ".key" + (index % SECTION_SIZE);
+    }
+
+    /**
+     * Returns the value of the key with the given index.
+     *
+     * @param index the index
+     * @return the value of the key with this index
+     */
+    public static String value(final int index)
+    {
+        return String.valueOf(index);
+    }
+
+    /**
+     * Adds the test keys in the specified range to the given configuration.
+     * Only keys whose index modulo {@code step} equals {@code offset} are
+     * added; this allows distributing the keys over multiple configurations.
+     *
+     * @param config the configuration to be filled
+     * @param size the number of keys
+     * @param step the step between two keys
+     * @param offset the offset of the first key
+     * @param <T> the type of the configuration
+     * @return the configuration
+     */
+    public static <T extends Configuration> T fill(final T config, final int size,
+            final int step, final int offset)
+    {
+        for (int i = offset; i < size; i += step)
+        {
+            config.addProperty(key(i), value(i));
+        }
+        return config;
+    }
+
+    /**
+     * Creates a {@code BaseConfiguration} with the given number of keys.
+     *
+     * @param size the number of keys
+     * @return the configuration
+     */
+    public static BaseConfiguration baseConfiguration(final int size)
+    {
+        return fill(new BaseConfiguration(), size, 1, 0);
+    }
+
+    /**
+     * Creates a map with the given number of keys.
+     *
+     * @param size the number of keys
+     * @return the map
+     */
+    public static Map<String, Object> map(final int size)
+    {
+        final Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < size; i++)
+        {
+            map.put(key(i), value(i));
+        }
+        return map;
+    }
+
+    /**
+     * Creates a {@code PropertiesConfiguration} with the given number of keys.
+     * The configuration is loaded from a generated properties document, so
+     * that it is in the same state as after reading a file.
+     *
+     * @param size the number of keys
+     * @return the configuration
+     * @throws ConfigurationException if an error occurs
+     */
+    public static PropertiesConfiguration propertiesConfiguration(final int size)
+            throws ConfigurationException
+    {
+        final StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < size; i++)
+        {
+            buf.append(key(i)).append(" = ").append(value(i)).append('\n');
+        }
+        final PropertiesConfiguration config = new PropertiesConfiguration();
+        new FileHandler(config).load(new StringReader(buf.toString()));
+        return config;
+    }
+
+    /**
+     * Creates a {@code XMLConfiguration} with the given number of keys. The
+     * configuration is loaded from a generated XML document.
+     *
+     * @param size the number of keys
+     * @return the configuration
+     * @throws ConfigurationException if an error occurs
+     */
+    public static XMLConfiguration xmlConfiguration(final int size)
+            throws ConfigurationException
+    {
+        final StringBuilder buf = new StringBuilder();
+        buf.append("<config>");
+        for (int section = 0; section * SECTION_SIZE < size; section++)
+        {
+            buf.append("<section").append(section).append('>');
+            final int end = Math.min(size, (section + 1) * SECTION_SIZE);
+            for (int i = section * SECTION_SIZE; i < end; i++)
+            {
+                final int k = i % SECTION_SIZE;
+                buf.append("<key").append(k).append('>').append(value(i))
+                        .append("</key").append(k).append('>');
+            }
+            buf.append("</section").append(section).append('>');
+        }
+        buf.append("</config>");
+        final XMLConfiguration config = new XMLConfiguration();
+        new FileHandler(config).load(new StringReader(buf.toString()));
+        return config;
+    }
+}
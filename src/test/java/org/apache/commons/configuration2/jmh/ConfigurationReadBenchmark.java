@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.jmh;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration2.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * A JMH benchmark for the read path of the most important
+ * {@code Configuration} implementations.
+ * </p>
+ * <p>
+ * The benchmark measures the throughput of typical getter methods for
+ * configurations of different types and sizes, optionally with a
+ * {@code Synchronizer} in place. Run it via the <em>benchmark</em> profile;
+ * the gc profiler enabled there also reports the allocation rate of each
+ * getter.
+ * </p>
+ *
+ * @version $Id$
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConfigurationReadBenchmark
+{
+    /** The number of keys which are actually queried by the benchmarks. */
+    private static final int SAMPLE_SIZE = 1024;
+
+    /** The type of the configuration under test. */
+    @Param({ "BASE", "MAP", "SNAPSHOT", "PROPERTIES", "XML", "XML_INDEXED", "COMBINED", "COMPOSITE" })
+    private ConfigurationType type;
+
+    /** The number of keys stored in the configuration. */
+    @Param({ "1000", "100000", "1000000" })
+    private int size;
+
+    /** The synchronizer installed at the configuration. */
+    @Param({ "NONE", "READ_WRITE", "STAMPED" })
+    private SynchronizerType synchronizer;
+
+    /** The configuration under test. */
+    private Configuration config;
+
+    /** The keys to be queried. */
+    private String[] keys;
+
+    /**
+     * Creates and populates the configuration to be tested.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        config = type.create(size);
+        synchronizer.install(config);
+
+        final Random random = new Random(size);
+        keys = new String[SAMPLE_SIZE];
+        for (int i = 0; i < SAMPLE_SIZE; i++)
+        {
+            keys[i] = BenchmarkConfigurations.key(random.nextInt(size));
+        }
+    }
+
+    /**
+     * Benchmarks the {@code getString()} method.
+     *
+     * @param cursor the cursor selecting the next key
+     * @return the value read
+     */
+    @Benchmark
+    public String getString(final KeyCursor cursor)
+    {
+        return config.getString(cursor.next(keys));
+    }
+
+    /**
+     * Benchmarks the {@code getInt()} method.
+     *
+     * @param cursor the cursor selecting the next key
+     * @return the value read
+     */
+    @Benchmark
+    public int getInt(final KeyCursor cursor)
+    {
+        return config.getInt(cursor.next(keys));
+    }
+
+    /**
+     * Benchmarks the {@code getList()} method.
+     *
+     * @param cursor the cursor selecting the next key
+     * @return the value read
+     */
+    @Benchmark
+    public List<Object> getList(final KeyCursor cursor)
+    {
+        return config.getList(cursor.next(keys));
+    }
+
+    /**
+     * Benchmarks the generic {@code get()} method which does a conversion to
+     * a target class.
+     *
+     * @param cursor the cursor selecting the next key
+     * @return the value read
+     */
+    @Benchmark
+    public Long getTyped(final KeyCursor cursor)
+    {
+        return config.get(Long.class, cursor.next(keys));
+    }
+
+    /**
+     * A per-thread state object iterating over the keys to be queried. This
+     * makes sure that concurrent benchmark threads do not contend on a shared
+     * counter.
+     */
+    @State(Scope.Thread)
+    public static class KeyCursor
+    {
+        /** The current index. */
+        private int index;
+
+        /**
+         * Returns the next key from the given array.
+         *
+         * @param keys the array with keys
+         * @return the next key
+         */
+        public String next(final String[] keys)
+        {
+            index = (index + 1) & (keys.length - 1);
+            return keys[index];
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.jmh;
+
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.commons.configuration2.CombinedConfiguration;
+import org.apache.commons.configuration2.CompositeConfiguration;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.configuration2.MapConfiguration;
+import org.apache.commons.configuration2.SnapshotConfiguration;
+import org.apache.commons.configuration2.XMLConfiguration;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+
+/**
+ * An enumeration class for the configuration implementations supported by
+ * benchmarks. Each literal knows how to create an instance filled with the
+ * test data defined by {@link BenchmarkConfigurations}.
+ *
+ * @version $Id$
+ */
+public enum ConfigurationType
+{
+    /** A plain {@code BaseConfiguration}. */
+    BASE
+    {
+        @Override
+        public Configuration create(final int size)
+        {
+            return BenchmarkConfigurations.baseConfiguration(size);
+        }
+    },
+
+    /** A {@code MapConfiguration} wrapping a hash map. */
+    MAP
+    {
+        @Override
+        public Configuration create(final int size)
+        {
+            return new MapConfiguration(BenchmarkConfigurations.map(size));
+        }
+    },
+
+    /** A {@code SnapshotConfiguration} initialized from a hash map. */
+    SNAPSHOT
+    {
+        @Override
+        public Configuration create(final int size)
+        {
+            return new SnapshotConfiguration(BenchmarkConfigurations.map(size));
+        }
+    },
+
+    /** A {@code PropertiesConfiguration} loaded from a document. */
+    PROPERTIES
+    {
+        @Override
+        public Configuration create(final int size)
+                throws ConfigurationException
+        {
+            return BenchmarkConfigurations.propertiesConfiguration(size);
+        }
+    },
+
+    /** A {@code XMLConfiguration} loaded from a document. */
+    XML
+    {
+        @Override
+        public Configuration create(final int size)
+                throws ConfigurationException
+        {
+            return BenchmarkConfigurations.xmlConfiguration(size);
+        }
+    },
+
+    /** A {@code XMLConfiguration} with the index for resolved keys enabled. */
+    XML_INDEXED
+    {
+        @Override
+        public Configuration create(final int size)
+                throws ConfigurationException
+        {
+            final XMLConfiguration config =
+                    BenchmarkConfigurations.xmlConfiguration(size);
+            config.setKeyIndexEnabled(true);
+            return config;
+        }
+    },
+
+    /**
+     * A {@code CombinedConfiguration} with two children each holding one half
+     * of the keys.
+     */
+    COMBINED
+    {
+        @Override
+        public Configuration create(final int size)
+        {
+            final CombinedConfiguration cc = new CombinedConfiguration();
+            cc.addConfiguration(BenchmarkConfigurations.fill(
+                    new BaseConfiguration(), size, 2, 0), "even");
+            cc.addConfiguration(BenchmarkConfigurations.fill(
+                    new BaseConfiguration(), size, 2, 1), "odd");
+            return cc;
+        }
+    },
+
+    /**
+     * A {@code CompositeConfiguration} with two children each holding one
+     * half of the keys. So half of the queries have to probe both children.
+     */
+    COMPOSITE
+    {
+        @Override
+        public Configuration create(final int size)
+        {
+            final CompositeConfiguration cc = new CompositeConfiguration();
+            cc.addConfiguration(BenchmarkConfigurations.fill(
+                    new BaseConfiguration(), size, 2, 0));
+            cc.addConfiguration(BenchmarkConfigurations.fill(
+                    new BaseConfiguration(), size, 2, 1));
+            return cc;
+        }
+    };
+
+    /**
+     * Creates a new configuration of this type with the given number of keys.
+     *
+     * @param size the number of keys
+     * @return the new configuration
+     * @throws ConfigurationException if an error occurs
+     */
+    public abstract Configuration create(int size)
+            throws ConfigurationException;
+}
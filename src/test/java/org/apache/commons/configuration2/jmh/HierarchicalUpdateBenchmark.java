@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration2.XMLConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * A JMH benchmark for update operations on hierarchical configurations.
+ * </p>
+ * <p>
+ * Each update of an {@code InMemoryNodeModel} is executed as a transaction
+ * which produces a new version of the node structure. This benchmark measures
+ * the costs of such transactions depending on the size of the node
+ * structure. Ideally, they only depend on the number of nodes affected by an
+ * update. The gc profiler reports the garbage produced per operation.
+ * </p>
+ *
+ * @version $Id$
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HierarchicalUpdateBenchmark
+{
+    /** The number of keys which are actually updated by the benchmarks. */
+    private static final int SAMPLE_SIZE = 1024;
+
+    /** The number of keys stored in the configuration. */
+    @Param({ "10000", "100000", "500000" })
+    private int size;
+
+    /** The configuration under test. */
+    private XMLConfiguration config;
+
+    /** The keys to be updated. */
+    private String[] keys;
+
+    /**
+     * Creates and populates the configuration to be tested.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        config = BenchmarkConfigurations.xmlConfiguration(size);
+
+        final Random random = new Random(size);
+        keys = new String[SAMPLE_SIZE];
+        for (int i = 0; i < SAMPLE_SIZE; i++)
+        {
+            keys[i] = BenchmarkConfigurations.key(random.nextInt(size));
+        }
+    }
+
+    /**
+     * Benchmarks changing the value of an existing property.
+     *
+     * @param cursor the cursor selecting the next key
+     */
+    @Benchmark
+    public void setProperty(final ConfigurationReadBenchmark.KeyCursor cursor)
+    {
+        config.setProperty(cursor.next(keys), "newValue");
+    }
+
+    /**
+     * Benchmarks adding a new property and removing it again, so that the
+     * size of the node structure remains constant.
+     *
+     * @param cursor the cursor selecting the next key
+     */
+    @Benchmark
+    public void addAndClearProperty(
+            final ConfigurationReadBenchmark.KeyCursor cursor)
+    {
+        final String key = cursor.next(keys) + ".added";
+        config.addProperty(key, "value");
+        config.clearTree(key);
+    }
+
+    /**
+     * Benchmarks changing the values of all sample keys by single calls of
+     * {@code setProperty()}. This is the baseline for
+     * {@link #setPropertiesBatch()}.
+     */
+    @Benchmark
+    public void setPropertiesSingle()
+    {
+        for (final String key : keys)
+        {
+            config.setProperty(key, "newValue");
+        }
+    }
+
+    /**
+     * Benchmarks changing the values of all sample keys in a single batch.
+     */
+    @Benchmark
+    public void setPropertiesBatch()
+    {
+        final XMLConfiguration.Batch batch = config.createBatch();
+        for (final String key : keys)
+        {
+            batch.setProperty(key, "newValue");
+        }
+        batch.commit();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration2.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * A JMH benchmark comparing the scalability of the {@code Synchronizer}
+ * implementations supporting concurrent reads.
+ * </p>
+ * <p>
+ * The benchmark reads properties from a synchronized configuration with as
+ * many threads as processors are available. In addition, a mixed workload is
+ * measured in which a single thread updates properties while the other
+ * threads of the group read them.
+ * </p>
+ *
+ * @version $Id$
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SynchronizerScalingBenchmark
+{
+    /** The number of keys stored in the configuration. */
+    private static final int SIZE = 10000;
+
+    /** The number of keys which are actually queried by the benchmarks. */
+    private static final int SAMPLE_SIZE = 1024;
+
+    /** The type of the configuration under test. */
+    @Param({ "BASE", "XML" })
+    private ConfigurationType type;
+
+    /** The synchronizer installed at the configuration. */
+    @Param({ "READ_WRITE", "STAMPED" })
+    private SynchronizerType synchronizer;
+
+    /** The configuration under test. */
+    private Configuration config;
+
+    /** The keys to be queried. */
+    private String[] keys;
+
+    /**
+     * Creates and populates the configuration to be tested.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        config = type.create(SIZE);
+        synchronizer.install(config);
+
+        final Random random = new Random(SIZE);
+        keys = new String[SAMPLE_SIZE];
+        for (int i = 0; i < SAMPLE_SIZE; i++)
+        {
+            keys[i] = BenchmarkConfigurations.key(random.nextInt(SIZE));
+        }
+    }
+
+    /**
+     * Benchmarks concurrent read access using all available processors.
+     *
+     * @param cursor the cursor selecting the next key
+     * @return the value read
+     */
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String readOnly(final ConfigurationReadBenchmark.KeyCursor cursor)
+    {
+        return config.getString(cursor.next(keys));
+    }
+
+    /**
+     * The reading part of the mixed workload.
+     *
+     * @param cursor the cursor selecting the next key
+     * @return the value read
+     */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(7)
+    public String mixedRead(final ConfigurationReadBenchmark.KeyCursor cursor)
+    {
+        return config.getString(cursor.next(keys));
+    }
+
+    /**
+     * The writing part of the mixed workload.
+     *
+     * @param cursor the cursor selecting the next key
+     */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedWrite(final ConfigurationReadBenchmark.KeyCursor cursor)
+    {
+        final String key = cursor.next(keys);
+        config.setProperty(key, key);
+    }
+}
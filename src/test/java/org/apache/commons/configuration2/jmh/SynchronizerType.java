@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.jmh;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.configuration2.sync.NoOpSynchronizer;
+import org.apache.commons.configuration2.sync.ReadWriteSynchronizer;
+import org.apache.commons.configuration2.sync.StampedLockSynchronizer;
+import org.apache.commons.configuration2.sync.Synchronizer;
+
+/**
+ * An enumeration class for the {@code Synchronizer} implementations that can
+ * be installed at configurations under test.
+ *
+ * @version $Id$
+ */
+public enum SynchronizerType
+{
+    /** No synchronization, i.e. the default {@code NoOpSynchronizer}. */
+    NONE
+    {
+        @Override
+        public Synchronizer create()
+        {
+            return NoOpSynchronizer.INSTANCE;
+        }
+    },
+
+    /** A {@code ReadWriteSynchronizer}. */
+    READ_WRITE
+    {
+        @Override
+        public Synchronizer create()
+        {
+            return new ReadWriteSynchronizer();
+        }
+    },
+
+    /** A {@code StampedLockSynchronizer} supporting optimistic reads. */
+    STAMPED
+    {
+        @Override
+        public Synchronizer create()
+        {
+            return new StampedLockSynchronizer();
+        }
+    };
+
+    /**
+     * Creates the {@code Synchronizer} represented by this literal.
+     *
+     * @return the {@code Synchronizer}
+     */
+    public abstract Synchronizer create();
+
+    /**
+     * Installs a {@code Synchronizer} of this type at the given configuration.
+     *
+     * @param config the configuration
+     */
+    public void install(final Configuration config)
+    {
+        config.setSynchronizer(create());
+    }
+}
@@ -18,14 +18,23 @@ package org.apache.commons.configuration2.reloading;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.easymock.EasyMock;
+import org.junit.After;
 import org.junit.Test;
 
 /**
@@ -38,6 +47,18 @@ public class TestCombinedReloadingController
     /** An array with mock objects for the sub controllers. */
     private ReloadingController[] subControllers;
 
+    /** An executor for concurrent checks. */
+    private ExecutorService executor;
+
+    @After
+    public void tearDown() throws Exception
+    {
+        if (executor != null)
+        {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * Creates an array with mock objects for sub controllers.
      */
@@ -207,4 +228,288 @@ public class TestCombinedReloadingController
                 setUpController().getSubControllers();
         subs.clear();
     }
+
+    /**
+     * Creates a combined controller which checks the given sub controllers
+     * concurrently using a thread pool.
+     *
+     * @param timeout the timeout in milliseconds
+     * @param subCtrls the sub controllers
+     * @return the combined controller
+     */
+    private CombinedReloadingController setUpConcurrentController(
+            final long timeout, final ReloadingController... subCtrls)
+    {
+        executor = Executors.newCachedThreadPool();
+        return new CombinedReloadingController(Arrays.asList(subCtrls),
+                executor, timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Tests the default settings for concurrent checks.
+     */
+    @Test
+    public void testPollingDefaults()
+    {
+        final CombinedReloadingController ctrl = setUpController();
+        assertNull("Got an executor", ctrl.getPollingExecutor());
+        assertEquals("Wrong timeout", 0,
+                ctrl.getPollingTimeout(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Tests whether the settings for concurrent checks are stored.
+     */
+    @Test
+    public void testPollingSettings()
+    {
+        final CombinedReloadingController ctrl =
+                setUpConcurrentController(1500);
+        assertEquals("Wrong executor", executor, ctrl.getPollingExecutor());
+        assertEquals("Wrong timeout", 1,
+                ctrl.getPollingTimeout(TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tries to create a concurrent instance without an executor.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitConcurrentNoExecutor()
+    {
+        new CombinedReloadingController(
+                new ArrayList<ReloadingController>(), null, 1,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Tries to create a concurrent instance with an invalid timeout.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitConcurrentInvalidTimeout()
+    {
+        new CombinedReloadingController(
+                new ArrayList<ReloadingController>(),
+                EasyMock.createMock(Executor.class), 0, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Tries to create a concurrent instance without a time unit.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitConcurrentNoTimeUnit()
+    {
+        new CombinedReloadingController(
+                new ArrayList<ReloadingController>(),
+                EasyMock.createMock(Executor.class), 1, null);
+    }
+
+    /**
+     * Tests that a concurrent check reports a change as soon as one sub
+     * controller has detected it, even if another check is still running.
+     */
+    @Test
+    public void testCheckForReloadingConcurrently()
+    {
+        final BlockingDetector slowDetector = new BlockingDetector(false);
+        final ReloadingController changedCtrl =
+                new ReloadingController(new ConstantDetector(true));
+        final CombinedReloadingController ctrl = setUpConcurrentController(
+                60000, new ReloadingController(slowDetector), changedCtrl);
+        try
+        {
+            assertTrue("Wrong result", ctrl.checkForReloading(null));
+            assertTrue("Sub controller not in reloading state",
+                    changedCtrl.isInReloadingState());
+        }
+        finally
+        {
+            slowDetector.release();
+        }
+    }
+
+    /**
+     * Tests that a concurrent check returns false if no sub controller has
+     * answered within the timeout. A change detected later is reported by
+     * the next check.
+     */
+    @Test
+    public void testCheckForReloadingConcurrentlyTimeout() throws Exception
+    {
+        final BlockingDetector slowDetector = new BlockingDetector(true);
+        final ReloadingController slowCtrl =
+                new ReloadingController(slowDetector);
+        final CombinedReloadingController ctrl = setUpConcurrentController(
+                50, slowCtrl, new ReloadingController(new ConstantDetector(
+                        false)));
+        try
+        {
+            assertFalse("Wrong result", ctrl.checkForReloading(null));
+        }
+        finally
+        {
+            slowDetector.release();
+        }
+        executor.shutdown();
+        assertTrue("Check not complete",
+                executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue("Sub controller not in reloading state",
+                slowCtrl.isInReloadingState());
+        assertTrue("Change not reported", ctrl.checkForReloading(null));
+    }
+
+    /**
+     * Tests that no new check of a sub controller is started while its
+     * previous check is still running.
+     */
+    @Test
+    public void testCheckForReloadingConcurrentlyRunningCheckSkipped()
+    {
+        final BlockingDetector slowDetector = new BlockingDetector(false);
+        final CombinedReloadingController ctrl = setUpConcurrentController(
+                50, new ReloadingController(slowDetector));
+        try
+        {
+            assertFalse("Wrong result (1)", ctrl.checkForReloading(null));
+            assertFalse("Wrong result (2)", ctrl.checkForReloading(null));
+            assertEquals("Wrong number of checks", 1,
+                    slowDetector.checkCount.get());
+        }
+        finally
+        {
+            slowDetector.release();
+        }
+    }
+
+    /**
+     * Tests that sub controllers are checked directly if the executor
+     * rejects the checks.
+     */
+    @Test
+    public void testCheckForReloadingConcurrentlyRejected()
+    {
+        initSubControllers();
+        EasyMock.expect(subControllers[0].checkForReloading(null)).andReturn(
+                Boolean.FALSE);
+        EasyMock.expect(subControllers[1].checkForReloading(null)).andReturn(
+                Boolean.TRUE);
+        replaySubControllers();
+        final CombinedReloadingController ctrl =
+                new CombinedReloadingController(Arrays.asList(subControllers),
+                        new Executor()
+                        {
+                            @Override
+                            public void execute(final Runnable command)
+                            {
+                                throw new RejectedExecutionException();
+                            }
+                        }, 1, TimeUnit.SECONDS);
+        assertTrue("Wrong result", ctrl.checkForReloading(null));
+        verifySubSontrollers();
+    }
+
+    /**
+     * Tests that an exception thrown by a concurrent check is propagated.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testCheckForReloadingConcurrentlyException()
+    {
+        final CombinedReloadingController ctrl = setUpConcurrentController(
+                60000, new ReloadingController(new ReloadingDetector()
+                {
+                    @Override
+                    public boolean isReloadingRequired()
+                    {
+                        throw new IllegalStateException("Test exception");
+                    }
+
+                    @Override
+                    public void reloadingPerformed()
+                    {
+                    }
+                }));
+        ctrl.checkForReloading(null);
+    }
+
+    /**
+     * A test detector returning a constant result.
+     */
+    private static class ConstantDetector implements ReloadingDetector
+    {
+        /** The result of a check. */
+        private final boolean changed;
+
+        /**
+         * Creates a new instance of {@code ConstantDetector}.
+         *
+         * @param result the result of a check
+         */
+        public ConstantDetector(final boolean result)
+        {
+            changed = result;
+        }
+
+        @Override
+        public boolean isReloadingRequired()
+        {
+            return changed;
+        }
+
+        @Override
+        public void reloadingPerformed()
+        {
+        }
+    }
+
+    /**
+     * A test detector whose check blocks until it is released.
+     */
+    private static class BlockingDetector implements ReloadingDetector
+    {
+        /** The latch for releasing the check. */
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        /** The number of checks. */
+        final AtomicInteger checkCount = new AtomicInteger();
+
+        /** The result of a check. */
+        private final boolean changed;
+
+        /**
+         * Creates a new instance of {@code BlockingDetector}.
+         *
+         * @param result the result of a check
+         */
+        public BlockingDetector(final boolean result)
+        {
+            changed = result;
+        }
+
+        /**
+         * Releases a blocking check.
+         */
+        public void release()
+        {
+            latch.countDown();
+        }
+
+        @Override
+        public boolean isReloadingRequired()
+        {
+            checkCount.incrementAndGet();
+            try
+            {
+                latch.await();
+            }
+            catch (final InterruptedException iex)
+            {
+                Thread.currentThread().interrupt();
+            }
+            return changed;
+        }
+
+        @Override
+        public void reloadingPerformed()
+        {
+        }
+    }
 }
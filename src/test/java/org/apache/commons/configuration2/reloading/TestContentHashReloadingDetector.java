@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.reloading;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.configuration2.io.FileHandler;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@code ContentHashReloadingDetector}.
+ *
+ * @version $Id$
+ */
+public class TestContentHashReloadingDetector
+{
+    /** Constant for a file's modification time. */
+    private static final long LAST_MODIFIED = 1500000000000L;
+
+    /** A helper object for creating temporary files. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** The monitored file. */
+    private File file;
+
+    /** The detector to be tested. */
+    private ContentHashReloadingDetectorTestImpl detector;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        file = folder.newFile();
+        writeFile("key = value", LAST_MODIFIED);
+        final FileHandler handler = new FileHandler();
+        handler.setFile(file);
+        detector = new ContentHashReloadingDetectorTestImpl(handler);
+    }
+
+    /**
+     * Writes the test file and sets its modification date.
+     *
+     * @param content the content of the file
+     * @param modified the modification date
+     * @throws IOException if an error occurs
+     */
+    private void writeFile(final String content, final long modified)
+            throws IOException
+    {
+        TestFileWatcher.writeFile(file, content);
+        assertTrue("Cannot set modification date",
+                file.setLastModified(modified));
+    }
+
+    /**
+     * Tests that no reload is required if only the modification date has
+     * changed.
+     */
+    @Test
+    public void testTouchedFileIgnored() throws IOException
+    {
+        detector.refresh();
+        writeFile("key = value", LAST_MODIFIED + 10000);
+        assertFalse("Reloading required", detector.isReloadingRequired());
+        final int count = detector.checksumCount;
+        assertFalse("Reloading required (2)", detector.isReloadingRequired());
+        assertEquals("Checksum computed again", count, detector.checksumCount);
+    }
+
+    /**
+     * Tests that a change of the content with the same size is detected.
+     */
+    @Test
+    public void testChangedContentDetected() throws IOException
+    {
+        detector.refresh();
+        writeFile("key = other", LAST_MODIFIED + 10000);
+        assertTrue("Reloading not required", detector.isReloadingRequired());
+        detector.reloadingPerformed();
+        assertFalse("Still reloading", detector.isReloadingRequired());
+    }
+
+    /**
+     * Tests that a change of the size is detected without computing a
+     * checksum.
+     */
+    @Test
+    public void testChangedSizeDetected() throws IOException
+    {
+        detector.refresh();
+        final int count = detector.checksumCount;
+        writeFile("key = another value", LAST_MODIFIED + 10000);
+        assertTrue("Reloading not required", detector.isReloadingRequired());
+        assertEquals("Checksum computed", count, detector.checksumCount);
+    }
+
+    /**
+     * Tests that no checksum is computed if the modification date has not
+     * changed.
+     */
+    @Test
+    public void testUnchangedFile()
+    {
+        detector.refresh();
+        final int count = detector.checksumCount;
+        assertFalse("Reloading required", detector.isReloadingRequired());
+        assertEquals("Checksum computed", count, detector.checksumCount);
+    }
+
+    /**
+     * Tests the initialization by the first check.
+     */
+    @Test
+    public void testInitializationByCheck() throws IOException
+    {
+        assertFalse("Reloading required", detector.isReloadingRequired());
+        writeFile("key = value", LAST_MODIFIED + 10000);
+        assertFalse("Reloading required (2)", detector.isReloadingRequired());
+    }
+
+    /**
+     * Tests that a reload is required if the checksum cannot be computed.
+     */
+    @Test
+    public void testChecksumError() throws IOException
+    {
+        detector.refresh();
+        writeFile("key = other", LAST_MODIFIED + 10000);
+        detector.failOnChecksum = true;
+        assertTrue("Reloading not required", detector.isReloadingRequired());
+    }
+
+    /**
+     * Tests whether the checksum of a file is computed correctly.
+     */
+    @Test
+    public void testComputeChecksum() throws IOException
+    {
+        final long checksum = detector.computeChecksum(file);
+        assertEquals("Different checksum", checksum,
+                detector.computeChecksum(file));
+        writeFile("key = other", LAST_MODIFIED);
+        assertTrue("Same checksum",
+                checksum != detector.computeChecksum(file));
+    }
+
+    /**
+     * Tests whether a non-existing file is handled correctly.
+     */
+    @Test
+    public void testIsReloadingRequiredFileDoesNotExist()
+    {
+        final ContentHashReloadingDetector detector2 =
+                new ContentHashReloadingDetector();
+        detector2.getFileHandler().setFile(
+                new File(folder.getRoot(), "NonExistingFile.txt"));
+        detector2.reloadingPerformed();
+        assertFalse("Reloading required", detector2.isReloadingRequired());
+    }
+
+    /**
+     * A test implementation which counts the computations of checksums and
+     * can simulate errors. A refresh delay of 0 is used.
+     */
+    private static class ContentHashReloadingDetectorTestImpl extends
+            ContentHashReloadingDetector
+    {
+        /** The number of checksum computations. */
+        private int checksumCount;
+
+        /** A flag whether the computation of a checksum should fail. */
+        private boolean failOnChecksum;
+
+        public ContentHashReloadingDetectorTestImpl(final FileHandler handler)
+        {
+            super(handler, 0);
+        }
+
+        @Override
+        protected long computeChecksum(final File file) throws IOException
+        {
+            checksumCount++;
+            if (failOnChecksum)
+            {
+                throw new IOException("Test exception");
+            }
+            return super.computeChecksum(file);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.reloading;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@code FileWatcher}.
+ *
+ * @version $Id$
+ */
+public class TestFileWatcher
+{
+    /** The maximum time to wait for a change notification. */
+    private static final long TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    /** A helper object for creating temporary files. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** The watcher to be tested. */
+    private FileWatcher watcher;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        watcher = new FileWatcher();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        watcher.close();
+    }
+
+    /**
+     * Writes the given content to a file.
+     *
+     * @param file the file
+     * @param content the content
+     * @throws IOException if an error occurs
+     */
+    static void writeFile(final File file, final String content)
+            throws IOException
+    {
+        final FileWriter out = new FileWriter(file);
+        try
+        {
+            out.write(content);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Waits until the given registration is marked as changed. Causes the
+     * test to fail if this does not happen within the timeout.
+     *
+     * @param reg the registration
+     * @throws InterruptedException if waiting is interrupted
+     */
+    static void awaitChange(final FileWatcher.Registration reg)
+            throws InterruptedException
+    {
+        final long end = System.currentTimeMillis() + TIMEOUT;
+        while (!reg.isChanged())
+        {
+            assertTrue("No change detected", System.currentTimeMillis() < end);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Tests whether the modification of a file is detected.
+     */
+    @Test
+    public void testModificationDetected() throws Exception
+    {
+        final File file = folder.newFile();
+        final FileWatcher.Registration reg = watcher.register(file);
+        assertTrue("Not valid", reg.isValid());
+        assertFalse("Changed initially", reg.isChanged());
+        assertEquals("Wrong file", file.getAbsoluteFile(), reg.getFile());
+
+        writeFile(file, "changed");
+        awaitChange(reg);
+        reg.reset();
+        assertFalse("Not reset", reg.isChanged());
+        writeFile(file, "changed again");
+        awaitChange(reg);
+    }
+
+    /**
+     * Tests whether the creation of a file which did not exist before is
+     * detected.
+     */
+    @Test
+    public void testCreationDetected() throws Exception
+    {
+        final File file = new File(folder.getRoot(), "newFile.txt");
+        final FileWatcher.Registration reg = watcher.register(file);
+        writeFile(file, "created");
+        awaitChange(reg);
+    }
+
+    /**
+     * Tests that changes of other files in the same directory are ignored.
+     */
+    @Test
+    public void testOtherFileIgnored() throws Exception
+    {
+        final File file = folder.newFile();
+        final File other = folder.newFile();
+        final FileWatcher.Registration reg = watcher.register(file);
+        final FileWatcher.Registration regOther = watcher.register(other);
+        assertEquals("Wrong number of directories", 1,
+                watcher.getDirectoryCount());
+        writeFile(other, "changed");
+        awaitChange(regOther);
+        assertFalse("Wrong file changed", reg.isChanged());
+    }
+
+    /**
+     * Tests that a directory is no longer monitored when all its
+     * registrations have been canceled.
+     */
+    @Test
+    public void testCancel() throws Exception
+    {
+        final FileWatcher.Registration reg1 =
+                watcher.register(folder.newFile());
+        final FileWatcher.Registration reg2 =
+                watcher.register(folder.newFile());
+        reg1.cancel();
+        assertFalse("Still valid", reg1.isValid());
+        assertEquals("Directory removed", 1, watcher.getDirectoryCount());
+        reg2.cancel();
+        reg2.cancel();
+        assertEquals("Directory not removed", 0, watcher.getDirectoryCount());
+    }
+
+    /**
+     * Tests that closing the watcher invalidates all registrations.
+     */
+    @Test
+    public void testClose() throws Exception
+    {
+        final FileWatcher.Registration reg =
+                watcher.register(folder.newFile());
+        watcher.close();
+        assertFalse("Still valid", reg.isValid());
+        assertEquals("Got directories", 0, watcher.getDirectoryCount());
+    }
+
+    /**
+     * Tries to register a file at a closed watcher.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testRegisterClosed() throws Exception
+    {
+        watcher.close();
+        watcher.register(folder.newFile());
+    }
+
+    /**
+     * Tries to register a file in a directory which does not exist.
+     */
+    @Test(expected = IOException.class)
+    public void testRegisterNonExistingDirectory() throws Exception
+    {
+        watcher.register(new File(folder.getRoot(), "unknown/file.txt"));
+    }
+
+    /**
+     * Tries to register a null file.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterNull() throws IOException
+    {
+        watcher.register(null);
+    }
+
+    /**
+     * Tests that the default instance cannot be closed.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testCloseDefaultInstance() throws IOException
+    {
+        final FileWatcher defWatcher = FileWatcher.getDefaultInstance();
+        assertNotNull("No default instance", defWatcher);
+        defWatcher.close();
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.reloading;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration2.event.EventListener;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@code ReloadingTriggerRegistry}.
+ *
+ * @version $Id$
+ */
+public class TestReloadingTriggerRegistry
+{
+    /** Constant for a parameter to be passed to the controller. */
+    private static final Object CTRL_PARAM = "Test controller parameter";
+
+    /** Constant for the period. */
+    private static final long PERIOD = 60;
+
+    /** Constant for the jitter returned by the test registry. */
+    private static final long JITTER = 7;
+
+    /** Constant for the quiet period. */
+    private static final long QUIET_PERIOD = 300;
+
+    /** Constant for the time unit. */
+    private static final TimeUnit UNIT = TimeUnit.SECONDS;
+
+    /** A mock for the executor service. */
+    private ScheduledExecutorService executor;
+
+    /** The tasks passed to the executor. */
+    private List<Runnable> tasks;
+
+    /** The detector used by the test controller. */
+    private ReloadingDetectorTestImpl detector;
+
+    /** The test controller. */
+    private ReloadingController controller;
+
+    /** The number of reloading events fired by the test controller. */
+    private int eventCount;
+
+    /** The registry to be tested. */
+    private ReloadingTriggerRegistryTestImpl registry;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        executor = EasyMock.createMock(ScheduledExecutorService.class);
+        tasks = new ArrayList<>();
+        detector = new ReloadingDetectorTestImpl();
+        controller = new ReloadingController(detector);
+        controller.addEventListener(ReloadingEvent.ANY,
+                new EventListener<ReloadingEvent>()
+                {
+                    @Override
+                    public void onEvent(final ReloadingEvent event)
+                    {
+                        eventCount++;
+                    }
+                });
+        registry = new ReloadingTriggerRegistryTestImpl(executor);
+    }
+
+    /**
+     * Creates a mock object for a scheduled future.
+     *
+     * @return the mock
+     */
+    private static ScheduledFuture<Void> createFutureMock()
+    {
+        @SuppressWarnings("unchecked")
+        final
+        ScheduledFuture<Void> mock = EasyMock.createMock(ScheduledFuture.class);
+        return mock;
+    }
+
+    /**
+     * Prepares the executor mock to expect an invocation which schedules a
+     * trigger task. The task is recorded.
+     *
+     * @param future the future object to return
+     */
+    private void expectSchedule(final ScheduledFuture<Void> future)
+    {
+        executor.scheduleWithFixedDelay(EasyMock.anyObject(Runnable.class),
+                EasyMock.eq(PERIOD + JITTER), EasyMock.eq(PERIOD),
+                EasyMock.eq(UNIT));
+        EasyMock.expectLastCall().andAnswer(new IAnswer<Object>()
+        {
+            @Override
+            public Object answer() throws Throwable
+            {
+                tasks.add((Runnable) EasyMock.getCurrentArguments()[0]);
+                return future;
+            }
+        });
+    }
+
+    /**
+     * Simulates a reload operation performed by a component listening at the
+     * controller.
+     */
+    private void reloadingPerformed()
+    {
+        detector.changed = false;
+        controller.resetReloadingState();
+    }
+
+    /**
+     * Tests whether a default executor service is created if necessary.
+     */
+    @Test
+    public void testDefaultExecutor()
+    {
+        final ReloadingTriggerRegistry reg = new ReloadingTriggerRegistry();
+        assertNotNull("No executor service", reg.getExecutorService());
+        reg.shutdown();
+    }
+
+    /**
+     * Tests that the jitter is within the period.
+     */
+    @Test
+    public void testComputeJitter()
+    {
+        final ReloadingTriggerRegistry reg =
+                new ReloadingTriggerRegistry(executor);
+        for (int i = 0; i < 100; i++)
+        {
+            final long jitter = reg.computeJitter(PERIOD);
+            assertTrue("Invalid jitter: " + jitter,
+                    jitter >= 0 && jitter < PERIOD);
+        }
+    }
+
+    /**
+     * Tries to register a null controller.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterNoController()
+    {
+        registry.register(null, CTRL_PARAM, PERIOD, UNIT);
+    }
+
+    /**
+     * Tries to register a controller with an invalid period.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterInvalidPeriod()
+    {
+        registry.register(controller, CTRL_PARAM, 0, UNIT);
+    }
+
+    /**
+     * Tries to register a controller without a time unit.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterNoUnit()
+    {
+        registry.register(controller, CTRL_PARAM, PERIOD, null);
+    }
+
+    /**
+     * Tests whether a registered controller is checked.
+     */
+    @Test
+    public void testRegisterAndCheck()
+    {
+        expectSchedule(createFutureMock());
+        EasyMock.replay(executor);
+        registry.register(controller, CTRL_PARAM, PERIOD, UNIT);
+        assertTrue("Not registered", registry.isRegistered(controller));
+        assertEquals("Wrong count", 1, registry.getRegistrationCount());
+
+        tasks.get(0).run();
+        assertEquals("Wrong number of checks", 1, detector.checkCount);
+        assertEquals("Got an event", 0, eventCount);
+        detector.changed = true;
+        tasks.get(0).run();
+        assertEquals("No event", 1, eventCount);
+        reloadingPerformed();
+        detector.changed = true;
+        tasks.get(0).run();
+        assertEquals("No second event", 2, eventCount);
+        EasyMock.verify(executor);
+    }
+
+    /**
+     * Tests that a controller is not checked during its quiet period.
+     */
+    @Test
+    public void testQuietPeriod()
+    {
+        expectSchedule(createFutureMock());
+        EasyMock.replay(executor);
+        registry.register(controller, CTRL_PARAM, PERIOD, QUIET_PERIOD, UNIT);
+        final Runnable task = tasks.get(0);
+        detector.changed = true;
+        task.run();
+        assertEquals("No event", 1, eventCount);
+        reloadingPerformed();
+        final int checks = detector.checkCount;
+
+        detector.changed = true;
+        registry.time += UNIT.toNanos(QUIET_PERIOD) - 1;
+        task.run();
+        task.run();
+        assertEquals("Checked in quiet period", checks, detector.checkCount);
+        assertEquals("Event in quiet period", 1, eventCount);
+
+        registry.time++;
+        task.run();
+        assertEquals("No event after quiet period", 2, eventCount);
+    }
+
+    /**
+     * Tests that a pending reload does not restart the quiet period.
+     */
+    @Test
+    public void testQuietPeriodNotRestartedByPendingReload()
+    {
+        expectSchedule(createFutureMock());
+        EasyMock.replay(executor);
+        registry.register(controller, CTRL_PARAM, PERIOD, QUIET_PERIOD, UNIT);
+        final Runnable task = tasks.get(0);
+        detector.changed = true;
+        task.run();
+        registry.time += UNIT.toNanos(QUIET_PERIOD);
+        task.run();
+        final int checks = detector.checkCount;
+        registry.time++;
+        task.run();
+        assertEquals("Wrong number of events", 1, eventCount);
+        reloadingPerformed();
+        detector.changed = true;
+        task.run();
+        assertEquals("Quiet period active", checks + 1, detector.checkCount);
+        assertEquals("No further event", 2, eventCount);
+    }
+
+    /**
+     * Tests that an exception thrown by a check is caught.
+     */
+    @Test
+    public void testCheckException()
+    {
+        expectSchedule(createFutureMock());
+        EasyMock.replay(executor);
+        registry.register(controller, CTRL_PARAM, PERIOD, UNIT);
+        detector.failOnCheck = true;
+        tasks.get(0).run();
+        detector.failOnCheck = false;
+        detector.changed = true;
+        tasks.get(0).run();
+        assertEquals("No event", 1, eventCount);
+    }
+
+    /**
+     * Tests whether a controller can be unregistered.
+     */
+    @Test
+    public void testUnregister()
+    {
+        final ScheduledFuture<Void> future = createFutureMock();
+        expectSchedule(future);
+        EasyMock.expect(future.cancel(false)).andReturn(Boolean.TRUE);
+        EasyMock.replay(executor, future);
+        registry.register(controller, CTRL_PARAM, PERIOD, UNIT);
+        assertTrue("Wrong result", registry.unregister(controller));
+        assertFalse("Still registered", registry.isRegistered(controller));
+        assertFalse("Wrong result (2)", registry.unregister(controller));
+        EasyMock.verify(executor, future);
+    }
+
+    /**
+     * Tests that a controller is scheduled before its registration becomes
+     * visible, so that it can be unregistered at any time.
+     */
+    @Test
+    public void testRegisterSchedulesBeforePublishing()
+    {
+        final ScheduledFuture<Void> future = createFutureMock();
+        final List<Boolean> registered = new ArrayList<>();
+        executor.scheduleWithFixedDelay(EasyMock.anyObject(Runnable.class),
+                EasyMock.eq(PERIOD + JITTER), EasyMock.eq(PERIOD),
+                EasyMock.eq(UNIT));
+        EasyMock.expectLastCall().andAnswer(new IAnswer<Object>()
+        {
+            @Override
+            public Object answer() throws Throwable
+            {
+                registered.add(registry.isRegistered(controller));
+                return future;
+            }
+        });
+        EasyMock.expect(future.cancel(false)).andReturn(Boolean.TRUE);
+        EasyMock.replay(executor, future);
+        registry.register(controller, CTRL_PARAM, PERIOD, UNIT);
+        assertEquals("Wrong registration state", Arrays.asList(Boolean.FALSE),
+                registered);
+        assertTrue("Not unregistered", registry.unregister(controller));
+        EasyMock.verify(executor, future);
+    }
+
+    /**
+     * Tests that a registration for a controller replaces an existing one.
+     */
+    @Test
+    public void testRegisterReplace()
+    {
+        final ScheduledFuture<Void> future = createFutureMock();
+        expectSchedule(future);
+        expectSchedule(createFutureMock());
+        EasyMock.expect(future.cancel(false)).andReturn(Boolean.TRUE);
+        EasyMock.replay(executor, future);
+        registry.register(controller, CTRL_PARAM, PERIOD, UNIT);
+        registry.register(controller, CTRL_PARAM, PERIOD, UNIT);
+        assertEquals("Wrong count", 1, registry.getRegistrationCount());
+        EasyMock.verify(executor, future);
+    }
+
+    /**
+     * Tests a shutdown which also shuts down the executor.
+     */
+    @Test
+    public void testShutdown()
+    {
+        final ScheduledFuture<Void> future = createFutureMock();
+        expectSchedule(future);
+        EasyMock.expect(future.cancel(false)).andReturn(Boolean.TRUE);
+        executor.shutdown();
+        EasyMock.replay(executor, future);
+        registry.register(controller, CTRL_PARAM, PERIOD, UNIT);
+        registry.shutdown();
+        assertEquals("Still registered", 0, registry.getRegistrationCount());
+        EasyMock.verify(executor, future);
+    }
+
+    /**
+     * Tests a shutdown which does not affect the executor.
+     */
+    @Test
+    public void testShutdownNoExecutor()
+    {
+        EasyMock.replay(executor);
+        registry.shutdown(false);
+        EasyMock.verify(executor);
+    }
+
+    /**
+     * A test detector implementation whose state can be controlled.
+     */
+    private static class ReloadingDetectorTestImpl implements
+            ReloadingDetector
+    {
+        /** A flag whether a change is to be reported. */
+        private boolean changed;
+
+        /** A flag whether a check should fail. */
+        private boolean failOnCheck;
+
+        /** The number of checks. */
+        private int checkCount;
+
+        @Override
+        public boolean isReloadingRequired()
+        {
+            checkCount++;
+            if (failOnCheck)
+            {
+                throw new IllegalStateException("Test exception");
+            }
+            return changed;
+        }
+
+        @Override
+        public void reloadingPerformed()
+        {
+        }
+    }
+
+    /**
+     * A test registry implementation with a fixed jitter and a manually
+     * controlled clock.
+     */
+    private static class ReloadingTriggerRegistryTestImpl extends
+            ReloadingTriggerRegistry
+    {
+        /** The current time. */
+        private long time;
+
+        public ReloadingTriggerRegistryTestImpl(
+                final ScheduledExecutorService exec)
+        {
+            super(exec);
+        }
+
+        @Override
+        long computeJitter(final long period)
+        {
+            return JITTER;
+        }
+
+        @Override
+        long now()
+        {
+            return time;
+        }
+    }
+}
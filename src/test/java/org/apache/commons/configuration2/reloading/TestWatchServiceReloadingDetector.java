@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.reloading;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.apache.commons.configuration2.io.FileHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@code WatchServiceReloadingDetector}.
+ *
+ * @version $Id$
+ */
+public class TestWatchServiceReloadingDetector
+{
+    /** A helper object for creating temporary files. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** The watcher used by the tests. */
+    private FileWatcher watcher;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        watcher = new FileWatcher();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        watcher.close();
+    }
+
+    /**
+     * Creates a detector for the given file.
+     *
+     * @param file the file
+     * @return the detector
+     */
+    private WatchServiceReloadingDetector createDetector(final File file)
+    {
+        final FileHandler handler = new FileHandler();
+        handler.setFile(file);
+        return new WatchServiceReloadingDetector(handler, watcher);
+    }
+
+    /**
+     * Waits until the detector reports the need for a reload.
+     *
+     * @param detector the detector
+     * @throws InterruptedException if waiting is interrupted
+     */
+    private static void awaitReloadingRequired(
+            final WatchServiceReloadingDetector detector)
+            throws InterruptedException
+    {
+        final long end = System.currentTimeMillis() + 30000;
+        while (!detector.isReloadingRequired())
+        {
+            assertTrue("No change detected", System.currentTimeMillis() < end);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Tests the initialization of a new instance.
+     */
+    @Test
+    public void testInit()
+    {
+        final WatchServiceReloadingDetector detector =
+                new WatchServiceReloadingDetector(null);
+        assertSame("Wrong watcher", FileWatcher.getDefaultInstance(),
+                detector.getFileWatcher());
+        assertEquals("Wrong refresh delay", 5000, detector.getRefreshDelay());
+        assertFalse("Watching", detector.isWatching());
+        assertFalse("Reloading", detector.isReloadingRequired());
+    }
+
+    /**
+     * Tests whether a change of the monitored file is detected and whether
+     * the state is reset after a reload.
+     */
+    @Test
+    public void testIsReloadingRequired() throws Exception
+    {
+        final File file = folder.newFile();
+        final WatchServiceReloadingDetector detector = createDetector(file);
+        detector.refresh();
+        assertTrue("Not watching", detector.isWatching());
+        assertFalse("Reloading initially", detector.isReloadingRequired());
+
+        TestFileWatcher.writeFile(file, "changed");
+        awaitReloadingRequired(detector);
+        detector.reloadingPerformed();
+        assertFalse("Still reloading", detector.isReloadingRequired());
+    }
+
+    /**
+     * Tests that a change is not reported if the file was deleted.
+     */
+    @Test
+    public void testIsReloadingRequiredFileDeleted() throws Exception
+    {
+        final File file = folder.newFile();
+        final WatchServiceReloadingDetector detector = createDetector(file);
+        detector.refresh();
+        TestFileWatcher.writeFile(file, "changed");
+        awaitReloadingRequired(detector);
+        assertTrue("Cannot delete file", file.delete());
+        assertFalse("Reloading", detector.isReloadingRequired());
+    }
+
+    /**
+     * Tests that a new registration is created if the location of the file
+     * handler is changed.
+     */
+    @Test
+    public void testLocationChanged() throws Exception
+    {
+        final File file = folder.newFile();
+        final WatchServiceReloadingDetector detector = createDetector(file);
+        detector.refresh();
+        final File dir = folder.newFolder();
+        final File file2 = new File(dir, "watched.properties");
+        detector.getFileHandler().setFile(file2);
+        assertFalse("Reloading", detector.isReloadingRequired());
+        assertEquals("Wrong number of directories", 1,
+                watcher.getDirectoryCount());
+
+        TestFileWatcher.writeFile(file2, "created");
+        awaitReloadingRequired(detector);
+    }
+
+    /**
+     * Tests that the detector falls back to polling if the file cannot be
+     * watched.
+     */
+    @Test
+    public void testFallbackToPolling() throws Exception
+    {
+        final File file = new File(folder.getRoot(), "sub/watched.properties");
+        final WatchServiceReloadingDetector detector = createDetector(file);
+        detector.refresh();
+        assertFalse("Watching", detector.isWatching());
+        assertFalse("Reloading", detector.isReloadingRequired());
+
+        assertTrue("Cannot create directory", file.getParentFile().mkdir());
+        assertFalse("Reloading after mkdir", detector.isReloadingRequired());
+        assertTrue("Not watching", detector.isWatching());
+    }
+
+    /**
+     * Tests whether the file is no longer monitored after the detector was
+     * closed.
+     */
+    @Test
+    public void testClose() throws Exception
+    {
+        final WatchServiceReloadingDetector detector =
+                createDetector(folder.newFile());
+        detector.refresh();
+        detector.close();
+        assertFalse("Still watching", detector.isWatching());
+        assertEquals("Directory still monitored", 0,
+                watcher.getDirectoryCount());
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.commons.configuration2.BaseHierarchicalConfiguration;
+import org.apache.commons.configuration2.Configuration;
+import org.junit.Test;
+
+/**
+ * Test class for {@code StampedLockSynchronizer}.
+ *
+ * @version $Id$
+ */
+public class TestStampedLockSynchronizer
+{
+    /** The number of update operations in concurrent tests. */
+    private static final int UPDATE_COUNT = 10000;
+
+    /**
+     * Tests whether the synchronizer is reentrant.
+     */
+    @Test
+    public void testReentrance()
+    {
+        final Synchronizer sync = new StampedLockSynchronizer();
+        sync.beginWrite();
+        sync.beginRead();
+        sync.beginRead();
+        sync.endRead();
+        sync.endRead();
+        sync.beginWrite();
+        sync.endWrite();
+        sync.endWrite();
+        sync.beginRead();
+        sync.beginRead();
+        sync.endRead();
+        sync.endRead();
+        sync.beginWrite();
+        sync.endWrite();
+    }
+
+    /**
+     * Tests that a read lock can be released after the write lock if it was
+     * acquired while holding the write lock.
+     */
+    @Test
+    public void testReadNestedInWriteReleasedLater()
+    {
+        final StampedLockSynchronizer sync = new StampedLockSynchronizer();
+        sync.beginWrite();
+        sync.beginRead();
+        sync.endWrite();
+        sync.endRead();
+        assertTrue("Lock not released", sync.validate(sync.tryOptimisticRead()));
+    }
+
+    /**
+     * Tests an optimistic read without concurrent updates.
+     */
+    @Test
+    public void testOptimisticReadValid()
+    {
+        final StampedLockSynchronizer sync = new StampedLockSynchronizer();
+        final long stamp = sync.tryOptimisticRead();
+        assertTrue("No stamp", stamp != 0);
+        sync.beginRead();
+        sync.endRead();
+        assertTrue("Not valid", sync.validate(stamp));
+    }
+
+    /**
+     * Tests that a write operation invalidates an optimistic read.
+     */
+    @Test
+    public void testOptimisticReadInvalidatedByWrite()
+    {
+        final StampedLockSynchronizer sync = new StampedLockSynchronizer();
+        final long stamp = sync.tryOptimisticRead();
+        sync.beginWrite();
+        sync.endWrite();
+        assertFalse("Still valid", sync.validate(stamp));
+    }
+
+    /**
+     * Tests that no optimistic read is possible while a write operation is
+     * in progress.
+     */
+    @Test
+    public void testOptimisticReadDuringWrite()
+    {
+        final StampedLockSynchronizer sync = new StampedLockSynchronizer();
+        sync.beginWrite();
+        assertEquals("Got a stamp", 0, sync.tryOptimisticRead());
+        sync.endWrite();
+    }
+
+    /**
+     * Tests that endRead() cannot be called without a read lock.
+     */
+    @Test(expected = IllegalMonitorStateException.class)
+    public void testEndReadNoLock()
+    {
+        new StampedLockSynchronizer().endRead();
+    }
+
+    /**
+     * Tests that endWrite() cannot be called without a write lock.
+     */
+    @Test(expected = IllegalMonitorStateException.class)
+    public void testEndWriteNoLock()
+    {
+        new StampedLockSynchronizer().endWrite();
+    }
+
+    /**
+     * Tests concurrent access to a flat configuration.
+     */
+    @Test
+    public void testConcurrentAccessFlatConfiguration()
+            throws InterruptedException
+    {
+        checkConcurrentAccess(new BaseConfiguration());
+    }
+
+    /**
+     * Tests concurrent access to a hierarchical configuration.
+     */
+    @Test
+    public void testConcurrentAccessHierarchicalConfiguration()
+            throws InterruptedException
+    {
+        checkConcurrentAccess(new BaseHierarchicalConfiguration());
+    }
+
+    /**
+     * Helper method for testing concurrent read and write access to a
+     * configuration using the test synchronizer. An update thread changes a
+     * property continuously; the readers check that they never see an
+     * invalid value.
+     *
+     * @param config the configuration to be tested
+     * @throws InterruptedException if the test is interrupted
+     */
+    private static void checkConcurrentAccess(final Configuration config)
+            throws InterruptedException
+    {
+        final int readerCount = 4;
+        config.setSynchronizer(new StampedLockSynchronizer());
+        config.addProperty("counter", 0);
+        final AtomicInteger errors = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        final Thread[] readers = new Thread[readerCount];
+        for (int i = 0; i < readerCount; i++)
+        {
+            readers[i] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    int last = 0;
+                    while (done.getCount() > 0)
+                    {
+                        final int value = config.getInt("counter");
+                        if (value < last || value > UPDATE_COUNT)
+                        {
+                            errors.incrementAndGet();
+                        }
+                        last = value;
+                    }
+                }
+            };
+            readers[i].start();
+        }
+
+        for (int i = 1; i <= UPDATE_COUNT; i++)
+        {
+            config.setProperty("counter", i);
+        }
+        done.countDown();
+        for (final Thread t : readers)
+        {
+            t.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        assertEquals("Got read errors", 0, errors.get());
+        assertEquals("Wrong final value", UPDATE_COUNT, config.getInt("counter"));
+    }
+}
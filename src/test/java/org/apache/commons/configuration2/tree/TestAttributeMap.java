@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@code AttributeMap}.
+ *
+ * @version $Id$
+ */
+public class TestAttributeMap
+{
+    /**
+     * Creates a map with the given number of attributes.
+     *
+     * @param count the number of attributes
+     * @return the map
+     */
+    private static AttributeMap createMap(final int count)
+    {
+        AttributeMap map = AttributeMap.empty();
+        for (int i = 0; i < count; i++)
+        {
+            map = map.with("attr" + i, i);
+        }
+        return map;
+    }
+
+    /**
+     * Creates a standard map with the same content as produced by
+     * {@code createMap()}.
+     *
+     * @param count the number of attributes
+     * @return the expected map
+     */
+    private static Map<String, Object> createExpected(final int count)
+    {
+        final Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < count; i++)
+        {
+            map.put("attr" + i, i);
+        }
+        return map;
+    }
+
+    /**
+     * Tests the content of maps of different sizes covering all internal
+     * representations.
+     */
+    @Test
+    public void testContentAllSizes()
+    {
+        for (int count = 0; count <= 2 * AttributeMap.MAX_ARRAY_SIZE; count++)
+        {
+            final AttributeMap map = createMap(count);
+            final Map<String, Object> expected = createExpected(count);
+            assertEquals("Wrong content for " + count, expected, map);
+            assertEquals("Wrong reverse equals for " + count, map, expected);
+            assertEquals("Wrong hash code for " + count, expected.hashCode(),
+                    map.hashCode());
+            assertEquals("Wrong size for " + count, count, map.size());
+            assertFalse("Wrong key contained", map.containsKey("attr" + count));
+            assertNull("Got value for unknown key", map.get("attr" + count));
+        }
+    }
+
+    /**
+     * Tests that an update does not affect the original map.
+     */
+    @Test
+    public void testUpdateOriginalUnchanged()
+    {
+        for (int count = 0; count <= 2 * AttributeMap.MAX_ARRAY_SIZE; count++)
+        {
+            final AttributeMap map = createMap(count);
+            final AttributeMap map2 = map.with("attr0", "changed")
+                    .with("newAttr", "new").without("attr1");
+            assertEquals("Original changed for " + count,
+                    createExpected(count), map);
+            assertEquals("Wrong new value", "changed", map2.get("attr0"));
+            assertEquals("Attribute not added", "new", map2.get("newAttr"));
+            assertFalse("Attribute not removed", map2.containsKey("attr1"));
+        }
+    }
+
+    /**
+     * Tests that the same map is returned if an update has no effect.
+     */
+    @Test
+    public void testUpdateWithoutEffect()
+    {
+        final Integer value = 1;
+        for (int count = 0; count <= 2 * AttributeMap.MAX_ARRAY_SIZE; count++)
+        {
+            final AttributeMap map = createMap(count).with("attr", value);
+            assertSame("Changed by with() for " + count, map,
+                    map.with("attr", value));
+            assertSame("Changed by without() for " + count, map,
+                    map.without("unknown"));
+        }
+    }
+
+    /**
+     * Tests whether the small representations keep the order in which
+     * attributes have been added.
+     */
+    @Test
+    public void testOrderSmallMaps()
+    {
+        final AttributeMap map = AttributeMap.empty().with("c", 1)
+                .with("a", 2).with("b", 3);
+        final List<String> names = new ArrayList<>(map.keySet());
+        assertEquals("Wrong order", "[c, a, b]", names.toString());
+    }
+
+    /**
+     * Tests that attribute names and values may be null.
+     */
+    @Test
+    public void testNullNamesAndValues()
+    {
+        AttributeMap map = createMap(2 * AttributeMap.MAX_ARRAY_SIZE);
+        map = map.with(null, "nullName").with("nullValue", null);
+        assertEquals("Wrong value for null name", "nullName", map.get(null));
+        assertTrue("Null value not found", map.containsKey("nullValue"));
+        assertNull("Wrong null value", map.get("nullValue"));
+        final Map<String, Object> copy = new HashMap<>(map);
+        assertTrue("Null name not iterated", copy.containsKey(null));
+        assertTrue("Null value not iterated", copy.containsKey("nullValue"));
+
+        map = map.without(null).without("nullValue");
+        assertEquals("Wrong content", createExpected(2 * AttributeMap.MAX_ARRAY_SIZE),
+                map);
+    }
+
+    /**
+     * Tests withAll() for maps of different sizes.
+     */
+    @Test
+    public void testWithAll()
+    {
+        final Map<String, Object> attrs = new LinkedHashMap<>();
+        attrs.put("attr1", "override");
+        attrs.put("other1", "o1");
+        attrs.put("other2", "o2");
+        for (int count = 0; count <= 2 * AttributeMap.MAX_ARRAY_SIZE; count++)
+        {
+            final Map<String, Object> expected = createExpected(count);
+            expected.putAll(attrs);
+            assertEquals("Wrong content for " + count, expected,
+                    createMap(count).withAll(attrs));
+        }
+    }
+
+    /**
+     * Tests that an AttributeMap is shared by copyOf() and withAll() on an
+     * empty map.
+     */
+    @Test
+    public void testSharing()
+    {
+        final AttributeMap map = createMap(3);
+        assertSame("Not shared by copyOf()", map, AttributeMap.copyOf(map));
+        assertSame("Not shared by withAll()", map,
+                AttributeMap.empty().withAll(map));
+        assertSame("Wrong result for null", AttributeMap.empty(),
+                AttributeMap.copyOf(null));
+    }
+
+    /**
+     * Tests that the map cannot be modified via the map interface.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testPutNotSupported()
+    {
+        createMap(2).put("test", "value");
+    }
+
+    /**
+     * Tests that entries cannot be removed via the map interface.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemoveNotSupported()
+    {
+        createMap(2 * AttributeMap.MAX_ARRAY_SIZE).remove("attr1");
+    }
+
+    /**
+     * Performs a larger number of random updates crossing the boundaries of
+     * the internal representations and compares the results with a standard
+     * map.
+     */
+    @Test
+    public void testRandomUpdates()
+    {
+        final Random random = new Random(20181015);
+        final Map<String, Object> expected = new HashMap<>();
+        AttributeMap map = AttributeMap.empty();
+        for (int i = 0; i < 5000; i++)
+        {
+            final String name = "attr" + random.nextInt(20);
+            if (random.nextInt(5) < 2)
+            {
+                map = map.without(name);
+                expected.remove(name);
+            }
+            else
+            {
+                map = map.with(name, i);
+                expected.put(name, i);
+            }
+            assertEquals("Wrong content in round " + i, expected, map);
+        }
+    }
+}
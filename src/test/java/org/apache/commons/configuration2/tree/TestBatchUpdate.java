@@ -0,0 +1,432 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.configuration2.BaseHierarchicalConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@code BatchUpdate} and the execution of batches by
+ * {@code InMemoryNodeModel}.
+ *
+ * @version $Id$
+ */
+public class TestBatchUpdate
+{
+    /** Constant for the number of sections used by random updates. */
+    private static final int SECTIONS = 4;
+
+    /** Constant for the number of keys per section used by random updates. */
+    private static final int KEYS = 5;
+
+    /** The configuration serving as resolver. */
+    private BaseHierarchicalConfiguration config;
+
+    /** The batch to be tested. */
+    private BatchUpdate batch;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        config = new BaseHierarchicalConfiguration();
+        config.getNodeModel().setRootNode(
+                new ImmutableNode.Builder(1).addChild(
+                        NodeStructureHelper.ROOT_TABLES_TREE).create());
+        batch = new BatchUpdate();
+    }
+
+    /**
+     * Returns the model of the test configuration.
+     *
+     * @return the model
+     */
+    private InMemoryNodeModel getModel()
+    {
+        return config.getNodeModel();
+    }
+
+    /**
+     * Creates a configuration with a copy of the given configuration's data.
+     *
+     * @param c the source configuration
+     * @return the copy
+     */
+    private static BaseHierarchicalConfiguration copy(
+            final BaseHierarchicalConfiguration c)
+    {
+        return new BaseHierarchicalConfiguration(c);
+    }
+
+    /**
+     * Checks whether two configurations contain the same keys with the same
+     * values in the same order.
+     *
+     * @param expected the expected configuration
+     * @param actual the actual configuration
+     */
+    private static void checkSameContent(
+            final BaseHierarchicalConfiguration expected,
+            final BaseHierarchicalConfiguration actual)
+    {
+        final List<String> expectedKeys = keys(expected);
+        assertEquals("Wrong keys", expectedKeys, keys(actual));
+        for (final String key : expectedKeys)
+        {
+            assertEquals("Wrong values for " + key, expected.getList(key),
+                    actual.getList(key));
+        }
+    }
+
+    /**
+     * Returns a list with all keys of the given configuration.
+     *
+     * @param c the configuration
+     * @return the list with keys
+     */
+    private static List<String> keys(final BaseHierarchicalConfiguration c)
+    {
+        final List<String> keys = new ArrayList<>();
+        for (final Iterator<String> it = c.getKeys(); it.hasNext();)
+        {
+            keys.add(it.next());
+        }
+        return keys;
+    }
+
+    /**
+     * Tests the properties of a new batch.
+     */
+    @Test
+    public void testInitialState()
+    {
+        assertTrue("Not empty", batch.isEmpty());
+        assertEquals("Wrong size", 0, batch.size());
+        assertTrue("Got keys", batch.getKeys().isEmpty());
+    }
+
+    /**
+     * Tests whether the keys of the recorded operations can be queried.
+     */
+    @Test
+    public void testGetKeys()
+    {
+        batch.addProperty("k1", Collections.singleton("v"))
+                .setProperty("k2", "v").clearProperty("k3").clearTree("k4")
+                .addNodes("k5", Collections.singleton(
+                        NodeStructureHelper.createNode("n", null)));
+        assertFalse("Empty", batch.isEmpty());
+        assertEquals("Wrong size", 5, batch.size());
+        assertEquals("Wrong keys", Arrays.asList("k1", "k2", "k3", "k4", "k5"),
+                batch.getKeys());
+    }
+
+    /**
+     * Tests that executing an empty batch does not change the model.
+     */
+    @Test
+    public void testUpdateBatchEmpty()
+    {
+        final TreeData data = getModel().getTreeData();
+        getModel().updateBatch(batch, config);
+        assertSame("Model changed", data, getModel().getTreeData());
+    }
+
+    /**
+     * Tests that a batch without effect does not change the model.
+     */
+    @Test
+    public void testUpdateBatchNoChanges()
+    {
+        final TreeData data = getModel().getTreeData();
+        batch.clearProperty("non.existing.key").clearTree("another.key");
+        getModel().updateBatch(batch, config);
+        assertSame("Model changed", data, getModel().getTreeData());
+    }
+
+    /**
+     * Tests a batch with independent updates of existing properties.
+     */
+    @Test
+    public void testUpdateBatchExistingProperties()
+    {
+        final BaseHierarchicalConfiguration expected = copy(config);
+        for (int i = 0; i < NodeStructureHelper.fieldsLength(0); i++)
+        {
+            final String key = "tables.table(0).fields.field(" + i + ").name";
+            expected.setProperty(key, "newField" + i);
+            batch.setProperty(key, "newField" + i);
+        }
+        batch.addProperty("tables.table(1).fields.field(-1).name",
+                Collections.singleton("anotherField"));
+        expected.addProperty("tables.table(1).fields.field(-1).name",
+                "anotherField");
+
+        getModel().updateBatch(batch, config);
+        checkSameContent(expected, config);
+    }
+
+    /**
+     * Tests that properties can be added to nodes created by the same batch.
+     */
+    @Test
+    public void testUpdateBatchAddToNewNodes()
+    {
+        batch.addProperty("new.section.a", Collections.singleton(1))
+                .addProperty("new.section.b", Collections.singleton(2))
+                .addProperty("new.section[@attr]", Collections.singleton(3))
+                .setProperty("new.section.a", 4);
+        getModel().updateBatch(batch, config);
+
+        assertEquals("Wrong number of sections", 0,
+                config.getMaxIndex("new.section"));
+        assertEquals("Wrong value a", 4, config.getInt("new.section.a"));
+        assertEquals("Wrong value b", 2, config.getInt("new.section.b"));
+        assertEquals("Wrong attribute", 3,
+                config.getInt("new.section[@attr]"));
+    }
+
+    /**
+     * Tests a batch which clears properties and then accesses the affected
+     * nodes again.
+     */
+    @Test
+    public void testUpdateBatchClearAndAdd()
+    {
+        final BaseHierarchicalConfiguration expected = copy(config);
+        expected.clearTree("tables.table(0)");
+        expected.addProperty("tables.table(0).fields.field(-1).name", "f");
+        expected.clearProperty("tables.table(1).name");
+        expected.setProperty("tables.table(1).name", "t");
+        batch.clearTree("tables.table(0)")
+                .addProperty("tables.table(0).fields.field(-1).name",
+                        Collections.singleton("f"))
+                .clearProperty("tables.table(1).name")
+                .setProperty("tables.table(1).name", "t");
+
+        getModel().updateBatch(batch, config);
+        checkSameContent(expected, config);
+    }
+
+    /**
+     * Tests a batch which clears the whole model.
+     */
+    @Test
+    public void testUpdateBatchClearRoot()
+    {
+        final String rootName = getModel().getRootNode().getNodeName();
+        batch.setProperty("tables.table(0).name", "changed")
+                .clearTree(null)
+                .addProperty("key", Collections.singleton("value"));
+        getModel().updateBatch(batch, config);
+
+        assertEquals("Wrong root name", rootName,
+                getModel().getRootNode().getNodeName());
+        assertEquals("Wrong keys", Collections.singletonList("key"),
+                keys(config));
+        assertEquals("Wrong value", "value", config.getString("key"));
+    }
+
+    /**
+     * Tests that a failing batch does not change the model.
+     */
+    @Test
+    public void testUpdateBatchFailure()
+    {
+        final TreeData data = getModel().getTreeData();
+        batch.setProperty("tables.table(0).name", "changed").addNodes(
+                "tables.table(0)[@type]",
+                Collections.singleton(NodeStructureHelper.createNode("n",
+                        null)));
+        try
+        {
+            getModel().updateBatch(batch, config);
+            fail("Invalid key not detected!");
+        }
+        catch (final IllegalArgumentException iex)
+        {
+            assertSame("Model changed", data, getModel().getTreeData());
+        }
+    }
+
+    /**
+     * Tests a batch whose keys are relative to a tracked node.
+     */
+    @Test
+    public void testUpdateBatchTrackedNode()
+    {
+        final NodeSelector selector = new NodeSelector("tables.table(1)");
+        getModel().trackNode(selector, config);
+        batch.setProperty("name", "changedTable").addProperty(
+                "fields.field(-1).name", Collections.singleton("newField"));
+        getModel().updateBatch(batch, selector, config);
+
+        assertEquals("Wrong table name", "changedTable",
+                config.getString("tables.table(1).name"));
+        assertEquals("Wrong field", "newField",
+                config.getString("tables.table(1).fields.field("
+                        + NodeStructureHelper.fieldsLength(1) + ").name"));
+        assertEquals("Tracked node not updated", "changedTable",
+                getModel().getTrackedNode(selector).getChildren("name").get(0)
+                        .getValue());
+    }
+
+    /**
+     * Tests that a batch is executed on the model of a detached tracked node.
+     */
+    @Test
+    public void testUpdateBatchDetachedTrackedNode()
+    {
+        final NodeSelector selector = new NodeSelector("tables.table(1)");
+        getModel().trackNode(selector, config);
+        config.clearTree("tables.table(1)");
+        final ImmutableNode root = getModel().getRootNode();
+        batch.setProperty("name", "changedTable");
+        getModel().updateBatch(batch, selector, config);
+
+        assertSame("Model changed", root, getModel().getRootNode());
+        assertEquals("Tracked node not updated", "changedTable",
+                getModel().getTrackedNode(selector).getChildren("name").get(0)
+                        .getValue());
+    }
+
+    /**
+     * Tests that the execution of random batches has the same effect as
+     * executing the operations one by one.
+     */
+    @Test
+    public void testUpdateBatchRandomOperations()
+    {
+        final Random random = new Random(20181015);
+        for (int i = 0; i < 100; i++)
+        {
+            final BaseHierarchicalConfiguration expected =
+                    new BaseHierarchicalConfiguration();
+            final BaseHierarchicalConfiguration actual =
+                    new BaseHierarchicalConfiguration();
+            for (int j = 0; j < SECTIONS; j++)
+            {
+                expected.addProperty(randomKey(random), j);
+            }
+            actual.getNodeModel().setRootNode(expected.getNodeModel()
+                    .getRootNode());
+
+            final BatchUpdate update = new BatchUpdate();
+            for (int j = 0; j < 40; j++)
+            {
+                randomOperation(random, expected, update);
+            }
+            actual.getNodeModel().updateBatch(update, actual);
+            checkSameContent(expected, actual);
+        }
+    }
+
+    /**
+     * Tests that a batch can be applied to a model operation by operation.
+     */
+    @Test
+    public void testApplyTo()
+    {
+        final BaseHierarchicalConfiguration expected = copy(config);
+        expected.setProperty("tables.table(0).name", "t");
+        expected.addProperty("new.key", "v");
+        expected.clearTree("tables.table(1)");
+        batch.setProperty("tables.table(0).name", "t")
+                .addProperty("new.key", Collections.singleton("v"))
+                .clearTree("tables.table(1)");
+        final ImmutableNode root = getModel().getRootNode();
+
+        batch.applyTo(getModel(), config);
+        assertNotSame("Root not changed", root, getModel().getRootNode());
+        checkSameContent(expected, config);
+    }
+
+    /**
+     * Generates a random key for a property in a random section.
+     *
+     * @param random the random object
+     * @return the key
+     */
+    private static String randomKey(final Random random)
+    {
+        final StringBuilder buf = new StringBuilder();
+        buf.append("sec").append(random.nextInt(SECTIONS));
+        if (random.nextInt(4) == 0)
+        {
+            buf.append("(0)");
+        }
+        if (random.nextInt(5) == 0)
+        {
+            buf.append("[@attr").append(random.nextInt(2)).append(']');
+        }
+        else
+        {
+            buf.append(".key").append(random.nextInt(KEYS));
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Executes a random operation on the given configuration and records it
+     * in the given batch.
+     *
+     * @param random the random object
+     * @param c the configuration
+     * @param update the batch
+     */
+    private static void randomOperation(final Random random,
+            final BaseHierarchicalConfiguration c, final BatchUpdate update)
+    {
+        final String key = randomKey(random);
+        final Integer value = random.nextInt(100);
+        switch (random.nextInt(5))
+        {
+        case 0:
+        case 1:
+            c.addProperty(key, value);
+            update.addProperty(key, Collections.singleton(value));
+            break;
+        case 2:
+            c.setProperty(key, value);
+            update.setProperty(key, value);
+            break;
+        case 3:
+            c.clearProperty(key);
+            update.clearProperty(key);
+            break;
+        default:
+            final String sectionKey = "sec" + random.nextInt(SECTIONS);
+            c.clearTree(sectionKey);
+            update.clearTree(sectionKey);
+            break;
+        }
+    }
+}
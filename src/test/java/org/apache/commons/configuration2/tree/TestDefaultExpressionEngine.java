@@ -21,6 +21,8 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
@@ -175,6 +177,96 @@ public class TestDefaultExpressionEngine
         checkKey("tables.table.type", "type", 2);
     }
 
+    /**
+     * Tests that repeated queries for the same key, which are served from the
+     * cache of parsed keys, produce the same results.
+     */
+    @Test
+    public void testQueryRepeated()
+    {
+        engine = new DefaultExpressionEngine(
+                DefaultExpressionEngineSymbols.DEFAULT_SYMBOLS);
+        for (int i = 0; i < 3; i++)
+        {
+            checkKey("tables.table.fields.field.name", "name", 10);
+            checkAttributeValue("tables.table(1)[@type]", "type", tabTypes[1]);
+            checkKey("tables.table(2).name", null, 0);
+        }
+    }
+
+    /**
+     * Tests that queries produce correct results if more keys are queried
+     * than fit into the cache of parsed keys.
+     */
+    @Test
+    public void testQueryManyDifferentKeys()
+    {
+        engine = new DefaultExpressionEngine(
+                DefaultExpressionEngineSymbols.DEFAULT_SYMBOLS);
+        for (int i = 0; i < 10000; i++)
+        {
+            checkKey("tables.table(0).fields.field(" + (i % 5) + ").name("
+                    + (i + 1) + ")", null, 0);
+        }
+        checkKeyValue("tables.table(0).fields.field(1).name", "name",
+                fields[0][1]);
+    }
+
+    /**
+     * Tests that a derived class overriding findNodesForKey() is still
+     * called for each query.
+     */
+    @Test
+    public void testQueryDerivedClass()
+    {
+        final List<String> queriedKeys = new ArrayList<>();
+        engine = new DefaultExpressionEngine(
+                DefaultExpressionEngineSymbols.DEFAULT_SYMBOLS)
+        {
+            @Override
+            protected <T> void findNodesForKey(
+                    final DefaultConfigurationKey.KeyIterator keyPart,
+                    final T node, final Collection<QueryResult<T>> results,
+                    final NodeHandler<T> handler)
+            {
+                queriedKeys.add(keyPart.currentKey());
+                super.findNodesForKey(keyPart, node, results, handler);
+            }
+        };
+        checkKey("tables.table.name", "name", 2);
+        assertFalse("Derived method not called", queriedKeys.isEmpty());
+    }
+
+    /**
+     * Tests the detection of subclasses overriding findNodesForKey().
+     */
+    @Test
+    public void testIsFindNodesOverridden()
+    {
+        final DefaultExpressionEngine plainSubclass =
+                new DefaultExpressionEngine(
+                        DefaultExpressionEngineSymbols.DEFAULT_SYMBOLS)
+                {
+                };
+        final DefaultExpressionEngine indirectSubclass =
+                new OverridingExpressionEngine()
+                {
+                };
+
+        assertFalse("Base class",
+                DefaultExpressionEngine.isFindNodesOverridden(
+                        DefaultExpressionEngine.class));
+        assertFalse("Plain subclass",
+                DefaultExpressionEngine.isFindNodesOverridden(
+                        plainSubclass.getClass()));
+        assertTrue("Overriding subclass",
+                DefaultExpressionEngine.isFindNodesOverridden(
+                        OverridingExpressionEngine.class));
+        assertTrue("Indirect subclass",
+                DefaultExpressionEngine.isFindNodesOverridden(
+                        indirectSubclass.getClass()));
+    }
+
     /**
      * Helper method for testing a query for the root node.
      *
@@ -826,4 +918,26 @@ public class TestDefaultExpressionEngine
     {
         return new ImmutableNode.Builder().name(name).value(value).create();
     }
+
+    /**
+     * A test expression engine class which overrides the method for finding
+     * the nodes for a key.
+     */
+    private static class OverridingExpressionEngine extends
+            DefaultExpressionEngine
+    {
+        public OverridingExpressionEngine()
+        {
+            super(DefaultExpressionEngineSymbols.DEFAULT_SYMBOLS);
+        }
+
+        @Override
+        protected <T> void findNodesForKey(
+                final DefaultConfigurationKey.KeyIterator keyPart,
+                final T node, final Collection<QueryResult<T>> results,
+                final NodeHandler<T> handler)
+        {
+            super.findNodesForKey(keyPart, node, results, handler);
+        }
+    }
 }
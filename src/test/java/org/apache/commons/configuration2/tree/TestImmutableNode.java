@@ -17,6 +17,7 @@
 package org.apache.commons.configuration2.tree;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
@@ -446,6 +447,121 @@ public class TestImmutableNode
         assertTrue(node2.getChildren("NotFound").isEmpty());
     }
 
+    /**
+     * Creates a node with children of different names for tests of the index
+     * of child nodes.
+     *
+     * @return the test node
+     */
+    private static ImmutableNode createNodeWithNamedChildren()
+    {
+        final ImmutableNode.Builder builder = new ImmutableNode.Builder();
+        for (int i = 0; i < 10; i++)
+        {
+            builder.addChild(new ImmutableNode.Builder().name("child" + (i % 3))
+                    .value(i).create());
+        }
+        return builder.name(NAME).create();
+    }
+
+    /**
+     * Checks whether the children with the given name are returned in the
+     * correct order.
+     *
+     * @param node the parent node
+     * @param name the name of the children
+     */
+    private static void checkChildrenByName(final ImmutableNode node,
+            final String name)
+    {
+        final List<ImmutableNode> expected = new ArrayList<>();
+        for (final ImmutableNode child : node.getChildren())
+        {
+            if (name.equals(child.getNodeName()))
+            {
+                expected.add(child);
+            }
+        }
+        assertEquals("Wrong children for " + name, expected,
+                node.getChildren(name));
+    }
+
+    /**
+     * Tests that modifying the list of children with a given name does not
+     * affect the node.
+     */
+    @Test
+    public void testGetChildrenByNameModify()
+    {
+        final ImmutableNode node = createNodeWithNamedChildren();
+        node.getChildren("child1").clear();
+        checkChildrenByName(node, "child1");
+        assertFalse("No children", node.getChildren("child1").isEmpty());
+    }
+
+    /**
+     * Tests that the list of children with a given name returned by a node
+     * handler cannot be modified.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetChildrenByNameFromHandlerModify()
+    {
+        final ImmutableNode node = createNodeWithNamedChildren();
+        new InMemoryNodeModel(node).getNodeHandler().getChildren(node, "child1")
+                .clear();
+    }
+
+    /**
+     * Tests that the named children of multiple names are found.
+     */
+    @Test
+    public void testGetChildrenByNameMultipleNames()
+    {
+        final ImmutableNode node = createNodeWithNamedChildren();
+        checkChildrenByName(node, "child0");
+        checkChildrenByName(node, "child1");
+        checkChildrenByName(node, "child2");
+        assertEquals("Wrong number of children", 4,
+                node.getChildren("child0").size());
+    }
+
+    /**
+     * Tests that the index of child nodes is kept consistent if children are
+     * added, removed, or replaced.
+     */
+    @Test
+    public void testGetChildrenByNameAfterUpdates()
+    {
+        ImmutableNode node = createNodeWithNamedChildren();
+        checkChildrenByName(node, "child1");
+        node = node.addChild(new ImmutableNode.Builder().name("child1")
+                .value("new").create());
+        checkChildrenByName(node, "child1");
+        assertEquals("Child not added", 4, node.getChildren("child1").size());
+
+        final ImmutableNode oldChild = node.getChildren("child1").get(1);
+        node = node.replaceChild(oldChild, new ImmutableNode.Builder()
+                .name("child1").value("replaced").create());
+        checkChildrenByName(node, "child1");
+        assertEquals("Child not replaced", "replaced",
+                node.getChildren("child1").get(1).getValue());
+
+        node = node.replaceChild(node.getChildren("child1").get(0),
+                new ImmutableNode.Builder().name("child2").create());
+        checkChildrenByName(node, "child1");
+        checkChildrenByName(node, "child2");
+
+        node = node.removeChild(node.getChildren("child2").get(0));
+        checkChildrenByName(node, "child2");
+        node = node.removeChild(node.getChildren("child0").get(3));
+        checkChildrenByName(node, "child0");
+        node = node.setValue("newValue").setName("newName")
+                .setAttribute(ATTR, ATTR_VALUE);
+        checkChildrenByName(node, "child0");
+        checkChildrenByName(node, "child1");
+        checkChildrenByName(node, "child2");
+    }
+
     /**
      * Tests whether a new null child node is rejected.
      */
@@ -649,6 +765,59 @@ public class TestImmutableNode
         assertSame("Got different instance", node, node.removeAttribute(ATTR));
     }
 
+    /**
+     * Tests whether an attribute with a null value can be removed.
+     */
+    @Test
+    public void testRemoveAttributeNullValue()
+    {
+        final ImmutableNode node = createDefaultNode(VALUE).setAttribute(ATTR,
+                null);
+        final ImmutableNode node2 = node.removeAttribute(ATTR);
+        assertFalse("Attribute not removed",
+                node2.getAttributes().containsKey(ATTR));
+    }
+
+    /**
+     * Tests updates of a node with many attributes. The original node must
+     * not be affected.
+     */
+    @Test
+    public void testManyAttributes()
+    {
+        final ImmutableNode.Builder builder = setUpBuilder();
+        final Map<String, Object> attrs = new HashMap<>();
+        for (int i = 0; i < 100; i++)
+        {
+            attrs.put(ATTR + i, i);
+        }
+        final ImmutableNode node = builder.addAttributes(attrs).create();
+        final ImmutableNode node2 =
+                node.setAttribute(ATTR + "0", VALUE).removeAttribute(ATTR + "1")
+                        .setAttribute(ATTR, ATTR_VALUE);
+
+        checkAttributes(node, attrs);
+        final Map<String, Object> newAttrs = new HashMap<>(attrs);
+        newAttrs.put(ATTR + "0", VALUE);
+        newAttrs.remove(ATTR + "1");
+        newAttrs.put(ATTR, ATTR_VALUE);
+        checkAttributes(node2, newAttrs);
+    }
+
+    /**
+     * Tests that the attributes of another node passed to a builder are
+     * shared rather than copied.
+     */
+    @Test
+    public void testBuilderSharesAttributes()
+    {
+        final ImmutableNode node = createDefaultNode(VALUE);
+        final ImmutableNode node2 = new ImmutableNode.Builder().name("other")
+                .addAttributes(node.getAttributes()).create();
+        assertSame("Attributes not shared", node.getAttributes(),
+                node2.getAttributes());
+    }
+
     /**
      * Tests whether all children can be replaced at once.
      */
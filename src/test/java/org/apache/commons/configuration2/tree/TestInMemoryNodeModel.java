@@ -43,6 +43,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.commons.configuration2.BaseHierarchicalConfiguration;
 import org.easymock.EasyMock;
 import org.easymock.IAnswer;
 import org.junit.Test;
@@ -634,6 +635,50 @@ public class TestInMemoryNodeModel
                 replacementMapping.size() < numberOfOperations);
     }
 
+    /**
+     * Tests whether the parent mapping is still correct after the replacement
+     * mapping has been compacted multiple times. Updates are performed on
+     * different places of the node structure.
+     */
+    @Test
+    public void testCompactReplacementMappingParentsValid()
+    {
+        final BaseHierarchicalConfiguration config =
+                new BaseHierarchicalConfiguration();
+        for (int i = 0; i < 1000; i++)
+        {
+            config.addProperty("level" + (i % 7) + ".sub" + (i % 13) + ".key",
+                    i);
+            if (i % 5 == 0)
+            {
+                config.clearTree("level" + (i % 7) + ".sub" + (i % 11));
+            }
+            if (i % 3 == 0)
+            {
+                config.setProperty("level" + (i % 7) + ".sub" + (i % 13)
+                        + ".key(0)", "changed" + i);
+            }
+        }
+
+        final InMemoryNodeModel model = config.getNodeModel();
+        final NodeHandler<ImmutableNode> handler = model.getNodeHandler();
+        final List<ImmutableNode> pending = new ArrayList<>();
+        pending.add(model.getRootNode());
+        int count = 0;
+        while (!pending.isEmpty())
+        {
+            final ImmutableNode node = pending.remove(pending.size() - 1);
+            for (final ImmutableNode child : node.getChildren())
+            {
+                assertSame("Wrong parent for " + child.getNodeName(), node,
+                        handler.getParent(child));
+                pending.add(child);
+                count++;
+            }
+        }
+        assertTrue("No nodes checked", count > 0);
+    }
+
     /**
      * Tests whether concurrent updates of the model are handled correctly. This
      * test adds a number of authors in parallel. Then it is checked whether all
@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration2.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@code PersistentHashMap}.
+ *
+ * @version $Id$
+ */
+public class TestPersistentHashMap
+{
+    /**
+     * Tests the properties of an empty map.
+     */
+    @Test
+    public void testEmpty()
+    {
+        final PersistentHashMap<String, String> map = PersistentHashMap.empty();
+        assertTrue("Not empty", map.isEmpty());
+        assertEquals("Wrong size", 0, map.size());
+        assertNull("Got a value", map.get("key"));
+    }
+
+    /**
+     * Tests that updates do not affect the original map.
+     */
+    @Test
+    public void testPutRemoveOriginalUnchanged()
+    {
+        final PersistentHashMap<String, String> map1 =
+                PersistentHashMap.<String, String> empty().put("a", "1");
+        final PersistentHashMap<String, String> map2 = map1.put("b", "2");
+        final PersistentHashMap<String, String> map3 =
+                map2.put("a", "3").remove("b");
+
+        assertEquals("Wrong size 1", 1, map1.size());
+        assertNull("Key in original map", map1.get("b"));
+        assertEquals("Wrong size 2", 2, map2.size());
+        assertEquals("Wrong value 2", "1", map2.get("a"));
+        assertEquals("Wrong size 3", 1, map3.size());
+        assertEquals("Wrong value 3", "3", map3.get("a"));
+        assertNull("Key not removed", map3.get("b"));
+    }
+
+    /**
+     * Tests that a map is returned unchanged if an update has no effect.
+     */
+    @Test
+    public void testUpdateWithoutEffect()
+    {
+        final PersistentHashMap<String, String> map =
+                PersistentHashMap.<String, String> empty().put("a", "1");
+        assertSame("Changed by remove", map, map.remove("b"));
+        assertSame("Changed by put", map, map.put("a", "1"));
+    }
+
+    /**
+     * Tests a map whose keys have colliding hash codes.
+     */
+    @Test
+    public void testHashCollisions()
+    {
+        PersistentHashMap<CollidingKey, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 10; i++)
+        {
+            map = map.put(new CollidingKey(i), i);
+        }
+        map = map.put(new CollidingKey(3), 42);
+        map = map.remove(new CollidingKey(5));
+        map = map.put(new CollidingKey(100), 100);
+
+        assertEquals("Wrong size", 10, map.size());
+        assertEquals("Wrong value for other hash", Integer.valueOf(100),
+                map.get(new CollidingKey(100)));
+        assertEquals("Wrong replaced value", Integer.valueOf(42),
+                map.get(new CollidingKey(3)));
+        assertNull("Key not removed", map.get(new CollidingKey(5)));
+        assertEquals("Wrong value", Integer.valueOf(7),
+                map.get(new CollidingKey(7)));
+    }
+
+    /**
+     * Tests that an editor cannot be used after the map was created.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testEditorAfterCreate()
+    {
+        final PersistentHashMap.Editor<String, String> editor =
+                PersistentHashMap.<String, String> empty().edit();
+        editor.create();
+        editor.put("key", "value");
+    }
+
+    /**
+     * Tests whether all entries of a map can be iterated over, including the
+     * ones stored in collision nodes.
+     */
+    @Test
+    public void testIterator()
+    {
+        final Map<CollidingKey, Integer> expected = new HashMap<>();
+        final PersistentHashMap.Editor<CollidingKey, Integer> editor =
+                PersistentHashMap.<CollidingKey, Integer> empty().edit();
+        for (int i = 0; i < 5; i++)
+        {
+            editor.put(new CollidingKey(i), i);
+            expected.put(new CollidingKey(i), i);
+            editor.put(new CollidingKey(100 + i), i);
+            expected.put(new CollidingKey(100 + i), i);
+        }
+        final PersistentHashMap<CollidingKey, Integer> map = editor.create();
+
+        final Map<CollidingKey, Integer> actual = new HashMap<>();
+        for (final Iterator<Map.Entry<CollidingKey, Integer>> it =
+                map.iterator(); it.hasNext();)
+        {
+            final Map.Entry<CollidingKey, Integer> e = it.next();
+            assertNull("Duplicate key", actual.put(e.getKey(), e.getValue()));
+        }
+        assertEquals("Wrong entries", expected, actual);
+    }
+
+    /**
+     * Tests the iterator of an empty map.
+     */
+    @Test(expected = NoSuchElementException.class)
+    public void testIteratorEmpty()
+    {
+        final Iterator<Map.Entry<String, String>> it =
+                PersistentHashMap.<String, String> empty().iterator();
+        assertFalse("Got elements", it.hasNext());
+        it.next();
+    }
+
+    /**
+     * Performs a larger number of random updates and compares the results
+     * with a standard hash map. Older versions of the map must not be
+     * affected.
+     */
+    @Test
+    public void testRandomUpdates()
+    {
+        final Random random = new Random(20181015);
+        final Map<Integer, Integer> expected = new HashMap<>();
+        PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+        PersistentHashMap<Integer, Integer> snapshot = map;
+        Map<Integer, Integer> expectedSnapshot = new HashMap<>();
+
+        for (int round = 0; round < 100; round++)
+        {
+            final PersistentHashMap.Editor<Integer, Integer> editor = map.edit();
+            for (int i = 0; i < 200; i++)
+            {
+                final Integer key = random.nextInt(5000);
+                if (random.nextInt(3) == 0)
+                {
+                    editor.remove(key);
+                    expected.remove(key);
+                }
+                else
+                {
+                    editor.put(key, i);
+                    expected.put(key, i);
+                }
+            }
+            map = editor.create();
+            checkContent(map, expected);
+            checkIteration(map, expected);
+            if (round % 10 == 0)
+            {
+                checkContent(snapshot, expectedSnapshot);
+                snapshot = map;
+                expectedSnapshot = new HashMap<>(expected);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the given map has the expected content.
+     *
+     * @param map the map to check
+     * @param expected the expected content
+     */
+    private static void checkContent(final PersistentHashMap<Integer, Integer> map,
+            final Map<Integer, Integer> expected)
+    {
+        assertEquals("Wrong size", expected.size(), map.size());
+        for (int i = 0; i < 5000; i++)
+        {
+            assertEquals("Wrong value for " + i, expected.get(i), map.get(i));
+        }
+    }
+
+    /**
+     * Checks whether iteration over the given map yields the expected
+     * entries.
+     *
+     * @param map the map to check
+     * @param expected the expected content
+     */
+    private static void checkIteration(final PersistentHashMap<Integer, Integer> map,
+            final Map<Integer, Integer> expected)
+    {
+        final Map<Integer, Integer> actual = new HashMap<>();
+        for (final Iterator<Map.Entry<Integer, Integer>> it = map.iterator(); it
+                .hasNext();)
+        {
+            final Map.Entry<Integer, Integer> e = it.next();
+            actual.put(e.getKey(), e.getValue());
+        }
+        assertEquals("Wrong iterated entries", expected, actual);
+    }
+
+    /**
+     * A test key class whose instances have the same hash code if their IDs
+     * are less than 100. Other IDs have a hash code that falls into the same
+     * slot on the first level of the trie.
+     */
+    private static class CollidingKey
+    {
+        /** The ID of this key. */
+        private final int id;
+
+        public CollidingKey(final int id)
+        {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (id < 100) ? 1 : 33;
+        }
+
+        @Override
+        public boolean equals(final Object obj)
+        {
+            return obj instanceof CollidingKey && ((CollidingKey) obj).id == id;
+        }
+    }
+}